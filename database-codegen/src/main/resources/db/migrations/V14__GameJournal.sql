@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+-- append only journal of the transitions of running games, used to resume them after a restart or crash
+-- entries of a game are removed once it has ended
+CREATE TABLE game_journal
+(
+    entry_id   BIGSERIAL   NOT NULL,
+    channel_id BIGINT      NOT NULL,
+    entry_type TEXT        NOT NULL,
+    payload    TEXT        NOT NULL,
+    created    timestamptz NOT NULL DEFAULT now(),
+    CONSTRAINT game_journal_pkey PRIMARY KEY (entry_id)
+);
+
+CREATE INDEX game_journal_channel_id_entry_id_idx ON game_journal (channel_id, entry_id);
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+-- actions of running games, streamed in while the games run and moved into stats_action once the game has been
+-- recorded. until then a game is identified by its channel and start time, since it doesn't have a game id yet
+CREATE TABLE stats_action_pending
+(
+    channel_id      BIGINT NOT NULL,
+    game_start      BIGINT NOT NULL,
+    action_type     TEXT   NOT NULL,
+    actor           BIGINT NOT NULL,
+    cycle           INTEGER NOT NULL,
+    sequence        INTEGER NOT NULL,
+    target          BIGINT NOT NULL,
+    happened        BIGINT NOT NULL,
+    submitted       BIGINT NOT NULL,
+    phase           TEXT   NOT NULL,
+    additional_info TEXT,
+    CONSTRAINT stats_action_pending_pkey PRIMARY KEY (channel_id, game_start, sequence)
+);
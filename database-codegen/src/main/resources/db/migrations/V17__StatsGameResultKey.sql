@@ -0,0 +1,23 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+-- games are recorded from the outbox of game results, which may deliver the same result more than once.
+-- the key of the result makes recording it again a no-op. games recorded before the outbox don't have one
+ALTER TABLE stats_game
+    ADD COLUMN result_key TEXT;
+
+CREATE UNIQUE INDEX stats_game_result_key_idx ON stats_game (result_key);
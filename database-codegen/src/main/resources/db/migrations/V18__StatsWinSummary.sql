@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+-- win stats summed up per guild and player size, and per player size over all guilds, so that reading the bot and
+-- guild stats does not depend on the amount of recorded games. kept up to date whenever a game is recorded
+CREATE TABLE stats_guild_win_summary
+(
+    guild_id        BIGINT  NOT NULL,
+    player_size     INTEGER NOT NULL,
+    game_count      BIGINT  NOT NULL,
+    player_size_sum BIGINT  NOT NULL,
+    goodie_wins     BIGINT  NOT NULL,
+    baddie_wins     BIGINT  NOT NULL,
+    CONSTRAINT stats_guild_win_summary_pkey PRIMARY KEY (guild_id, player_size)
+);
+
+CREATE TABLE stats_win_summary
+(
+    player_size     INTEGER NOT NULL,
+    game_count      BIGINT  NOT NULL,
+    player_size_sum BIGINT  NOT NULL,
+    goodie_wins     BIGINT  NOT NULL,
+    baddie_wins     BIGINT  NOT NULL,
+    CONSTRAINT stats_win_summary_pkey PRIMARY KEY (player_size)
+);
+
+-- backfill from the games recorded so far
+INSERT INTO stats_guild_win_summary (guild_id, player_size, game_count, player_size_sum, goodie_wins, baddie_wins)
+SELECT g.guild_id,
+       g.player_size,
+       count(*),
+       sum(g.player_size),
+       coalesce(sum(w.goodie_wins), 0),
+       coalesce(sum(w.baddie_wins), 0)
+FROM stats_game g
+         LEFT JOIN (SELECT game_id,
+                           count(*) FILTER (WHERE alignment = 'VILLAGE') AS goodie_wins,
+                           count(*) FILTER (WHERE alignment = 'WOLF')    AS baddie_wins
+                    FROM stats_team
+                    WHERE is_winner
+                    GROUP BY game_id) w ON w.game_id = g.game_id
+GROUP BY g.guild_id, g.player_size;
+
+INSERT INTO stats_win_summary (player_size, game_count, player_size_sum, goodie_wins, baddie_wins)
+SELECT player_size, sum(game_count), sum(player_size_sum), sum(goodie_wins), sum(baddie_wins)
+FROM stats_guild_win_summary
+GROUP BY player_size;
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+-- indexes for the columns the stats queries filter and join on. created concurrently so that writes to the stats
+-- tables are not blocked while they are built, which means flyway runs this migration outside of a transaction.
+-- a concurrent build that fails leaves an invalid index behind, which is dropped when the migration is retried
+DROP INDEX CONCURRENTLY IF EXISTS stats_player_user_id_idx;
+CREATE INDEX CONCURRENTLY stats_player_user_id_idx ON stats_player (user_id);
+DROP INDEX CONCURRENTLY IF EXISTS stats_player_team_id_idx;
+CREATE INDEX CONCURRENTLY stats_player_team_id_idx ON stats_player (team_id);
+DROP INDEX CONCURRENTLY IF EXISTS stats_team_game_id_idx;
+CREATE INDEX CONCURRENTLY stats_team_game_id_idx ON stats_team (game_id);
+DROP INDEX CONCURRENTLY IF EXISTS stats_action_game_id_idx;
+CREATE INDEX CONCURRENTLY stats_action_game_id_idx ON stats_action (game_id);
+DROP INDEX CONCURRENTLY IF EXISTS stats_action_actor_idx;
+CREATE INDEX CONCURRENTLY stats_action_actor_idx ON stats_action (actor);
+DROP INDEX CONCURRENTLY IF EXISTS stats_action_action_type_actor_idx;
+CREATE INDEX CONCURRENTLY stats_action_action_type_actor_idx ON stats_action (action_type, actor);
+DROP INDEX CONCURRENTLY IF EXISTS stats_game_guild_id_idx;
+CREATE INDEX CONCURRENTLY stats_game_guild_id_idx ON stats_game (guild_id);
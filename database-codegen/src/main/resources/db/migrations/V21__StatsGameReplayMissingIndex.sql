@@ -0,0 +1,22 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+-- lets the replay backfill find the games that still need to be encoded. separate from the migration adding the
+-- column, since creating an index concurrently has to happen outside of a transaction. a failed build leaves an
+-- invalid index behind, which is dropped when the migration is retried
+DROP INDEX CONCURRENTLY IF EXISTS stats_game_replay_missing_idx;
+CREATE INDEX CONCURRENTLY stats_game_replay_missing_idx ON stats_game (game_id) WHERE replay IS NULL;
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+-- games, wins and shots summed up per user and guild, and per user over all guilds, for the leaderboards. kept up to
+-- date whenever a game is recorded, the indexes serve the top entries of each leaderboard in their order
+CREATE TABLE stats_guild_user_summary
+(
+    guild_id        BIGINT NOT NULL,
+    user_id         BIGINT NOT NULL,
+    game_count      BIGINT NOT NULL,
+    wins            BIGINT NOT NULL,
+    baddie_games    BIGINT NOT NULL,
+    baddie_wins     BIGINT NOT NULL,
+    shots           BIGINT NOT NULL,
+    wolves_shot     BIGINT NOT NULL,
+    -- rates are only ranked once they are based on a few games or shots, see Leaderboard.MINIMUM_SAMPLE
+    baddie_win_rate DOUBLE PRECISION GENERATED ALWAYS AS (
+        CASE WHEN baddie_games >= 5 THEN baddie_wins::DOUBLE PRECISION / baddie_games END) STORED,
+    shot_accuracy   DOUBLE PRECISION GENERATED ALWAYS AS (
+        CASE WHEN shots >= 5 THEN wolves_shot::DOUBLE PRECISION / shots END) STORED,
+    CONSTRAINT stats_guild_user_summary_pkey PRIMARY KEY (guild_id, user_id)
+);
+
+CREATE INDEX stats_guild_user_summary_wins_idx ON stats_guild_user_summary (guild_id, wins DESC, user_id);
+CREATE INDEX stats_guild_user_summary_baddie_win_rate_idx ON stats_guild_user_summary (guild_id, baddie_win_rate DESC, user_id)
+    WHERE baddie_win_rate IS NOT NULL;
+CREATE INDEX stats_guild_user_summary_shot_accuracy_idx ON stats_guild_user_summary (guild_id, shot_accuracy DESC, user_id)
+    WHERE shot_accuracy IS NOT NULL;
+
+CREATE TABLE stats_user_summary
+(
+    user_id         BIGINT NOT NULL,
+    game_count      BIGINT NOT NULL,
+    wins            BIGINT NOT NULL,
+    baddie_games    BIGINT NOT NULL,
+    baddie_wins     BIGINT NOT NULL,
+    shots           BIGINT NOT NULL,
+    wolves_shot     BIGINT NOT NULL,
+    baddie_win_rate DOUBLE PRECISION GENERATED ALWAYS AS (
+        CASE WHEN baddie_games >= 5 THEN baddie_wins::DOUBLE PRECISION / baddie_games END) STORED,
+    shot_accuracy   DOUBLE PRECISION GENERATED ALWAYS AS (
+        CASE WHEN shots >= 5 THEN wolves_shot::DOUBLE PRECISION / shots END) STORED,
+    CONSTRAINT stats_user_summary_pkey PRIMARY KEY (user_id)
+);
+
+CREATE INDEX stats_user_summary_wins_idx ON stats_user_summary (wins DESC, user_id);
+CREATE INDEX stats_user_summary_baddie_win_rate_idx ON stats_user_summary (baddie_win_rate DESC, user_id)
+    WHERE baddie_win_rate IS NOT NULL;
+CREATE INDEX stats_user_summary_shot_accuracy_idx ON stats_user_summary (shot_accuracy DESC, user_id)
+    WHERE shot_accuracy IS NOT NULL;
+
+-- backfill from the games recorded so far. a shot counts if its target played in the game, with the alignment they had
+-- in that game, the same as in the user stats. users who had their personal data deleted are not ranked
+INSERT INTO stats_guild_user_summary (guild_id, user_id, game_count, wins, baddie_games, baddie_wins, shots, wolves_shot)
+SELECT g.guild_id,
+       p.user_id,
+       count(*),
+       count(*) FILTER (WHERE t.is_winner),
+       count(*) FILTER (WHERE p.alignment = 'WOLF'),
+       count(*) FILTER (WHERE p.alignment = 'WOLF' AND t.is_winner),
+       coalesce(sum(s.shots), 0),
+       coalesce(sum(s.wolves_shot), 0)
+FROM stats_player p
+         JOIN stats_team t ON t.team_id = p.team_id
+         JOIN stats_game g ON g.game_id = t.game_id
+         LEFT JOIN (SELECT a.game_id,
+                           a.actor,
+                           count(*)                                          AS shots,
+                           count(*) FILTER (WHERE target.alignment = 'WOLF') AS wolves_shot
+                    FROM stats_action a
+                             JOIN stats_team target_team ON target_team.game_id = a.game_id
+                             JOIN stats_player target
+                                  ON target.team_id = target_team.team_id AND target.user_id = a.target
+                    WHERE a.action_type = 'SHOOT'
+                    GROUP BY a.game_id, a.actor) s ON s.game_id = g.game_id AND s.actor = p.user_id
+WHERE p.user_id NOT IN (SELECT user_id FROM discord_user WHERE NOT process_data)
+GROUP BY g.guild_id, p.user_id;
+
+INSERT INTO stats_user_summary (user_id, game_count, wins, baddie_games, baddie_wins, shots, wolves_shot)
+SELECT user_id, sum(game_count), sum(wins), sum(baddie_games), sum(baddie_wins), sum(shots), sum(wolves_shot)
+FROM stats_guild_user_summary
+GROUP BY user_id;
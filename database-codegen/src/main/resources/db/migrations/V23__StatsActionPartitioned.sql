@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+-- stats_action is by far the largest stats table, and rows are only ever added to it. partitioned by ranges of game
+-- ids, inserts and the queries for single games only touch one partition, and the partitions of older games are not
+-- written to anymore, so that vacuuming them stops once they are frozen. partitions are named after their range,
+-- stats_action_<game_id / 10000000>, the ones for upcoming ranges are created by StatsActionPartitions
+ALTER TABLE stats_action RENAME TO stats_action_unpartitioned;
+ALTER TABLE stats_action_unpartitioned DROP CONSTRAINT stats_action_game_id_fkey;
+ALTER TABLE stats_action_unpartitioned DROP CONSTRAINT stats_action_pkey;
+-- covered by the new primary key
+DROP INDEX IF EXISTS stats_action_game_id_idx;
+ALTER INDEX IF EXISTS stats_action_actor_idx RENAME TO stats_action_unpartitioned_actor_idx;
+ALTER INDEX IF EXISTS stats_action_action_type_actor_idx RENAME TO stats_action_unpartitioned_action_type_actor_idx;
+
+CREATE TABLE stats_action
+(
+    action_id       BIGINT  NOT NULL DEFAULT nextval('stats_id_seq'::regclass),
+    action_type     TEXT    NOT NULL,
+    actor           BIGINT  NOT NULL,
+    cycle           INTEGER NOT NULL,
+    sequence        INTEGER NOT NULL,
+    target          BIGINT  NOT NULL,
+    happened        BIGINT  NOT NULL,
+    submitted       BIGINT  NOT NULL,
+    game_id         BIGINT  NOT NULL,
+    phase           TEXT    NOT NULL,
+    additional_info TEXT,
+    -- the partition key has to be part of the primary key
+    CONSTRAINT stats_action_pkey PRIMARY KEY (game_id, action_id),
+    CONSTRAINT stats_action_game_id_fkey FOREIGN KEY (game_id) REFERENCES stats_game (game_id)
+) PARTITION BY RANGE (game_id);
+
+CREATE INDEX stats_action_actor_idx ON stats_action (actor);
+CREATE INDEX stats_action_action_type_actor_idx ON stats_action (action_type, actor);
+
+-- the existing actions become the partition of all game ids up to the end of the range the stats id sequence is in,
+-- and the next range gets its partition right away. attaching builds the indexes of the parent on the existing table
+DO
+$$
+    DECLARE
+        partition_size CONSTANT BIGINT := 10000000;
+        current_range           BIGINT := (SELECT last_value FROM stats_id_seq) / partition_size;
+    BEGIN
+        EXECUTE format('ALTER TABLE stats_action_unpartitioned RENAME TO %I',
+                       'stats_action_' || current_range);
+        EXECUTE format('ALTER TABLE stats_action ATTACH PARTITION %I FOR VALUES FROM (MINVALUE) TO (%s)',
+                       'stats_action_' || current_range, (current_range + 1) * partition_size);
+        EXECUTE format('CREATE TABLE %I PARTITION OF stats_action FOR VALUES FROM (%s) TO (%s)',
+                       'stats_action_' || (current_range + 1), (current_range + 1) * partition_size,
+                       (current_range + 2) * partition_size);
+    END
+$$;
+
+-- catches the actions of games whose range has no partition yet, in case creating the partitions ahead falls behind.
+-- StatsActionPartitions moves them into their partition once it is created
+CREATE TABLE stats_action_default PARTITION OF stats_action DEFAULT;
+
+-- the partitions of stats_action that have been archived by StatsActionPartitions, by the range of game ids they hold
+CREATE TABLE stats_action_archive
+(
+    partition_range BIGINT NOT NULL,
+    archived        BIGINT NOT NULL,
+    CONSTRAINT stats_action_archive_pkey PRIMARY KEY (partition_range)
+);
@@ -23,12 +23,14 @@
 import space.npstr.wolfia.config.properties.WolfiaConfig;
 import space.npstr.wolfia.db.Database;
 import space.npstr.wolfia.domain.UserCache;
+import space.npstr.wolfia.domain.game.GameJournal;
 import space.npstr.wolfia.domain.game.GameRegistry;
 import space.npstr.wolfia.domain.oauth2.OAuth2Service;
 import space.npstr.wolfia.domain.room.PrivateRoomQueue;
 import space.npstr.wolfia.domain.settings.ChannelSettingsService;
 import space.npstr.wolfia.domain.stats.StatsService;
 import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+import space.npstr.wolfia.system.EntityResolver;
 
 /**
  * Temporary uber class that allows resources that were previously accessed statically to continue to be accessed
@@ -50,11 +52,14 @@ public class BotContext {
     private final StatsService statsService;
     private final GameRegistry gameRegistry;
     private final OAuth2Service oAuth2Service;
+    private final GameJournal gameJournal;
+    private final EntityResolver entityResolver;
 
     public BotContext(final Database database, final WolfiaConfig wolfiaConfig, final ListingsConfig listingsConfig,
                       PrivateRoomQueue privateRoomQueue, ExceptionLoggingExecutor executor,
                       ShardManager shardManager, ChannelSettingsService channelSettingsService, UserCache userCache,
-                      StatsService statsService, GameRegistry gameRegistry, OAuth2Service oAuth2Service) {
+                      StatsService statsService, GameRegistry gameRegistry, OAuth2Service oAuth2Service,
+                      GameJournal gameJournal, EntityResolver entityResolver) {
 
         this.database = database;
         this.wolfiaConfig = wolfiaConfig;
@@ -67,6 +72,8 @@ public BotContext(final Database database, final WolfiaConfig wolfiaConfig, fina
         this.statsService = statsService;
         this.gameRegistry = gameRegistry;
         this.oAuth2Service = oAuth2Service;
+        this.gameJournal = gameJournal;
+        this.entityResolver = entityResolver;
     }
 
     public Database getDatabase() {
@@ -112,4 +119,12 @@ public GameRegistry getGameRegistry() {
     public OAuth2Service getoAuth2Service() {
         return this.oAuth2Service;
     }
+
+    public GameJournal getGameJournal() {
+        return this.gameJournal;
+    }
+
+    public EntityResolver getEntityResolver() {
+        return this.entityResolver;
+    }
 }
@@ -31,8 +31,10 @@
 import space.npstr.wolfia.config.ShardManagerFactory;
 import space.npstr.wolfia.db.AsyncDbWrapper;
 import space.npstr.wolfia.db.Database;
+import space.npstr.wolfia.domain.game.GameJournal;
 import space.npstr.wolfia.domain.game.GameRegistry;
 import space.npstr.wolfia.events.BotStatusLogger;
+import space.npstr.wolfia.game.Game;
 import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
 import space.npstr.wolfia.system.redis.Redis;
 import space.npstr.wolfia.utils.UserFriendlyException;
@@ -52,6 +54,7 @@ public class ShutdownHandler implements ApplicationListener<ContextClosedEvent>
     private final AsyncDbWrapper dbWrapper;
     private final ShardManagerFactory shardManagerFactory;
     private final GameRegistry gameRegistry;
+    private final GameJournal gameJournal;
     private final Redis redis;
     private final ScheduledExecutorService jdaThreadPool;
 
@@ -59,13 +62,15 @@ public class ShutdownHandler implements ApplicationListener<ContextClosedEvent>
 
     public ShutdownHandler(BotStatusLogger botStatusLogger, ExceptionLoggingExecutor executor, Database database,
                            AsyncDbWrapper dbWrapper, ShardManagerFactory shardManagerFactory, GameRegistry gameRegistry,
-                           Redis redis, @Qualifier("jdaThreadPool") ScheduledExecutorService jdaThreadPool) {
+                           GameJournal gameJournal, Redis redis,
+                           @Qualifier("jdaThreadPool") ScheduledExecutorService jdaThreadPool) {
         this.botStatusLogger = botStatusLogger;
         this.executor = executor;
         this.database = database;
         this.dbWrapper = dbWrapper;
         this.shardManagerFactory = shardManagerFactory;
         this.gameRegistry = gameRegistry;
+        this.gameJournal = gameJournal;
         this.redis = redis;
         this.jdaThreadPool = jdaThreadPool;
     }
@@ -80,6 +85,23 @@ private void shutdown() {
         String shutdownStart = String.format("Shutdown hook triggered! %d games still ongoing.", gameRegistry.getRunningGamesCount());
         log.info(shutdownStart);
         this.botStatusLogger.log(Emojis.SLEEP, shutdownStart);
+
+        //running games are suspended and resumed from the journal after the restart, as long as the journal is intact
+        if (gameJournal.flush()) {
+            int suspendedGamesCount = gameRegistry.getRunningGamesCount();
+            gameRegistry.getAll().values().forEach(Game::suspend);
+            if (gameJournal.flush()) {
+                log.info("Suspended {} games", suspendedGamesCount);
+                awaitLastBotStatus(String.format("Suspended %d games while exiting", suspendedGamesCount));
+                shutdownResources();
+                return;
+            }
+            log.error("Failed to flush the game journal after suspending {} games, they may not be resumed correctly",
+                    suspendedGamesCount);
+        } else {
+            log.error("Game journal is not writable, waiting for running games to end instead");
+        }
+
         Future<?> waitForGamesToEnd = executor.submit(() -> {
             while (gameRegistry.getRunningGamesCount() > 0) {
                 log.info("Waiting on {} games to finish.", gameRegistry.getRunningGamesCount());
@@ -94,7 +116,6 @@ private void shutdown() {
         try {
             //if this value is changed, make sure to adjust the one in docker-update.sh
             waitForGamesToEnd.get(2, TimeUnit.HOURS); //should be enough until the forseeable future
-            //todo persist games (big changes)
         } catch (InterruptedException e) {
             log.warn("Interrupted while awaiting games to be finished", e);
             Thread.currentThread().interrupt();
@@ -104,20 +125,28 @@ private void shutdown() {
 
         int runningGamesCount = gameRegistry.getRunningGamesCount();
         String gamesStopped = String.format("Stopping %d games while exiting", runningGamesCount);
+        awaitLastBotStatus(gamesStopped);
+        if (runningGamesCount > 0) {
+            log.error(gamesStopped);
+            String reason = "Wolfia is shutting down. I'll probably be right back!";
+            gameRegistry.getAll().values().forEach(game -> game.destroy(new UserFriendlyException(reason)));
+        }
+
+        shutdownResources();
+    }
+
+    private void awaitLastBotStatus(String message) {
         try {
             // This is the last bot status message sent.
             // Await its completion, otherwise we risk that the scheduler gets closed before it is done sending.
-            this.botStatusLogger.log(Emojis.STOP, gamesStopped).toCompletableFuture().get(10, TimeUnit.SECONDS);
+            this.botStatusLogger.log(Emojis.STOP, message).toCompletableFuture().get(10, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
             log.warn("Interrupted while awaiting last bot status message to be sent", e);
             Thread.currentThread().interrupt();
         } catch (ExecutionException | TimeoutException ignored) {}
-        if (runningGamesCount > 0) {
-            log.error(gamesStopped);
-            String reason = "Wolfia is shutting down. I'll probably be right back!";
-            gameRegistry.getAll().values().forEach(game -> game.destroy(new UserFriendlyException(reason)));
-        }
+    }
 
+    private void shutdownResources() {
         //okHttpClient claims that a shutdown isn't necessary
 
         //shutdown JDA
@@ -69,8 +69,8 @@ public boolean execute(@Nonnull final CommandContext context) {
             return false;
         }
 
-        final String message = String.format("**%s** games are still running. Will restart as soon as they are over.",
-                this.gameRegistry.getRunningGamesCount());
+        final String message = String.format("**%s** games are still running. They will be suspended and resumed"
+                        + " after the restart.", this.gameRegistry.getRunningGamesCount());
         Runnable restart = () -> this.shutdownHandler.shutdown(ShutdownHandler.EXIT_CODE_RESTART);
         context.replyWithMention(message, __ -> new Thread(restart, "shutdown-thread").start());
         return true;
@@ -47,6 +47,7 @@
 import space.npstr.wolfia.domain.setup.StatusCommand;
 import space.npstr.wolfia.domain.stats.BotStatsCommand;
 import space.npstr.wolfia.domain.stats.GuildStatsCommand;
+import space.npstr.wolfia.domain.stats.LeaderboardCommand;
 import space.npstr.wolfia.domain.stats.ReplayCommand;
 import space.npstr.wolfia.domain.stats.UserStatsCommand;
 
@@ -105,6 +106,7 @@ public boolean execute(@Nonnull final CommandContext context) {
         final String statsCommands = ""
                 + WolfiaConfig.DEFAULT_PREFIX + UserStatsCommand.TRIGGER + "\n"
                 + WolfiaConfig.DEFAULT_PREFIX + GuildStatsCommand.TRIGGER + "\n"
+                + WolfiaConfig.DEFAULT_PREFIX + LeaderboardCommand.TRIGGER + "\n"
                 + WolfiaConfig.DEFAULT_PREFIX + BotStatsCommand.TRIGGER + "\n"
                 ;
 
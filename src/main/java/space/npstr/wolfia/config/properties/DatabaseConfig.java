@@ -17,6 +17,7 @@
 
 package space.npstr.wolfia.config.properties;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -26,6 +27,17 @@ public class DatabaseConfig {
 
     private String jdbcUrl = "";
     private int asyncPoolSize = Runtime.getRuntime().availableProcessors() * 4;
+    private int asyncQueueSize = 1000;
+    private RejectionPolicy asyncRejectionPolicy = RejectionPolicy.ABORT;
+    //more database connections don't help with performance, so use a default value based on available cores
+    //http://www.dailymotion.com/video/x2s8uec_oltp-performance-concurrent-mid-tier-connections_tech
+    private int connections = Math.max(Runtime.getRuntime().availableProcessors(), 4);
+    private Duration statementTimeout = Duration.ofSeconds(10);
+    //the batch workload gets few threads and connections, so it can not crowd out the interactive one
+    private int batchAsyncPoolSize = 2;
+    private int batchAsyncQueueSize = 1000;
+    private int batchConnections = 2;
+    private Duration batchStatementTimeout = Duration.ofMinutes(5);
 
     public String getJdbcUrl() {
         return jdbcUrl;
@@ -42,4 +54,82 @@ public int getAsyncPoolSize() {
     public void setAsyncPoolSize(int asyncPoolSize) {
         this.asyncPoolSize = asyncPoolSize;
     }
+
+    public int getAsyncQueueSize() {
+        return asyncQueueSize;
+    }
+
+    public void setAsyncQueueSize(int asyncQueueSize) {
+        this.asyncQueueSize = asyncQueueSize;
+    }
+
+    public RejectionPolicy getAsyncRejectionPolicy() {
+        return asyncRejectionPolicy;
+    }
+
+    public void setAsyncRejectionPolicy(RejectionPolicy asyncRejectionPolicy) {
+        this.asyncRejectionPolicy = asyncRejectionPolicy;
+    }
+
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    public Duration getStatementTimeout() {
+        return statementTimeout;
+    }
+
+    public void setStatementTimeout(Duration statementTimeout) {
+        this.statementTimeout = statementTimeout;
+    }
+
+    public int getBatchAsyncPoolSize() {
+        return batchAsyncPoolSize;
+    }
+
+    public void setBatchAsyncPoolSize(int batchAsyncPoolSize) {
+        this.batchAsyncPoolSize = batchAsyncPoolSize;
+    }
+
+    public int getBatchAsyncQueueSize() {
+        return batchAsyncQueueSize;
+    }
+
+    public void setBatchAsyncQueueSize(int batchAsyncQueueSize) {
+        this.batchAsyncQueueSize = batchAsyncQueueSize;
+    }
+
+    public int getBatchConnections() {
+        return batchConnections;
+    }
+
+    public void setBatchConnections(int batchConnections) {
+        this.batchConnections = batchConnections;
+    }
+
+    public Duration getBatchStatementTimeout() {
+        return batchStatementTimeout;
+    }
+
+    public void setBatchStatementTimeout(Duration batchStatementTimeout) {
+        this.batchStatementTimeout = batchStatementTimeout;
+    }
+
+    /**
+     * What to do with database operations when the queue of the async pool is full.
+     */
+    public enum RejectionPolicy {
+        /**
+         * Fail the operation right away.
+         */
+        ABORT,
+        /**
+         * Run the operation on the calling thread, which slows down whoever is producing the load.
+         */
+        CALLER_RUNS,
+    }
 }
@@ -17,52 +17,125 @@
 
 package space.npstr.wolfia.db;
 
+import io.prometheus.client.Histogram;
 import org.jooq.DSLContext;
 import org.springframework.stereotype.Component;
 import space.npstr.prometheus_extensions.ThreadPoolCollector;
 import space.npstr.wolfia.common.Exceptions;
 import space.npstr.wolfia.config.properties.DatabaseConfig;
+import space.npstr.wolfia.system.metrics.MetricsRegistry;
 
 import javax.annotation.CheckReturnValue;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 /**
  * JDBC is blocking at its core. This class wraps calls to it into a thread pool.
+ * <p>
+ * Each {@link Workload} has its own pool, so a pile up of batch work does not delay interactive operations. The queues
+ * of the pools are bounded, so a pile up of database work fails fast (or slows down the callers, depending on the
+ * configured {@link DatabaseConfig.RejectionPolicy}) instead of growing in memory.
  */
 @Component
 public class AsyncDbWrapper {
 
     private final Database database;
-    private final ScheduledThreadPoolExecutor executor;
+    private final Map<Workload, ThreadPoolExecutor> executors = new EnumMap<>(Workload.class);
+    private final Map<Workload, Integer> queueSizes = new EnumMap<>(Workload.class);
 
     public AsyncDbWrapper(Database database, DatabaseConfig databaseConfig, ThreadPoolCollector threadPoolMetrics) {
         this.database = database;
-        final var threadCounter = new AtomicInteger();
-        this.executor = new ScheduledThreadPoolExecutor(databaseConfig.getAsyncPoolSize(),
-                r -> {
-                    Thread t = new Thread(r, "database-executor-t" + threadCounter.getAndIncrement());
-                    t.setUncaughtExceptionHandler(Exceptions.UNCAUGHT_EXCEPTION_HANDLER);
-                    return t;
-                });
+        RejectedExecutionHandler rejectionHandler = rejectionHandler(databaseConfig.getAsyncRejectionPolicy());
+        for (Workload workload : Workload.values()) {
+            int poolSize = workload == Workload.BATCH
+                    ? databaseConfig.getBatchAsyncPoolSize()
+                    : databaseConfig.getAsyncPoolSize();
+            int queueSize = workload == Workload.BATCH
+                    ? databaseConfig.getBatchAsyncQueueSize()
+                    : databaseConfig.getAsyncQueueSize();
+            final var threadCounter = new AtomicInteger();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize,
+                    0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize),
+                    r -> {
+                        Thread t = new Thread(r, "database-" + workload.getKey() + "-executor-t"
+                                + threadCounter.getAndIncrement());
+                        t.setUncaughtExceptionHandler(Exceptions.UNCAUGHT_EXCEPTION_HANDLER);
+                        return t;
+                    },
+                    rejectionHandler);
+            this.executors.put(workload, executor);
+            this.queueSizes.put(workload, queueSize);
+            threadPoolMetrics.addPool("database-" + workload.getKey(), executor);
+        }
+    }
 
-        threadPoolMetrics.addPool("database", this.executor);
+    private static RejectedExecutionHandler rejectionHandler(DatabaseConfig.RejectionPolicy policy) {
+        switch (policy) {
+            case CALLER_RUNS:
+                return new ThreadPoolExecutor.CallerRunsPolicy();
+            case ABORT:
+            default:
+                return new ThreadPoolExecutor.AbortPolicy();
+        }
     }
 
+    /**
+     * Run an {@link Workload#INTERACTIVE} operation.
+     *
+     * @see #jooq(Workload, String, Function)
+     */
+    @CheckReturnValue
+    public <E> CompletionStage<E> jooq(String operation, Function<DSLContext, E> databaseOperation) {
+        return jooq(Workload.INTERACTIVE, operation, databaseOperation);
+    }
 
+    /**
+     * @param workload  decides the pool of threads and connections the operation runs on
+     * @param operation identifies the operation in the metrics, for example "stats.getUserStats"
+     * @return a stage that fails with a {@link DatabaseBusyException} if the queue of the workload is full
+     */
     @CheckReturnValue
-    public <E> CompletionStage<E> jooq(Function<DSLContext, E> databaseOperation) {
-        return CompletableFuture.supplyAsync(
-                () -> databaseOperation.apply(this.database.getJooq()),
-                this.executor
-        );
+    public <E> CompletionStage<E> jooq(Workload workload, String operation, Function<DSLContext, E> databaseOperation) {
+        String key = workload.getKey();
+        Histogram.Timer queueWait = MetricsRegistry.databaseQueueWaitTime.labels(key, operation).startTimer();
+        MetricsRegistry.databaseOperations.labels(key, "queued").inc();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                        queueWait.observeDuration();
+                        MetricsRegistry.databaseOperations.labels(key, "queued").dec();
+                        MetricsRegistry.databaseOperations.labels(key, "running").inc();
+                        Histogram.Timer execution = MetricsRegistry.databaseExecutionTime.labels(key, operation)
+                                .startTimer();
+                        try {
+                            return databaseOperation.apply(this.database.getJooq(workload));
+                        } finally {
+                            execution.observeDuration();
+                            MetricsRegistry.databaseOperations.labels(key, "running").dec();
+                        }
+                    },
+                    this.executors.get(workload)
+            );
+        } catch (RejectedExecutionException e) {
+            MetricsRegistry.databaseOperations.labels(key, "queued").dec();
+            MetricsRegistry.databaseRejections.labels(key, operation).inc();
+            return CompletableFuture.failedStage(new DatabaseBusyException(operation, this.queueSizes.get(workload), e));
+        }
     }
 
     public List<Runnable> shutdownNow() {
-        return this.executor.shutdownNow();
+        List<Runnable> runnables = new ArrayList<>();
+        this.executors.values().forEach(executor -> runnables.addAll(executor.shutdownNow()));
+        return runnables;
     }
 }
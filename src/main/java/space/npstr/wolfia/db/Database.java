@@ -19,6 +19,10 @@
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.metrics.prometheus.PrometheusMetricsTrackerFactory;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -37,6 +41,9 @@
 
 /**
  * Serves lazily initialized database connection and wrapper singletons
+ * <p>
+ * Each {@link Workload} has its own connection pool and statement timeout, so heavy work can only ever hold the
+ * connections of the batch pool.
  */
 @ThreadSafe
 @Component
@@ -44,12 +51,16 @@ public class Database {
 
     private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(Database.class);
 
+    private static final String MIGRATIONS_POOL = "migrations";
+    //flyway may hold a connection for its schema history next to the one running a migration
+    private static final int MIGRATIONS_CONNECTIONS = 2;
+
     private final DatabaseConfig databaseConfig;
     private final WolfiaConfig wolfiaConfig;
     private final QueryCountStrategy queryCountStrategy;
 
-    private final AtomicReference<DatabaseConnection> dbConnection = new AtomicReference<>();
-    private final AtomicReference<DSLContext> jooq = new AtomicReference<>();
+    private final AtomicReference<Map<Workload, DatabaseConnection>> dbConnection = new AtomicReference<>();
+    private final AtomicReference<Map<Workload, DSLContext>> jooq = new AtomicReference<>();
 
     public Database(final DatabaseConfig databaseConfig, final WolfiaConfig wolfiaConfig,
                     QueryCountStrategy queryCountStrategy) {
@@ -60,7 +71,15 @@ public Database(final DatabaseConfig databaseConfig, final WolfiaConfig wolfiaCo
     }
 
     public DatabaseConnection getConnection() {
-        DatabaseConnection singleton = this.dbConnection.get();
+        return getConnection(Workload.INTERACTIVE);
+    }
+
+    public DatabaseConnection getConnection(Workload workload) {
+        return getConnections().get(workload);
+    }
+
+    private Map<Workload, DatabaseConnection> getConnections() {
+        Map<Workload, DatabaseConnection> singleton = this.dbConnection.get();
         if (singleton == null) {
             synchronized (this.dbConnection) {
                 singleton = this.dbConnection.get();
@@ -70,9 +89,7 @@ public DatabaseConnection getConnection() {
                     final long dbConnectStarted = System.currentTimeMillis();
                     do {
                         try {
-                            singleton = initDbConn();
-                            DSL.using(singleton.getDataSource(), SQLDialect.POSTGRES)
-                                    .selectOne().execute();
+                            singleton = initDbConns();
                             dbConnected = true;
                             log.info("Initial db connection succeeded");
                             this.dbConnection.set(singleton);
@@ -98,33 +115,81 @@ public DatabaseConnection getConnection() {
     }
 
     public DSLContext getJooq() {
-        DSLContext singleton = this.jooq.get();
+        return getJooq(Workload.INTERACTIVE);
+    }
+
+    public DSLContext getJooq(Workload workload) {
+        Map<Workload, DSLContext> singleton = this.jooq.get();
         if (singleton == null) {
             synchronized (this.jooq) {
                 singleton = this.jooq.get();
                 if (singleton == null) {
-                    singleton = DSL.using(getConnection().getDataSource(), SQLDialect.POSTGRES);
+                    Map<Workload, DSLContext> contexts = new EnumMap<>(Workload.class);
+                    getConnections().forEach((pool, connection) ->
+                            contexts.put(pool, DSL.using(connection.getDataSource(), SQLDialect.POSTGRES)));
+                    singleton = Collections.unmodifiableMap(contexts);
                     this.jooq.set(singleton);
                 }
             }
         }
-        return singleton;
+        return singleton.get(workload);
     }
 
 
     public void shutdown() {
         synchronized (this.dbConnection) {
-            DatabaseConnection conn = this.dbConnection.get();
-            if (conn != null) {
-                conn.shutdown();
+            Map<Workload, DatabaseConnection> connections = this.dbConnection.get();
+            if (connections != null) {
+                connections.values().forEach(DatabaseConnection::shutdown);
+            }
+        }
+    }
+
+    private Map<Workload, DatabaseConnection> initDbConns() {
+        migrate();
+        Map<Workload, DatabaseConnection> connections = new EnumMap<>(Workload.class);
+        try {
+            connections.put(Workload.BATCH, initDbConn(Workload.BATCH));
+            connections.put(Workload.INTERACTIVE, initDbConn(Workload.INTERACTIVE));
+            for (DatabaseConnection connection : connections.values()) {
+                DSL.using(connection.getDataSource(), SQLDialect.POSTGRES)
+                        .selectOne().execute();
             }
+        } catch (Exception e) {
+            connections.values().forEach(DatabaseConnection::shutdown);
+            throw e;
         }
+        return Collections.unmodifiableMap(connections);
     }
 
-    private DatabaseConnection initDbConn() {
+    //migrations may rewrite large tables and build indexes, which can take longer than the statement timeout of any
+    //workload. they run on a short lived pool of their own without a statement timeout, before the other pools are
+    //set up
+    private void migrate() {
         try {
-            HikariConfig hikariConfig = getHikariConfig();
-            hikariConfig.setDataSourceProperties(getDataSourceProps());
+            HikariConfig hikariConfig = getHikariConfig(MIGRATIONS_POOL, MIGRATIONS_CONNECTIONS);
+            hikariConfig.setDataSourceProperties(getDataSourceProps(MIGRATIONS_POOL, Duration.ZERO));
+            new DatabaseConnection(
+                    hikariConfig,
+                    new ProxyDataSourceBuilder()
+                            .name("postgres-" + MIGRATIONS_POOL),
+                    new FluentConfiguration()
+                            .locations("db/migrations")
+            ).shutdown();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to migrate database", e);
+        }
+    }
+
+    private DatabaseConnection initDbConn(Workload workload) {
+        try {
+            HikariConfig hikariConfig = getHikariConfig(workload.getKey(), workload == Workload.BATCH
+                    ? this.databaseConfig.getBatchConnections()
+                    : this.databaseConfig.getConnections());
+            // the statement timeout of each connection of the pool, set when the connection is opened
+            hikariConfig.setDataSourceProperties(getDataSourceProps(workload.getKey(), workload == Workload.BATCH
+                    ? this.databaseConfig.getBatchStatementTimeout()
+                    : this.databaseConfig.getStatementTimeout()));
             return new DatabaseConnection(
                     hikariConfig,
                     new ProxyDataSourceBuilder()
@@ -132,20 +197,17 @@ private DatabaseConnection initDbConn() {
                             .multiline()
                             .name("postgres")
                             .countQuery(this.queryCountStrategy),
-                    new FluentConfiguration()
-                            .locations("db/migrations")
+                    null
             );
         } catch (Exception e) {
             throw new RuntimeException("Failed to set up database", e);
         }
     }
 
-    private HikariConfig getHikariConfig() {
+    private HikariConfig getHikariConfig(String poolKey, int maximumPoolSize) {
         final HikariConfig hikariConfig = new HikariConfig();
 
-        //more database connections don't help with performance, so use a default value based on available cores
-        //http://www.dailymotion.com/video/x2s8uec_oltp-performance-concurrent-mid-tier-connections_tech
-        hikariConfig.setMaximumPoolSize(Math.max(Runtime.getRuntime().availableProcessors(), 4));
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
         //timeout the validation query (will be done automatically through Connection.isValid())
         hikariConfig.setValidationTimeout(3000);
         // 30 seconds, sometimes we time out after 10 on the new machine, but its not a leak.
@@ -155,21 +217,28 @@ private HikariConfig getHikariConfig() {
         hikariConfig.setMetricsTrackerFactory(new PrometheusMetricsTrackerFactory());
 
         hikariConfig.setJdbcUrl(this.databaseConfig.getJdbcUrl());
-        hikariConfig.setPoolName("postgres-DefaultPool");
+        hikariConfig.setPoolName("postgres-" + poolKey);
 
         return hikariConfig;
     }
 
-    private Properties getDataSourceProps() {
+    /**
+     * @param statementTimeout
+     *         of each connection, set when the connection is opened. zero disables it
+     */
+    private Properties getDataSourceProps(String poolKey, Duration statementTimeout) {
         final Properties dataSourceProps = new Properties();
 
         // allow postgres to cast strings (varchars) more freely to actual column types
         // source https://jdbc.postgresql.org/documentation/head/connect.html
         dataSourceProps.setProperty("stringtype", "unspecified");
 
-        String appName = "Wolfia_" + (this.wolfiaConfig.isDebug() ? "DEBUG" : "PROD") + "_" + App.VERSION;
+        String appName = "Wolfia_" + (this.wolfiaConfig.isDebug() ? "DEBUG" : "PROD") + "_" + App.VERSION
+                + "_" + poolKey;
         dataSourceProps.setProperty("ApplicationName", appName);
 
+        dataSourceProps.setProperty("options", "-c statement_timeout=" + statementTimeout.toMillis());
+
         return dataSourceProps;
     }
 }
@@ -19,6 +19,7 @@
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import net.ttddyy.dsproxy.support.ProxyDataSource;
 import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
@@ -32,25 +33,34 @@ public class DatabaseConnection {
     private final ProxyDataSource proxiedDataSource;
 
     /**
+     * @param flywayConfig migrations to run on this connection, or null to not run any
      * @throws DataAccessException if the connection could not be created due to [reasons]
      */
     public DatabaseConnection(final HikariConfig hikariConfig,
                               final ProxyDataSourceBuilder proxyDataSourceBuilder,
-                              final FluentConfiguration flywayConfig) {
+                              @Nullable final FluentConfiguration flywayConfig) {
 
+        HikariDataSource dataSource = null;
         try {
-            this.hikariDataSource = new HikariDataSource(hikariConfig);
+            dataSource = new HikariDataSource(hikariConfig);
 
-            flywayConfig.dataSource(this.hikariDataSource);
-            Flyway flyway = new Flyway(flywayConfig);
-            flyway.migrate();
+            if (flywayConfig != null) {
+                flywayConfig.dataSource(dataSource);
+                Flyway flyway = new Flyway(flywayConfig);
+                flyway.migrate();
+            }
 
             this.proxiedDataSource = proxyDataSourceBuilder
-                    .dataSource(this.hikariDataSource)
+                    .dataSource(dataSource)
                     .build();
         } catch (final Exception e) {
+            //don't leave the pool behind, setting up the connection may be retried
+            if (dataSource != null) {
+                dataSource.close();
+            }
             throw new DataAccessException("Failed to create database connection", e);
         }
+        this.hikariDataSource = dataSource;
     }
 
     public DataSource getDataSource() {
@@ -44,7 +44,7 @@ public HstoreRepository(AsyncDbWrapper asyncDbWrapper) {
      */
     @CheckReturnValue
     public CompletionStage<String> get(String name, String key, String defaultValue) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("hstore.get", dsl -> dsl
                 .select(HSTOREX.HSTOREX_)
                 .from(HSTOREX)
                 .where(HSTOREX.NAME.eq(name))
@@ -63,7 +63,7 @@ public CompletionStage<HstorexRecord> set(String name, String key, String value)
     @CheckReturnValue
     public CompletionStage<HstorexRecord> set(String name, Map<String, String> toAppend) {
         HashMap<String, String> map = new HashMap<>(toAppend);
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("hstore.set", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(HSTOREX)
                 .columns(HSTOREX.NAME, HSTOREX.HSTOREX_)
                 .values(name, map)
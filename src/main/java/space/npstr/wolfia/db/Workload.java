@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.db;
+
+/**
+ * Classes of database work. Each one gets its own threads in the {@link AsyncDbWrapper}, its own connection pool in
+ * the {@link Database} and its own statement timeout, so heavy work can not starve the queries users are waiting on.
+ */
+public enum Workload {
+
+    /**
+     * Short queries that a user or a running game is waiting on, like settings, game setups and privacy checks.
+     */
+    INTERACTIVE("interactive"),
+
+    /**
+     * Heavy or long running work, like aggregating stats, privacy exports, recording games and background jobs.
+     */
+    BATCH("batch"),
+    ;
+
+    private final String key;
+
+    Workload(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @return identifies the workload in metrics, thread and pool names
+     */
+    public String getKey() {
+        return this.key;
+    }
+}
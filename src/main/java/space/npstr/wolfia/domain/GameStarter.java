@@ -17,9 +17,13 @@
 
 package space.npstr.wolfia.domain;
 
+import io.prometheus.client.Collector;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
 import net.dv8tion.jda.api.entities.MessageChannel;
 import net.dv8tion.jda.api.sharding.ShardManager;
 import org.slf4j.Logger;
@@ -38,6 +42,7 @@
 import space.npstr.wolfia.domain.setup.lastactive.ActivityService;
 import space.npstr.wolfia.game.Game;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
+import space.npstr.wolfia.system.metrics.MetricsRegistry;
 import space.npstr.wolfia.utils.UserFriendlyException;
 import space.npstr.wolfia.utils.discord.RestActions;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
@@ -52,12 +57,16 @@ public class GameStarter {
 
     private static final Logger log = LoggerFactory.getLogger(GameStarter.class);
 
+    //starts in the same channel are serialized, starts in different channels only collide if they share a stripe
+    private static final int LOCK_STRIPES = 1024;
+
     private final GameSetupService gameSetupService;
     private final MaintenanceService maintenanceService;
     private final GameRegistry gameRegistry;
     private final ActivityService activityService;
     private final ChannelSettingsService channelSettingsService;
     private final ShutdownHandler shutdownHandler;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
 
     public GameStarter(GameSetupService gameSetupService, MaintenanceService maintenanceService,
                        GameRegistry gameRegistry, ActivityService activityService,
@@ -69,10 +78,38 @@ public GameStarter(GameSetupService gameSetupService, MaintenanceService mainten
         this.activityService = activityService;
         this.channelSettingsService = channelSettingsService;
         this.shutdownHandler = shutdownHandler;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+    }
+
+    //only one incoming command per channel at a time may be in here
+    public boolean startGame(Context context) throws IllegalGameStateException {
+        final long started = System.nanoTime();
+        final ReentrantLock lock = lockFor(context.getChannel().getIdLong());
+        if (!lock.tryLock()) {
+            MetricsRegistry.gameStarterLockContended.inc();
+            lock.lock();
+        }
+        MetricsRegistry.gameStarterLockWaitTime.observe((System.nanoTime() - started) / Collector.NANOSECONDS_PER_SECOND);
+
+        String outcome = "failed";
+        try {
+            final boolean gameStarted = startGame0(context);
+            outcome = gameStarted ? "started" : "refused";
+            return gameStarted;
+        } finally {
+            lock.unlock();
+            MetricsRegistry.gameStarterTime.labels(outcome)
+                    .observe((System.nanoTime() - started) / Collector.NANOSECONDS_PER_SECOND);
+        }
+    }
+
+    private ReentrantLock lockFor(long channelId) {
+        return this.locks[Math.floorMod(Long.hashCode(channelId), LOCK_STRIPES)];
     }
 
-    //needs to be synchronized so only one incoming command at a time can be in here
-    public synchronized boolean startGame(Context context) throws IllegalGameStateException {
+    private boolean startGame0(Context context) throws IllegalGameStateException {
 
         long commandCallerId = context.getInvoker().getIdLong();
         final MessageChannel channel = context.getChannel();
@@ -125,8 +162,9 @@ public synchronized boolean startGame(Context context) throws IllegalGameStateEx
 
         game.setDayLength(setup.getDayLength());
 
+        final CompletableFuture<Void> started;
         try {
-            game.start(setup.getChannelId(), setup.getMode(), inned);
+            started = game.start(setup.getChannelId(), setup.getMode(), inned);
             this.gameRegistry.set(game);
         } catch (final UserFriendlyException e) {
             log.info("Game start aborted due to user friendly exception");
@@ -140,7 +178,24 @@ public synchronized boolean startGame(Context context) throws IllegalGameStateEx
             throw new RuntimeException(String.format("%s, game start aborted due to:%n%s",
                     TextchatUtils.userAsMention(commandCallerId), e.getMessage()), e);
         }
-        setupAction.clearInnedUsers();
+        //the rest of the start, like waiting for a private room, finishes without holding up the command
+        started.whenComplete((__, t) -> {
+            if (t == null) {
+                setupAction.clearInnedUsers();
+                return;
+            }
+            this.gameRegistry.remove(game);
+            game.cleanUp();
+            final Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+            if (cause instanceof UserFriendlyException) {
+                log.info("Game start aborted due to user friendly exception");
+                RestActions.sendMessage(channel, "There was a problem executing your command:\n" + cause.getMessage());
+            } else {
+                log.error("Game start in channel {} aborted", channel.getIdLong(), cause);
+                RestActions.sendMessage(channel, String.format("%s, game start aborted due to:%n%s",
+                        TextchatUtils.userAsMention(commandCallerId), cause.getMessage()));
+            }
+        });
         return true;
     }
 }
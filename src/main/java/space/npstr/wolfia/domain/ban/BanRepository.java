@@ -39,7 +39,7 @@ public BanRepository(AsyncDbWrapper wrapper) {
 
     @CheckReturnValue
     public CompletionStage<Optional<Ban>> findOne(long userId, Scope scope) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("ban.findOne", dsl -> dsl
                 .selectFrom(DISCORD_USER)
                 .where(DISCORD_USER.USER_ID.eq(userId).and(DISCORD_USER.BAN.eq(scope.name())))
                 .fetchOptionalInto(Ban.class));
@@ -47,7 +47,7 @@ public CompletionStage<Optional<Ban>> findOne(long userId, Scope scope) {
 
     @CheckReturnValue
     public CompletionStage<Ban> setScope(long userId, Scope scope) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("ban.setScope", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(DISCORD_USER)
                 .columns(DISCORD_USER.USER_ID, DISCORD_USER.BAN)
                 .values(userId, scope.name())
@@ -61,7 +61,7 @@ public CompletionStage<Ban> setScope(long userId, Scope scope) {
 
     @CheckReturnValue
     public CompletionStage<List<Ban>> findByScope(Scope scope) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("ban.findByScope", dsl -> dsl
                 .selectFrom(DISCORD_USER)
                 .where(DISCORD_USER.BAN.eq(scope.name()))
                 .fetchInto(Ban.class)
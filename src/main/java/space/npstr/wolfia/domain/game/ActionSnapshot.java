@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.game;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import javax.annotation.Nullable;
+import org.immutables.value.Value;
+import space.npstr.wolfia.domain.stats.ActionStats;
+import space.npstr.wolfia.domain.stats.GameStats;
+import space.npstr.wolfia.game.definitions.Actions;
+import space.npstr.wolfia.game.definitions.Phase;
+
+/**
+ * Journaled form of an {@link ActionStats}.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableActionSnapshot.class)
+@JsonDeserialize(as = ImmutableActionSnapshot.class)
+public interface ActionSnapshot {
+
+    int order();
+
+    long submitted();
+
+    long happened();
+
+    int cycle();
+
+    Phase phase();
+
+    long actor();
+
+    Actions actionType();
+
+    long target();
+
+    @Nullable
+    String additionalInfo();
+
+    static ActionSnapshot of(ActionStats action) {
+        return ImmutableActionSnapshot.builder()
+                .order(action.getOrder())
+                .submitted(action.getTimeStampSubmitted())
+                .happened(action.getTimeStampHappened())
+                .cycle(action.getCycle())
+                .phase(action.getPhase())
+                .actor(action.getActor())
+                .actionType(action.getActionType())
+                .target(action.getTarget())
+                .additionalInfo(action.getAdditionalInfo())
+                .build();
+    }
+
+    default ActionStats toActionStats(GameStats gameStats) {
+        return new ActionStats(gameStats, order(), submitted(), happened(), cycle(), phase(), actor(), actionType(),
+                target(), additionalInfo());
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.game;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import space.npstr.wolfia.domain.stats.ActionStats;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+
+/**
+ * Journal of the transitions of running games. Entries are buffered in memory and written to the database
+ * in batches, so that games don't have to wait on it. Games that are still running when the bot goes down are rebuilt
+ * from the journal by the {@link GameResumer}.
+ */
+@Component
+public class GameJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(GameJournal.class);
+
+    private static final long FLUSH_INTERVAL_MILLIS = 500;
+
+    private final GameJournalRepository repository;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Deque<JournalEntry> buffer = new ConcurrentLinkedDeque<>();
+    private final Object flushLock = new Object();
+
+    public GameJournal(GameJournalRepository repository, ExceptionLoggingExecutor executor) {
+        this.repository = repository;
+        executor.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Record the current state of a game. Supersedes any previous state of the same game.
+     */
+    public void checkpoint(GameSnapshot snapshot) {
+        append(snapshot.channelId(), JournalEntry.Type.STATE, snapshot);
+    }
+
+    /**
+     * Record an action that has been added to the stats of a game.
+     */
+    public void action(long channelId, ActionStats action) {
+        append(channelId, JournalEntry.Type.ACTION, ActionSnapshot.of(action));
+    }
+
+    /**
+     * The game in this channel is over and does not need to be resumed anymore.
+     */
+    public void close(long channelId) {
+        this.buffer.add(new JournalEntry(channelId, JournalEntry.Type.CLOSE, ""));
+    }
+
+    private void append(long channelId, JournalEntry.Type type, Object payload) {
+        try {
+            this.buffer.add(new JournalEntry(channelId, type, this.objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize {} journal entry for game in channel {}", type, channelId, e);
+        }
+    }
+
+    /**
+     * Write all buffered entries to the database. If that fails, the entries are put back at the head of the buffer, so
+     * they are retried in order with the next flush.
+     *
+     * @return true if the journal is up to date in the database
+     */
+    public boolean flush() {
+        synchronized (this.flushLock) {
+            List<JournalEntry> entries = new ArrayList<>();
+            JournalEntry entry;
+            while ((entry = this.buffer.poll()) != null) {
+                entries.add(entry);
+            }
+            if (entries.isEmpty()) {
+                return true;
+            }
+            List<JournalEntry> compacted = compact(entries);
+            try {
+                this.repository.write(compacted).toCompletableFuture().join();
+                return true;
+            } catch (Exception e) {
+                log.error("Failed to write {} game journal entries, retrying with the next flush", compacted.size(), e);
+                //only this method takes from the head of the buffer, and it holds the lock
+                for (int i = compacted.size() - 1; i >= 0; i--) {
+                    this.buffer.addFirst(compacted.get(i));
+                }
+                return false;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        flush();
+    }
+
+    /**
+     * Drop entries of a batch that are superseded by later entries of the same batch: all but the last state of a
+     * game, and anything written before the game was closed.
+     */
+    static List<JournalEntry> compact(List<JournalEntry> entries) {
+        Map<Long, Integer> lastState = new HashMap<>();
+        Map<Long, Integer> lastClose = new HashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            JournalEntry entry = entries.get(i);
+            if (entry.getType() == JournalEntry.Type.STATE) {
+                lastState.put(entry.getChannelId(), i);
+            } else if (entry.getType() == JournalEntry.Type.CLOSE) {
+                lastClose.put(entry.getChannelId(), i);
+            }
+        }
+
+        List<JournalEntry> result = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            JournalEntry entry = entries.get(i);
+            long channelId = entry.getChannelId();
+            int closedAt = lastClose.getOrDefault(channelId, -1);
+            if (i < closedAt) {
+                continue;
+            }
+            if (entry.getType() == JournalEntry.Type.STATE && lastState.get(channelId) != i) {
+                continue;
+            }
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * @return all games that were still running according to the journal, by their channel id
+     */
+    public Map<Long, JournaledGame> load() {
+        List<JournalEntry> entries = this.repository.findAll().toCompletableFuture().join();
+
+        Map<Long, GameSnapshot> states = new LinkedHashMap<>();
+        Map<Long, List<ActionSnapshot>> actions = new HashMap<>();
+        Set<Long> broken = new HashSet<>();
+        for (JournalEntry entry : entries) {
+            long channelId = entry.getChannelId();
+            try {
+                if (entry.getType() == JournalEntry.Type.STATE) {
+                    states.put(channelId, this.objectMapper.readValue(entry.getPayload(), GameSnapshot.class));
+                } else if (entry.getType() == JournalEntry.Type.ACTION) {
+                    actions.computeIfAbsent(channelId, __ -> new ArrayList<>())
+                            .add(this.objectMapper.readValue(entry.getPayload(), ActionSnapshot.class));
+                }
+            } catch (JsonProcessingException e) {
+                log.error("Failed to read {} journal entry of game in channel {}", entry.getType(), channelId, e);
+                broken.add(channelId);
+            }
+        }
+
+        Map<Long, JournaledGame> result = new LinkedHashMap<>();
+        Set<Long> channelIds = new HashSet<>(actions.keySet());
+        channelIds.addAll(states.keySet());
+        channelIds.addAll(broken);
+        for (long channelId : channelIds) {
+            GameSnapshot snapshot = states.get(channelId);
+            if (snapshot == null || broken.contains(channelId)) {
+                log.warn("Discarding unusable journal of game in channel {}", channelId);
+                close(channelId);
+                continue;
+            }
+            result.put(channelId, ImmutableJournaledGame.builder()
+                    .snapshot(snapshot)
+                    .actions(actions.getOrDefault(channelId, List.of()))
+                    .build());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.game;
+
+import io.prometheus.client.Summary;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
+import javax.annotation.CheckReturnValue;
+import org.jooq.DSLContext;
+import org.jooq.InsertValuesStep3;
+import org.jooq.impl.DSL;
+import org.springframework.stereotype.Repository;
+import space.npstr.wolfia.db.AsyncDbWrapper;
+import space.npstr.wolfia.db.gen.tables.records.GameJournalRecord;
+import space.npstr.wolfia.system.metrics.MetricsRegistry;
+
+import static space.npstr.wolfia.db.gen.Tables.GAME_JOURNAL;
+
+@Repository
+public class GameJournalRepository {
+
+    private final AsyncDbWrapper wrapper;
+
+    public GameJournalRepository(AsyncDbWrapper wrapper) {
+        this.wrapper = wrapper;
+    }
+
+    /**
+     * Write the entries in the order they are passed in, in a single transaction. Consecutive appended entries are
+     * written with a single statement, {@link JournalEntry.Type#CLOSE} entries remove all entries of their game. A
+     * {@link JournalEntry.Type#STATE} entry replaces the previous state of its game, so only the latest state of each
+     * game is kept.
+     */
+    @CheckReturnValue
+    public CompletionStage<Void> write(List<JournalEntry> entries) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("writeGameJournal");
+        return this.wrapper.jooq("gameJournal.write", dsl -> timer.time(() -> dsl.transactionResult(config -> {
+            DSLContext context = DSL.using(config);
+            Set<Long> newStates = entries.stream()
+                    .filter(entry -> entry.getType() == JournalEntry.Type.STATE)
+                    .map(JournalEntry::getChannelId)
+                    .collect(Collectors.toSet());
+            if (!newStates.isEmpty()) {
+                context.deleteFrom(GAME_JOURNAL)
+                        .where(GAME_JOURNAL.CHANNEL_ID.in(newStates))
+                        .and(GAME_JOURNAL.ENTRY_TYPE.eq(JournalEntry.Type.STATE.name()))
+                        .execute();
+            }
+            InsertValuesStep3<GameJournalRecord, Long, String, String> insert = null;
+            for (JournalEntry entry : entries) {
+                if (entry.getType() == JournalEntry.Type.CLOSE) {
+                    if (insert != null) {
+                        insert.execute();
+                        insert = null;
+                    }
+                    context.deleteFrom(GAME_JOURNAL)
+                            .where(GAME_JOURNAL.CHANNEL_ID.eq(entry.getChannelId()))
+                            .execute();
+                    continue;
+                }
+                if (insert == null) {
+                    insert = context.insertInto(GAME_JOURNAL)
+                            .columns(GAME_JOURNAL.CHANNEL_ID, GAME_JOURNAL.ENTRY_TYPE, GAME_JOURNAL.PAYLOAD);
+                }
+                insert = insert.values(entry.getChannelId(), entry.getType().name(), entry.getPayload());
+            }
+            if (insert != null) {
+                insert.execute();
+            }
+            return null;
+        })));
+    }
+
+    @CheckReturnValue
+    public CompletionStage<List<JournalEntry>> findAll() {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("findAllGameJournal");
+        return this.wrapper.jooq("gameJournal.findAll", dsl -> timer.time(() -> dsl
+                .select(GAME_JOURNAL.CHANNEL_ID, GAME_JOURNAL.ENTRY_TYPE, GAME_JOURNAL.PAYLOAD)
+                .from(GAME_JOURNAL)
+                .orderBy(GAME_JOURNAL.CHANNEL_ID.asc(), GAME_JOURNAL.ENTRY_ID.asc())
+                .fetchInto(JournalEntry.class)
+        ));
+    }
+}
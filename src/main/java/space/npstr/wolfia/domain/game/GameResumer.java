@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.game;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import space.npstr.wolfia.domain.room.PrivateRoomQueue;
+import space.npstr.wolfia.game.Game;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+
+/**
+ * Rebuilds games that were running when the bot went down from the {@link GameJournal}, as soon as the guild they
+ * are running in becomes available.
+ * <p>
+ * The private rooms the resumed games need are held back from new games right away, the other private rooms are
+ * prepared for new games once the first guild is ready.
+ */
+@Component
+public class GameResumer {
+
+    private static final Logger log = LoggerFactory.getLogger(GameResumer.class);
+
+    private final GameJournal gameJournal;
+    private final GameRegistry gameRegistry;
+    private final PrivateRoomQueue privateRoomQueue;
+    private final ExceptionLoggingExecutor executor;
+
+    private final Object loadLock = new Object();
+    // by channel id
+    private final Map<Long, JournaledGame> toResume;
+    private boolean warmedUp = false;
+
+    public GameResumer(GameJournal gameJournal, GameRegistry gameRegistry, PrivateRoomQueue privateRoomQueue,
+                       ExceptionLoggingExecutor executor) {
+        this.gameJournal = gameJournal;
+        this.gameRegistry = gameRegistry;
+        this.privateRoomQueue = privateRoomQueue;
+        this.executor = executor;
+
+        //load before any guild is ready, so that no new game can take the private room of a game that is to be resumed
+        this.toResume = new HashMap<>(gameJournal.load());
+        log.info("{} games to resume found in the journal", this.toResume.size());
+        Set<Long> reservedRooms = this.toResume.values().stream()
+                .map(game -> game.snapshot().privateRoomGuildId())
+                .filter(guildId -> guildId > 0)
+                .collect(Collectors.toSet());
+        privateRoomQueue.holdForResume(reservedRooms);
+    }
+
+    @EventListener
+    public void onGuildReady(final GuildReadyEvent event) {
+        final long guildId = event.getGuild().getIdLong();
+        this.executor.execute(() -> resumeGamesInGuild(guildId));
+    }
+
+    private void resumeGamesInGuild(long guildId) {
+        List<JournaledGame> games;
+        synchronized (this.loadLock) {
+            if (!this.warmedUp) {
+                this.warmedUp = true;
+                this.privateRoomQueue.warmUp(this.executor);
+            }
+            games = this.toResume.values().stream()
+                    .filter(game -> game.snapshot().guildId() == guildId)
+                    .collect(Collectors.toList());
+            games.forEach(game -> this.toResume.remove(game.snapshot().channelId()));
+        }
+
+        games.forEach(this::resume);
+    }
+
+    private void resume(JournaledGame journaled) {
+        GameSnapshot snapshot = journaled.snapshot();
+        long channelId = snapshot.channelId();
+        if (this.gameRegistry.get(channelId) != null) {
+            log.warn("Not resuming game in channel {}, there is a game running already", channelId);
+            this.gameJournal.close(channelId);
+            this.privateRoomQueue.releaseHeld(snapshot.privateRoomGuildId());
+            return;
+        }
+
+        final Game game;
+        try {
+            game = snapshot.gameType().clazz.getConstructor().newInstance();
+        } catch (final IllegalAccessException | InstantiationException | NoSuchMethodException | InvocationTargetException e) {
+            log.error("Could not create game {} to resume in channel {}", snapshot.gameType(), channelId, e);
+            this.gameJournal.close(channelId);
+            this.privateRoomQueue.releaseHeld(snapshot.privateRoomGuildId());
+            return;
+        }
+
+        try {
+            game.resume(snapshot, journaled.actions());
+            this.gameRegistry.set(game);
+        } catch (final Exception e) {
+            game.destroy(e);
+            //in case the game failed before it claimed its private room
+            this.privateRoomQueue.releaseHeld(snapshot.privateRoomGuildId());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.game;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.List;
+import org.immutables.value.Value;
+import space.npstr.wolfia.game.GameInfo;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Phase;
+
+/**
+ * Everything that is needed to rebuild a running game, apart from the actions that have been recorded into its stats
+ * so far, which are journaled separately as {@link ActionSnapshot}s.
+ * <p>
+ * Deadlines are absolute epoch millis, so that timers can be re-armed with whatever time is left after a restart.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableGameSnapshot.class)
+@JsonDeserialize(as = ImmutableGameSnapshot.class)
+public interface GameSnapshot {
+
+    Games gameType();
+
+    GameInfo.GameMode mode();
+
+    long channelId();
+
+    String channelName();
+
+    long guildId();
+
+    String guildName();
+
+    long startTime();
+
+    long accessRoleId();
+
+    /**
+     * -1 if the game does not use a private room
+     */
+    long privateRoomGuildId();
+
+    long privateRoomChannelId();
+
+    long dayLengthMillis();
+
+    int cycle();
+
+    Phase phase();
+
+    long phaseStarted();
+
+    /**
+     * Point in time when the next transition of the game is due.
+     */
+    long phaseDeadline();
+
+    /**
+     * true if the current phase is over, and the game is only waiting for the deadline to begin the next one
+     */
+    boolean transitionPending();
+
+    /**
+     * Popcorn only, -1 otherwise
+     */
+    long gunBearer();
+
+    int actionOrder();
+
+    List<Integer> endedDays();
+
+    List<PlayerSnapshot> players();
+
+    /**
+     * Submitted actions that are not part of the game stats yet, like votes of the ongoing day or night actions.
+     */
+    List<ActionSnapshot> pendingActions();
+}
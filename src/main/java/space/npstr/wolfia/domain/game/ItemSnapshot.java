@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.game;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+import space.npstr.wolfia.game.definitions.Item;
+
+/**
+ * Journaled form of an {@link Item}.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableItemSnapshot.class)
+@JsonDeserialize(as = ImmutableItemSnapshot.class)
+public interface ItemSnapshot {
+
+    long sourceId();
+
+    Item.ItemType itemType();
+
+    static ItemSnapshot of(Item item) {
+        return ImmutableItemSnapshot.builder()
+                .sourceId(item.sourceId)
+                .itemType(item.itemType)
+                .build();
+    }
+
+    default Item toItem() {
+        return new Item(sourceId(), itemType());
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.game;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * A single row of the game journal.
+ */
+public class JournalEntry {
+
+    public enum Type {
+        /**
+         * Payload is a {@link GameSnapshot}. Only the latest one of a game is relevant.
+         */
+        STATE,
+        /**
+         * Payload is an {@link ActionSnapshot} that has been added to the stats of the game.
+         */
+        ACTION,
+        /**
+         * The game has ended, its entries can be removed. Never persisted.
+         */
+        CLOSE,
+    }
+
+    private final long channelId;
+    private final Type type;
+    private final String payload;
+
+    public JournalEntry(long channelId, Type type, String payload) {
+        this.channelId = channelId;
+        this.type = type;
+        this.payload = payload;
+    }
+
+    // for jooq deserializing
+    @ConstructorProperties({"channelId", "entryType", "payload"})
+    public JournalEntry(long channelId, String entryType, String payload) {
+        this(channelId, Type.valueOf(entryType), payload);
+    }
+
+    public long getChannelId() {
+        return this.channelId;
+    }
+
+    public Type getType() {
+        return this.type;
+    }
+
+    public String getPayload() {
+        return this.payload;
+    }
+}
@@ -15,22 +15,18 @@
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
 
-package space.npstr.wolfia.domain.privacy;
+package space.npstr.wolfia.domain.game;
 
 import java.util.List;
 import org.immutables.value.Value;
 
 /**
- * A reponse to a privacy request containing representations various personal data.
+ * A game as it has been read back from the journal.
  */
 @Value.Immutable
-@Value.Style(
-        stagedBuilder = true,
-        strictBuilder = true
-)
-public interface PrivacyResponse {
+public interface JournaledGame {
 
-    List<PrivacySession> getSessions();
+    GameSnapshot snapshot();
 
-    List<PrivacyGame> getGames();
+    List<ActionSnapshot> actions();
 }
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.game;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.List;
+import javax.annotation.Nullable;
+import org.immutables.value.Value;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Roles;
+
+/**
+ * Journaled form of a {@link space.npstr.wolfia.game.Player} and their stats.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutablePlayerSnapshot.class)
+@JsonDeserialize(as = ImmutablePlayerSnapshot.class)
+public interface PlayerSnapshot {
+
+    long userId();
+
+    Alignments alignment();
+
+    Roles role();
+
+    int number();
+
+    boolean alive();
+
+    String rolePm();
+
+    List<ItemSnapshot> items();
+
+    @Nullable
+    String nickname();
+
+    int totalPosts();
+
+    int totalPostLength();
+}
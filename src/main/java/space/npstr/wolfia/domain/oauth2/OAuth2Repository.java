@@ -20,6 +20,7 @@
 import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
 import space.npstr.wolfia.db.AsyncDbWrapper;
+import space.npstr.wolfia.db.Workload;
 import space.npstr.wolfia.db.type.OAuth2Scope;
 
 import java.time.Duration;
@@ -40,7 +41,7 @@ public OAuth2Repository(AsyncDbWrapper wrapper) {
     }
 
     public CompletionStage<Optional<OAuth2Data>> findOne(long userId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("oAuth2.findOne", dsl -> dsl
                 .selectFrom(OAUTH2)
                 .where(OAUTH2.USER_ID.eq(userId))
                 .fetchOptionalInto(OAuth2Data.class)
@@ -49,7 +50,7 @@ public CompletionStage<Optional<OAuth2Data>> findOne(long userId) {
 
     public CompletionStage<List<OAuth2Data>> findAllExpiringIn(Duration duration) {
         Instant expiresOn = Instant.now().plusSeconds(duration.toSeconds());
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq(Workload.BATCH, "oAuth2.findAllExpiringIn", dsl -> dsl
                 .selectFrom(OAUTH2)
                 .where(OAUTH2.EXPIRES.lessThan(expiresOn))
                 .fetchInto(OAuth2Data.class)
@@ -57,7 +58,7 @@ public CompletionStage<List<OAuth2Data>> findAllExpiringIn(Duration duration) {
     }
 
     public CompletionStage<Integer> delete(long userId) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("oAuth2.delete", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .deleteFrom(OAUTH2)
                 .where(OAUTH2.USER_ID.eq(userId))
                 .execute()
@@ -66,7 +67,7 @@ public CompletionStage<Integer> delete(long userId) {
 
     public CompletionStage<OAuth2Data> save(OAuth2Data data) {
         OAuth2Scope[] scopes = data.scopes().toArray(new OAuth2Scope[]{});
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("oAuth2.save", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(OAUTH2)
                 .columns(OAUTH2.USER_ID, OAUTH2.ACCESS_TOKEN, OAUTH2.EXPIRES, OAUTH2.REFRESH_TOKEN, OAUTH2.SCOPES)
                 .values(data.userId(), data.accessToken(), data.expires(), data.refreshToken(), scopes)
@@ -38,7 +38,7 @@ public PrivacyRepository(AsyncDbWrapper wrapper) {
 
     @CheckReturnValue
     public CompletionStage<Optional<Privacy>> findOne(long userId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("privacy.findOne", dsl -> dsl
                 .selectFrom(DISCORD_USER)
                 .where(DISCORD_USER.USER_ID.eq(userId))
                 .fetchOptionalInto(Privacy.class));
@@ -46,7 +46,7 @@ public CompletionStage<Optional<Privacy>> findOne(long userId) {
 
     @CheckReturnValue
     public CompletionStage<Privacy> setProcessData(long userId, boolean processData) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("privacy.setProcessData", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(DISCORD_USER)
                 .columns(DISCORD_USER.USER_ID, DISCORD_USER.PROCESS_DATA)
                 .values(userId, processData)
@@ -60,7 +60,7 @@ public CompletionStage<Privacy> setProcessData(long userId, boolean processData)
 
     @CheckReturnValue
     public CompletionStage<List<Privacy>> findAllDeniedProcessData() {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("privacy.findAllDeniedProcessData", dsl -> dsl
                 .selectFrom(DISCORD_USER)
                 .where(DISCORD_USER.PROCESS_DATA.eq(false))
                 .fetchInto(Privacy.class)
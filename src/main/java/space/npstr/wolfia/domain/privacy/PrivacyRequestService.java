@@ -21,9 +21,15 @@
 import com.github.benmanes.caffeine.cache.Caffeine;
 import io.prometheus.client.cache.caffeine.CacheMetricsCollector;
 import java.time.Duration;
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import org.springframework.session.Session;
 import org.springframework.stereotype.Service;
@@ -38,12 +44,22 @@
 @Service
 public class PrivacyRequestService {
 
+    //an export reads all games of a user, so each user gets one per interval
+    public static final Duration REQUEST_INTERVAL = Duration.ofMinutes(10);
+    //games read ahead of the client, so that a slow client holds up its export, but not a database connection
+    private static final int EXPORT_BUFFER_SIZE = 100;
+    //how long the read waits for the client to make room in the buffer before the export is given up
+    private static final Duration EXPORT_STALL_TIMEOUT = Duration.ofSeconds(30);
+    private static final long EXPORT_POLL_MILLIS = 100;
+    //an export may hold a database connection for at most this long, no matter how it is being read
+    private static final Duration EXPORT_MAX_DURATION = Duration.ofMinutes(5);
+
     private final StatsRepository statsRepository;
     private final SessionService sessionService;
 
-    private final Cache<Long, PrivacyResponse> privacyResponseCache = Caffeine.newBuilder()
-            .expireAfterWrite(Duration.ofMinutes(10))
-            .maximumSize(10000)
+    private final Cache<Long, Instant> lastRequests = Caffeine.newBuilder()
+            .expireAfterWrite(REQUEST_INTERVAL)
+            .recordStats()
             .build();
 
     public PrivacyRequestService(StatsRepository statsRepository, SessionService sessionService,
@@ -51,33 +67,103 @@ public PrivacyRequestService(StatsRepository statsRepository, SessionService ses
 
         this.statsRepository = statsRepository;
         this.sessionService = sessionService;
-        cacheMetricsCollector.addCache("privacyResponseCache", this.privacyResponseCache);
+        cacheMetricsCollector.addCache("privacyRequestRateLimit", this.lastRequests);
+    }
+
+    /**
+     * @return false if the user has requested their data within the last {@link PrivacyRequestService#REQUEST_INTERVAL}
+     */
+    public boolean tryRequest(long userId) {
+        return this.lastRequests.asMap().putIfAbsent(userId, Instant.now()) == null;
     }
 
-    public PrivacyResponse request(long userId) {
-        return this.privacyResponseCache.get(userId, this::generate);
+    /**
+     * Hand back the request of a user whose export failed on our side, so they can try again right away.
+     */
+    public void releaseRequest(long userId) {
+        this.lastRequests.invalidate(userId);
     }
 
-    private PrivacyResponse generate(long userId) {
-        List<PrivacySession> sessions = this.sessionService.getAllSessionsOfUser(userId).stream()
+    public List<PrivacySession> getSessions(long userId) {
+        return this.sessionService.getAllSessionsOfUser(userId).stream()
                 .map(this::mapSession)
                 .collect(Collectors.toList());
+    }
 
-        List<PrivacyGame> games = this.statsRepository.getAllGameStatsOfUser(userId).toCompletableFuture().join();
-        Map<Long, List<PrivacyAction>> actions = this.statsRepository.getAllActionStatsOfUser(userId).toCompletableFuture().join();
+    /**
+     * Hand the games of the user to the consumer one by one, as they are read from the database. The consumer runs on
+     * the calling thread, decoupled from the read by a bounded buffer. If the consumer falls behind for longer than
+     * {@link PrivacyRequestService#EXPORT_STALL_TIMEOUT}, fails, or the whole export takes longer than
+     * {@link PrivacyRequestService#EXPORT_MAX_DURATION}, the read is aborted. If the read fails on its own, the request
+     * of the user is released.
+     */
+    public void forEachGame(long userId, Consumer<PrivacyGame> consumer) {
+        long deadline = System.nanoTime() + EXPORT_MAX_DURATION.toNanos();
+        BlockingQueue<PrivacyGame> buffer = new ArrayBlockingQueue<>(EXPORT_BUFFER_SIZE);
+        AtomicBoolean abandoned = new AtomicBoolean(false);
+        CompletableFuture<Integer> read = this.statsRepository.streamPrivacyGamesOfUser(userId, game -> {
+            long stalledAt = System.nanoTime() + EXPORT_STALL_TIMEOUT.toNanos();
+            try {
+                //wait in short steps, so that an abandoned export hands back its connection right away
+                while (!buffer.offer(game, EXPORT_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (abandoned.get()) {
+                        throw new IllegalStateException("Export of the games of user " + userId + " was abandoned");
+                    }
+                    long now = System.nanoTime();
+                    if (now - stalledAt > 0 || now - deadline > 0) {
+                        abandoned.set(true);
+                        throw new IllegalStateException("Export of the games of user " + userId + " stalled");
+                    }
+                }
+            } catch (InterruptedException e) {
+                abandoned.set(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while exporting the games of user " + userId, e);
+            }
+        }).toCompletableFuture();
 
-        games = games.stream()
-                .map(game -> {
-                    List<PrivacyAction> gameActions = actions.computeIfAbsent(game.getGameId(), __ -> new ArrayList<>());
-                    return ImmutablePrivacyGame.copyOf(game)
-                            .withActions(gameActions);
-                })
-                .collect(Collectors.toList());
+        try {
+            while (true) {
+                if (System.nanoTime() - deadline > 0) {
+                    throw new IllegalStateException("Export of the games of user " + userId + " took too long");
+                }
+                PrivacyGame game = buffer.poll(EXPORT_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (game != null) {
+                    consumer.accept(game);
+                } else if (read.isDone()) {
+                    //nothing is added to the buffer anymore
+                    while ((game = buffer.poll()) != null) {
+                        consumer.accept(game);
+                    }
+                    joinRead(userId, read, abandoned);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            abandon(abandoned, buffer);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while exporting the games of user " + userId, e);
+        } catch (RuntimeException e) {
+            abandon(abandoned, buffer);
+            throw e;
+        }
+    }
 
-        return ImmutablePrivacyResponse.builder()
-                .addAllSessions(sessions)
-                .addAllGames(games)
-                .build();
+    private void joinRead(long userId, CompletableFuture<Integer> read, AtomicBoolean abandoned) {
+        try {
+            read.join();
+        } catch (CompletionException e) {
+            //only a failure of the database hands back the request, a client that can't keep up does not get another one
+            if (!abandoned.get()) {
+                releaseRequest(userId);
+            }
+            throw e;
+        }
+    }
+
+    private void abandon(AtomicBoolean abandoned, BlockingQueue<PrivacyGame> buffer) {
+        abandoned.set(true);
+        buffer.clear();
     }
 
     private PrivacySession mapSession(Session session) {
@@ -24,20 +24,26 @@
 import net.dv8tion.jda.api.entities.Role;
 import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
+import net.dv8tion.jda.api.exceptions.ErrorResponseException;
+import net.dv8tion.jda.api.requests.ErrorResponse;
 import net.dv8tion.jda.api.sharding.ShardManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import space.npstr.wolfia.Launcher;
+import space.npstr.wolfia.system.metrics.MetricsRegistry;
 import space.npstr.wolfia.utils.discord.RestActions;
 import space.npstr.wolfia.utils.discord.RoleAndPermissionUtils;
 import space.npstr.wolfia.utils.discord.TextchatUtils;
-import space.npstr.wolfia.utils.log.LogTheStackException;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -54,19 +60,42 @@ public class ManagedPrivateRoom {
     private static final Logger log = LoggerFactory.getLogger(ManagedPrivateRoom.class);
 
     private static final String WOLF_ROLE_NAME = "Wolf";
-    //using a static scope for the lock since entities, while representing the same data, may be distinct objects
-    private static final Object usageLock = new Object();
+    private static final String WOLFCHAT_CHANNEL_NAME = "wolfchat";
+    //channel invites expire after a day, don't hand out prepared ones that are close to that
+    private static final Duration PREPARED_INVITE_MAX_AGE = Duration.ofHours(12);
+    //how long to wait for the shard of the private guild to connect
+    private static final Duration GUILD_RESOLVE_TIMEOUT = Duration.ofMinutes(5);
+    //how long a blocking fetch may wait for the guild, callers that can wait for a shard resolve it asynchronously first
+    private static final Duration GUILD_FETCH_TIMEOUT = Duration.ofSeconds(10);
 
     private final PrivateRoom privateRoom;
     private final PrivateRoomQueue privateRoomQueue;
 
-    private boolean inUse = false;
-    private final Set<Long> allowedUsers = new HashSet<>();
-    private long currentChannelId = -1;
+    private final AtomicReference<State> state = new AtomicReference<>(State.FREE);
+    private final Set<Long> allowedUsers = ConcurrentHashMap.newKeySet();
+    private volatile long currentChannelId = -1;
+
+    //a prepared room has a fresh wolfchat channel and an invite to it, so a game can begin using it right away
+    private volatile boolean ready = false;
+    @Nullable
+    private volatile String preparedInvite = null;
+    private volatile long preparedAt = 0;
+
+    public enum State {
+        //waiting in the queue for a game to use it
+        FREE,
+        //being used by a game
+        IN_USE,
+        //being cleaned up and prepared for the next game after its usage ended
+        RECYCLING,
+        //cleaning up failed, needs to be fixed manually
+        BROKEN
+    }
 
     public ManagedPrivateRoom(PrivateRoom privateRoom, PrivateRoomQueue privateRoomQueue) {
         this.privateRoom = privateRoom;
         this.privateRoomQueue = privateRoomQueue;
+        MetricsRegistry.privateRooms.labels(State.FREE.name()).inc();
     }
 
     public long getGuildId() {
@@ -77,6 +106,23 @@ public int getNumber() {
         return this.privateRoom.getNumber();
     }
 
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    public State getState() {
+        return this.state.get();
+    }
+
+    private boolean transition(final State from, final State to) {
+        if (!this.state.compareAndSet(from, to)) {
+            return false;
+        }
+        MetricsRegistry.privateRooms.labels(from.name()).dec();
+        MetricsRegistry.privateRooms.labels(to.name()).inc();
+        return true;
+    }
+
     @SuppressWarnings("unchecked")
     public void onGuildMemberJoin(final GuildMemberJoinEvent event) {
         if (event.getGuild().getIdLong() != this.privateRoom.getGuildId()) {
@@ -107,35 +153,90 @@ public void onGuildMemberJoin(final GuildMemberJoinEvent event) {
     }
 
     public void beginUsage(final Collection<Long> wolfUserIds) {
-        synchronized (usageLock) {
-            if (this.inUse) {
-                throw new IllegalStateException("Can't begin the usage of a private guild #" + this.privateRoom.getNumber() + " that is being used already");
-            }
-            this.inUse = true;
+        if (!transition(State.FREE, State.IN_USE)) {
+            throw new IllegalStateException("Can't begin the usage of a private guild #" + this.privateRoom.getNumber() + " that is " + getState());
         }
 
         try {
-            cleanUpMembers();
+            if (!this.ready) {
+                log.info("Private guild #{} has not been prepared ahead of time, preparing it now", this.privateRoom.getNumber());
+                prepare();
+            }
+            this.ready = false;
             this.allowedUsers.addAll(wolfUserIds);
-            final Guild g = fetchThisGuild();
-
-            //set up a fresh channel
-            final TextChannel wolfChannel = g.createTextChannel("wolfchat")
-                    .reason("Preparing private guild for a game").complete();
-            this.currentChannelId = wolfChannel.getIdLong();
-
-            //send new user joining messages to the fresh channel
-            g.getManager().setSystemChannel(wolfChannel).queue(null, RestActions.defaultOnFail());
-
-            //give the wolfrole access to it
-            RoleAndPermissionUtils.grant(wolfChannel, RoleAndPermissionUtils.getOrCreateRole(g, WOLF_ROLE_NAME).complete(),
-                    Permission.MESSAGE_WRITE, Permission.MESSAGE_READ).queue(null, RestActions.defaultOnFail());
         } catch (final Exception e) {
             endUsage();
             throw new RuntimeException("Could not begin the usage of private guild #" + this.privateRoom.getNumber(), e);
         }
     }
 
+    /**
+     * Kick everyone and set up a fresh wolfchat channel with an invite, so that the next game can begin using this
+     * room without any rest calls. Only call this while no game is using the room.
+     */
+    public void prepare() {
+        if (this.ready) {
+            return;
+        }
+        cleanUpMembers();
+        setUpChannel();
+    }
+
+    private void setUpChannel() {
+        final Guild g = fetchThisGuild();
+
+        //a restart or a setup that failed halfway may have left channels behind that we lost track of
+        deleteStaleChannels(g);
+
+        //set up a fresh channel
+        final TextChannel wolfChannel = g.createTextChannel(WOLFCHAT_CHANNEL_NAME)
+                .reason("Preparing private guild for a game").complete();
+        this.currentChannelId = wolfChannel.getIdLong();
+
+        //send new user joining messages to the fresh channel
+        g.getManager().setSystemChannel(wolfChannel).queue(null, RestActions.defaultOnFail());
+
+        //give the wolfrole access to it
+        RoleAndPermissionUtils.grant(wolfChannel, RoleAndPermissionUtils.getOrCreateRole(g, WOLF_ROLE_NAME).complete(),
+                Permission.MESSAGE_WRITE, Permission.MESSAGE_READ).complete();
+
+        this.preparedInvite = TextchatUtils.getOrCreateInviteLinkForGuild(g, wolfChannel,
+                () -> log.error("Could not create invite to private guild #{}, id {}", this.privateRoom.getNumber(), this.privateRoom.getGuildId()));
+        this.preparedAt = System.currentTimeMillis();
+        this.ready = true;
+    }
+
+    //only call this while no game is using the room, any wolfchat channel in there is a leftover at that point
+    private void deleteStaleChannels(final Guild g) {
+        for (final TextChannel channel : g.getTextChannelsByName(WOLFCHAT_CHANNEL_NAME, false)) {
+            log.info("Deleting stale channel {} in private guild #{}", channel.getIdLong(), this.privateRoom.getNumber());
+            try {
+                channel.retrieveInvites().complete().forEach(i -> i.delete().complete());
+                channel.delete().reason("Cleaning up stale channel of private guild").complete();
+            } catch (final ErrorResponseException e) {
+                //the cache may still hold a channel that was just deleted while tearing down the room
+                if (e.getErrorResponse() != ErrorResponse.UNKNOWN_CHANNEL) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Pick up the usage of this private room by a game that was suspended during a restart, without resetting the
+     * guild. The channel and the wolves that are already in there stay as they are.
+     */
+    public void resumeUsage(final long channelId, final Collection<Long> wolfUserIds) {
+        if (!transition(State.FREE, State.IN_USE)) {
+            throw new IllegalStateException("Can't resume the usage of a private guild #" + this.privateRoom.getNumber() + " that is " + getState());
+        }
+        this.ready = false;
+        this.preparedInvite = null;
+        this.allowedUsers.clear();
+        this.allowedUsers.addAll(wolfUserIds);
+        this.currentChannelId = channelId;
+    }
+
     //kick everyone, except guild owner and bots
     private void cleanUpMembers() {
         this.allowedUsers.clear();
@@ -146,36 +247,73 @@ private void cleanUpMembers() {
                 .forEach(member -> g.kick(member).queue(null, RestActions.defaultOnFail()));
     }
 
+    /**
+     * Hand this room back. It is cleaned up and prepared for the next game in the background, and only then
+     * returned to the queue.
+     */
     public void endUsage() {
-        synchronized (usageLock) {
-            if (!this.inUse) {
-                throw new IllegalStateException("Can't end the usage of a private guild #" + this.privateRoom.getNumber() + " that is not in use ");
-            }
-            cleanUpMembers();
-            try {//complete() in here to catch errors
-                //revoke all invites
-                for (final TextChannel channel : fetchThisGuild().getTextChannels()) {
-                    final List<Invite> invites = channel.retrieveInvites().complete();
-                    invites.forEach(i -> i.delete().complete());
-                }
-                final TextChannel tc = Launcher.getBotContext().getShardManager().getTextChannelById(this.currentChannelId);
-                if (tc != null) {
-                    tc.delete().reason("Cleaning up private guild after game ended").complete();
-                } else {
-                    log.error("Did not find channel {} in private guild #{} to delete it.",
-                            this.currentChannelId, this.privateRoom.getNumber());
-                }
-            } catch (final Exception e) {
-                log.error("Exception while deleting channel {} in private guild #{} {}", this.currentChannelId,
-                        this.privateRoom.getNumber(), this.privateRoom.getGuildId(), e);
-                return;//leave the private guild in a "broken state", this can be later fixed manually through eval
-            }
-            this.inUse = false;
-            this.privateRoomQueue.putBack(this);
+        if (!transition(State.IN_USE, State.RECYCLING)) {
+            throw new IllegalStateException("Can't end the usage of a private guild #" + this.privateRoom.getNumber() + " that is " + getState());
+        }
+        //don't hold up a thread of the executor while the shard of the guild is still connecting
+        Launcher.getBotContext().getEntityResolver().resolveGuild(this.privateRoom.getGuildId(), GUILD_RESOLVE_TIMEOUT)
+                .whenCompleteAsync((guild, t) -> {
+                    if (t != null) {
+                        log.error("Private guild #{} {} is not available, can't recycle it", this.privateRoom.getNumber(),
+                                this.privateRoom.getGuildId(), t);
+                        transition(State.RECYCLING, State.BROKEN);
+                        return;
+                    }
+                    recycle();
+                }, Launcher.getBotContext().getExecutor());
+    }
+
+    private void recycle() {
+        try {
+            tearDown();
+        } catch (final Exception e) {
+            log.error("Exception while deleting channel {} in private guild #{} {}", this.currentChannelId,
+                    this.privateRoom.getNumber(), this.privateRoom.getGuildId(), e);
+            transition(State.RECYCLING, State.BROKEN);
+            return;//leave the private guild in a "broken state", this can be later fixed manually through eval
+        }
+
+        try {
+            setUpChannel();
+        } catch (final Exception e) {
+            log.warn("Could not prepare private guild #{} {}, it will be prepared when the next game begins using it",
+                    this.privateRoom.getNumber(), this.privateRoom.getGuildId(), e);
+        }
+
+        transition(State.RECYCLING, State.FREE);
+        this.privateRoomQueue.putBack(this);
+    }
+
+    private void tearDown() {
+        this.ready = false;
+        this.preparedInvite = null;
+        cleanUpMembers();
+        //complete() in here to catch errors
+        //revoke all invites
+        for (final TextChannel channel : fetchThisGuild().getTextChannels()) {
+            final List<Invite> invites = channel.retrieveInvites().complete();
+            invites.forEach(i -> i.delete().complete());
+        }
+        final TextChannel tc = Launcher.getBotContext().getShardManager().getTextChannelById(this.currentChannelId);
+        if (tc != null) {
+            tc.delete().reason("Cleaning up private guild after game ended").complete();
+        } else {
+            log.error("Did not find channel {} in private guild #{} to delete it.",
+                    this.currentChannelId, this.privateRoom.getNumber());
         }
     }
 
     public String getInvite() {
+        final String invite = this.preparedInvite;
+        if (invite != null && !invite.isEmpty()
+                && System.currentTimeMillis() - this.preparedAt < PREPARED_INVITE_MAX_AGE.toMillis()) {
+            return invite;
+        }
         final Guild g = fetchThisGuild();
         final TextChannel channel = g.getTextChannelById(this.currentChannelId);
         return TextchatUtils.getOrCreateInviteLinkForGuild(g, channel,
@@ -191,23 +329,12 @@ public long getChannelId() {
     // the main feature being the @Nonnull return contract, over the @Nullable contract of looking the entity up in JDA
     @Nonnull
     private Guild fetchThisGuild() {
-        ShardManager shardManager = Launcher.getBotContext().getShardManager();
-        Guild guild = shardManager.getGuildById(this.privateRoom.getGuildId());
-        int attempts = 0;
-        while (guild == null) {
-            attempts++;
-            if (attempts > 100) {
-                throw new RuntimeException("Failed to fetch private guild #" + this.privateRoom.getNumber());
-            }
-            log.error("Could not find private guild #{} with id {}, trying in a moment",
-                    this.privateRoom.getNumber(), this.privateRoom.getGuildId(), new LogTheStackException());
-            try {
-                Thread.sleep(5000);
-            } catch (final InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            guild = shardManager.getGuildById(this.privateRoom.getGuildId());
+        try {
+            return Launcher.getBotContext().getEntityResolver()
+                    .resolveGuild(this.privateRoom.getGuildId(), GUILD_FETCH_TIMEOUT)
+                    .join();
+        } catch (final CompletionException e) {
+            throw new RuntimeException("Failed to fetch private guild #" + this.privateRoom.getNumber(), e.getCause());
         }
-        return guild;
     }
 }
@@ -17,17 +17,28 @@
 
 package space.npstr.wolfia.domain.room;
 
+import io.prometheus.client.Collector;
 import net.dv8tion.jda.api.events.guild.member.GuildMemberJoinEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import space.npstr.wolfia.system.metrics.MetricsRegistry;
 
-import java.util.ArrayList;
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Component
@@ -35,8 +46,19 @@ public class PrivateRoomQueue {
 
     private static final Logger log = LoggerFactory.getLogger(PrivateRoomQueue.class);
 
-    private final List<ManagedPrivateRoom> allManagedRooms = new ArrayList<>();
-    private final LinkedBlockingQueue<ManagedPrivateRoom> availablePrivateRoomQueue = new LinkedBlockingQueue<>();
+    //weight of the latest interval in the moving average of intervals between private rooms being put back
+    private static final double RETURN_INTERVAL_WEIGHT = 0.2;
+
+    private final List<ManagedPrivateRoom> allManagedRooms = new CopyOnWriteArrayList<>();
+    private final Map<Long, ManagedPrivateRoom> roomsByGuildId = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<ManagedPrivateRoom> availablePrivateRoomQueue = new ConcurrentLinkedQueue<>();
+    //taken out of the queue for games that are waiting to be resumed, by guild id
+    private final Map<Long, ManagedPrivateRoom> heldForResume = new ConcurrentHashMap<>();
+    //reservations waiting for a private room to be put back, longest waiting first
+    private final Deque<CompletableFuture<ManagedPrivateRoom>> waiters = new ArrayDeque<>();
+    //guarded by waiters
+    private long lastReturn = 0;
+    private volatile long averageReturnIntervalMillis = 0;
 
     public PrivateRoomQueue(PrivateRoomService privateRoomService) {
         List<ManagedPrivateRoom> privateRooms = privateRoomService.getAll().stream()
@@ -44,34 +66,204 @@ public PrivateRoomQueue(PrivateRoomService privateRoomService) {
                 .collect(Collectors.toList());
         log.info("{} private rooms loaded", privateRooms.size());
         this.allManagedRooms.addAll(privateRooms);
+        privateRooms.forEach(room -> this.roomsByGuildId.put(room.getGuildId(), room));
         this.availablePrivateRoomQueue.addAll(privateRooms);
     }
 
     @EventListener
     public void onGuildMemberJoin(final GuildMemberJoinEvent event) {
-        getAllManagedRooms().forEach(room -> room.onGuildMemberJoin(event));
+        final ManagedPrivateRoom room = this.roomsByGuildId.get(event.getGuild().getIdLong());
+        if (room != null) {
+            room.onGuildMemberJoin(event);
+        }
     }
 
     public List<ManagedPrivateRoom> getAllManagedRooms() {
         return Collections.unmodifiableList(this.allManagedRooms);
     }
 
-    public ManagedPrivateRoom take() throws InterruptedException {
-        return this.availablePrivateRoomQueue.take();
-    }
-
+    /**
+     * Prefers private rooms that have been prepared ahead of time.
+     */
     public Optional<ManagedPrivateRoom> poll() {
+        for (final ManagedPrivateRoom room : this.availablePrivateRoomQueue) {
+            if (room.isReady() && this.availablePrivateRoomQueue.remove(room)) {
+                return Optional.of(room);
+            }
+        }
         return Optional.ofNullable(this.availablePrivateRoomQueue.poll());
     }
 
+    /**
+     * Reserve the next free private room. If none is available, the reservation is queued up behind earlier ones
+     * and completed as soon as a private room is put back. Cancel the future of the reservation, or let it time out,
+     * to give up the place in line.
+     */
+    public Reservation reserve() {
+        final CompletableFuture<ManagedPrivateRoom> room = new CompletableFuture<>();
+        final int position;
+        synchronized (this.waiters) {
+            if (this.waiters.isEmpty()) {
+                final Optional<ManagedPrivateRoom> available = poll();
+                if (available.isPresent()) {
+                    room.complete(available.get());
+                    return new Reservation(room, 0, Duration.ZERO);
+                }
+            }
+            this.waiters.add(room);
+            position = this.waiters.size();
+            MetricsRegistry.privateRoomWaiters.set(position);
+        }
+
+        final long waitStarted = System.nanoTime();
+        room.whenComplete((r, t) -> {
+            final boolean gotRoom = r != null;
+            MetricsRegistry.privateRoomWaitTime.labels(gotRoom ? "allocated" : "gave_up")
+                    .observe((System.nanoTime() - waitStarted) / Collector.NANOSECONDS_PER_SECOND);
+            if (!gotRoom) {
+                synchronized (this.waiters) {
+                    this.waiters.remove(room);
+                    MetricsRegistry.privateRoomWaiters.set(this.waiters.size());
+                }
+            }
+        });
+
+        final long returnInterval = this.averageReturnIntervalMillis;
+        final Duration eta = returnInterval > 0 ? Duration.ofMillis(returnInterval * position) : null;
+        return new Reservation(room, position, eta);
+    }
+
+    /**
+     * Take a specific private room out of the queue, for example to hand it back to a game that is resumed after a
+     * restart.
+     *
+     * @return the private room, or empty if there is no available private room with that guild id
+     */
+    public Optional<ManagedPrivateRoom> claim(long guildId) {
+        final ManagedPrivateRoom held = this.heldForResume.remove(guildId);
+        if (held != null) {
+            return Optional.of(held);
+        }
+        return Optional.ofNullable(this.roomsByGuildId.get(guildId))
+                .filter(this.availablePrivateRoomQueue::remove);
+    }
+
+    /**
+     * Take private rooms out of the queue for games that are resumed once their guild becomes available, so that no
+     * new game can reserve them in the meantime. The resumed games {@link #claim(long)} them.
+     */
+    public void holdForResume(Collection<Long> guildIds) {
+        for (final long guildId : guildIds) {
+            Optional.ofNullable(this.roomsByGuildId.get(guildId))
+                    .filter(this.availablePrivateRoomQueue::remove)
+                    .ifPresent(room -> this.heldForResume.put(guildId, room));
+        }
+    }
+
+    /**
+     * Return a private room that was held for a game that is not going to be resumed after all.
+     */
+    public void releaseHeld(long guildId) {
+        final ManagedPrivateRoom held = this.heldForResume.remove(guildId);
+        if (held != null) {
+            putBack(held);
+        }
+    }
+
+    /**
+     * Prepare the available private rooms in the background, so that games can begin using them right away.
+     * Rooms that are taken out of the queue in the meantime are prepared when a game begins using them, rooms that
+     * are held for resumed games are not touched.
+     */
+    public void warmUp(Executor executor) {
+        for (final ManagedPrivateRoom room : this.allManagedRooms) {
+            if (room.isReady()) {
+                continue;
+            }
+            if (!this.availablePrivateRoomQueue.remove(room)) {
+                continue; //in use
+            }
+            executor.execute(() -> {
+                try {
+                    room.prepare();
+                } catch (final Exception e) {
+                    log.warn("Failed to prepare private room #{} ahead of time", room.getNumber(), e);
+                } finally {
+                    putBack(room);
+                }
+            });
+        }
+    }
+
+    /**
+     * Hand a private room to the longest waiting reservation, or return it to the available ones.
+     */
     public void putBack(ManagedPrivateRoom privateRoom) {
-        this.availablePrivateRoomQueue.add(privateRoom);
+        synchronized (this.waiters) {
+            final long now = System.currentTimeMillis();
+            if (this.lastReturn > 0) {
+                final long interval = now - this.lastReturn;
+                this.averageReturnIntervalMillis = this.averageReturnIntervalMillis > 0
+                        ? (long) (RETURN_INTERVAL_WEIGHT * interval + (1 - RETURN_INTERVAL_WEIGHT) * this.averageReturnIntervalMillis)
+                        : interval;
+            }
+            this.lastReturn = now;
+
+            CompletableFuture<ManagedPrivateRoom> waiter = this.waiters.poll();
+            while (waiter != null) {
+                //a waiter that gave up already can't be completed anymore
+                if (waiter.complete(privateRoom)) {
+                    MetricsRegistry.privateRoomWaiters.set(this.waiters.size());
+                    return;
+                }
+                waiter = this.waiters.poll();
+            }
+            MetricsRegistry.privateRoomWaiters.set(0);
+            this.availablePrivateRoomQueue.add(privateRoom);
+        }
     }
 
     public ManagedPrivateRoom add(PrivateRoom privateRoom) {
         ManagedPrivateRoom managedPrivateRoom = new ManagedPrivateRoom(privateRoom, this);
         this.allManagedRooms.add(managedPrivateRoom);
-        this.availablePrivateRoomQueue.add(managedPrivateRoom);
+        this.roomsByGuildId.put(managedPrivateRoom.getGuildId(), managedPrivateRoom);
+        putBack(managedPrivateRoom);
         return managedPrivateRoom;
     }
+
+    public static class Reservation {
+
+        private final CompletableFuture<ManagedPrivateRoom> room;
+        private final int position;
+        @Nullable
+        private final Duration eta;
+
+        private Reservation(CompletableFuture<ManagedPrivateRoom> room, int position, @Nullable Duration eta) {
+            this.room = room;
+            this.position = position;
+            this.eta = eta;
+        }
+
+        /**
+         * @return completes with the reserved private room
+         */
+        public CompletableFuture<ManagedPrivateRoom> getRoom() {
+            return this.room;
+        }
+
+        /**
+         * @return position in line when the reservation was made, 0 if a private room was available right away
+         */
+        public int getPosition() {
+            return this.position;
+        }
+
+        /**
+         * @return rough estimate of how long it takes until the reservation is completed, empty if there is no data
+         * to estimate it from yet
+         */
+        public Optional<Duration> getEta() {
+            return Optional.ofNullable(this.eta);
+        }
+    }
 }
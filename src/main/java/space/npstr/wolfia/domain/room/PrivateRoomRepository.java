@@ -42,7 +42,7 @@ public PrivateRoomRepository(AsyncDbWrapper wrapper) {
 
     @CheckReturnValue
     public CompletionStage<Optional<PrivateRoom>> findOneByGuildId(long guildId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("privateRoom.findOneByGuildId", dsl -> dsl
                 .selectFrom(PRIVATE_ROOM)
                 .where(PRIVATE_ROOM.GUILD_ID.eq(guildId))
                 .fetchOptionalInto(PrivateRoom.class)
@@ -51,7 +51,7 @@ public CompletionStage<Optional<PrivateRoom>> findOneByGuildId(long guildId) {
 
     @CheckReturnValue
     public CompletionStage<List<PrivateRoom>> findAll() {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("privateRoom.findAll", dsl -> dsl
                 .selectFrom(PRIVATE_ROOM)
                 .orderBy(PRIVATE_ROOM.NR.asc())
                 .fetchInto(PrivateRoom.class)
@@ -63,7 +63,7 @@ public CompletionStage<List<PrivateRoom>> findAll() {
     @CheckReturnValue
     public CompletionStage<Optional<PrivateRoom>> insert(long guildId) {
         return getFirstFreeNumber().thenCompose(firstFreeNumber ->
-                this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+                this.wrapper.jooq("privateRoom.insert", dsl -> dsl.transactionResult(config -> DSL.using(config)
                         .insertInto(PRIVATE_ROOM)
                         .columns(PRIVATE_ROOM.GUILD_ID, PRIVATE_ROOM.NR)
                         .values(guildId, firstFreeNumber)
@@ -83,7 +83,7 @@ private CompletionStage<Integer> getFirstFreeNumber() {
                     }
                     var a = PRIVATE_ROOM.as("a");
                     var b = PRIVATE_ROOM.as("b");
-                    return this.wrapper.jooq(dsl -> dsl
+                    return this.wrapper.jooq("privateRoom.getFirstFreeNumber", dsl -> dsl
                             .select(a.NR.add(1))
                             .from(a)
                             .whereNotExists(dsl
@@ -100,7 +100,7 @@ private CompletionStage<Integer> getFirstFreeNumber() {
 
     @CheckReturnValue
     private CompletionStage<Boolean> numberOneExists() {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("privateRoom.numberOneExists", dsl -> dsl
                 .select(value(1))
                 .from(PRIVATE_ROOM)
                 .where(PRIVATE_ROOM.NR.eq(1))
@@ -48,7 +48,7 @@ public ChannelSettingsRepository(AsyncDbWrapper wrapper) {
 
     @CheckReturnValue
     public CompletionStage<Optional<ChannelSettings>> findOne(long channelId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("channelSettings.findOne", dsl -> dsl
                 .selectFrom(CHANNEL_SETTINGS)
                 .where(CHANNEL_SETTINGS.CHANNEL_ID.eq(channelId))
                 .fetchOptionalInto(ChannelSettings.class)
@@ -58,7 +58,7 @@ public CompletionStage<Optional<ChannelSettings>> findOne(long channelId) {
     @CheckReturnValue
     //this works since we dont commit the transaction
     public CompletionStage<ChannelSettings> findOneOrDefault(long channelId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("channelSettings.findOneOrDefault", dsl -> dsl
                 .insertInto(CHANNEL_SETTINGS)
                 .columns(CHANNEL_SETTINGS.CHANNEL_ID)
                 .values(channelId)
@@ -76,7 +76,7 @@ public CompletionStage<List<ChannelSettings>> findOrDefault(Collection<Long> cha
             return CompletableFuture.completedFuture(List.of());
         }
 
-        return this.wrapper.jooq(dsl -> {
+        return this.wrapper.jooq("channelSettings.findOrDefault", dsl -> {
             var insert = dsl.insertInto(CHANNEL_SETTINGS)
                     .columns(CHANNEL_SETTINGS.CHANNEL_ID);
             for (long channelId : channelIds) {
@@ -121,7 +121,7 @@ public CompletionStage<ChannelSettings> setTagLastUsed(long channelId, long last
     @CheckReturnValue
     public CompletionStage<ChannelSettings> addTags(long channelId, Collection<Long> tags) {
         Long[] tagArray = tags.toArray(new Long[0]);
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("channelSettings.addTags", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(CHANNEL_SETTINGS)
                 .columns(CHANNEL_SETTINGS.CHANNEL_ID, CHANNEL_SETTINGS.TAGS)
                 .values(channelId, tagArray)
@@ -136,7 +136,7 @@ public CompletionStage<ChannelSettings> addTags(long channelId, Collection<Long>
     @CheckReturnValue
     public CompletionStage<ChannelSettings> removeTags(long channelId, Collection<Long> tags) {
         Long[] tagArray = tags.toArray(new Long[0]);
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("channelSettings.removeTags", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(CHANNEL_SETTINGS)
                 .columns(CHANNEL_SETTINGS.CHANNEL_ID, CHANNEL_SETTINGS.TAGS)
                 .values(channelId, new Long[]{})
@@ -150,7 +150,7 @@ public CompletionStage<ChannelSettings> removeTags(long channelId, Collection<Lo
 
     @CheckReturnValue
     public CompletionStage<Integer> delete(long channelId) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("channelSettings.delete", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .deleteFrom(CHANNEL_SETTINGS)
                 .where(CHANNEL_SETTINGS.CHANNEL_ID.eq(channelId))
                 .execute()
@@ -159,7 +159,7 @@ public CompletionStage<Integer> delete(long channelId) {
 
     @CheckReturnValue
     private <F> CompletionStage<ChannelSettings> set(long channelId, Field<F> field, F value) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("channelSettings.set", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(CHANNEL_SETTINGS)
                 .columns(CHANNEL_SETTINGS.CHANNEL_ID, field)
                 .values(channelId, value)
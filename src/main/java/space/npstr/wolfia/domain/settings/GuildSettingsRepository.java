@@ -38,7 +38,7 @@ public GuildSettingsRepository(AsyncDbWrapper wrapper) {
 
     @CheckReturnValue
     public CompletionStage<Optional<GuildSettings>> findOne(long guildId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("guildSettings.findOne", dsl -> dsl
                 .selectFrom(GUILD_SETTINGS)
                 .where(GUILD_SETTINGS.GUILD_ID.eq(guildId))
                 .fetchOptionalInto(GuildSettings.class)
@@ -47,7 +47,7 @@ public CompletionStage<Optional<GuildSettings>> findOne(long guildId) {
 
     @CheckReturnValue
     public CompletionStage<GuildSettings> findOneOrDefault(long guildId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("guildSettings.findOneOrDefault", dsl -> dsl
                 .insertInto(GUILD_SETTINGS)
                 .columns(GUILD_SETTINGS.GUILD_ID)
                 .values(guildId)
@@ -61,7 +61,7 @@ public CompletionStage<GuildSettings> findOneOrDefault(long guildId) {
 
     @CheckReturnValue
     public CompletionStage<GuildSettings> set(long guildId, String name, String iconId) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("guildSettings.set", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(GUILD_SETTINGS)
                 .columns(GUILD_SETTINGS.GUILD_ID, GUILD_SETTINGS.NAME, GUILD_SETTINGS.ICON_ID)
                 .values(guildId, name, iconId)
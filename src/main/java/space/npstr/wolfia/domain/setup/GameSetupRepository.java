@@ -48,7 +48,7 @@ public GameSetupRepository(AsyncDbWrapper wrapper) {
 
     @CheckReturnValue
     public CompletionStage<Optional<GameSetup>> findOne(long channelId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("gameSetup.findOne", dsl -> dsl
                 .selectFrom(GAME_SETUP)
                 .where(GAME_SETUP.CHANNEL_ID.eq(channelId))
                 .fetchOptionalInto(GameSetup.class)
@@ -58,7 +58,7 @@ public CompletionStage<Optional<GameSetup>> findOne(long channelId) {
     @CheckReturnValue
     //this works since we dont commit the transaction
     public CompletionStage<GameSetup> findOneOrDefault(long channelId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("gameSetup.findOneOrDefault", dsl -> dsl
                 .insertInto(GAME_SETUP)
                 .columns(GAME_SETUP.CHANNEL_ID)
                 .values(channelId)
@@ -72,7 +72,7 @@ public CompletionStage<GameSetup> findOneOrDefault(long channelId) {
 
     @CheckReturnValue
     public CompletionStage<List<GameSetup>> findAutoOutSetupsWhereUserIsInned(long userId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("gameSetup.findAutoOutSetupsWhereUserIsInned", dsl -> dsl
                 .select(GAME_SETUP.CHANNEL_ID, GAME_SETUP.INNED_USERS, GAME_SETUP.GAME, GAME_SETUP.MODE, GAME_SETUP.DAY_LENGTH)
                 .from(GAME_SETUP)
                 .join(CHANNEL_SETTINGS).on(GAME_SETUP.CHANNEL_ID.eq(CHANNEL_SETTINGS.CHANNEL_ID))
@@ -100,7 +100,7 @@ public CompletionStage<GameSetup> setDayLength(long channelId, Duration dayLengt
     @CheckReturnValue
     public CompletionStage<GameSetup> inUsers(long channelId, Collection<Long> userIds) {
         Long[] userIdsArray = userIds.toArray(new Long[0]);
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("gameSetup.inUsers", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(GAME_SETUP)
                 .columns(GAME_SETUP.CHANNEL_ID, GAME_SETUP.INNED_USERS)
                 .values(channelId, userIdsArray)
@@ -115,7 +115,7 @@ public CompletionStage<GameSetup> inUsers(long channelId, Collection<Long> userI
     @CheckReturnValue
     public CompletionStage<GameSetup> outUsers(long channelId, Collection<Long> userIds) {
         Long[] userIdsArray = userIds.toArray(new Long[0]);
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("gameSetup.outUsers", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(GAME_SETUP)
                 .columns(GAME_SETUP.CHANNEL_ID, GAME_SETUP.INNED_USERS)
                 .values(channelId, new Long[]{})
@@ -129,7 +129,7 @@ public CompletionStage<GameSetup> outUsers(long channelId, Collection<Long> user
 
     @CheckReturnValue
     public CompletionStage<Integer> delete(long channelId) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("gameSetup.delete", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .deleteFrom(GAME_SETUP)
                 .where(GAME_SETUP.CHANNEL_ID.eq(channelId))
                 .execute()
@@ -138,7 +138,7 @@ public CompletionStage<Integer> delete(long channelId) {
 
     @CheckReturnValue
     private <F> CompletionStage<GameSetup> set(long channelId, Field<F> field, F value) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("gameSetup.set", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(GAME_SETUP)
                 .columns(GAME_SETUP.CHANNEL_ID, field)
                 .values(channelId, value)
@@ -47,7 +47,7 @@ public StaffRepository(AsyncDbWrapper wrapper) {
 
     @CheckReturnValue
     public CompletionStage<Optional<StaffMemberRecord>> getStaffMember(long userId) {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("staff.getStaffMember", dsl -> dsl
                 .selectFrom(STAFF_MEMBER)
                 .where(STAFF_MEMBER.USER_ID.eq(userId))
                 .fetchOptional()
@@ -56,7 +56,7 @@ public CompletionStage<Optional<StaffMemberRecord>> getStaffMember(long userId)
 
     @CheckReturnValue
     public CompletionStage<List<StaffMemberRecord>> fetchAllStaffMembers() {
-        return this.wrapper.jooq(dsl -> dsl
+        return this.wrapper.jooq("staff.fetchAllStaffMembers", dsl -> dsl
                 .selectFrom(STAFF_MEMBER)
                 .fetch()
         );
@@ -64,7 +64,7 @@ public CompletionStage<List<StaffMemberRecord>> fetchAllStaffMembers() {
 
     @CheckReturnValue
     public CompletionStage<StaffMemberRecord> updateOrCreateStaffMemberFunction(long userId, StaffFunction staffFunction) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("staff.updateOrCreateStaffMemberFunction", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .insertInto(STAFF_MEMBER)
                 .columns(STAFF_MEMBER.USER_ID, STAFF_MEMBER.FUNCTION)
                 .values(userId, staffFunction)
@@ -77,7 +77,7 @@ public CompletionStage<StaffMemberRecord> updateOrCreateStaffMemberFunction(long
 
     @CheckReturnValue
     public CompletionStage<Optional<StaffMemberRecord>> updateSlogan(long userId, @Nullable String slogan) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("staff.updateSlogan", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .update(STAFF_MEMBER)
                 .set(STAFF_MEMBER.SLOGAN, slogan)
                 .where(STAFF_MEMBER.USER_ID.eq(userId))
@@ -88,7 +88,7 @@ public CompletionStage<Optional<StaffMemberRecord>> updateSlogan(long userId, @N
 
     @CheckReturnValue
     public CompletionStage<Optional<StaffMemberRecord>> updateLink(long userId, @Nullable URI link) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("staff.updateLink", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .update(STAFF_MEMBER)
                 .set(STAFF_MEMBER.LINK, link)
                 .where(STAFF_MEMBER.USER_ID.eq(userId))
@@ -99,7 +99,7 @@ public CompletionStage<Optional<StaffMemberRecord>> updateLink(long userId, @Nul
 
     @CheckReturnValue
     public CompletionStage<Optional<StaffMemberRecord>> updateEnabled(long userId, boolean enabled) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("staff.updateEnabled", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .update(STAFF_MEMBER)
                 .set(STAFF_MEMBER.ENABLED, enabled)
                 .where(STAFF_MEMBER.USER_ID.eq(userId))
@@ -110,12 +110,12 @@ public CompletionStage<Optional<StaffMemberRecord>> updateEnabled(long userId, b
 
     @CheckReturnValue
     public CompletionStage<Void> updateAllActive(Collection<Long> activeStaff) {
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        return this.wrapper.jooq("staff.updateAllActive", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .update(STAFF_MEMBER)
                 .set(STAFF_MEMBER.ACTIVE, true)
                 .where(STAFF_MEMBER.USER_ID.in(activeStaff))
                 .execute()
-        )).thenCompose(__ -> this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        )).thenCompose(__ -> this.wrapper.jooq("staff.updateAllActive", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .update(STAFF_MEMBER)
                 .set(STAFF_MEMBER.ACTIVE, false)
                 .where(not(STAFF_MEMBER.USER_ID.in(activeStaff)))
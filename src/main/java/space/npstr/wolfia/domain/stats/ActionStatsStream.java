@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.stats;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+
+/**
+ * Streams the actions of running games into the database in small batches, so that neither the memory of a game nor
+ * the transaction that records it at the end grow with the length of the game.
+ * <p>
+ * Actions are identified by their game and their order, so writing them more than once, for example after a batch
+ * failed or a game was resumed, is harmless.
+ * <p>
+ * Streamed actions of games that are never recorded, for example because the bot went down without resuming them, are
+ * purged once they are old enough.
+ */
+@Component
+public class ActionStatsStream {
+
+    private static final Logger log = LoggerFactory.getLogger(ActionStatsStream.class);
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    private static final int BATCH_SIZE = 100;
+    private static final long PURGE_INTERVAL_MINUTES = 60;
+    //way longer than any game runs, so only actions of games that are gone are purged
+    private static final Duration STALE_ACTIONS_MAX_AGE = Duration.ofDays(7);
+
+    private final StatsRepository repository;
+    private final Queue<ActionStats> buffer = new ConcurrentLinkedQueue<>();
+    //only one flush at a time, held while a batch is being written
+    private final Object flushLock = new Object();
+    //held only briefly, so that taking the actions of a game never waits for the database
+    private final Object bufferLock = new Object();
+    //guarded by the buffer lock. the batch that is being written right now
+    private List<ActionStats> inFlight = new ArrayList<>();
+
+    public ActionStatsStream(StatsRepository repository, ExceptionLoggingExecutor executor) {
+        this.repository = repository;
+        executor.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+        executor.scheduleWithFixedDelay(this::purgeStaleActions, 1, PURGE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Queue an action of a running game to be written to the database. The action must not change anymore.
+     */
+    public void append(ActionStats action) {
+        this.buffer.add(action);
+    }
+
+    /**
+     * Take the actions of a game that are not known to be written yet out of the queue, so they can be recorded
+     * together with the game. This includes the actions of a batch that is being written right now; if that batch
+     * makes it into the database anyways, the copies that are recorded with the game win.
+     */
+    public List<ActionStats> take(GameStats gameStats) {
+        synchronized (this.bufferLock) {
+            List<ActionStats> taken = new ArrayList<>();
+            this.inFlight.removeIf(action -> action.getGame().equals(gameStats) && taken.add(action));
+            this.buffer.removeIf(action -> action.getGame().equals(gameStats) && taken.add(action));
+            return taken;
+        }
+    }
+
+    /**
+     * Write all queued actions to the database. Batches that fail to be written are queued again, except for the
+     * actions that have been taken in the meantime.
+     *
+     * @return true if all actions are in the database
+     */
+    public boolean flush() {
+        synchronized (this.flushLock) {
+            while (true) {
+                List<ActionStats> batch = new ArrayList<>(BATCH_SIZE);
+                synchronized (this.bufferLock) {
+                    ActionStats action;
+                    while (batch.size() < BATCH_SIZE && (action = this.buffer.poll()) != null) {
+                        batch.add(action);
+                    }
+                    if (batch.isEmpty()) {
+                        return true;
+                    }
+                    this.inFlight = new ArrayList<>(batch);
+                }
+                try {
+                    this.repository.insertPendingActions(batch).toCompletableFuture().join();
+                } catch (Exception e) {
+                    log.error("Failed to write {} actions of running games", batch.size(), e);
+                    synchronized (this.bufferLock) {
+                        this.buffer.addAll(this.inFlight);
+                        this.inFlight = new ArrayList<>();
+                    }
+                    return false;
+                }
+                synchronized (this.bufferLock) {
+                    this.inFlight = new ArrayList<>();
+                }
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        flush();
+    }
+
+    private void purgeStaleActions() {
+        try {
+            long submittedBefore = System.currentTimeMillis() - STALE_ACTIONS_MAX_AGE.toMillis();
+            int purged = this.repository.deletePendingActionsSubmittedBefore(submittedBefore).toCompletableFuture().join();
+            if (purged > 0) {
+                log.info("Purged {} stale streamed actions of games that were never recorded", purged);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge stale streamed actions, trying again in {} minutes", PURGE_INTERVAL_MINUTES, e);
+        }
+    }
+}
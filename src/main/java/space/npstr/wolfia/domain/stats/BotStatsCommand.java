@@ -31,11 +31,11 @@ public class BotStatsCommand implements BaseCommand, PublicCommand {
 
     public static final String TRIGGER = "botstats";
 
-    private final StatsProvider statsProvider;
+    private final StatsService statsService;
     private final StatsRender render;
 
-    public BotStatsCommand(StatsProvider statsProvider, StatsRender render) {
-        this.statsProvider = statsProvider;
+    public BotStatsCommand(StatsService statsService, StatsRender render) {
+        this.statsService = statsService;
         this.render = render;
     }
 
@@ -53,7 +53,7 @@ public String help() {
 
     @Override
     public boolean execute(@Nonnull final CommandContext context) {
-        BotStats botStats = this.statsProvider.getBotStats();
+        BotStats botStats = this.statsService.getBotStats();
         context.reply(this.render.renderBotStats(context, botStats).build());
         return true;
     }
@@ -14,23 +14,19 @@
  * You should have received a copy of the GNU Affero General Public License
  * along with this program.  If not, see <http://www.gnu.org/licenses/>.
  */
-
 package space.npstr.wolfia.domain.stats;
 
-import org.immutables.value.Value;
-
 import static org.immutables.value.Value.Immutable;
 
+/**
+ * Published once the stats of a finished game are in the database.
+ */
 @Immutable
-@Value.Style(create = "new")
-public interface GeneralUserStats {
-
-    long postLength();
-
-    long posts();
+@StatsStyle
+public interface GameRecorded {
 
-    String alignment();
+    long gameId();
 
-    boolean isWinner();
+    long guildId();
 
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.stats;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.immutables.value.Value;
+import space.npstr.wolfia.domain.game.ActionSnapshot;
+import space.npstr.wolfia.game.GameInfo.GameMode;
+import space.npstr.wolfia.game.definitions.Games;
+
+/**
+ * A finished game waiting in the {@link GameResultOutbox} to be recorded. Serializable form of a {@link GameStats}.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableGameResult.class)
+@JsonDeserialize(as = ImmutableGameResult.class)
+public interface GameResult {
+
+    /**
+     * Identifies this result in the database, so that recording it more than once is harmless.
+     */
+    String resultKey();
+
+    long guildId();
+
+    String guildName();
+
+    long channelId();
+
+    String channelName();
+
+    Games gameType();
+
+    GameMode gameMode();
+
+    int playerSize();
+
+    long startTime();
+
+    long endTime();
+
+    List<TeamResult> teams();
+
+    /**
+     * Actions that had not been streamed into the database yet when the game ended.
+     */
+    List<ActionSnapshot> actions();
+
+    static GameResult of(String resultKey, GameStats gameStats, Collection<ActionStats> actions) {
+        return ImmutableGameResult.builder()
+                .resultKey(resultKey)
+                .guildId(gameStats.getGuildId())
+                .guildName(gameStats.getGuildName())
+                .channelId(gameStats.getChannelId())
+                .channelName(gameStats.getChannelName())
+                .gameType(gameStats.getGameType())
+                .gameMode(gameStats.getGameMode())
+                .playerSize(gameStats.getPlayerSize())
+                .startTime(gameStats.getStartTime())
+                .endTime(gameStats.getEndTime())
+                .teams(gameStats.getStartingTeams().stream().map(TeamResult::of).collect(Collectors.toList()))
+                .actions(actions.stream().map(ActionSnapshot::of).collect(Collectors.toList()))
+                .build();
+    }
+
+    default GameStats toGameStats() {
+        GameStats gameStats = new GameStats(guildId(), guildName(), channelId(), channelName(), gameType(), gameMode(),
+                playerSize(), startTime());
+        gameStats.setEndTime(endTime());
+        teams().forEach(team -> gameStats.addTeam(team.toTeamStats(gameStats)));
+        actions().forEach(action -> gameStats.addAction(action.toActionStats(gameStats)));
+        return gameStats;
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.stats;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.lettuce.core.Limit;
+import io.lettuce.core.Range;
+import io.lettuce.core.StreamMessage;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import space.npstr.wolfia.db.DatabaseBusyException;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+import space.npstr.wolfia.system.metrics.MetricsRegistry;
+import space.npstr.wolfia.system.redis.Redis;
+
+/**
+ * Durable outbox for the results of finished games, backed by a redis stream. Games hand in their result without
+ * waiting on the database, and a drainer records the results in the database in the background, retrying with
+ * increasing delays while the database is not available.
+ * <p>
+ * A result stays in the stream until it has been recorded, so it survives restarts. Each result carries a key that
+ * makes recording it more than once harmless, for example when the bot goes down between recording and removing it.
+ * <p>
+ * Results that can't be read, or that keep failing for reasons other than the database being unavailable, are moved to
+ * a dead letter stream, so they don't hold up the results behind them. They can be inspected and requeued from there.
+ */
+@Component
+public class GameResultOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(GameResultOutbox.class);
+
+    static final String STREAM_KEY = "wolfia:outbox:game-results";
+    static final String DEAD_LETTER_KEY = "wolfia:outbox:game-results:dead";
+    private static final String PAYLOAD_FIELD = "result";
+    private static final String ERROR_FIELD = "error";
+
+    private static final int DRAIN_BATCH_SIZE = 10;
+    private static final long DRAIN_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    private static final long MAX_RETRY_DELAY_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final Duration QUEUE_TIMEOUT = Duration.ofSeconds(5);
+    //failures while the database is unavailable don't count
+    static final int MAX_ATTEMPTS = 5;
+
+    private final Redis redis;
+    private final StatsRepository statsRepository;
+    private final ActionStatsStream actionStatsStream;
+    private final ReplayCache replayCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExceptionLoggingExecutor executor;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    //games that are waiting for their result to be recorded, by the key of their result
+    private final Map<String, CompletableFuture<GameStats>> waiting = new ConcurrentHashMap<>();
+
+    private final Object drainLock = new Object();
+    //guarded by the drain lock
+    private long retryDelayMillis = DRAIN_INTERVAL_MILLIS;
+    private long nextAttemptAt = 0;
+    //failed attempts to record the results in the outbox, by their message id
+    private final Map<String, Integer> attempts = new HashMap<>();
+
+    public GameResultOutbox(Redis redis, StatsRepository statsRepository, ActionStatsStream actionStatsStream,
+                            ReplayCache replayCache, ApplicationEventPublisher eventPublisher,
+                            ExceptionLoggingExecutor executor) {
+
+        this.redis = redis;
+        this.statsRepository = statsRepository;
+        this.actionStatsStream = actionStatsStream;
+        this.replayCache = replayCache;
+        this.eventPublisher = eventPublisher;
+        this.executor = executor;
+        executor.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Hand in the result of a finished game.
+     *
+     * @return completes with the recorded game, including its game id, once the result is in the database
+     */
+    public CompletableFuture<GameStats> submit(GameStats gameStats) {
+        GameResult result = GameResult.of(UUID.randomUUID().toString(), gameStats,
+                this.actionStatsStream.take(gameStats));
+        CompletableFuture<GameStats> recorded = new CompletableFuture<>();
+
+        String payload;
+        try {
+            payload = this.objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            recorded.completeExceptionally(e);
+            return recorded;
+        }
+
+        this.waiting.put(result.resultKey(), recorded);
+        this.redis.getConnection().async().xadd(STREAM_KEY, Map.of(PAYLOAD_FIELD, payload))
+                .toCompletableFuture()
+                .orTimeout(QUEUE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((messageId, t) -> {
+                    if (t == null) {
+                        MetricsRegistry.gameResultOutbox.labels("queued").inc();
+                        this.executor.execute(this::drain);
+                        return;
+                    }
+                    //without the outbox, the next best thing is trying to record it right away
+                    log.error("Failed to queue the result of game in channel {}, recording it directly",
+                            result.channelId(), t);
+                    MetricsRegistry.gameResultOutbox.labels("bypassed").inc();
+                    this.waiting.remove(result.resultKey());
+                    record(result).whenComplete((stats, recordFailure) -> {
+                        if (recordFailure != null) {
+                            recorded.completeExceptionally(recordFailure);
+                        } else {
+                            recorded.complete(stats);
+                        }
+                    });
+                });
+        return recorded;
+    }
+
+    /**
+     * Record the results in the outbox in the database, oldest first.
+     */
+    void drain() {
+        synchronized (this.drainLock) {
+            if (System.currentTimeMillis() < this.nextAttemptAt) {
+                return;
+            }
+            try {
+                List<StreamMessage<String, String>> messages;
+                do {
+                    messages = this.redis.getConnection().async()
+                            .xrange(STREAM_KEY, Range.unbounded(), Limit.from(DRAIN_BATCH_SIZE))
+                            .toCompletableFuture().join();
+                    for (StreamMessage<String, String> message : messages) {
+                        if (!drain(message)) {
+                            //try it again with the next regular drain
+                            return;
+                        }
+                    }
+                } while (messages.size() == DRAIN_BATCH_SIZE);
+                this.retryDelayMillis = DRAIN_INTERVAL_MILLIS;
+            } catch (Exception e) {
+                log.warn("Failed to drain the game result outbox, trying again in {}ms", this.retryDelayMillis, e);
+                MetricsRegistry.gameResultOutbox.labels("failed_drain").inc();
+                this.nextAttemptAt = System.currentTimeMillis() + this.retryDelayMillis;
+                this.retryDelayMillis = Math.min(this.retryDelayMillis * 2, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * @return false if the result failed to be recorded and has to be tried again
+     */
+    private boolean drain(StreamMessage<String, String> message) {
+        GameResult result;
+        try {
+            result = this.objectMapper.readValue(message.getBody().get(PAYLOAD_FIELD), GameResult.class);
+        } catch (JsonProcessingException e) {
+            //there is no point in retrying it, and it must not hold up the results behind it
+            log.error("Dead lettering unreadable game result {} from the outbox: {}", message.getId(), message.getBody(), e);
+            deadLetter(message, e);
+            return true;
+        }
+
+        GameStats recorded;
+        try {
+            recorded = record(result).join();
+        } catch (Exception e) {
+            if (isDatabaseUnavailable(e)) {
+                throw e;
+            }
+            int attempt = this.attempts.merge(message.getId(), 1, Integer::sum);
+            if (attempt < MAX_ATTEMPTS) {
+                log.warn("Failed to record game result {} of channel {}, attempt {} of {}", message.getId(),
+                        result.channelId(), attempt, MAX_ATTEMPTS, e);
+                return false;
+            }
+            log.error("Dead lettering game result {} of channel {} after {} failed attempts", message.getId(),
+                    result.channelId(), attempt, e);
+            deadLetter(message, e);
+            CompletableFuture<GameStats> waitingGame = this.waiting.remove(result.resultKey());
+            if (waitingGame != null) {
+                waitingGame.completeExceptionally(e);
+            }
+            return true;
+        }
+        remove(message);
+        MetricsRegistry.gameResultOutbox.labels("recorded").inc();
+        CompletableFuture<GameStats> waitingGame = this.waiting.remove(result.resultKey());
+        if (waitingGame != null) {
+            waitingGame.complete(recorded);
+        }
+        return true;
+    }
+
+    //the database being down or too busy is no fault of the result
+    private static boolean isDatabaseUnavailable(Throwable throwable) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DatabaseBusyException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                //connection exceptions and the server shutting down or starting up
+                String sqlState = ((SQLException) cause).getSQLState();
+                if (sqlState != null && (sqlState.startsWith("08") || sqlState.startsWith("57P"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private CompletableFuture<GameStats> record(GameResult result) {
+        return this.statsRepository.insertGameStats(result.toGameStats(), result.resultKey()).toCompletableFuture()
+                .thenApply(recorded -> {
+                    this.replayCache.warm(recorded.getGameId().orElseThrow());
+                    this.eventPublisher.publishEvent(ImmutableGameRecorded.builder()
+                            .gameId(recorded.getGameId().orElseThrow())
+                            .guildId(recorded.getGuildId())
+                            .build());
+                    return recorded;
+                });
+    }
+
+    private void deadLetter(StreamMessage<String, String> message, Exception reason) {
+        Map<String, String> body = new HashMap<>(message.getBody());
+        body.put(ERROR_FIELD, String.valueOf(reason));
+        this.redis.getConnection().async().xadd(DEAD_LETTER_KEY, body).toCompletableFuture().join();
+        remove(message);
+        MetricsRegistry.gameResultOutbox.labels("dead_lettered").inc();
+    }
+
+    private void remove(StreamMessage<String, String> message) {
+        this.redis.getConnection().async().xdel(STREAM_KEY, message.getId()).toCompletableFuture().join();
+        this.attempts.remove(message.getId());
+    }
+}
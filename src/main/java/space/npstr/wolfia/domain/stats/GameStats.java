@@ -64,11 +64,18 @@ public class GameStats {
     public GameStats(long guildId, String guildName, long channelId, String channelName, Games gameType,
                      GameMode gameMode, int playerSize) {
 
+        this(guildId, guildName, channelId, channelName, gameType, gameMode, playerSize, System.currentTimeMillis());
+    }
+
+    // for games that are resumed after a restart
+    public GameStats(long guildId, String guildName, long channelId, String channelName, Games gameType,
+                     GameMode gameMode, int playerSize, long startTime) {
+
         this.guildId = guildId;
         this.guildName = guildName;
         this.channelId = channelId;
         this.channelName = channelName;
-        this.startTime = System.currentTimeMillis();
+        this.startTime = startTime;
         this.gameType = gameType;
         this.gameMode = gameMode;
         this.playerSize = playerSize;
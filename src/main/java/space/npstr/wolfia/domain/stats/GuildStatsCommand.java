@@ -33,11 +33,11 @@ public class GuildStatsCommand implements BaseCommand, PublicCommand {
 
     public static final String TRIGGER = "guildstats";
 
-    private final StatsProvider statsProvider;
+    private final StatsService statsService;
     private final StatsRender render;
 
-    public GuildStatsCommand(StatsProvider statsProvider, StatsRender render) {
-        this.statsProvider = statsProvider;
+    public GuildStatsCommand(StatsService statsService, StatsRender render) {
+        this.statsService = statsService;
         this.render = render;
     }
 
@@ -76,7 +76,7 @@ public boolean execute(@Nonnull final CommandContext context) {
             guildId = guild.map(Guild::getIdLong);
         }
 
-        GuildStats guildStats = this.statsProvider.getGuildStats(guildId.get());
+        GuildStats guildStats = this.statsService.getGuildStats(guildId.get());
         context.reply(this.render.renderGuildStats(context, guildStats).build());
         return true;
     }
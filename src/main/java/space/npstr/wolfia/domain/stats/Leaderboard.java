@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.util.Arrays;
+import java.util.Optional;
+import space.npstr.wolfia.utils.discord.Emojis;
+
+/**
+ * The users of a guild, or of all guilds, can be ranked by these. They are served from the user summary tables, which
+ * are kept up to date whenever a game is recorded.
+ */
+public enum Leaderboard {
+
+    WINS("wins", "Most wins"),
+    BADDIE_WIN_RATE("wolves", "Best win % as " + Emojis.WOLF),
+    SHOT_ACCURACY("shots", Emojis.GUN + " accuracy"),
+    ;
+
+    /**
+     * The amount of games as baddie or shots a user needs to be ranked by their win rate or accuracy. Has to match the
+     * generated rate columns of the user summary tables.
+     */
+    public static final int MINIMUM_SAMPLE = 5;
+
+    private final String key;
+    private final String title;
+
+    Leaderboard(String key, String title) {
+        this.key = key;
+        this.title = title;
+    }
+
+    public static Optional<Leaderboard> parse(String input) {
+        return Arrays.stream(values())
+                .filter(leaderboard -> leaderboard.key.equalsIgnoreCase(input) || leaderboard.name().equalsIgnoreCase(input))
+                .findAny();
+    }
+
+    /**
+     * @return short name of this leaderboard, used as an argument of the command and in the path of the endpoint
+     */
+    public String getKey() {
+        return this.key;
+    }
+
+    public String getTitle() {
+        return this.title;
+    }
+}
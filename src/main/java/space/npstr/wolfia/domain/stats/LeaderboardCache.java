@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.prometheus.client.cache.caffeine.CacheMetricsCollector;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serves leaderboards page by page. Pages are cached for a short while, so that paging back and forth or several users
+ * looking at the same leaderboard do not hit the database every time. A freshly recorded game may therefore take up to
+ * {@link LeaderboardCache#EXPIRY} to show up on the leaderboards.
+ */
+@Component
+public class LeaderboardCache {
+
+    public static final int PAGE_SIZE = 10;
+    //deeper pages would need ever larger offsets, and nobody scrolls that far anyways
+    public static final int MAX_PAGE = 100;
+    private static final Duration EXPIRY = Duration.ofMinutes(1);
+
+    private final StatsRepository statsRepository;
+
+    private final LoadingCache<PageKey, LeaderboardPage> pages = Caffeine.newBuilder()
+            .expireAfterWrite(EXPIRY)
+            .maximumSize(1000)
+            .recordStats()
+            .build(this::load);
+
+    public LeaderboardCache(StatsRepository statsRepository, CacheMetricsCollector cacheMetricsCollector) {
+        this.statsRepository = statsRepository;
+        cacheMetricsCollector.addCache("leaderboardCache", this.pages);
+    }
+
+    /**
+     * @param guildId the guild to rank the users of, or null for the global leaderboard
+     * @param page    number of the page, starting at 1
+     */
+    public LeaderboardPage getPage(Leaderboard leaderboard, @Nullable Long guildId, int page) {
+        if (page < 1 || page > MAX_PAGE) {
+            throw new IllegalArgumentException("Page must be between 1 and " + MAX_PAGE + ", but was " + page);
+        }
+        return this.pages.get(new PageKey(leaderboard, guildId, page));
+    }
+
+    private LeaderboardPage load(PageKey key) {
+        //one more than a page, to find out whether there is a next page
+        List<LeaderboardEntry> entries = this.statsRepository
+                .getLeaderboard(key.leaderboard, key.guildId, (key.page - 1) * PAGE_SIZE, PAGE_SIZE + 1)
+                .toCompletableFuture().join();
+        boolean hasNextPage = entries.size() > PAGE_SIZE && key.page < MAX_PAGE;
+
+        return ImmutableLeaderboardPage.builder()
+                .leaderboard(key.leaderboard)
+                .page(key.page)
+                .hasNextPage(hasNextPage)
+                .addAllEntries(entries.subList(0, Math.min(entries.size(), PAGE_SIZE)))
+                .guildId(Optional.ofNullable(key.guildId))
+                .build();
+    }
+
+    private static class PageKey {
+        private final Leaderboard leaderboard;
+        @Nullable
+        private final Long guildId;
+        private final int page;
+
+        private PageKey(Leaderboard leaderboard, @Nullable Long guildId, int page) {
+            this.leaderboard = leaderboard;
+            this.guildId = guildId;
+            this.page = page;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PageKey)) return false;
+            PageKey other = (PageKey) obj;
+            return this.page == other.page
+                    && this.leaderboard == other.leaderboard
+                    && Objects.equals(this.guildId, other.guildId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.leaderboard, this.guildId, this.page);
+        }
+    }
+}
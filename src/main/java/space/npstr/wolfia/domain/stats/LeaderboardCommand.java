@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.util.Optional;
+import javax.annotation.Nonnull;
+import net.dv8tion.jda.api.entities.Guild;
+import space.npstr.wolfia.commands.BaseCommand;
+import space.npstr.wolfia.commands.CommandContext;
+import space.npstr.wolfia.commands.PublicCommand;
+import space.npstr.wolfia.domain.Command;
+
+/**
+ * Display a leaderboard of this guild or of all guilds
+ */
+@Command
+public class LeaderboardCommand implements BaseCommand, PublicCommand {
+
+    public static final String TRIGGER = "leaderboard";
+    private static final String GLOBAL = "global";
+
+    private final LeaderboardCache leaderboardCache;
+    private final StatsRender render;
+
+    public LeaderboardCommand(LeaderboardCache leaderboardCache, StatsRender render) {
+        this.leaderboardCache = leaderboardCache;
+        this.render = render;
+    }
+
+    @Override
+    public String getTrigger() {
+        return TRIGGER;
+    }
+
+    @Nonnull
+    @Override
+    public String help() {
+        return invocation() + " [wins|wolves|shots] [" + GLOBAL + "] [page]"
+                + "\n#Show who won the most games, who has the best win rate as wolf, or who is the most accurate"
+                + " shooter, in this guild or in all guilds. Rates are shown once they are based on at least "
+                + Leaderboard.MINIMUM_SAMPLE + " games or shots. Examples:"
+                + "\n  " + invocation()
+                + "\n  " + invocation() + " wolves"
+                + "\n  " + invocation() + " shots " + GLOBAL + " 2";
+    }
+
+    @Override
+    public boolean execute(@Nonnull final CommandContext context) {
+        Leaderboard leaderboard = Leaderboard.WINS;
+        boolean global = false;
+        int page = 1;
+        for (String arg : context.args) {
+            Optional<Leaderboard> parsed = Leaderboard.parse(arg);
+            if (parsed.isPresent()) {
+                leaderboard = parsed.get();
+            } else if (GLOBAL.equalsIgnoreCase(arg)) {
+                global = true;
+            } else {
+                try {
+                    page = Integer.parseInt(arg);
+                } catch (final NumberFormatException e) {
+                    context.help();
+                    return false;
+                }
+            }
+        }
+        if (page < 1 || page > LeaderboardCache.MAX_PAGE) {
+            context.replyWithMention("page has to be between 1 and " + LeaderboardCache.MAX_PAGE + ".");
+            return false;
+        }
+
+        //outside of a guild there is only the global leaderboard
+        Long guildId = global ? null : context.getGuild().map(Guild::getIdLong).orElse(null);
+        LeaderboardPage leaderboardPage = this.leaderboardCache.getPage(leaderboard, guildId, page);
+        context.reply(this.render.renderLeaderboard(leaderboardPage).build());
+        return true;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import static org.immutables.value.Value.Immutable;
+
+@Immutable
+@StatsStyle
+@JsonSerialize(as = ImmutableLeaderboardEntry.class)
+public interface LeaderboardEntry {
+
+    /**
+     * @return position of the user on the leaderboard, starting at 1
+     */
+    long rank();
+
+    /**
+     * @return id of the user these stats belong to
+     */
+    long userId();
+
+    /**
+     * @return total games played by the user
+     */
+    long totalGames();
+
+    /**
+     * @return total games won by the user
+     */
+    long gamesWon();
+
+    /**
+     * @return total games played by the user as baddie
+     */
+    long gamesAsBaddie();
+
+    /**
+     * @return total games won by the user as baddie
+     */
+    long gamesWonAsBaddie();
+
+    /**
+     * @return total shots fired by the user
+     */
+    long totalShots();
+
+    /**
+     * @return total wolves shot by the user
+     */
+    long wolvesShot();
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.List;
+import java.util.Optional;
+
+import static org.immutables.value.Value.Immutable;
+
+@Immutable
+@StatsStyle
+@JsonSerialize(as = ImmutableLeaderboardPage.class)
+public interface LeaderboardPage {
+
+    Leaderboard leaderboard();
+
+    /**
+     * @return number of this page, starting at 1
+     */
+    int page();
+
+    /**
+     * @return true if there are more users ranked after the ones on this page
+     */
+    boolean hasNextPage();
+
+    /**
+     * @return the ranked users on this page, in order
+     */
+    List<LeaderboardEntry> entries();
+
+    /**
+     * @return id of the guild this leaderboard belongs to, or empty for the global leaderboard
+     */
+    Optional<Long> guildId();
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.stats;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import javax.annotation.Nullable;
+import org.immutables.value.Value;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Roles;
+
+/**
+ * Serializable form of a {@link PlayerStats}, part of a {@link GameResult}.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutablePlayerResult.class)
+@JsonDeserialize(as = ImmutablePlayerResult.class)
+public interface PlayerResult {
+
+    long userId();
+
+    @Nullable
+    String nickname();
+
+    Alignments alignment();
+
+    Roles role();
+
+    int totalPosts();
+
+    int totalPostLength();
+
+    static PlayerResult of(PlayerStats playerStats) {
+        return ImmutablePlayerResult.builder()
+                .userId(playerStats.getUserId())
+                .nickname(playerStats.getNickname())
+                .alignment(playerStats.getAlignment())
+                .role(playerStats.getRole())
+                .totalPosts(playerStats.getTotalPosts())
+                .totalPostLength(playerStats.getTotalPostLength())
+                .build();
+    }
+
+    default PlayerStats toPlayerStats(TeamStats teamStats) {
+        PlayerStats playerStats = new PlayerStats(teamStats, userId(), nickname(), alignment(), role());
+        playerStats.restorePosts(totalPosts(), totalPostLength());
+        return playerStats;
+    }
+}
@@ -73,6 +73,12 @@ public synchronized void bumpPosts(final int length) {
         this.totalPostLength += length;
     }
 
+    // for games that are resumed after a restart
+    public synchronized void restorePosts(final int totalPosts, final int totalPostLength) {
+        this.totalPosts = totalPosts;
+        this.totalPostLength = totalPostLength;
+    }
+
     //do not use the autogenerated id, it will only be set after persisting
     @Override
     public int hashCode() {
@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+
+/**
+ * Encodes the replays of games that have none yet, see {@link ReplayCodec}. These are the games recorded before the
+ * replay column existed, and games whose replay was dropped when personal data was deleted. Until then, those replays
+ * are read from the stats tables.
+ */
+@Component
+public class ReplayBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayBackfill.class);
+
+    private static final long INTERVAL_MINUTES = 1;
+    private static final int BATCH_SIZE = 100;
+    //keep a single run from hogging the database
+    private static final int MAX_BATCHES_PER_RUN = 50;
+
+    private final StatsRepository repository;
+
+    public ReplayBackfill(StatsRepository repository, ExceptionLoggingExecutor executor) {
+        this.repository = repository;
+        executor.scheduleWithFixedDelay(this::run, INTERVAL_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return the amount of games that have been encoded
+     */
+    int run() {
+        int encoded = 0;
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            int batch;
+            try {
+                batch = this.repository.backfillReplays(BATCH_SIZE).toCompletableFuture().join();
+            } catch (Exception e) {
+                log.warn("Failed to encode replays, trying again in {} minutes", INTERVAL_MINUTES, e);
+                break;
+            }
+            encoded += batch;
+            if (batch < BATCH_SIZE) {
+                break;
+            }
+        }
+        if (encoded > 0) {
+            log.info("Encoded the replays of {} games", encoded);
+        }
+        return encoded;
+    }
+}
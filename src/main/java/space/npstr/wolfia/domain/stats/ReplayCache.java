@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.prometheus.client.cache.caffeine.CacheMetricsCollector;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recorded games never change, so their replays are cached once they have been loaded and rendered. The only thing
+ * that changes a recorded game is the deletion of personal data, see {@link ReplayCache#invalidateUser(long)}.
+ */
+@Component
+public class ReplayCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayCache.class);
+
+    //roughly the amount of rows of the cached games
+    private static final long MAXIMUM_WEIGHT = 200_000;
+    //backstop in case a replay with deleted personal data made it into the cache anyways
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofDays(1);
+
+    private final StatsRepository statsRepository;
+    private final StatsRender render;
+
+    private final Cache<Long, Replay> replays = Caffeine.newBuilder()
+            .maximumWeight(MAXIMUM_WEIGHT)
+            .weigher((Long gameId, Replay replay) -> replay.weight())
+            .expireAfterWrite(EXPIRE_AFTER_WRITE)
+            .recordStats()
+            .build();
+
+    //counts invalidations, so that loads that started before one don't put a stale replay into the cache after it
+    // guarded by itself, together with the insertions into the cache
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ReplayCache(StatsRepository statsRepository, StatsRender render, CacheMetricsCollector cacheMetricsCollector) {
+        this.statsRepository = statsRepository;
+        this.render = render;
+        cacheMetricsCollector.addCache("replayCache", this.replays);
+    }
+
+    public Optional<GameStats> getGameStats(long gameId) {
+        return getReplay(gameId).map(Replay::gameStats);
+    }
+
+    public Optional<MessageEmbed> getRenderedReplay(long gameId) {
+        return getReplay(gameId).map(replay -> replay.rendered(this.render));
+    }
+
+    /**
+     * Load a freshly recorded game into the cache in the background, since replays of the newest games are the ones
+     * most likely to be requested.
+     */
+    public void warm(long gameId) {
+        long invalidation = this.invalidations.get();
+        this.statsRepository.findGameStats(gameId).whenComplete((gameStats, t) -> {
+            if (t != null) {
+                log.warn("Failed to load game #{} into the replay cache", gameId, t);
+                return;
+            }
+            gameStats.ifPresent(stats -> cache(gameId, new Replay(stats), invalidation));
+        });
+    }
+
+    /**
+     * Drop all replays of games the user played in, so that they are loaded again with their personal data removed.
+     * Call this after the personal data has been removed from the database.
+     */
+    public void invalidateUser(long userId) {
+        synchronized (this.invalidations) {
+            this.invalidations.incrementAndGet();
+            this.replays.asMap().values().removeIf(replay -> replay.hasPlayer(userId));
+        }
+    }
+
+    //a load that raced an invalidation may have read personal data that is deleted by now, so it is not cached
+    private void cache(long gameId, Replay replay, long invalidation) {
+        synchronized (this.invalidations) {
+            if (this.invalidations.get() == invalidation) {
+                this.replays.asMap().putIfAbsent(gameId, replay);
+            }
+        }
+    }
+
+    private Optional<Replay> getReplay(long gameId) {
+        Replay cached = this.replays.getIfPresent(gameId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        //games that do not exist (yet) are not cached
+        long invalidation = this.invalidations.get();
+        Optional<Replay> loaded = this.statsRepository.findGameStats(gameId).toCompletableFuture().join()
+                .map(Replay::new);
+        loaded.ifPresent(replay -> cache(gameId, replay, invalidation));
+        return loaded;
+    }
+
+    private static class Replay {
+
+        private final GameStats gameStats;
+        @Nullable
+        private volatile MessageEmbed rendered;
+
+        private Replay(GameStats gameStats) {
+            this.gameStats = gameStats;
+        }
+
+        private GameStats gameStats() {
+            return this.gameStats;
+        }
+
+        //rendering may look up names of users, so it is only done once a replay is actually requested
+        private MessageEmbed rendered(StatsRender render) {
+            MessageEmbed embed = this.rendered;
+            if (embed == null) {
+                embed = render.renderGameStats(this.gameStats).build();
+                this.rendered = embed;
+            }
+            return embed;
+        }
+
+        private boolean hasPlayer(long userId) {
+            return this.gameStats.getStartingTeams().stream()
+                    .flatMap(team -> team.getPlayers().stream())
+                    .anyMatch(player -> player.getUserId() == userId);
+        }
+
+        private int weight() {
+            int players = this.gameStats.getStartingTeams().stream()
+                    .mapToInt(team -> team.getPlayers().size())
+                    .sum();
+            return 1 + this.gameStats.getStartingTeams().size() + players + this.gameStats.getActions().size();
+        }
+    }
+}
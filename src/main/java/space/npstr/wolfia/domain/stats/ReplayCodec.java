@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import javax.annotation.Nullable;
+import space.npstr.wolfia.game.definitions.Actions;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.definitions.Roles;
+
+/**
+ * Compact binary form of the teams, players and actions of a recorded game, stored next to the game so that a replay
+ * can be loaded from a single row.
+ * <p>
+ * Numbers are written as varints, enums as their ordinals, and the timestamps of an action as the difference to the
+ * previous action. The ordinals make the format depend on the order of the constants of {@link Actions},
+ * {@link Alignments}, {@link Phase} and {@link Roles}, so new constants have to be added at the end of those enums, or
+ * the {@link ReplayCodec#VERSION} has to be bumped, which makes existing replays fall back to the stats tables.
+ */
+public final class ReplayCodec {
+
+    public static final int VERSION = 1;
+
+    private static final Actions[] ACTIONS = Actions.values();
+    private static final Alignments[] ALIGNMENTS = Alignments.values();
+    private static final Phase[] PHASES = Phase.values();
+    private static final Roles[] ROLES = Roles.values();
+
+    private ReplayCodec() {
+    }
+
+    public static byte[] encode(GameStats gameStats, List<ActionStats> actions) {
+        Writer out = new Writer();
+        out.writeVarInt(VERSION);
+
+        out.writeVarInt(gameStats.getStartingTeams().size());
+        for (TeamStats team : gameStats.getStartingTeams()) {
+            out.writeVarLong(team.getTeamId().orElseThrow());
+            out.writeVarInt(team.getAlignment().ordinal());
+            out.writeVarInt(team.isWinner() ? 1 : 0);
+            out.writeString(team.getName());
+            out.writeVarInt(team.getTeamSize());
+            out.writeVarInt(team.getPlayers().size());
+            for (PlayerStats player : team.getPlayers()) {
+                out.writeVarLong(player.getPlayerId().orElseThrow());
+                out.writeVarLong(player.getUserId());
+                out.writeString(player.getNickname());
+                out.writeVarInt(player.getRole().ordinal());
+                out.writeVarInt(player.getAlignment().ordinal());
+                out.writeVarInt(player.getTotalPostLength());
+                out.writeVarInt(player.getTotalPosts());
+            }
+        }
+
+        List<ActionStats> sortedActions = new ArrayList<>(actions);
+        sortedActions.sort(Comparator.comparingInt(ActionStats::getOrder));
+        out.writeVarInt(sortedActions.size());
+        long previousId = 0;
+        long previousHappened = gameStats.getStartTime();
+        for (ActionStats action : sortedActions) {
+            long actionId = action.getActionId().orElseThrow();
+            out.writeSignedVarLong(actionId - previousId);
+            previousId = actionId;
+            out.writeVarInt(action.getActionType().ordinal());
+            out.writeVarLong(action.getActor());
+            out.writeVarInt(action.getCycle());
+            out.writeVarInt(action.getOrder());
+            out.writeSignedVarLong(action.getTarget());
+            out.writeSignedVarLong(action.getTimeStampHappened() - previousHappened);
+            previousHappened = action.getTimeStampHappened();
+            out.writeSignedVarLong(action.getTimeStampSubmitted() - action.getTimeStampHappened());
+            out.writeVarInt(action.getPhase().ordinal());
+            out.writeString(action.getAdditionalInfo());
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Restore the teams, players and actions of a game.
+     *
+     * @return false if the replay was written in a different version of the format, in which case nothing is restored
+     */
+    public static boolean decode(GameStats gameStats, byte[] replay) {
+        Reader in = new Reader(replay);
+        if (in.readVarInt() != VERSION) {
+            return false;
+        }
+
+        int teamCount = in.readVarInt();
+        List<TeamStats> teams = new ArrayList<>(teamCount);
+        for (int i = 0; i < teamCount; i++) {
+            long teamId = in.readVarLong();
+            Alignments alignment = ALIGNMENTS[in.readVarInt()];
+            boolean winner = in.readVarInt() == 1;
+            String name = in.readString();
+            TeamStats team = new TeamStats(gameStats, alignment, name, in.readVarInt());
+            team.setTeamId(teamId);
+            team.setWinner(winner);
+            int playerCount = in.readVarInt();
+            List<PlayerStats> players = new ArrayList<>(playerCount);
+            for (int j = 0; j < playerCount; j++) {
+                long playerId = in.readVarLong();
+                long userId = in.readVarLong();
+                String nickname = in.readString();
+                Roles role = ROLES[in.readVarInt()];
+                PlayerStats player = new PlayerStats(team, userId, nickname, ALIGNMENTS[in.readVarInt()], role);
+                player.setPlayerId(playerId);
+                int totalPostLength = in.readVarInt();
+                player.restorePosts(in.readVarInt(), totalPostLength);
+                players.add(player);
+            }
+            team.setPlayers(players);
+            teams.add(team);
+        }
+        gameStats.setTeams(teams);
+
+        int actionCount = in.readVarInt();
+        List<ActionStats> actions = new ArrayList<>(actionCount);
+        long actionId = 0;
+        long happened = gameStats.getStartTime();
+        for (int i = 0; i < actionCount; i++) {
+            actionId += in.readSignedVarLong();
+            Actions type = ACTIONS[in.readVarInt()];
+            long actor = in.readVarLong();
+            int cycle = in.readVarInt();
+            int order = in.readVarInt();
+            long target = in.readSignedVarLong();
+            happened += in.readSignedVarLong();
+            long submitted = happened + in.readSignedVarLong();
+            Phase phase = PHASES[in.readVarInt()];
+            ActionStats action = new ActionStats(gameStats, order, submitted, happened, cycle, phase, actor, type,
+                    target, in.readString());
+            action.setActionId(actionId);
+            actions.add(action);
+        }
+        gameStats.setActions(actions);
+        return true;
+    }
+
+    private static class Writer {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        private void writeVarInt(int value) {
+            writeVarLong(Integer.toUnsignedLong(value));
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                this.bytes.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            this.bytes.write((int) value);
+        }
+
+        //zigzag, so that small negative numbers stay small
+        private void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        //the length is shifted by one to tell null and empty strings apart
+        private void writeString(@Nullable String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(utf8.length + 1);
+            this.bytes.writeBytes(utf8);
+        }
+
+        private byte[] toByteArray() {
+            return this.bytes.toByteArray();
+        }
+    }
+
+    private static class Reader {
+
+        private final ByteBuffer buffer;
+
+        private Reader(byte[] bytes) {
+            this.buffer = ByteBuffer.wrap(bytes);
+        }
+
+        private int readVarInt() {
+            return (int) readVarLong();
+        }
+
+        private long readVarLong() {
+            long result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = this.buffer.get();
+                result |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return result;
+        }
+
+        private long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        @Nullable
+        private String readString() {
+            int length = readVarInt();
+            if (length == 0) {
+                return null;
+            }
+            String value = new String(this.buffer.array(), this.buffer.position(), length - 1, StandardCharsets.UTF_8);
+            this.buffer.position(this.buffer.position() + length - 1);
+            return value;
+        }
+    }
+}
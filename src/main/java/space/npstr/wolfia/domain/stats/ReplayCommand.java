@@ -19,6 +19,7 @@
 
 import java.util.Optional;
 import javax.annotation.Nonnull;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import space.npstr.wolfia.commands.BaseCommand;
 import space.npstr.wolfia.commands.CommandContext;
 import space.npstr.wolfia.commands.PublicCommand;
@@ -32,12 +33,10 @@ public class ReplayCommand implements BaseCommand, PublicCommand {
 
     public static final String TRIGGER = "replay";
 
-    private final StatsRender render;
-    private final StatsProvider statsProvider;
+    private final ReplayCache replayCache;
 
-    public ReplayCommand(StatsRender render, StatsProvider statsProvider) {
-        this.render = render;
-        this.statsProvider = statsProvider;
+    public ReplayCommand(ReplayCache replayCache) {
+        this.replayCache = replayCache;
     }
 
     @Override
@@ -70,14 +69,14 @@ public boolean execute(@Nonnull final CommandContext context) {
             return false;
         }
 
-        Optional<GameStats> gameStatsOpt = this.statsProvider.getGameStats(gameId);
+        Optional<MessageEmbed> replay = this.replayCache.getRenderedReplay(gameId);
 
-        if (gameStatsOpt.isEmpty()) {
+        if (replay.isEmpty()) {
             context.replyWithMention("there is no such game in the database.");
             return false;
         }
 
-        context.reply(this.render.renderGameStats(gameStatsOpt.get()));
+        context.reply(replay.get());
         return true;
     }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+
+/**
+ * stats_action is partitioned by ranges of game ids. This creates the partitions for upcoming games ahead of time, and
+ * archives the partitions of older games once their replays are encoded, see
+ * {@link StatsRepository#archiveActionPartition(long, long)}. Only the newest partitions are written to, so the cost
+ * of vacuuming and maintaining the indexes of stats_action does not grow with the amount of recorded games.
+ */
+@Component
+public class StatsActionPartitions {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsActionPartitions.class);
+
+    //has to match the partition size of the migration that partitioned stats_action
+    static final long PARTITION_SIZE = 10_000_000;
+    private static final int RANGES_AHEAD = 2;
+    //the partitions of the newest games are left alone, they are still written to and looked at
+    private static final int HOT_PARTITIONS = 2;
+    private static final long INTERVAL_MINUTES = 60;
+
+    private final StatsRepository repository;
+
+    public StatsActionPartitions(StatsRepository repository, ExceptionLoggingExecutor executor) {
+        this.repository = repository;
+        executor.scheduleWithFixedDelay(this::run, 1, INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * @return the amount of partitions that have been archived
+     */
+    int run() {
+        long currentRange;
+        List<Long> unarchived;
+        try {
+            currentRange = this.repository.createActionPartitions(PARTITION_SIZE, RANGES_AHEAD).toCompletableFuture().join();
+            unarchived = this.repository.findUnarchivedActionPartitions().toCompletableFuture().join();
+        } catch (Exception e) {
+            log.warn("Failed to maintain the partitions of the stats actions, trying again in {} minutes", INTERVAL_MINUTES, e);
+            return 0;
+        }
+
+        int archived = 0;
+        for (long range : unarchived) {
+            if (range > currentRange - HOT_PARTITIONS) {
+                break;
+            }
+            boolean done = this.repository.archiveActionPartition(range, PARTITION_SIZE).toCompletableFuture().join();
+            if (!done) {
+                //the older partitions have to wait for their replays too
+                log.info("Waiting for the replays of the games in partition {} of the stats actions", range);
+                break;
+            }
+            log.info("Archived partition {} of the stats actions", range);
+            archived++;
+        }
+        return archived;
+    }
+}
@@ -145,6 +145,51 @@ public EmbedBuilder renderUserStats(UserStats stats) {
         return eb;
     }
 
+    public EmbedBuilder renderLeaderboard(LeaderboardPage leaderboardPage) {
+        final EmbedBuilder eb = MessageContext.getDefaultEmbedBuilder();
+        Leaderboard leaderboard = leaderboardPage.leaderboard();
+        Optional<Long> guildId = leaderboardPage.guildId();
+        String where = guildId
+                .map(id -> this.guildSettingsService.guild(id).getOrDefault().getName())
+                .orElse("all guilds");
+        eb.setTitle(leaderboard.getTitle() + " in " + where);
+
+        if (leaderboardPage.entries().isEmpty()) {
+            eb.setDescription(leaderboardPage.page() > 1
+                    ? "There is nobody on page " + leaderboardPage.page() + " of this leaderboard."
+                    : "There is nobody on this leaderboard yet.");
+            return eb;
+        }
+
+        StringBuilder content = new StringBuilder();
+        for (LeaderboardEntry entry : leaderboardPage.entries()) {
+            UserCache.Action userAction = this.userCache.user(entry.userId());
+            String name = guildId.map(id -> userAction.getEffectiveName(id)).orElseGet(userAction::getName);
+            content.append("`#").append(entry.rank()).append("` ").append(TextchatUtils.escapeMarkdown(name))
+                    .append(": ").append(renderScore(leaderboard, entry)).append("\n");
+        }
+        eb.setDescription(content.toString());
+        if (leaderboardPage.hasNextPage()) {
+            eb.setFooter("More on page " + (leaderboardPage.page() + 1));
+        }
+        return eb;
+    }
+
+    private static String renderScore(Leaderboard leaderboard, LeaderboardEntry entry) {
+        switch (leaderboard) {
+            case WINS:
+                return entry.gamesWon() + " wins in " + entry.totalGames() + " games";
+            case BADDIE_WIN_RATE:
+                return percentFormat(divide(entry.gamesWonAsBaddie(), entry.gamesAsBaddie()))
+                        + " of " + entry.gamesAsBaddie() + " games as " + Emojis.WOLF;
+            case SHOT_ACCURACY:
+                return percentFormat(divide(entry.wolvesShot(), entry.totalShots()))
+                        + " of " + entry.totalShots() + " shots";
+            default:
+                throw new IllegalArgumentException("Unknown leaderboard " + leaderboard);
+        }
+    }
+
 
     public EmbedBuilder renderGameStats(GameStats stats) {
         final NiceEmbedBuilder eb = NiceEmbedBuilder.defaultBuilder();
@@ -19,23 +19,52 @@
 
 import io.prometheus.client.Summary;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.Instant;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 import javax.annotation.CheckReturnValue;
+import javax.annotation.Nullable;
+import org.jooq.Condition;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.InsertValuesStep11;
+import org.jooq.InsertValuesStep6;
+import org.jooq.InsertValuesStep8;
+import org.jooq.Name;
+import org.jooq.Query;
+import org.jooq.Record;
 import org.jooq.Record1;
 import org.jooq.Record3;
+import org.jooq.Record5;
+import org.jooq.Record7;
 import org.jooq.Record8;
 import org.jooq.RecordMapper;
+import org.jooq.Results;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
 import org.jooq.impl.DSL;
 import org.springframework.stereotype.Repository;
 import space.npstr.wolfia.db.AsyncDbWrapper;
+import space.npstr.wolfia.db.Workload;
+import space.npstr.wolfia.db.gen.tables.records.StatsActionPendingRecord;
 import space.npstr.wolfia.db.gen.tables.records.StatsActionRecord;
+import space.npstr.wolfia.db.gen.tables.records.StatsGameRecord;
 import space.npstr.wolfia.db.gen.tables.records.StatsPlayerRecord;
 import space.npstr.wolfia.db.gen.tables.records.StatsTeamRecord;
 import space.npstr.wolfia.domain.privacy.ImmutablePrivacyAction;
@@ -46,199 +75,335 @@
 import space.npstr.wolfia.game.definitions.Alignments;
 import space.npstr.wolfia.system.metrics.MetricsRegistry;
 
-import static org.jooq.impl.DSL.avg;
+import static org.jooq.impl.DSL.coalesce;
 import static org.jooq.impl.DSL.count;
-import static org.jooq.impl.DSL.defaultValue;
+import static org.jooq.impl.DSL.generateSeries;
+import static org.jooq.impl.DSL.select;
+import static org.jooq.impl.DSL.sum;
 import static org.jooq.impl.DSL.val;
+import static space.npstr.wolfia.db.gen.Sequences.STATS_ID_SEQ;
 import static space.npstr.wolfia.db.gen.Tables.STATS_ACTION;
+import static space.npstr.wolfia.db.gen.Tables.STATS_ACTION_ARCHIVE;
+import static space.npstr.wolfia.db.gen.Tables.STATS_ACTION_PENDING;
 import static space.npstr.wolfia.db.gen.Tables.STATS_GAME;
+import static space.npstr.wolfia.db.gen.Tables.STATS_GUILD_USER_SUMMARY;
+import static space.npstr.wolfia.db.gen.Tables.STATS_GUILD_WIN_SUMMARY;
 import static space.npstr.wolfia.db.gen.Tables.STATS_PLAYER;
 import static space.npstr.wolfia.db.gen.Tables.STATS_TEAM;
+import static space.npstr.wolfia.db.gen.Tables.STATS_USER_SUMMARY;
+import static space.npstr.wolfia.db.gen.Tables.STATS_WIN_SUMMARY;
 
 @Repository
 public class StatsRepository {
 
+    //partitions of stats_action are named after the range of game ids they hold
+    private static final String ACTION_PARTITION_PREFIX = "stats_action_";
+    private static final Pattern ACTION_PARTITION_NAME = Pattern.compile(ACTION_PARTITION_PREFIX + "([0-9]+)");
+    //holds the actions of games whose range has no partition yet
+    private static final Name DEFAULT_ACTION_PARTITION = DSL.name(ACTION_PARTITION_PREFIX + "default");
+    //rows fetched per round trip when streaming the personal data of a user
+    private static final int PRIVACY_FETCH_SIZE = 500;
+
     private final AsyncDbWrapper wrapper;
 
     public StatsRepository(AsyncDbWrapper wrapper) {
         this.wrapper = wrapper;
     }
 
+    /**
+     * Read the win stats from the summary tables, which hold one row per player size (and guild). This does not get
+     * slower with the amount of recorded games.
+     *
+     * @param guildId restrict the stats to games in this guild, or null for all games
+     */
     @CheckReturnValue
-    public CompletionStage<BigDecimal> getAveragePlayerSize() {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("getAveragePlayerSize");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .select(avg(STATS_GAME.PLAYER_SIZE))
-                .from(STATS_GAME)
-                .fetchOptional() // SQL AVG may return null for empty sets
-                .map(Record1::component1)
-                .orElse(BigDecimal.ZERO)
-        ));
-    }
-
-    @CheckReturnValue
-    public CompletionStage<BigDecimal> getAveragePlayerSizeInGuild(long guildId) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("getAveragePlayerSizeInGuild");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .select(avg(STATS_GAME.PLAYER_SIZE))
-                .from(STATS_GAME)
-                .where(STATS_GAME.GUILD_ID.eq(guildId))
-                .fetchOptional() // SQL AVG may return null for empty sets
-                .map(Record1::component1)
-                .orElse(BigDecimal.ZERO)
-        ));
+    public CompletionStage<AggregatedWinStats> getAggregatedWinStats(@Nullable Long guildId) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("getAggregatedWinStats");
+        return this.wrapper.jooq(Workload.BATCH, "stats.getAggregatedWinStats", dsl -> timer.time(() -> {
+            List<WinSummaryRow> rows;
+            if (guildId == null) {
+                rows = dsl.select(STATS_WIN_SUMMARY.PLAYER_SIZE, STATS_WIN_SUMMARY.GAME_COUNT,
+                        STATS_WIN_SUMMARY.PLAYER_SIZE_SUM, STATS_WIN_SUMMARY.GOODIE_WINS, STATS_WIN_SUMMARY.BADDIE_WINS)
+                        .from(STATS_WIN_SUMMARY)
+                        .orderBy(STATS_WIN_SUMMARY.PLAYER_SIZE)
+                        .fetch(WinSummaryRow::new);
+            } else {
+                rows = dsl.select(STATS_GUILD_WIN_SUMMARY.PLAYER_SIZE, STATS_GUILD_WIN_SUMMARY.GAME_COUNT,
+                        STATS_GUILD_WIN_SUMMARY.PLAYER_SIZE_SUM, STATS_GUILD_WIN_SUMMARY.GOODIE_WINS,
+                        STATS_GUILD_WIN_SUMMARY.BADDIE_WINS)
+                        .from(STATS_GUILD_WIN_SUMMARY)
+                        .where(STATS_GUILD_WIN_SUMMARY.GUILD_ID.eq(guildId))
+                        .orderBy(STATS_GUILD_WIN_SUMMARY.PLAYER_SIZE)
+                        .fetch(WinSummaryRow::new);
+            }
+
+            long gameCount = 0;
+            long playerSizeSum = 0;
+            long goodieWins = 0;
+            long baddieWins = 0;
+            List<WinStats> winStatsByPlayerSize = new ArrayList<>();
+            for (WinSummaryRow row : rows) {
+                gameCount += row.gameCount;
+                playerSizeSum += row.playerSizeSum;
+                goodieWins += row.goodieWins;
+                baddieWins += row.baddieWins;
+                winStatsByPlayerSize.add(winStats(row.playerSize, row.goodieWins, row.baddieWins));
+            }
+            BigDecimal averagePlayerSize = gameCount == 0
+                    ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(playerSizeSum).divide(BigDecimal.valueOf(gameCount), 16, RoundingMode.HALF_UP);
+            return ImmutableAggregatedWinStats.builder()
+                    .averagePlayerSize(averagePlayerSize)
+                    .totalWinStats(winStats(-1, goodieWins, baddieWins))
+                    .addAllWinStatsByPlayerSize(winStatsByPlayerSize)
+                    .build();
+        }));
     }
 
-    @CheckReturnValue
-    public CompletionStage<Set<Integer>> getDistinctPlayerSizes() {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("getDistinctPlayerSizes");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .selectDistinct(STATS_GAME.PLAYER_SIZE)
-                .from(STATS_GAME)
-                .fetch()
-                .intoSet(STATS_GAME.PLAYER_SIZE)
-        ));
+    private static class WinSummaryRow {
+        private final int playerSize;
+        private final long gameCount;
+        private final long playerSizeSum;
+        private final long goodieWins;
+        private final long baddieWins;
+
+        private WinSummaryRow(Record5<Integer, Long, Long, Long, Long> record) {
+            this.playerSize = record.value1();
+            this.gameCount = record.value2();
+            this.playerSizeSum = record.value3();
+            this.goodieWins = record.value4();
+            this.baddieWins = record.value5();
+        }
     }
 
-    @CheckReturnValue
-    public CompletionStage<Set<Integer>> getDistinctPlayerSizesInGuild(long guildId) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("getDistinctPlayerSizesInGuild");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .selectDistinct(STATS_GAME.PLAYER_SIZE)
-                .from(STATS_GAME)
-                .where(STATS_GAME.GUILD_ID.eq(guildId))
-                .fetch()
-                .intoSet(STATS_GAME.PLAYER_SIZE)
-        ));
+    private static WinStats winStats(int playerSize, long goodieWins, long baddieWins) {
+        return ImmutableWinStats.builder()
+                .playerSize(playerSize)
+                .totalGames(goodieWins + baddieWins) // correct for now, may change in the future
+                .goodieWins(goodieWins)
+                .baddieWins(baddieWins)
+                .build();
     }
 
+    /**
+     * Count everything about the games of a user in a single query, see {@link UserStats}.
+     */
     @CheckReturnValue
-    public CompletionStage<Integer> countAlignmentWins(Alignments alignment) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("countAlignmentWins");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .select(count())
-                .from(STATS_GAME)
-                .innerJoin(STATS_TEAM)
-                .on(STATS_TEAM.GAME_ID.eq(STATS_GAME.GAME_ID))
-                .where(STATS_TEAM.IS_WINNER.isTrue())
-                .and(STATS_TEAM.ALIGNMENT.eq(alignment.name()))
-                .fetchOne()
-                .component1()
-        ));
-    }
+    public CompletionStage<UserStats> getUserStats(long userId) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("getUserStats");
+        Condition asBaddie = STATS_PLAYER.ALIGNMENT.eq(Alignments.WOLF.name());
+        Condition asGoodie = STATS_PLAYER.ALIGNMENT.eq(Alignments.VILLAGE.name());
+        Condition won = STATS_TEAM.IS_WINNER.isTrue();
+
+        Field<Integer> totalGames = count().as("total_games");
+        Field<Integer> gamesWon = count().filterWhere(won).as("games_won");
+        Field<Integer> gamesAsBaddie = count().filterWhere(asBaddie).as("games_as_baddie");
+        Field<Integer> gamesWonAsBaddie = count().filterWhere(asBaddie.and(won)).as("games_won_as_baddie");
+        Field<Integer> gamesAsGoodie = count().filterWhere(asGoodie).as("games_as_goodie");
+        Field<Integer> gamesWonAsGoodie = count().filterWhere(asGoodie.and(won)).as("games_won_as_goodie");
+        Field<BigDecimal> totalPosts = coalesce(sum(STATS_PLAYER.TOTAL_POSTS), BigDecimal.ZERO).as("total_posts");
+        Field<BigDecimal> totalPostLength = coalesce(sum(STATS_PLAYER.TOTAL_POSTLENGTH), BigDecimal.ZERO).as("total_post_length");
+        Table<?> games = select(totalGames, gamesWon, gamesAsBaddie, gamesWonAsBaddie, gamesAsGoodie, gamesWonAsGoodie,
+                totalPosts, totalPostLength)
+                .from(STATS_PLAYER)
+                .innerJoin(STATS_TEAM).on(STATS_PLAYER.TEAM_ID.eq(STATS_TEAM.TEAM_ID))
+                .where(STATS_PLAYER.USER_ID.eq(userId))
+                .asTable("games");
 
-    @CheckReturnValue
-    public CompletionStage<Integer> countAlignmentWinsInGuild(Alignments alignment, long guildId) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("countAlignmentWinsInGuild");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .select(count())
-                .from(STATS_GAME)
-                .innerJoin(STATS_TEAM)
-                .on(STATS_TEAM.GAME_ID.eq(STATS_GAME.GAME_ID))
-                .where(STATS_TEAM.IS_WINNER.isTrue())
-                .and(STATS_TEAM.ALIGNMENT.eq(alignment.name()))
-                .and(STATS_GAME.GUILD_ID.eq(guildId))
-                .fetchOne()
-                .component1()
-        ));
+        //the alignment of a shot player is the one they had in the game they were shot in
+        Field<Integer> totalShots = count().as("total_shots");
+        Field<Integer> wolvesShot = count().filterWhere(asBaddie).as("wolves_shot");
+        Table<?> shots = select(totalShots, wolvesShot)
+                .from(STATS_ACTION)
+                .innerJoin(STATS_PLAYER).on(STATS_PLAYER.USER_ID.eq(STATS_ACTION.TARGET))
+                .innerJoin(STATS_TEAM).on(STATS_TEAM.TEAM_ID.eq(STATS_PLAYER.TEAM_ID)
+                        .and(STATS_TEAM.GAME_ID.eq(STATS_ACTION.GAME_ID)))
+                .where(STATS_ACTION.ACTION_TYPE.eq(Actions.SHOOT.name()).and(STATS_ACTION.ACTOR.eq(userId)))
+                .asTable("shots");
+
+        return this.wrapper.jooq(Workload.BATCH, "stats.getUserStats", dsl -> timer.time(() -> {
+            //both sides are aggregates without grouping, so there is always exactly one row
+            Record record = dsl.select()
+                    .from(games)
+                    .crossJoin(shots)
+                    .fetchSingle();
+            return ImmutableUserStats.builder()
+                    .userId(userId)
+                    .totalGames(record.get(games.field(totalGames)))
+                    .gamesWon(record.get(games.field(gamesWon)))
+                    .gamesAsBaddie(record.get(games.field(gamesAsBaddie)))
+                    .gamesWonAsBaddie(record.get(games.field(gamesWonAsBaddie)))
+                    .gamesAsGoodie(record.get(games.field(gamesAsGoodie)))
+                    .gamesWonAsGoodie(record.get(games.field(gamesWonAsGoodie)))
+                    .totalShots(record.get(shots.field(totalShots)))
+                    .wolvesShot(record.get(shots.field(wolvesShot)))
+                    .totalPosts(record.get(games.field(totalPosts)).longValue())
+                    .totalPostLength(record.get(games.field(totalPostLength)).longValue())
+                    .build();
+        }));
     }
 
+    /**
+     * Read a page of a leaderboard from the user summary tables. The summary tables are indexed in the order of each
+     * leaderboard, so this does not get slower with the amount of ranked users, as long as the offset stays small.
+     *
+     * @param guildId restrict the leaderboard to games in this guild, or null for all games
+     */
     @CheckReturnValue
-    public CompletionStage<Integer> countAlignmentWinsForPlayerSize(Alignments alignment, int playerSize) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("countAlignmentWinsForPlayerSize");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .select(count())
-                .from(STATS_GAME)
-                .innerJoin(STATS_TEAM)
-                .on(STATS_TEAM.GAME_ID.eq(STATS_GAME.GAME_ID))
-                .where(STATS_TEAM.IS_WINNER.isTrue())
-                .and(STATS_GAME.PLAYER_SIZE.eq(playerSize))
-                .and(STATS_TEAM.ALIGNMENT.eq(alignment.name()))
-                .fetchOne()
-                .component1()
-        ));
+    public CompletionStage<List<LeaderboardEntry>> getLeaderboard(Leaderboard leaderboard, @Nullable Long guildId,
+                                                                  int offset, int limit) {
+
+        Summary.Child timer = MetricsRegistry.queryTime.labels("getLeaderboard");
+        return this.wrapper.jooq("stats.getLeaderboard", dsl -> timer.time(() -> {
+            List<Record7<Long, Long, Long, Long, Long, Long, Long>> rows;
+            if (guildId == null) {
+                Field<? extends Number> score = score(leaderboard, STATS_USER_SUMMARY.WINS,
+                        STATS_USER_SUMMARY.BADDIE_WIN_RATE, STATS_USER_SUMMARY.SHOT_ACCURACY);
+                rows = dsl.select(STATS_USER_SUMMARY.USER_ID, STATS_USER_SUMMARY.GAME_COUNT, STATS_USER_SUMMARY.WINS,
+                        STATS_USER_SUMMARY.BADDIE_GAMES, STATS_USER_SUMMARY.BADDIE_WINS, STATS_USER_SUMMARY.SHOTS,
+                        STATS_USER_SUMMARY.WOLVES_SHOT)
+                        .from(STATS_USER_SUMMARY)
+                        .where(isRanked(leaderboard, STATS_USER_SUMMARY.WINS, score))
+                        .orderBy(score.desc(), STATS_USER_SUMMARY.USER_ID)
+                        .limit(limit)
+                        .offset(offset)
+                        .fetch();
+            } else {
+                Field<? extends Number> score = score(leaderboard, STATS_GUILD_USER_SUMMARY.WINS,
+                        STATS_GUILD_USER_SUMMARY.BADDIE_WIN_RATE, STATS_GUILD_USER_SUMMARY.SHOT_ACCURACY);
+                rows = dsl.select(STATS_GUILD_USER_SUMMARY.USER_ID, STATS_GUILD_USER_SUMMARY.GAME_COUNT,
+                        STATS_GUILD_USER_SUMMARY.WINS, STATS_GUILD_USER_SUMMARY.BADDIE_GAMES,
+                        STATS_GUILD_USER_SUMMARY.BADDIE_WINS, STATS_GUILD_USER_SUMMARY.SHOTS,
+                        STATS_GUILD_USER_SUMMARY.WOLVES_SHOT)
+                        .from(STATS_GUILD_USER_SUMMARY)
+                        .where(STATS_GUILD_USER_SUMMARY.GUILD_ID.eq(guildId))
+                        .and(isRanked(leaderboard, STATS_GUILD_USER_SUMMARY.WINS, score))
+                        .orderBy(score.desc(), STATS_GUILD_USER_SUMMARY.USER_ID)
+                        .limit(limit)
+                        .offset(offset)
+                        .fetch();
+            }
+
+            List<LeaderboardEntry> entries = new ArrayList<>(rows.size());
+            for (Record7<Long, Long, Long, Long, Long, Long, Long> row : rows) {
+                entries.add(ImmutableLeaderboardEntry.builder()
+                        .rank(offset + entries.size() + 1L)
+                        .userId(row.value1())
+                        .totalGames(row.value2())
+                        .gamesWon(row.value3())
+                        .gamesAsBaddie(row.value4())
+                        .gamesWonAsBaddie(row.value5())
+                        .totalShots(row.value6())
+                        .wolvesShot(row.value7())
+                        .build());
+            }
+            return entries;
+        }));
     }
 
-    @CheckReturnValue
-    public CompletionStage<Integer> countAlignmentWinsForPlayerSizeInGuild(Alignments alignment, int playerSize, long guildId) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("countAlignmentWinsForPlayerSizeInGuild");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .select(count())
-                .from(STATS_GAME)
-                .innerJoin(STATS_TEAM)
-                .on(STATS_TEAM.GAME_ID.eq(STATS_GAME.GAME_ID))
-                .where(STATS_TEAM.IS_WINNER.isTrue())
-                .and(STATS_GAME.PLAYER_SIZE.eq(playerSize))
-                .and(STATS_TEAM.ALIGNMENT.eq(alignment.name()))
-                .and(STATS_GAME.GUILD_ID.eq(guildId))
-                .fetchOne()
-                .component1()
-        ));
+    private static Field<? extends Number> score(Leaderboard leaderboard, Field<Long> wins, Field<Double> baddieWinRate,
+                                                 Field<Double> shotAccuracy) {
+
+        switch (leaderboard) {
+            case WINS:
+                return wins;
+            case BADDIE_WIN_RATE:
+                return baddieWinRate;
+            case SHOT_ACCURACY:
+                return shotAccuracy;
+            default:
+                throw new IllegalArgumentException("Unknown leaderboard " + leaderboard);
+        }
     }
 
-    @CheckReturnValue
-    public CompletionStage<List<GeneralUserStats>> getGeneralUserStats(long userId) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("getGeneralUserStats");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .select(STATS_PLAYER.TOTAL_POSTLENGTH, STATS_PLAYER.TOTAL_POSTS, STATS_PLAYER.ALIGNMENT, STATS_TEAM.IS_WINNER)
-                .from(STATS_PLAYER)
-                .innerJoin(STATS_TEAM).on(STATS_PLAYER.TEAM_ID.eq(STATS_TEAM.TEAM_ID))
-                .where(STATS_PLAYER.USER_ID.eq(userId))
-                .fetchInto(ImmutableGeneralUserStats.class)
-        ));
-    }
-
-    @CheckReturnValue
-    public CompletionStage<List<String>> getUserShots(long userId) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("getUserShots");
-        return this.wrapper.jooq(dsl -> timer.time(() -> Arrays.asList(dsl
-                .select(STATS_PLAYER.ALIGNMENT)
-                .from(STATS_ACTION)
-                .innerJoin(STATS_PLAYER).on(STATS_PLAYER.USER_ID.eq(STATS_ACTION.TARGET))
-                .innerJoin(STATS_TEAM).on(STATS_TEAM.TEAM_ID.eq(STATS_PLAYER.TEAM_ID))
-                .innerJoin(STATS_GAME).on(STATS_ACTION.GAME_ID.eq(STATS_GAME.GAME_ID).and(STATS_TEAM.GAME_ID.eq(STATS_GAME.GAME_ID)))
-                .where(STATS_ACTION.ACTION_TYPE.eq("SHOOT").and(STATS_ACTION.ACTOR.eq(userId)))
-                .fetch()
-                .intoArray(STATS_PLAYER.ALIGNMENT)
-        )));
+    //the rates are null until they are based on enough games or shots, which is also the condition of their indexes
+    private static Condition isRanked(Leaderboard leaderboard, Field<Long> wins, Field<? extends Number> score) {
+        if (leaderboard == Leaderboard.WINS) {
+            return wins.gt(0L);
+        }
+        return score.isNotNull();
     }
 
     @CheckReturnValue
     public CompletionStage<Optional<GameStats>> findGameStats(long gameId) {
         Summary.Child timer = MetricsRegistry.queryTime.labels("findGameStats");
-        return this.wrapper.jooq(dsl -> timer.time(() -> {
-                    Optional<GameStats> gameOpt = dsl.selectFrom(STATS_GAME)
+        return this.wrapper.jooq("stats.findGameStats", dsl -> timer.time(() -> {
+                    //the parts of the game are only read along with it when there is no replay to decode them from
+                    Condition noReplay = DSL.notExists(DSL.selectOne()
+                            .from(STATS_GAME)
                             .where(STATS_GAME.GAME_ID.eq(gameId))
-                            .fetchOptionalInto(GameStats.class);
-
-                    if (gameOpt.isEmpty()) {
-                        return gameOpt;
+                            .and(STATS_GAME.REPLAY.isNotNull()));
+                    Results results = fetchGameStats(dsl, gameId, noReplay);
+                    Optional<StatsGameRecord> gameRecord = results.get(0).into(STATS_GAME).stream().findFirst();
+                    if (gameRecord.isEmpty()) {
+                        return Optional.empty();
                     }
-
-                    GameStats game = gameOpt.get();
-
-                    List<TeamStats> teams = dsl.selectFrom(STATS_TEAM)
-                            .where(STATS_TEAM.GAME_ID.eq(gameId))
-                            .fetch(teamMapper(game));
-                    game.setTeams(teams);
-
-                    for (TeamStats teamStats : teams) {
-                        List<PlayerStats> players = dsl.selectFrom(STATS_PLAYER)
-                                .where(STATS_PLAYER.TEAM_ID.eq(teamStats.getTeamId().orElseThrow()))
-                                .fetch(playerMapper(teamStats));
-                        teamStats.setPlayers(players);
+                    byte[] replay = gameRecord.get().getReplay();
+                    if (replay == null) {
+                        return mapGameStats(results);
                     }
-
-                    List<ActionStats> actions = dsl.selectFrom(STATS_ACTION)
-                            .where(STATS_ACTION.GAME_ID.eq(gameId))
-                            .fetch(actionMapper(game));
-                    game.setActions(actions);
-
-                    return Optional.of(game);
+                    GameStats game = gameRecord.get().into(GameStats.class);
+                    if (ReplayCodec.decode(game, replay)) {
+                        return Optional.of(game);
+                    }
+                    return loadGameStats(dsl, gameId);
                 }
         ));
     }
 
+    //read a game from the stats tables, for games that have no usable replay column
+    private Optional<GameStats> loadGameStats(DSLContext dsl, long gameId) {
+        return mapGameStats(fetchGameStats(dsl, gameId, DSL.noCondition()));
+    }
+
+    //the game, and its teams, players and actions if the condition holds, in a single round trip
+    private Results fetchGameStats(DSLContext dsl, long gameId, Condition withParts) {
+        return dsl.queries(
+                dsl.selectFrom(STATS_GAME)
+                        .where(STATS_GAME.GAME_ID.eq(gameId)),
+                dsl.selectFrom(STATS_TEAM)
+                        .where(STATS_TEAM.GAME_ID.eq(gameId))
+                        .and(withParts),
+                dsl.select(STATS_PLAYER.fields())
+                        .from(STATS_PLAYER)
+                        .innerJoin(STATS_TEAM).on(STATS_TEAM.TEAM_ID.eq(STATS_PLAYER.TEAM_ID))
+                        .where(STATS_TEAM.GAME_ID.eq(gameId))
+                        .and(withParts),
+                dsl.selectFrom(STATS_ACTION)
+                        .where(STATS_ACTION.GAME_ID.eq(gameId))
+                        .and(withParts)
+        ).fetchMany();
+    }
+
+    private Optional<GameStats> mapGameStats(Results results) {
+        Optional<GameStats> gameOpt = results.get(0).into(GameStats.class).stream().findFirst();
+        if (gameOpt.isEmpty()) {
+            return gameOpt;
+        }
+
+        GameStats game = gameOpt.get();
+
+        List<TeamStats> teams = results.get(1).into(STATS_TEAM).map(teamMapper(game));
+        game.setTeams(teams);
+
+        Map<Long, TeamStats> teamsById = teams.stream()
+                .collect(Collectors.toMap(teamStats -> teamStats.getTeamId().orElseThrow(), Function.identity()));
+        Map<Long, List<PlayerStats>> playersByTeam = new HashMap<>();
+        for (StatsPlayerRecord record : results.get(2).into(STATS_PLAYER)) {
+            TeamStats teamStats = teamsById.get(record.getTeamId());
+            playersByTeam.computeIfAbsent(record.getTeamId(), __ -> new ArrayList<>())
+                    .add(playerMapper(teamStats).map(record));
+        }
+        for (TeamStats teamStats : teams) {
+            teamStats.setPlayers(playersByTeam.getOrDefault(teamStats.getTeamId().orElseThrow(), List.of()));
+        }
+
+        List<ActionStats> actions = results.get(3).into(STATS_ACTION).map(actionMapper(game));
+        game.setActions(actions);
+
+        return Optional.of(game);
+    }
+
     private RecordMapper<StatsTeamRecord, TeamStats> teamMapper(GameStats gameStats) {
         return record -> new TeamStats(record.getTeamId(), record.getAlignment(), record.getIsWinner(),
                 record.getName(), gameStats, record.getTeamSize());
@@ -257,85 +422,386 @@ private RecordMapper<StatsActionRecord, ActionStats> actionMapper(GameStats game
 
     @CheckReturnValue
     public CompletionStage<GameStats> insertGameStats(GameStats gameStats) {
+        return insertGameStats(gameStats, null);
+    }
+
+    /**
+     * @param resultKey
+     *         if a game with this key has been inserted already, nothing is written and the game id of that game is
+     *         set on the passed in game stats
+     */
+    @CheckReturnValue
+    public CompletionStage<GameStats> insertGameStats(GameStats gameStats, @Nullable String resultKey) {
         Summary.Child timer = MetricsRegistry.queryTime.labels("insertGameStats");
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> timer.time(() -> {
+        return this.wrapper.jooq(Workload.BATCH, "stats.insertGameStats", dsl -> dsl.transactionResult(config -> timer.time(() -> {
                     DSLContext context = DSL.using(config);
 
-                    long gameId = context
+                    Optional<Long> inserted = context
                             .insertInto(STATS_GAME)
-                            .values(defaultValue(STATS_GAME.GAME_ID), gameStats.getChannelId(),
-                                    gameStats.getChannelName(), gameStats.getEndTime(), gameStats.getGameMode().name(),
-                                    gameStats.getGameType().name(), gameStats.getGuildId(), gameStats.getGuildName(),
-                                    gameStats.getStartTime(), gameStats.getPlayerSize())
+                            .columns(STATS_GAME.CHANNEL_ID, STATS_GAME.CHANNEL_NAME, STATS_GAME.END_TIME,
+                                    STATS_GAME.GAME_MODE, STATS_GAME.GAME_TYPE, STATS_GAME.GUILD_ID,
+                                    STATS_GAME.GUILD_NAME, STATS_GAME.START_TIME, STATS_GAME.PLAYER_SIZE,
+                                    STATS_GAME.RESULT_KEY)
+                            .values(gameStats.getChannelId(), gameStats.getChannelName(), gameStats.getEndTime(),
+                                    gameStats.getGameMode().name(), gameStats.getGameType().name(),
+                                    gameStats.getGuildId(), gameStats.getGuildName(), gameStats.getStartTime(),
+                                    gameStats.getPlayerSize(), resultKey)
+                            .onConflict(STATS_GAME.RESULT_KEY)
+                            .doNothing()
                             .returningResult(STATS_GAME.GAME_ID)
-                            .fetchOne()
-                            .component1();
+                            .fetchOptional()
+                            .map(Record1::component1);
+                    if (inserted.isEmpty()) {
+                        long recordedGameId = context
+                                .select(STATS_GAME.GAME_ID)
+                                .from(STATS_GAME)
+                                .where(STATS_GAME.RESULT_KEY.eq(resultKey))
+                                .fetchOne()
+                                .component1();
+                        gameStats.setGameId(recordedGameId);
+                        return gameStats;
+                    }
+                    long gameId = inserted.get();
                     gameStats.setGameId(gameId);
 
-                    for (TeamStats teamStats : gameStats.getStartingTeams()) {
-                        long teamId = context
+                    List<TeamStats> teams = new ArrayList<>(gameStats.getStartingTeams());
+                    List<PlayerStats> players = teams.stream()
+                            .flatMap(teamStats -> teamStats.getPlayers().stream())
+                            .collect(Collectors.toList());
+                    List<ActionStats> actions = new ArrayList<>(gameStats.getActions());
+
+                    //draw the ids of all rows at once, instead of reading them back from each insert
+                    Iterator<Long> ids = nextStatsIds(context, teams.size() + players.size() + actions.size()).iterator();
+                    teams.forEach(teamStats -> teamStats.setTeamId(ids.next()));
+                    players.forEach(playerStats -> playerStats.setPlayerId(ids.next()));
+                    actions.forEach(actionStats -> actionStats.setActionId(ids.next()));
+
+                    if (!teams.isEmpty()) {
+                        InsertValuesStep6<StatsTeamRecord, Long, String, Boolean, String, Long, Integer> insertTeams = context
                                 .insertInto(STATS_TEAM)
-                                .values(defaultValue(STATS_TEAM.TEAM_ID), teamStats.getAlignment(),
-                                        teamStats.isWinner(), teamStats.getName(), gameId, teamStats.getTeamSize())
-                                .returningResult(STATS_TEAM.TEAM_ID)
-                                .fetchOne()
-                                .component1();
-                        teamStats.setTeamId(teamId);
-
-
-                        for (PlayerStats playerStats : teamStats.getPlayers()) {
-                            long playerId = context
-                                    .insertInto(STATS_PLAYER)
-                                    .values(defaultValue(STATS_PLAYER.PLAYER_ID), playerStats.getNickname(),
-                                            playerStats.getRole().name(), playerStats.getTotalPostLength(),
-                                            playerStats.getTotalPosts(), playerStats.getUserId(), teamId,
-                                            playerStats.getAlignment().name())
-                                    .returningResult(STATS_PLAYER.PLAYER_ID)
-                                    .fetchOne()
-                                    .component1();
-                            playerStats.setPlayerId(playerId);
+                                .columns(STATS_TEAM.TEAM_ID, STATS_TEAM.ALIGNMENT, STATS_TEAM.IS_WINNER, STATS_TEAM.NAME,
+                                        STATS_TEAM.GAME_ID, STATS_TEAM.TEAM_SIZE);
+                        for (TeamStats teamStats : teams) {
+                            insertTeams = insertTeams.values(teamStats.getTeamId().orElseThrow(),
+                                    teamStats.getAlignment().name(), teamStats.isWinner(), teamStats.getName(), gameId,
+                                    teamStats.getTeamSize());
                         }
+                        insertTeams.execute();
                     }
 
-                    for (ActionStats actionStats : gameStats.getActions()) {
-                        long actionId = context
+                    if (!players.isEmpty()) {
+                        InsertValuesStep8<StatsPlayerRecord, Long, String, String, Integer, Integer, Long, Long, String> insertPlayers = context
+                                .insertInto(STATS_PLAYER)
+                                .columns(STATS_PLAYER.PLAYER_ID, STATS_PLAYER.NICKNAME, STATS_PLAYER.ROLE,
+                                        STATS_PLAYER.TOTAL_POSTLENGTH, STATS_PLAYER.TOTAL_POSTS, STATS_PLAYER.USER_ID,
+                                        STATS_PLAYER.TEAM_ID, STATS_PLAYER.ALIGNMENT);
+                        for (PlayerStats playerStats : players) {
+                            insertPlayers = insertPlayers.values(playerStats.getPlayerId().orElseThrow(),
+                                    playerStats.getNickname(), playerStats.getRole().name(),
+                                    playerStats.getTotalPostLength(), playerStats.getTotalPosts(),
+                                    playerStats.getUserId(), playerStats.getTeam().getTeamId().orElseThrow(),
+                                    playerStats.getAlignment().name());
+                        }
+                        insertPlayers.execute();
+                    }
+
+                    if (!actions.isEmpty()) {
+                        InsertValuesStep11<StatsActionRecord, Long, String, Long, Integer, Integer, Long, Long, Long, Long, String, String> insertActions = context
                                 .insertInto(STATS_ACTION)
-                                .values(defaultValue(STATS_ACTION.ACTION_ID), actionStats.getActionType().name(),
-                                        actionStats.getActor(), actionStats.getCycle(), actionStats.getOrder(),
-                                        actionStats.getTarget(), actionStats.getTimeStampHappened(),
-                                        actionStats.getTimeStampSubmitted(), gameId, actionStats.getPhase().name(),
-                                        actionStats.getAdditionalInfo())
-                                .returningResult(STATS_ACTION.ACTION_ID)
-                                .fetchOne()
-                                .component1();
-                        actionStats.setActionId(actionId);
+                                .columns(STATS_ACTION.ACTION_ID, STATS_ACTION.ACTION_TYPE, STATS_ACTION.ACTOR,
+                                        STATS_ACTION.CYCLE, STATS_ACTION.SEQUENCE, STATS_ACTION.TARGET,
+                                        STATS_ACTION.HAPPENED, STATS_ACTION.SUBMITTED, STATS_ACTION.GAME_ID,
+                                        STATS_ACTION.PHASE, STATS_ACTION.ADDITIONAL_INFO);
+                        for (ActionStats actionStats : actions) {
+                            insertActions = insertActions.values(actionStats.getActionId().orElseThrow(),
+                                    actionStats.getActionType().name(), actionStats.getActor(), actionStats.getCycle(),
+                                    actionStats.getOrder(), actionStats.getTarget(), actionStats.getTimeStampHappened(),
+                                    actionStats.getTimeStampSubmitted(), gameId, actionStats.getPhase().name(),
+                                    actionStats.getAdditionalInfo());
+                        }
+                        insertActions.execute();
                     }
 
+                    addToWinSummaries(context, gameStats);
+
+                    //actions that were streamed in while the game was running. the ones handed in with the game
+                    //may have been written by a batch that was in flight when the game ended, those are skipped
+                    List<Integer> handedIn = actions.stream().map(ActionStats::getOrder).collect(Collectors.toList());
+                    List<ActionStats> streamedActions = context.insertInto(STATS_ACTION)
+                            .columns(STATS_ACTION.ACTION_TYPE, STATS_ACTION.ACTOR, STATS_ACTION.CYCLE,
+                                    STATS_ACTION.SEQUENCE, STATS_ACTION.TARGET, STATS_ACTION.HAPPENED,
+                                    STATS_ACTION.SUBMITTED, STATS_ACTION.GAME_ID, STATS_ACTION.PHASE,
+                                    STATS_ACTION.ADDITIONAL_INFO)
+                            .select(context
+                                    .select(STATS_ACTION_PENDING.ACTION_TYPE, STATS_ACTION_PENDING.ACTOR,
+                                            STATS_ACTION_PENDING.CYCLE, STATS_ACTION_PENDING.SEQUENCE,
+                                            STATS_ACTION_PENDING.TARGET, STATS_ACTION_PENDING.HAPPENED,
+                                            STATS_ACTION_PENDING.SUBMITTED, val(gameId), STATS_ACTION_PENDING.PHASE,
+                                            STATS_ACTION_PENDING.ADDITIONAL_INFO)
+                                    .from(STATS_ACTION_PENDING)
+                                    .where(isPendingActionOf(gameStats))
+                                    .and(STATS_ACTION_PENDING.SEQUENCE.notIn(handedIn))
+                                    .orderBy(STATS_ACTION_PENDING.SEQUENCE.asc()))
+                            .returning()
+                            .fetch()
+                            .map(actionMapper(gameStats));
+                    context.deleteFrom(STATS_ACTION_PENDING)
+                            .where(isPendingActionOf(gameStats))
+                            .execute();
+
+                    List<ActionStats> allActions = new ArrayList<>(actions);
+                    allActions.addAll(streamedActions);
+                    addToUserSummaries(context, gameStats, allActions);
+                    context.update(STATS_GAME)
+                            .set(STATS_GAME.REPLAY, ReplayCodec.encode(gameStats, allActions))
+                            .where(STATS_GAME.GAME_ID.eq(gameId))
+                            .execute();
+
                     return gameStats;
                 }
         )));
     }
 
+    //keep the summary tables read by getAggregatedWinStats in step with the recorded games
+    private void addToWinSummaries(DSLContext context, GameStats gameStats) {
+        long goodieWins = countWinners(gameStats, Alignments.VILLAGE);
+        long baddieWins = countWinners(gameStats, Alignments.WOLF);
+        int playerSize = gameStats.getPlayerSize();
+
+        context.insertInto(STATS_GUILD_WIN_SUMMARY)
+                .columns(STATS_GUILD_WIN_SUMMARY.GUILD_ID, STATS_GUILD_WIN_SUMMARY.PLAYER_SIZE,
+                        STATS_GUILD_WIN_SUMMARY.GAME_COUNT, STATS_GUILD_WIN_SUMMARY.PLAYER_SIZE_SUM,
+                        STATS_GUILD_WIN_SUMMARY.GOODIE_WINS, STATS_GUILD_WIN_SUMMARY.BADDIE_WINS)
+                .values(gameStats.getGuildId(), playerSize, 1L, (long) playerSize, goodieWins, baddieWins)
+                .onConflict(STATS_GUILD_WIN_SUMMARY.GUILD_ID, STATS_GUILD_WIN_SUMMARY.PLAYER_SIZE)
+                .doUpdate()
+                .set(STATS_GUILD_WIN_SUMMARY.GAME_COUNT, STATS_GUILD_WIN_SUMMARY.GAME_COUNT.plus(1))
+                .set(STATS_GUILD_WIN_SUMMARY.PLAYER_SIZE_SUM, STATS_GUILD_WIN_SUMMARY.PLAYER_SIZE_SUM.plus(playerSize))
+                .set(STATS_GUILD_WIN_SUMMARY.GOODIE_WINS, STATS_GUILD_WIN_SUMMARY.GOODIE_WINS.plus(goodieWins))
+                .set(STATS_GUILD_WIN_SUMMARY.BADDIE_WINS, STATS_GUILD_WIN_SUMMARY.BADDIE_WINS.plus(baddieWins))
+                .execute();
+
+        context.insertInto(STATS_WIN_SUMMARY)
+                .columns(STATS_WIN_SUMMARY.PLAYER_SIZE, STATS_WIN_SUMMARY.GAME_COUNT, STATS_WIN_SUMMARY.PLAYER_SIZE_SUM,
+                        STATS_WIN_SUMMARY.GOODIE_WINS, STATS_WIN_SUMMARY.BADDIE_WINS)
+                .values(playerSize, 1L, (long) playerSize, goodieWins, baddieWins)
+                .onConflict(STATS_WIN_SUMMARY.PLAYER_SIZE)
+                .doUpdate()
+                .set(STATS_WIN_SUMMARY.GAME_COUNT, STATS_WIN_SUMMARY.GAME_COUNT.plus(1))
+                .set(STATS_WIN_SUMMARY.PLAYER_SIZE_SUM, STATS_WIN_SUMMARY.PLAYER_SIZE_SUM.plus(playerSize))
+                .set(STATS_WIN_SUMMARY.GOODIE_WINS, STATS_WIN_SUMMARY.GOODIE_WINS.plus(goodieWins))
+                .set(STATS_WIN_SUMMARY.BADDIE_WINS, STATS_WIN_SUMMARY.BADDIE_WINS.plus(baddieWins))
+                .execute();
+    }
+
+    //keep the summary tables read by getLeaderboard in step with the recorded games, in a single batch
+    private void addToUserSummaries(DSLContext context, GameStats gameStats, List<ActionStats> actions) {
+        Map<Long, PlayerStats> players = gameStats.getStartingTeams().stream()
+                .flatMap(teamStats -> teamStats.getPlayers().stream())
+                .collect(Collectors.toMap(PlayerStats::getUserId, Function.identity()));
+        //a shot counts if its target played in the game, the same as in the user stats
+        Map<Long, Long> shots = new HashMap<>();
+        Map<Long, Long> wolvesShot = new HashMap<>();
+        for (ActionStats action : actions) {
+            PlayerStats target = players.get(action.getTarget());
+            if (action.getActionType() != Actions.SHOOT || target == null) {
+                continue;
+            }
+            shots.merge(action.getActor(), 1L, Long::sum);
+            if (target.getAlignment() == Alignments.WOLF) {
+                wolvesShot.merge(action.getActor(), 1L, Long::sum);
+            }
+        }
+
+        List<Query> upserts = new ArrayList<>();
+        for (PlayerStats player : players.values()) {
+            long userId = player.getUserId();
+            long won = player.getTeam().isWinner() ? 1 : 0;
+            long asBaddie = player.getAlignment() == Alignments.WOLF ? 1 : 0;
+            long wonAsBaddie = won * asBaddie;
+            long userShots = shots.getOrDefault(userId, 0L);
+            long userWolvesShot = wolvesShot.getOrDefault(userId, 0L);
+
+            upserts.add(context.insertInto(STATS_GUILD_USER_SUMMARY)
+                    .columns(STATS_GUILD_USER_SUMMARY.GUILD_ID, STATS_GUILD_USER_SUMMARY.USER_ID,
+                            STATS_GUILD_USER_SUMMARY.GAME_COUNT, STATS_GUILD_USER_SUMMARY.WINS,
+                            STATS_GUILD_USER_SUMMARY.BADDIE_GAMES, STATS_GUILD_USER_SUMMARY.BADDIE_WINS,
+                            STATS_GUILD_USER_SUMMARY.SHOTS, STATS_GUILD_USER_SUMMARY.WOLVES_SHOT)
+                    .values(gameStats.getGuildId(), userId, 1L, won, asBaddie, wonAsBaddie, userShots, userWolvesShot)
+                    .onConflict(STATS_GUILD_USER_SUMMARY.GUILD_ID, STATS_GUILD_USER_SUMMARY.USER_ID)
+                    .doUpdate()
+                    .set(STATS_GUILD_USER_SUMMARY.GAME_COUNT, STATS_GUILD_USER_SUMMARY.GAME_COUNT.plus(1))
+                    .set(STATS_GUILD_USER_SUMMARY.WINS, STATS_GUILD_USER_SUMMARY.WINS.plus(won))
+                    .set(STATS_GUILD_USER_SUMMARY.BADDIE_GAMES, STATS_GUILD_USER_SUMMARY.BADDIE_GAMES.plus(asBaddie))
+                    .set(STATS_GUILD_USER_SUMMARY.BADDIE_WINS, STATS_GUILD_USER_SUMMARY.BADDIE_WINS.plus(wonAsBaddie))
+                    .set(STATS_GUILD_USER_SUMMARY.SHOTS, STATS_GUILD_USER_SUMMARY.SHOTS.plus(userShots))
+                    .set(STATS_GUILD_USER_SUMMARY.WOLVES_SHOT, STATS_GUILD_USER_SUMMARY.WOLVES_SHOT.plus(userWolvesShot)));
+
+            upserts.add(context.insertInto(STATS_USER_SUMMARY)
+                    .columns(STATS_USER_SUMMARY.USER_ID, STATS_USER_SUMMARY.GAME_COUNT, STATS_USER_SUMMARY.WINS,
+                            STATS_USER_SUMMARY.BADDIE_GAMES, STATS_USER_SUMMARY.BADDIE_WINS, STATS_USER_SUMMARY.SHOTS,
+                            STATS_USER_SUMMARY.WOLVES_SHOT)
+                    .values(userId, 1L, won, asBaddie, wonAsBaddie, userShots, userWolvesShot)
+                    .onConflict(STATS_USER_SUMMARY.USER_ID)
+                    .doUpdate()
+                    .set(STATS_USER_SUMMARY.GAME_COUNT, STATS_USER_SUMMARY.GAME_COUNT.plus(1))
+                    .set(STATS_USER_SUMMARY.WINS, STATS_USER_SUMMARY.WINS.plus(won))
+                    .set(STATS_USER_SUMMARY.BADDIE_GAMES, STATS_USER_SUMMARY.BADDIE_GAMES.plus(asBaddie))
+                    .set(STATS_USER_SUMMARY.BADDIE_WINS, STATS_USER_SUMMARY.BADDIE_WINS.plus(wonAsBaddie))
+                    .set(STATS_USER_SUMMARY.SHOTS, STATS_USER_SUMMARY.SHOTS.plus(userShots))
+                    .set(STATS_USER_SUMMARY.WOLVES_SHOT, STATS_USER_SUMMARY.WOLVES_SHOT.plus(userWolvesShot)));
+        }
+        if (!upserts.isEmpty()) {
+            context.batch(upserts).execute();
+        }
+    }
+
+    private static long countWinners(GameStats gameStats, Alignments alignment) {
+        return gameStats.getStartingTeams().stream()
+                .filter(TeamStats::isWinner)
+                .filter(teamStats -> teamStats.getAlignment() == alignment)
+                .count();
+    }
+
+    private List<Long> nextStatsIds(DSLContext context, int count) {
+        if (count == 0) {
+            return List.of();
+        }
+        return context.select(STATS_ID_SEQ.nextval())
+                .from(generateSeries(1, count))
+                .fetch(0, Long.class);
+    }
+
+    private Condition isPendingActionOf(GameStats gameStats) {
+        return STATS_ACTION_PENDING.CHANNEL_ID.eq(gameStats.getChannelId())
+                .and(STATS_ACTION_PENDING.GAME_START.eq(gameStats.getStartTime()));
+    }
+
+    /**
+     * Stream actions of running games into the database. They are moved to their game once it is recorded with
+     * {@link StatsRepository#insertGameStats(GameStats)}. Actions that have been written already are skipped.
+     */
     @CheckReturnValue
-    public CompletionStage<List<PrivacyGame>> getAllGameStatsOfUser(long userId) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("getAllGameStatsOfUser");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .select(
-                        STATS_GAME.GAME_ID,
-                        STATS_GAME.START_TIME,
-                        STATS_GAME.END_TIME,
-                        STATS_TEAM.ALIGNMENT,
-                        STATS_TEAM.IS_WINNER,
-                        STATS_PLAYER.NICKNAME,
-                        STATS_PLAYER.TOTAL_POSTS,
-                        STATS_PLAYER.TOTAL_POSTLENGTH
-                )
-                .from(STATS_GAME)
-                .join(STATS_TEAM).on(STATS_TEAM.GAME_ID.eq(STATS_GAME.GAME_ID))
-                .join(STATS_PLAYER).on(STATS_PLAYER.TEAM_ID.eq(STATS_TEAM.TEAM_ID))
-                .where(STATS_PLAYER.USER_ID.eq(userId))
-                .fetch(privacyGameMapper())
-        ));
+    public CompletionStage<Integer> insertPendingActions(Collection<ActionStats> actions) {
+        if (actions.isEmpty()) {
+            return CompletableFuture.completedStage(0);
+        }
+        Summary.Child timer = MetricsRegistry.queryTime.labels("insertPendingActions");
+        return this.wrapper.jooq("stats.insertPendingActions", dsl -> dsl.transactionResult(config -> timer.time(() -> {
+            InsertValuesStep11<StatsActionPendingRecord, Long, Long, String, Long, Integer, Integer, Long, Long, Long,
+                    String, String> insert = DSL.using(config).insertInto(STATS_ACTION_PENDING)
+                    .columns(STATS_ACTION_PENDING.CHANNEL_ID, STATS_ACTION_PENDING.GAME_START,
+                            STATS_ACTION_PENDING.ACTION_TYPE, STATS_ACTION_PENDING.ACTOR, STATS_ACTION_PENDING.CYCLE,
+                            STATS_ACTION_PENDING.SEQUENCE, STATS_ACTION_PENDING.TARGET, STATS_ACTION_PENDING.HAPPENED,
+                            STATS_ACTION_PENDING.SUBMITTED, STATS_ACTION_PENDING.PHASE,
+                            STATS_ACTION_PENDING.ADDITIONAL_INFO);
+            for (ActionStats action : actions) {
+                insert = insert.values(action.getGame().getChannelId(), action.getGame().getStartTime(),
+                        action.getActionType().name(), action.getActor(), action.getCycle(), action.getOrder(),
+                        action.getTarget(), action.getTimeStampHappened(), action.getTimeStampSubmitted(),
+                        action.getPhase().name(), action.getAdditionalInfo());
+            }
+            return insert.onConflictDoNothing().execute();
+        })));
+    }
+
+    /**
+     * Delete the streamed actions of a game that will not be recorded, for example because it was destroyed.
+     *
+     * @return the amount of deleted actions
+     */
+    @CheckReturnValue
+    public CompletionStage<Integer> deletePendingActions(long channelId, long gameStart) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("deletePendingActions");
+        return this.wrapper.jooq("stats.deletePendingActions", dsl -> dsl.transactionResult(config -> timer.time(() ->
+                DSL.using(config).deleteFrom(STATS_ACTION_PENDING)
+                        .where(STATS_ACTION_PENDING.CHANNEL_ID.eq(channelId))
+                        .and(STATS_ACTION_PENDING.GAME_START.eq(gameStart))
+                        .execute()
+        )));
+    }
+
+    /**
+     * Delete streamed actions that were submitted before the given time. These belong to games that never got
+     * recorded, like games lost in a crash, or were written late, after their game had been recorded already.
+     *
+     * @return the amount of deleted actions
+     */
+    @CheckReturnValue
+    public CompletionStage<Integer> deletePendingActionsSubmittedBefore(long submittedBefore) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("deletePendingActionsSubmittedBefore");
+        return this.wrapper.jooq(Workload.BATCH, "stats.deletePendingActionsSubmittedBefore", dsl -> dsl.transactionResult(config -> timer.time(() ->
+                DSL.using(config).deleteFrom(STATS_ACTION_PENDING)
+                        .where(STATS_ACTION_PENDING.SUBMITTED.lt(submittedBefore))
+                        .execute()
+        )));
+    }
+
+    /**
+     * Hand all games of the user to the consumer, one at a time and ordered by game id, with the actions of the user in
+     * each game. Both the games and the actions are read with server side cursors and merged by their game id, so the
+     * memory needed does not grow with the amount of games of the user. The consumer is called while the cursors are
+     * open, and should not block for too long.
+     *
+     * @return the amount of games handed to the consumer
+     */
+    @CheckReturnValue
+    public CompletionStage<Integer> streamPrivacyGamesOfUser(long userId, Consumer<PrivacyGame> consumer) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("streamPrivacyGamesOfUser");
+        //postgres only fetches rows in batches inside of a transaction, otherwise it sends the whole result at once
+        return this.wrapper.jooq(Workload.BATCH, "stats.streamPrivacyGamesOfUser", dsl -> dsl.transactionResult(config -> timer.time(() -> {
+            DSLContext context = DSL.using(config);
+            try (Cursor<Record8<Long, Long, Long, String, Boolean, String, Integer, Integer>> games = context
+                    .select(
+                            STATS_GAME.GAME_ID,
+                            STATS_GAME.START_TIME,
+                            STATS_GAME.END_TIME,
+                            STATS_TEAM.ALIGNMENT,
+                            STATS_TEAM.IS_WINNER,
+                            STATS_PLAYER.NICKNAME,
+                            STATS_PLAYER.TOTAL_POSTS,
+                            STATS_PLAYER.TOTAL_POSTLENGTH
+                    )
+                    .from(STATS_GAME)
+                    .join(STATS_TEAM).on(STATS_TEAM.GAME_ID.eq(STATS_GAME.GAME_ID))
+                    .join(STATS_PLAYER).on(STATS_PLAYER.TEAM_ID.eq(STATS_TEAM.TEAM_ID))
+                    .where(STATS_PLAYER.USER_ID.eq(userId))
+                    .orderBy(STATS_GAME.GAME_ID)
+                    .fetchSize(PRIVACY_FETCH_SIZE)
+                    .fetchLazy();
+                 Cursor<Record3<Long, String, Long>> actions = context
+                         .select(
+                                 STATS_ACTION.GAME_ID,
+                                 STATS_ACTION.ACTION_TYPE,
+                                 STATS_ACTION.SUBMITTED
+                         )
+                         .from(STATS_ACTION)
+                         .where(STATS_ACTION.ACTOR.eq(userId))
+                         .orderBy(STATS_ACTION.GAME_ID, STATS_ACTION.ACTION_ID)
+                         .fetchSize(PRIVACY_FETCH_SIZE)
+                         .fetchLazy()) {
+
+                RecordMapper<Record8<Long, Long, Long, String, Boolean, String, Integer, Integer>, PrivacyGame> gameMapper = privacyGameMapper();
+                RecordMapper<Record3<Long, String, Long>, PrivacyAction> actionMapper = privacyActionMapper();
+                int count = 0;
+                Record3<Long, String, Long> action = actions.fetchNext();
+                for (Record8<Long, Long, Long, String, Boolean, String, Integer, Integer> game : games) {
+                    long gameId = game.get(STATS_GAME.GAME_ID);
+                    //actions in games the user did not play in are not part of any game
+                    while (action != null && action.value1() < gameId) {
+                        action = actions.fetchNext();
+                    }
+                    List<PrivacyAction> gameActions = new ArrayList<>();
+                    while (action != null && action.value1() == gameId) {
+                        gameActions.add(actionMapper.map(action));
+                        action = actions.fetchNext();
+                    }
+                    consumer.accept(ImmutablePrivacyGame.copyOf(gameMapper.map(game)).withActions(gameActions));
+                    count++;
+                }
+                return count;
+            }
+        })));
     }
 
     private RecordMapper<Record8<Long, Long, Long, String, Boolean, String, Integer, Integer>, PrivacyGame> privacyGameMapper() {
@@ -351,22 +817,6 @@ private RecordMapper<Record8<Long, Long, Long, String, Boolean, String, Integer,
                 .build();
     }
 
-    @CheckReturnValue
-    public CompletionStage<Map<Long, List<PrivacyAction>>> getAllActionStatsOfUser(long userId) {
-        Summary.Child timer = MetricsRegistry.queryTime.labels("getAllActionStatsOfUser");
-        return this.wrapper.jooq(dsl -> timer.time(() -> dsl
-                .select(
-                        STATS_GAME.GAME_ID,
-                        STATS_ACTION.ACTION_TYPE,
-                        STATS_ACTION.SUBMITTED
-                )
-                .from(STATS_GAME)
-                .join(STATS_ACTION).on(STATS_ACTION.GAME_ID.eq(STATS_GAME.GAME_ID))
-                .where(STATS_ACTION.ACTOR.eq(userId))
-                .fetchGroups(STATS_GAME.GAME_ID, privacyActionMapper())
-        ));
-    }
-
     private RecordMapper<Record3<Long, String, Long>, PrivacyAction> privacyActionMapper() {
         return record -> ImmutablePrivacyAction.builder()
                 .type(Actions.valueOf(record.get(STATS_ACTION.ACTION_TYPE)))
@@ -374,14 +824,187 @@ private RecordMapper<Record3<Long, String, Long>, PrivacyAction> privacyActionMa
                 .build();
     }
 
+    /**
+     * Take the user off the leaderboards. Their summaries are not rebuilt from the recorded games, so they stay off.
+     *
+     * @return the amount of summary rows deleted
+     */
+    @CheckReturnValue
+    public CompletionStage<Integer> deleteLeaderboardEntriesOfUser(long userId) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("deleteLeaderboardEntriesOfUser");
+        return this.wrapper.jooq("stats.deleteLeaderboardEntriesOfUser", dsl -> dsl.transactionResult(config -> timer.time(() -> {
+            DSLContext context = DSL.using(config);
+            int deleted = context.deleteFrom(STATS_GUILD_USER_SUMMARY)
+                    .where(STATS_GUILD_USER_SUMMARY.USER_ID.eq(userId))
+                    .execute();
+            return deleted + context.deleteFrom(STATS_USER_SUMMARY)
+                    .where(STATS_USER_SUMMARY.USER_ID.eq(userId))
+                    .execute();
+        })));
+    }
+
     @CheckReturnValue
     public CompletionStage<Integer> nullAllPlayerNicknamesofUser(long userId) {
         Summary.Child timer = MetricsRegistry.queryTime.labels("nullAllPlayerNicknamesofUser");
-        return this.wrapper.jooq(dsl -> dsl.transactionResult(config -> timer.time((() -> DSL.using(config)
-                .update(STATS_PLAYER)
-                .set(STATS_PLAYER.NICKNAME, val(null, STATS_PLAYER.NICKNAME))
-                .where(STATS_PLAYER.USER_ID.eq(userId))
-                .execute()
-        ))));
+        return this.wrapper.jooq(Workload.BATCH, "stats.nullAllPlayerNicknamesofUser", dsl -> dsl.transactionResult(config -> timer.time(() -> {
+            DSLContext context = DSL.using(config);
+            int updated = context
+                    .update(STATS_PLAYER)
+                    .set(STATS_PLAYER.NICKNAME, val(null, STATS_PLAYER.NICKNAME))
+                    .where(STATS_PLAYER.USER_ID.eq(userId))
+                    .execute();
+            //the encoded replays still contain the nicknames, they are encoded again by the replay backfill
+            context.update(STATS_GAME)
+                    .set(STATS_GAME.REPLAY, val(null, STATS_GAME.REPLAY))
+                    .where(STATS_GAME.GAME_ID.in(context
+                            .select(STATS_TEAM.GAME_ID)
+                            .from(STATS_PLAYER)
+                            .innerJoin(STATS_TEAM).on(STATS_TEAM.TEAM_ID.eq(STATS_PLAYER.TEAM_ID))
+                            .where(STATS_PLAYER.USER_ID.eq(userId))))
+                    .execute();
+            return updated;
+        })));
+    }
+
+    /**
+     * Encode the replays of games that have none yet, newest games first.
+     *
+     * @return the amount of games that have been encoded
+     */
+    @CheckReturnValue
+    public CompletionStage<Integer> backfillReplays(int limit) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("backfillReplays");
+        return this.wrapper.jooq(Workload.BATCH, "stats.backfillReplays", dsl -> dsl.transactionResult(config -> timer.time(() -> {
+            DSLContext context = DSL.using(config);
+            //the row locks keep the deletion of personal data from nulling a replay while it is being encoded
+            List<Long> gameIds = context.select(STATS_GAME.GAME_ID)
+                    .from(STATS_GAME)
+                    .where(STATS_GAME.REPLAY.isNull())
+                    .orderBy(STATS_GAME.GAME_ID.desc())
+                    .limit(limit)
+                    .forUpdate()
+                    .skipLocked()
+                    .fetch(STATS_GAME.GAME_ID);
+            for (long gameId : gameIds) {
+                GameStats game = loadGameStats(context, gameId).orElseThrow();
+                context.update(STATS_GAME)
+                        .set(STATS_GAME.REPLAY, ReplayCodec.encode(game, new ArrayList<>(game.getActions())))
+                        .where(STATS_GAME.GAME_ID.eq(gameId))
+                        .execute();
+            }
+            return gameIds.size();
+        })));
+    }
+
+    /**
+     * Create the partitions of stats_action for the range of game ids that the stats id sequence is in, and for the
+     * ranges after it, unless they exist already. Actions that went into the default partition because their
+     * partition was missing are moved into it.
+     *
+     * @return the range that the stats id sequence is in
+     */
+    @CheckReturnValue
+    public CompletionStage<Long> createActionPartitions(long partitionSize, int rangesAhead) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("createActionPartitions");
+        return this.wrapper.jooq(Workload.BATCH, "stats.createActionPartitions", dsl -> dsl.transactionResult(config -> timer.time(() -> {
+            DSLContext context = DSL.using(config);
+            long currentRange = context.resultQuery("SELECT last_value FROM {0}", STATS_ID_SEQ)
+                    .fetchSingle(0, Long.class) / partitionSize;
+            //adding a partition locks stats_action, so only do it when the partition is actually missing
+            Set<Long> existing = actionPartitions(context);
+            for (long range = currentRange; range <= currentRange + rangesAhead; range++) {
+                if (existing.contains(range)) {
+                    continue;
+                }
+                //attaching a table only locks out other changes to the partitions, not the reads and writes of
+                //stats_action, and it fails if the default partition still holds actions of the range
+                Field<Long> from = DSL.inline(range * partitionSize);
+                Field<Long> to = DSL.inline((range + 1) * partitionSize);
+                context.execute("CREATE TABLE {0} (LIKE {1} INCLUDING DEFAULTS)", actionPartition(range), STATS_ACTION);
+                context.execute("WITH moved AS (DELETE FROM {0} WHERE {1} >= {2} AND {1} < {3} RETURNING *) "
+                                + "INSERT INTO {4} SELECT * FROM moved",
+                        DEFAULT_ACTION_PARTITION, STATS_ACTION.GAME_ID.getUnqualifiedName(), from, to,
+                        actionPartition(range));
+                context.execute("ALTER TABLE {0} ATTACH PARTITION {1} FOR VALUES FROM ({2}) TO ({3})",
+                        STATS_ACTION, actionPartition(range), from, to);
+            }
+            return currentRange;
+        })));
+    }
+
+    /**
+     * @return the ranges of the partitions of stats_action that have not been archived yet, in ascending order
+     */
+    @CheckReturnValue
+    public CompletionStage<List<Long>> findUnarchivedActionPartitions() {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("findUnarchivedActionPartitions");
+        return this.wrapper.jooq(Workload.BATCH, "stats.findUnarchivedActionPartitions", dsl -> timer.time(() -> {
+            Set<Long> archived = new HashSet<>(dsl.select(STATS_ACTION_ARCHIVE.PARTITION_RANGE)
+                    .from(STATS_ACTION_ARCHIVE)
+                    .fetch(STATS_ACTION_ARCHIVE.PARTITION_RANGE));
+            return actionPartitions(dsl).stream()
+                    .filter(range -> !archived.contains(range))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }));
+    }
+
+    //range of each partition of stats_action. tables that are not named after a range, like the default partition,
+    //are skipped
+    private Set<Long> actionPartitions(DSLContext dsl) {
+        return dsl.resultQuery("SELECT c.relname "
+                                + "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                                + "WHERE i.inhparent = {0}::regclass",
+                        DSL.inline(STATS_ACTION.getName()))
+                .fetch(0, String.class)
+                .stream()
+                .map(ACTION_PARTITION_NAME::matcher)
+                .filter(Matcher::matches)
+                .map(matcher -> Long.parseLong(matcher.group(1)))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Archive a partition of stats_action that is not written to anymore. Once all games up to the end of its range
+     * have their replay encoded, see {@link ReplayCodec}, its actions are only read for the user stats and for
+     * personal data requests, and for replays that have been dropped by the deletion of personal data until they are
+     * encoded again. The partition is frozen, so that vacuum skips it from then on, and recorded as archived.
+     *
+     * @return false if there are still games without a replay in the range of the partition, or before it
+     */
+    @CheckReturnValue
+    public CompletionStage<Boolean> archiveActionPartition(long range, long partitionSize) {
+        Summary.Child timer = MetricsRegistry.queryTime.labels("archiveActionPartition");
+        return this.wrapper.jooq(Workload.BATCH, "stats.archiveActionPartition", dsl -> timer.time(() -> {
+            boolean replaysMissing = dsl.transactionResult(config -> DSL.using(config).fetchExists(DSL.selectOne()
+                    .from(STATS_GAME)
+                    .where(STATS_GAME.REPLAY.isNull())
+                    .and(STATS_GAME.GAME_ID.lt((range + 1) * partitionSize))));
+            if (replaysMissing) {
+                return false;
+            }
+            //vacuum can not run inside of a transaction, the pool resets the auto commit when the connection is returned
+            dsl.connection(connection -> {
+                connection.setAutoCommit(true);
+                DSLContext context = DSL.using(connection, SQLDialect.POSTGRES);
+                //freezing a whole partition may take longer than any query, the timeout is back to normal afterwards
+                context.execute("SET statement_timeout = 0");
+                try {
+                    context.execute("VACUUM (FREEZE, ANALYZE) {0}", actionPartition(range));
+                    context.insertInto(STATS_ACTION_ARCHIVE)
+                            .columns(STATS_ACTION_ARCHIVE.PARTITION_RANGE, STATS_ACTION_ARCHIVE.ARCHIVED)
+                            .values(range, System.currentTimeMillis())
+                            .onConflictDoNothing()
+                            .execute();
+                } finally {
+                    context.execute("RESET statement_timeout");
+                }
+            });
+            return true;
+        }));
+    }
+
+    private static Name actionPartition(long range) {
+        return DSL.name(ACTION_PARTITION_PREFIX + range);
     }
 }
@@ -17,6 +17,12 @@
 
 package space.npstr.wolfia.domain.stats;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.prometheus.client.cache.caffeine.CacheMetricsCollector;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import space.npstr.wolfia.domain.privacy.PersonalDataDelete;
@@ -24,15 +30,80 @@
 @Service
 public class StatsService {
 
+    //the bot and guild stats only change when a game is recorded, which drops them from the caches right away. the
+    //expiry only covers games recorded by another instance of the bot
+    private static final Duration STATS_EXPIRY = Duration.ofMinutes(1);
+    private static final String BOT_STATS = "bot";
+
     private final StatsRepository statsRepository;
+    private final ActionStatsStream actionStatsStream;
+    private final GameResultOutbox gameResultOutbox;
+    private final ReplayCache replayCache;
+
+    //loading caches make concurrent requests for the same stats wait for a single load
+    private final LoadingCache<String, BotStats> botStats;
+    private final LoadingCache<Long, GuildStats> guildStats;
+
+    public StatsService(StatsRepository statsRepository, StatsProvider statsProvider,
+                        ActionStatsStream actionStatsStream, GameResultOutbox gameResultOutbox,
+                        ReplayCache replayCache, CacheMetricsCollector cacheMetricsCollector) {
 
-    public StatsService(StatsRepository statsRepository) {
         this.statsRepository = statsRepository;
+        this.actionStatsStream = actionStatsStream;
+        this.gameResultOutbox = gameResultOutbox;
+        this.replayCache = replayCache;
+        this.botStats = Caffeine.newBuilder()
+                .expireAfterWrite(STATS_EXPIRY)
+                .recordStats()
+                .build(key -> statsProvider.getBotStats());
+        this.guildStats = Caffeine.newBuilder()
+                .expireAfterWrite(STATS_EXPIRY)
+                .maximumSize(10_000)
+                .recordStats()
+                .build(statsProvider::getGuildStats);
+        cacheMetricsCollector.addCache("botStatsCache", this.botStats);
+        cacheMetricsCollector.addCache("guildStatsCache", this.guildStats);
+    }
+
+    public BotStats getBotStats() {
+        return this.botStats.get(BOT_STATS);
+    }
+
+    public GuildStats getGuildStats(long guildId) {
+        return this.guildStats.get(guildId);
+    }
+
+    @EventListener
+    public void onGameRecorded(GameRecorded gameRecorded) {
+        this.botStats.invalidateAll();
+        this.guildStats.invalidate(gameRecorded.guildId());
+    }
+
+    /**
+     * Record an action of a running game. It is written to the database in the background, and becomes part of the
+     * game once the game is recorded with {@link StatsService#submitGameStats(GameStats)}.
+     */
+    public void recordAction(ActionStats action) {
+        this.actionStatsStream.append(action);
+    }
+
+    /**
+     * Hand in the stats of a finished game to be recorded in the background, without waiting on the database.
+     *
+     * @return completes with the recorded game stats, including the game id, once they are in the database
+     */
+    public CompletableFuture<GameStats> submitGameStats(GameStats gameStats) {
+        return this.gameResultOutbox.submit(gameStats);
     }
 
-    public GameStats recordGameStats(GameStats gameStats) {
-        return this.statsRepository.insertGameStats(gameStats)
-                .toCompletableFuture().join();
+    /**
+     * Drop the actions of a game that will not be recorded, both the queued ones and those in the database already.
+     *
+     * @return completes with the amount of actions deleted from the database
+     */
+    public CompletionStage<Integer> discardGameStats(GameStats gameStats) {
+        this.actionStatsStream.take(gameStats);
+        return this.statsRepository.deletePendingActions(gameStats.getChannelId(), gameStats.getStartTime());
     }
 
     @EventListener
@@ -42,5 +113,7 @@ public void onDataDelete(PersonalDataDelete dataDelete) {
 
     public void anonymize(long userId) {
         this.statsRepository.nullAllPlayerNicknamesofUser(userId).toCompletableFuture().join();
+        this.statsRepository.deleteLeaderboardEntriesOfUser(userId).toCompletableFuture().join();
+        this.replayCache.invalidateUser(userId);
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.stats;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.immutables.value.Value;
+import space.npstr.wolfia.game.definitions.Alignments;
+
+/**
+ * Serializable form of a {@link TeamStats}, part of a {@link GameResult}.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableTeamResult.class)
+@JsonDeserialize(as = ImmutableTeamResult.class)
+public interface TeamResult {
+
+    Alignments alignment();
+
+    String name();
+
+    boolean winner();
+
+    int teamSize();
+
+    List<PlayerResult> players();
+
+    static TeamResult of(TeamStats teamStats) {
+        return ImmutableTeamResult.builder()
+                .alignment(teamStats.getAlignment())
+                .name(teamStats.getName())
+                .winner(teamStats.isWinner())
+                .teamSize(teamStats.getTeamSize())
+                .players(teamStats.getPlayers().stream().map(PlayerResult::of).collect(Collectors.toList()))
+                .build();
+    }
+
+    default TeamStats toTeamStats(GameStats gameStats) {
+        TeamStats teamStats = new TeamStats(gameStats, alignment(), name(), teamSize());
+        teamStats.setWinner(winner());
+        players().forEach(player -> teamStats.addPlayer(player.toPlayerStats(teamStats)));
+        return teamStats;
+    }
+}
@@ -21,6 +21,7 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 import space.npstr.wolfia.game.definitions.Alignments;
 import space.npstr.wolfia.game.definitions.Roles;
 
@@ -31,8 +32,8 @@ public class CharakterSetup {
 
     private final List<Charakter> charakters = new ArrayList<>();
 
-    public Collection<Charakter> getRandedCharakters() {
-        Collections.shuffle(this.charakters);
+    public Collection<Charakter> getRandedCharakters(final Random random) {
+        Collections.shuffle(this.charakters, random);
         return Collections.unmodifiableList(this.charakters);
     }
 
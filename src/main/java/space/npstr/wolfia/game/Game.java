@@ -20,19 +20,30 @@
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
@@ -42,13 +53,19 @@
 import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.entities.User;
 import net.dv8tion.jda.api.exceptions.PermissionException;
-import net.dv8tion.jda.api.sharding.ShardManager;
 import space.npstr.wolfia.App;
 import space.npstr.wolfia.Launcher;
 import space.npstr.wolfia.commands.CommandContext;
+import space.npstr.wolfia.commands.game.RolePmCommand;
 import space.npstr.wolfia.commands.util.InviteCommand;
 import space.npstr.wolfia.config.properties.WolfiaConfig;
 import space.npstr.wolfia.db.type.OAuth2Scope;
+import space.npstr.wolfia.domain.game.ActionSnapshot;
+import space.npstr.wolfia.domain.game.GameSnapshot;
+import space.npstr.wolfia.domain.game.ImmutableGameSnapshot;
+import space.npstr.wolfia.domain.game.ImmutablePlayerSnapshot;
+import space.npstr.wolfia.domain.game.ItemSnapshot;
+import space.npstr.wolfia.domain.game.PlayerSnapshot;
 import space.npstr.wolfia.domain.oauth2.OAuth2Service;
 import space.npstr.wolfia.domain.room.ManagedPrivateRoom;
 import space.npstr.wolfia.domain.room.PrivateRoomQueue;
@@ -58,6 +75,7 @@
 import space.npstr.wolfia.domain.stats.GameStats;
 import space.npstr.wolfia.domain.stats.PlayerStats;
 import space.npstr.wolfia.domain.stats.ReplayCommand;
+import space.npstr.wolfia.domain.stats.TeamStats;
 import space.npstr.wolfia.game.definitions.Actions;
 import space.npstr.wolfia.game.definitions.Alignments;
 import space.npstr.wolfia.game.definitions.Games;
@@ -95,6 +113,18 @@ public abstract class Game {
     protected final ExceptionLoggingExecutor executor = new ExceptionLoggingExecutor(10,
             r -> new Thread(r, "game-in-channel-" + Game.this.getChannelId() + "-executor-thread"));
 
+    //timeouts of the stages of a game start
+    protected static final Duration DISCORD_STAGE_TIMEOUT = Duration.ofSeconds(30);
+    protected static final Duration PRIVATE_ROOM_MAX_WAIT = Duration.ofMinutes(5);
+    protected static final Duration PRIVATE_ROOM_STAGE_TIMEOUT = PRIVATE_ROOM_MAX_WAIT.plus(DISCORD_STAGE_TIMEOUT);
+    protected static final Duration ROLE_PM_TIMEOUT = Duration.ofSeconds(30);
+    //how long to wait for a game channel that is missing from the cache, for example while its shard reconnects
+    private static final Duration ENTITY_RESOLVE_TIMEOUT = Duration.ofMinutes(2);
+    //how long the few places that can't avoid blocking on a channel lookup may wait for it
+    private static final Duration CHANNEL_FETCH_TIMEOUT = Duration.ofSeconds(10);
+    //how many role pms are in flight at the same time
+    private static final int ROLE_PM_PARALLELISM = 4;
+
     //commonly used fields
     protected long channelId = -1;
     protected long guildId = -1;
@@ -102,9 +132,17 @@ public abstract class Game {
     protected GameInfo.GameMode mode;
     protected final List<Player> players = new ArrayList<>();
     protected volatile boolean running = false;
+    //set when the game is stopped for a restart, to be resumed from the journal afterwards
+    protected volatile boolean suspended = false;
     protected long accessRoleId;
     protected ManagedPrivateRoom wolfChat = null;
     protected final Set<Integer> hasDayEnded = new HashSet<>();
+    //rands characters and breaks ties, a fixed one allows simulations to be replayed from a seed
+    @Nullable
+    private volatile Random random = null;
+    //guards the state of a game that goes into its snapshots, so that a checkpoint never sees it half changed.
+    // games take this instead of locking their collections one by one, to keep a single lock order
+    protected final Object stateLock = new Object();
 
     //stats keeping fields
     protected GameStats gameStats = null;
@@ -190,6 +228,8 @@ public void userPosted(final Message message) {
 
     /**
      * @return the main game channel
+     * Blocks for a short while if the channel isn't in the cache, so this is only meant for starting a game, where
+     * the channel is needed synchronously. Everything else should use {@link Game#withGameChannel(Consumer)}
      */
     @Nonnull
     protected TextChannel fetchGameChannel() {
@@ -197,12 +237,31 @@ protected TextChannel fetchGameChannel() {
     }
 
     /**
-     * @return the baddie game channel
-     * Might throw an exception if called in the wrong game mode or never return
+     * Run the action with the main game channel as soon as it is available, without blocking the calling thread.
+     * If the channel is in the cache, the action runs right away.
      */
-    @Nonnull
-    protected TextChannel fetchBaddieChannel() {
-        return fetchTextChannel(this.wolfChat.getChannelId());
+    protected void withGameChannel(final Consumer<TextChannel> action) {
+        withTextChannel(this.channelId, action);
+    }
+
+    /**
+     * Run the action with the baddie game channel as soon as it is available, without blocking the calling thread.
+     * If the channel is in the cache, the action runs right away.
+     */
+    protected void withBaddieChannel(final Consumer<TextChannel> action) {
+        withTextChannel(this.wolfChat.getChannelId(), action);
+    }
+
+    /**
+     * Use a fixed source of randomness for the characters and tie breaks of this game, instead of a fresh one.
+     */
+    public void setRandom(final Random random) {
+        this.random = random;
+    }
+
+    protected Random random() {
+        final Random fixed = this.random;
+        return fixed != null ? fixed : ThreadLocalRandom.current();
     }
 
     public boolean isLiving(final User user) {
@@ -376,7 +435,7 @@ protected void doArgumentChecksAndSet(final long channelId, final GameInfo.GameM
      * <p>
      * Checks whether all required permissions for running the chosen game and mode are available to the bot
      * <p>
-     * Prepares the channel for moderated games.
+     * Moderated games need to call {@link Game#prepareModeratedChannel()} afterwards.
      *
      * @param moderated
      *         moderated games require additional permissions
@@ -384,7 +443,7 @@ protected void doArgumentChecksAndSet(final long channelId, final GameInfo.GameM
      * @throws UserFriendlyException
      *         if the bot is missing permissions to run the game in the channel
      */
-    protected void doPermissionCheckAndPrepareChannel(final boolean moderated) {
+    protected void doPermissionCheck(final boolean moderated) {
         final TextChannel gameChannel = fetchGameChannel();
         final Guild g = gameChannel.getGuild();
 
@@ -437,18 +496,25 @@ protected void doPermissionCheckAndPrepareChannel(final boolean moderated) {
                         Games.POPCORN.textRep, this.mode.name(), Permission.MANAGE_PERMISSIONS)
                 );
             }
+        }
+    }
 
-
-            try {
-                prepareChannel();
-            } catch (final PermissionException e) {
-                log.error("Could not prepare channel {}, id: {}, due to missing permission: {}", gameChannel.getName(),
-                        gameChannel.getId(), e.getPermission().getName(), e);
-                throw new UserFriendlyException(String.format(
-                        "The bot is missing the permission `%s` to run the selected game and mode in this channel.",
-                        e.getPermission().getName()
-                ));
-            }
+    /**
+     * Calls this from your start() implementation of a moderated game after the permission checks passed
+     *
+     * @throws UserFriendlyException
+     *         if the bot is missing permissions to prepare the channel
+     */
+    protected void prepareModeratedChannel() {
+        try {
+            prepareChannel();
+        } catch (final PermissionException e) {
+            log.error("Could not prepare channel {} due to missing permission: {}", this.channelId,
+                    e.getPermission().getName(), e);
+            throw new UserFriendlyException(String.format(
+                    "The bot is missing the permission `%s` to run the selected game and mode in this channel.",
+                    e.getPermission().getName()
+            ));
         }
     }
 
@@ -462,7 +528,7 @@ protected void randCharacters(final Set<Long> innedPlayers) {
         // - rand the characters
         final CharakterSetup charakterSetup = Games.getInfo(this).getCharacterSetup(this.mode, innedPlayers.size());
         final List<Long> rand = new ArrayList<>(innedPlayers);
-        Collections.shuffle(rand);
+        Collections.shuffle(rand, random());
 
         if (charakterSetup.size() != innedPlayers.size()) {
             throw new IllegalArgumentException(String.format(
@@ -473,28 +539,108 @@ protected void randCharacters(final Set<Long> innedPlayers) {
 
         this.players.clear();
         int i = 0;
-        for (final Charakter c : charakterSetup.getRandedCharakters()) {
+        for (final Charakter c : charakterSetup.getRandedCharakters(random())) {
             final long randedUserId = rand.get(i);
             this.players.add(new Player(randedUserId, this.channelId, this.guildId, c.alignment, c.role, i + 1));
             i++;
         }
     }
 
-    protected ManagedPrivateRoom allocatePrivateRoom() {
-        PrivateRoomQueue privateRoomQueue = Launcher.getBotContext().getPrivateRoomQueue();
-        return privateRoomQueue.poll()
-                .orElseGet(() -> {
-                    RestActions.sendMessage(fetchGameChannel(),
-                            "Acquiring a private server for the wolves...this may take a while.");
-                    log.error("Ran out of free private guilds. Please add moar.");
-                    try { //oh yeah...we are waiting till infinity if necessary
-                        return privateRoomQueue.take();
-                    } catch (final InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        log.error("Interrupted while waiting for a private server.");
-                        throw new UserFriendlyException("Could not allocate a private server.");
-                    }
-                });
+    /**
+     * Sets up the stats objects for the game and its players. Call this after the players have been set.
+     *
+     * @param gameStats
+     *         the fresh stats object of this game
+     * @param nickname
+     *         provides the nickname of a player to be saved in the stats
+     */
+    protected void setUpStats(final GameStats gameStats, final Function<Player, String> nickname) {
+        this.gameStats = gameStats;
+        final Map<Alignments, TeamStats> teams = new EnumMap<>(Alignments.class);
+        for (final Player player : this.players) {
+            final Alignments alignment = player.alignment;
+            final TeamStats team = teams.computeIfAbsent(alignment,
+                    a -> new TeamStats(this.gameStats, a, teamName(a), -1));
+            final PlayerStats ps = new PlayerStats(team, player.userId,
+                    nickname.apply(player), alignment, player.role);
+            this.playersStats.put(player.userId, ps);
+            team.addPlayer(ps);
+        }
+        for (final TeamStats team : teams.values()) {
+            team.setTeamSize(team.getPlayers().size());
+            this.gameStats.addTeam(team);
+        }
+    }
+
+    /**
+     * Reserves a private room. If all of them are in use, this game gets in line for the next free one, and the game
+     * channel is told about its position.
+     *
+     * @param maxWait
+     *         how long to wait in line for a private room
+     *
+     * @return completes with the private room, or fails with a {@link UserFriendlyException} if none became available
+     * in time. Cancel it to leave the line.
+     */
+    protected CompletableFuture<ManagedPrivateRoom> reservePrivateRoom(final Duration maxWait) {
+        final PrivateRoomQueue.Reservation reservation = Launcher.getBotContext().getPrivateRoomQueue().reserve();
+        final CompletableFuture<ManagedPrivateRoom> room = reservation.getRoom();
+        if (room.isDone()) {
+            return room;
+        }
+
+        log.warn("Ran out of free private guilds, game in channel {} is number {} in line", this.channelId, reservation.getPosition());
+        final String eta = reservation.getEta()
+                .map(duration -> ", which should take about " + TextchatUtils.formatMillis(duration.toMillis()))
+                .orElse("");
+        withGameChannel(channel -> RestActions.sendMessage(channel, String.format("All private servers for the wolves are in use."
+                + " This game is number **%s** in line for the next free one%s.", reservation.getPosition(), eta)));
+
+        CompletableFuture.delayedExecutor(maxWait.toMillis(), TimeUnit.MILLISECONDS).execute(() ->
+                room.completeExceptionally(new UserFriendlyException("All private servers are in use right now."
+                        + " Please try starting the game again later.")));
+        return room;
+    }
+
+    /**
+     * Sends the role pms that have been set on the players, with a few of them in flight at the same time.
+     * Baddies are added to the private room, if there is one. Players that can't be messaged are told so in the game
+     * channel.
+     *
+     * @return completes once each role pm has either been sent or failed
+     */
+    protected CompletableFuture<Void> sendRolePms(final TextChannel gameChannel) {
+        final Queue<Player> pending = new ConcurrentLinkedQueue<>(this.players);
+        final List<CompletableFuture<Void>> lanes = new ArrayList<>();
+        for (int i = 0; i < ROLE_PM_PARALLELISM; i++) {
+            final CompletableFuture<Void> lane = new CompletableFuture<>();
+            this.executor.execute(() -> sendNextRolePm(pending, gameChannel, lane));
+            lanes.add(lane);
+        }
+        return CompletableFuture.allOf(lanes.toArray(new CompletableFuture[0]));
+    }
+
+    private void sendNextRolePm(final Queue<Player> pending, final TextChannel gameChannel,
+                                final CompletableFuture<Void> lane) {
+        final Player player = pending.poll();
+        if (player == null) {
+            lane.complete(null);
+            return;
+        }
+        if (player.isBaddie() && this.wolfChat != null) {
+            addToBaddieGuild(player);
+        }
+        final Runnable next = () -> this.executor.execute(() -> sendNextRolePm(pending, gameChannel, lane));
+        player.sendMessage(RestActions.from(player.getRolePm()),
+                __ -> next.run(),
+                e -> {
+                    RestActions.sendMessage(gameChannel, String.format(
+                            "%s, **I cannot send you a private message**, please adjust your privacy settings " +
+                                    "and/or unblock me, then issue `%s` to receive your role PM.",
+                            player.asMention(), WolfiaConfig.DEFAULT_PREFIX + RolePmCommand.TRIGGER));
+                    next.run();
+                }
+        );
     }
 
     /**
@@ -595,6 +741,153 @@ public void cleanUp() {
         }
         resetRolesAndPermissions(true);
         this.executor.shutdown(); //dont use shutdownNow() as that might kill the thread executing this line of code
+        Launcher.getBotContext().getGameJournal().close(this.channelId);
+    }
+
+    /**
+     * Stop the game without reverting any of its permissions, roles, private rooms etc., so that it can be resumed
+     * from the journal after a restart.
+     */
+    public void suspend() {
+        this.suspended = true;
+        this.running = false;
+        this.executor.shutdownNow();
+        final TextChannel channel = Launcher.getBotContext().getShardManager().getTextChannelById(this.channelId);
+        if (channel != null) {
+            RestActions.sendMessage(channel, "Wolfia is restarting. This game will continue right after, hold tight!");
+        }
+    }
+
+    /**
+     * Rebuild this game from the journal after a restart and continue running it.
+     *
+     * @param snapshot
+     *         the last journaled state of the game
+     * @param actions
+     *         the actions that were recorded into the stats of the game so far
+     */
+    public synchronized void resume(final GameSnapshot snapshot, final List<ActionSnapshot> actions) {
+        this.channelId = snapshot.channelId();
+        this.guildId = snapshot.guildId();
+        this.mode = snapshot.mode();
+        this.accessRoleId = snapshot.accessRoleId();
+        setDayLength(Duration.ofMillis(snapshot.dayLengthMillis()));
+
+        final Map<Long, PlayerSnapshot> playerSnapshots = new HashMap<>();
+        this.players.clear();
+        for (final PlayerSnapshot ps : snapshot.players()) {
+            final Player player = new Player(ps.userId(), this.channelId, this.guildId, ps.alignment(), ps.role(), ps.number());
+            player.setRolePm(ps.rolePm());
+            ps.items().forEach(item -> player.items.add(item.toItem()));
+            if (!ps.alive()) {
+                try {
+                    player.kill();
+                } catch (final IllegalGameStateException ignored) {
+                    // a fresh player is alive
+                }
+            }
+            this.players.add(player);
+            playerSnapshots.put(ps.userId(), ps);
+        }
+
+        setUpStats(new GameStats(this.guildId, snapshot.guildName(), this.channelId, snapshot.channelName(),
+                        snapshot.gameType(), this.mode, this.players.size(), snapshot.startTime()),
+                player -> playerSnapshots.get(player.userId).nickname());
+        playerSnapshots.forEach((userId, ps) -> this.playersStats.get(userId)
+                .restorePosts(ps.totalPosts(), ps.totalPostLength()));
+        //some of these may not have made it into the stats before the restart, the others are skipped
+        actions.forEach(action -> Launcher.getBotContext().getStatsService().recordAction(action.toActionStats(this.gameStats)));
+        this.actionOrder.set(snapshot.actionOrder());
+        synchronized (this.hasDayEnded) {
+            this.hasDayEnded.addAll(snapshot.endedDays());
+        }
+
+        if (snapshot.privateRoomGuildId() > 0) {
+            this.wolfChat = Launcher.getBotContext().getPrivateRoomQueue().claim(snapshot.privateRoomGuildId())
+                    .orElseThrow(() -> new IllegalStateException("Private room " + snapshot.privateRoomGuildId()
+                            + " of the resumed game is not available"));
+            this.wolfChat.resumeUsage(snapshot.privateRoomChannelId(), getWolvesIds());
+        }
+
+        this.running = true;
+        log.info("Game resumed in guild {}, channel {}, {} {} {} players", this.guildId, this.channelId,
+                Games.getInfo(this).textRep(), this.mode.textRep, this.players.size());
+        withGameChannel(channel -> RestActions.sendMessage(channel, "I'm back! The game continues where it left off."));
+        resumePhase(snapshot);
+        checkpoint();
+    }
+
+    /**
+     * Stream an action into the stats of this game and record it in the journal
+     */
+    protected void recordAction(final ActionStats action) {
+        if (!this.suspended) {
+            Launcher.getBotContext().getStatsService().recordAction(action);
+            Launcher.getBotContext().getGameJournal().action(this.channelId, action);
+        }
+    }
+
+    protected void recordActions(final Collection<ActionStats> actions) {
+        actions.forEach(this::recordAction);
+    }
+
+    /**
+     * Record the current state of this game in the journal. Call this after every change of the state that needs to
+     * survive a restart.
+     */
+    protected void checkpoint() {
+        if (!this.running || this.suspended) {
+            return;
+        }
+        final GameSnapshot snapshot;
+        synchronized (this.stateLock) {
+            snapshot = snapshot();
+        }
+        Launcher.getBotContext().getGameJournal().checkpoint(snapshot);
+    }
+
+    /**
+     * @return a snapshot builder with the parts of the state that are common to all games filled in
+     */
+    protected ImmutableGameSnapshot.Builder snapshotBuilder() {
+        final List<Integer> endedDays;
+        synchronized (this.hasDayEnded) {
+            endedDays = new ArrayList<>(this.hasDayEnded);
+        }
+        return ImmutableGameSnapshot.builder()
+                .gameType(this.gameStats.getGameType())
+                .mode(this.mode)
+                .channelId(this.channelId)
+                .channelName(this.gameStats.getChannelName())
+                .guildId(this.guildId)
+                .guildName(this.gameStats.getGuildName())
+                .startTime(this.gameStats.getStartTime())
+                .accessRoleId(this.accessRoleId)
+                .privateRoomGuildId(getPrivateRoomGuildId())
+                .privateRoomChannelId(this.wolfChat == null ? -1 : this.wolfChat.getChannelId())
+                .actionOrder(this.actionOrder.get())
+                .endedDays(endedDays)
+                .players(this.players.stream()
+                        .map(this::snapshotOf)
+                        .collect(Collectors.toList()));
+    }
+
+    private PlayerSnapshot snapshotOf(final Player player) {
+        final PlayerStats stats = this.playersStats.get(player.userId);
+        return ImmutablePlayerSnapshot.builder()
+                .userId(player.userId)
+                .alignment(player.alignment)
+                .role(player.role)
+                .number(player.number)
+                .alive(player.isAlive())
+                .rolePm(player.getRolePm())
+                .items(player.items.stream()
+                        .map(ItemSnapshot::of)
+                        .collect(Collectors.toList()))
+                .nickname(stats == null ? null : stats.getNickname())
+                .totalPosts(stats == null ? 0 : stats.getTotalPosts())
+                .totalPostLength(stats == null ? 0 : stats.getTotalPostLength())
+                .build();
     }
 
     //public for eval usage
@@ -608,6 +901,15 @@ public void destroy(final Throwable reason) {
             log.error(logMessage, reason);
         }
         cleanUp();
+        //a game that ended already has been handed in to be recorded, together with its streamed actions
+        if (this.gameStats != null && this.gameStats.getEndTime() == 0) {
+            Launcher.getBotContext().getStatsService().discardGameStats(this.gameStats)
+                    .whenComplete((deleted, t) -> {
+                        if (t != null) {
+                            log.error("Failed to discard the actions of the game in channel {}", this.channelId, t);
+                        }
+                    });
+        }
         Launcher.getBotContext().getGameRegistry().remove(this);
         final TextChannel channel = Launcher.getBotContext().getShardManager().getTextChannelById(this.channelId);
         if (channel != null) {
@@ -659,7 +961,7 @@ protected boolean isGameOver(final boolean... wwFlair) {
         }
 
         if (gameEnding) {
-            this.gameStats.addAction(simpleAction(this.selfUserId, Actions.GAMEEND, -1));
+            recordAction(simpleAction(this.selfUserId, Actions.GAMEEND, -1));
             this.gameStats.setEndTime(System.currentTimeMillis());
 
             if (villageWins) {
@@ -677,44 +979,67 @@ protected boolean isGameOver(final boolean... wwFlair) {
             MetricsRegistry.gamesPlayed
                     .labels(this.gameStats.getGameType().name(), this.gameStats.getGameMode().name())
                     .inc();
-            try {
-                this.gameStats = Launcher.getBotContext().getStatsService().recordGameStats(this.gameStats);
-
-                long gameId = this.gameStats.getGameId().orElseThrow();
-                out += String.format("%nThis game's id is **%s**, you can watch its replay with `%s %s`",
-                        gameId, WolfiaConfig.DEFAULT_PREFIX + ReplayCommand.TRIGGER, gameId);
-            } catch (final Exception e) {
-                log.error("Db blew up saving game stats", e);
-                out += "The database it not available currently, a replay of this game will not be available.";
-            }
+            CompletableFuture<GameStats> recorded = Launcher.getBotContext().getStatsService().submitGameStats(this.gameStats);
+            //don't hold up the game thread for the database, the id of the replay follows the last message
+            out += "\nThe replay of this game is being saved, its id will be posted here once it is available.";
             cleanUp();
-            final TextChannel gameChannel = fetchGameChannel();
             String info = Games.getInfo(this).textRep();
-            long gameId = this.gameStats.getGameId().orElseThrow();
-            log.info("Game #{} ended in guild {} {}, channel #{} {}, {} {} {} players",
-                    gameId, gameChannel.getGuild().getName(), gameChannel.getGuild().getIdLong(),
-                    gameChannel.getName(), gameChannel.getIdLong(), info, this.mode.textRep, this.players.size());
+            log.info("Game ended in guild {}, channel {}, {} {} {} players",
+                    this.guildId, this.channelId, info, this.mode.textRep, this.players.size());
             // removing the game from the registry has to be the very last statement, since if a restart is queued, it
             // waits for an empty games registry
-            RestActions.sendMessage(fetchGameChannel(), out,
-                    ignoredMessage -> Launcher.getBotContext().getGameRegistry().remove(this),
-                    throwable -> {
-                        log.error("Failed to send last message of game #{}", gameId, throwable);
-                        Launcher.getBotContext().getGameRegistry().remove(this);
-                    });
+            final String lastMessage = out;
+            final CompletableFuture<Void> lastMessageSent = new CompletableFuture<>();
+            resolveTextChannel(this.channelId).whenComplete((gameChannel, t) -> {
+                if (t != null) {
+                    log.error("Failed to resolve channel {} of ended game for its last message", this.channelId, t);
+                    Launcher.getBotContext().getGameRegistry().remove(this);
+                    lastMessageSent.complete(null);
+                    return;
+                }
+                RestActions.sendMessage(gameChannel, lastMessage,
+                        ignoredMessage -> {
+                            Launcher.getBotContext().getGameRegistry().remove(this);
+                            lastMessageSent.complete(null);
+                        },
+                        throwable -> {
+                            log.error("Failed to send last message of game in channel {}", this.channelId, throwable);
+                            Launcher.getBotContext().getGameRegistry().remove(this);
+                            lastMessageSent.complete(null);
+                        });
+            });
+            recorded.thenCombine(lastMessageSent, (stats, __) -> stats).whenComplete((stats, t) -> {
+                if (t != null) {
+                    log.error("Db blew up saving game stats of game in channel {}", this.channelId, t);
+                    withGameChannel(channel -> RestActions.sendMessage(channel,
+                            "The database is not available currently, a replay of this game will not be available."));
+                    return;
+                }
+                log.info("Game in channel {} recorded as #{}", this.channelId, stats.getGameId().map(String::valueOf).orElse("?"));
+                withGameChannel(channel -> RestActions.sendMessage(channel, replayInfo(stats)));
+            });
             return true;
         }
 
         return false;
     }
 
+    private static String replayInfo(GameStats gameStats) {
+        long gameId = gameStats.getGameId().orElseThrow();
+        return String.format("This game's id is **%s**, you can watch its replay with `%s %s`",
+                gameId, WolfiaConfig.DEFAULT_PREFIX + ReplayCommand.TRIGGER, gameId);
+    }
+
 
     protected EmbedBuilder listLivingPlayersWithNumbers(final Player... except) {
         final NiceEmbedBuilder neb = NiceEmbedBuilder.defaultBuilder();
-        final TextChannel gameChannel = fetchGameChannel();
-        final Guild g = gameChannel.getGuild();
+        //only look at the cache, this is built while handling game phases that must not wait for discord
+        final TextChannel gameChannel = Launcher.getBotContext().getShardManager().getTextChannelById(this.channelId);
+        final String where = gameChannel != null
+                ? " on " + gameChannel.getGuild().getName() + " in #" + gameChannel.getName()
+                : " in <#" + this.channelId + ">";
         neb.setTitle("Living players");
-        neb.setDescription("Game: " + Games.getInfo(this).textRep() + " " + this.mode.textRep + " on " + g.getName() + " in #" + gameChannel.getName());
+        neb.setDescription("Game: " + Games.getInfo(this).textRep() + " " + this.mode.textRep + where);
 
         final NiceEmbedBuilder.ChunkingField list = new NiceEmbedBuilder.ChunkingField("", true);
         final Set<Player> dontAdd = new HashSet<>(Arrays.asList(except));
@@ -732,7 +1057,8 @@ protected void addToBaddieGuild(Player player) {
 
         Optional<String> accessTokenOpt = oAuth2Service.getAccessTokenForScope(player.getUserId(), OAuth2Scope.GUILD_JOIN);
         accessTokenOpt.ifPresent(accessToken ->
-                fetchBaddieChannel().getGuild().addMember(accessToken, player.getUserId()).queue());
+                withBaddieChannel(baddieChannel -> baddieChannel.getGuild().addMember(accessToken, player.getUserId())
+                        .queue(null, RestActions.defaultOnFail())));
         // TODO tell player if they have no valid token
     }
 
@@ -747,6 +1073,22 @@ protected Future<?> scheduleIfGameStillRuns(Runnable runnable, Duration delay) {
     //an way to create ActionStats object with a bunch of default/automatically generated values, like time stamps
     protected abstract ActionStats simpleAction(final long actor, final Actions action, final long target);
 
+    /**
+     * @return name of the team of the alignment, as it is saved in the stats
+     */
+    protected abstract String teamName(Alignments alignment);
+
+    /**
+     * @return the current state of this game, see {@link #snapshotBuilder()}
+     */
+    protected abstract GameSnapshot snapshot();
+
+    /**
+     * Restore the game specific state from the snapshot and re-arm the timers of the current phase
+     * based on its deadline
+     */
+    protected abstract void resumePhase(GameSnapshot snapshot);
+
     /**
      * Sets the day length
      *
@@ -768,6 +1110,9 @@ protected Future<?> scheduleIfGameStillRuns(Runnable runnable, Duration delay) {
      * Things this needs to take care of include:
      * - setting the channelId, game mode and players
      * - creating, sending and saving the role pms
+     * <p>
+     * Checks of the arguments and permissions happen on the calling thread. Anything that waits on Discord or on a
+     * private room must not block the caller, and finishes the start asynchronously instead.
      *
      * @param channelId
      *         main channel where the game shall run
@@ -775,8 +1120,9 @@ protected Future<?> scheduleIfGameStillRuns(Runnable runnable, Duration delay) {
      *         the chosen game mode
      * @param innedPlayers
      *         the players who signed up
+     * @return completes once the game has been announced, or fails after the start has been rolled back
      */
-    public abstract void start(long channelId, GameInfo.GameMode mode, Set<Long> innedPlayers);
+    public abstract CompletableFuture<Void> start(long channelId, GameInfo.GameMode mode, Set<Long> innedPlayers);
 
     /**
      * Let the game handle a command a user issued
@@ -798,22 +1144,26 @@ public abstract boolean issueCommand(@Nonnull CommandContext context)
     // the main feature being the @Nonnull return contract, over the @Nullable contract of looking the entity up in JDA
     @Nonnull
     private static TextChannel fetchTextChannel(final long channelId) {
-        ShardManager shardManager = Launcher.getBotContext().getShardManager();
-        TextChannel tc = shardManager.getTextChannelById(channelId);
-        int attempts = 0;
-        while (tc == null) {
-            attempts++;
-            if (attempts > 100) {
-                throw new RuntimeException("Failed to fetch channel #" + channelId);
-            }
-            log.error("Could not find channel {}, retrying in a moment", channelId, new LogTheStackException());
-            try {
-                Thread.sleep(5000);
-            } catch (final InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-            tc = shardManager.getTextChannelById(channelId);
+        try {
+            return Launcher.getBotContext().getEntityResolver().resolveTextChannel(channelId, CHANNEL_FETCH_TIMEOUT).join();
+        } catch (final CompletionException e) {
+            throw new RuntimeException("Failed to fetch channel #" + channelId, e.getCause());
         }
-        return tc;
+    }
+
+    private static CompletableFuture<TextChannel> resolveTextChannel(final long channelId) {
+        return Launcher.getBotContext().getEntityResolver().resolveTextChannel(channelId, ENTITY_RESOLVE_TIMEOUT);
+    }
+
+    private static void withTextChannel(final long channelId, final Consumer<TextChannel> action) {
+        final LogTheStackException stack = new LogTheStackException();
+        resolveTextChannel(channelId)
+                .thenAccept(action)
+                .whenComplete((__, t) -> {
+                    if (t != null) {
+                        stack.initCause(t);
+                        log.error("Failed to do something with channel {}", channelId, stack);
+                    }
+                });
     }
 }
@@ -26,6 +26,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import javax.annotation.Nonnull;
 import net.dv8tion.jda.api.entities.User;
@@ -45,10 +46,20 @@ public class GameUtils {
      * @return a random item of the provided ones
      */
     public static <E> E rand(final Collection<E> items) {
+        return rand(items, ThreadLocalRandom.current());
+    }
+
+    /**
+     * @param items  items, from which one is to be randed
+     * @param random source of randomness, for example a seeded one to replay a game
+     * @param <E>    class of the provided items and the desired returned one
+     * @return a random item of the provided ones
+     */
+    public static <E> E rand(final Collection<E> items, final Random random) {
         if (items.isEmpty()) {
             throw new IllegalArgumentException("Can't pick an item from zero items.");
         }
-        final int rand = ThreadLocalRandom.current().nextInt(items.size());
+        final int rand = random.nextInt(items.size());
         int i = 0;
         E result = null;
         for (final E item : items) {
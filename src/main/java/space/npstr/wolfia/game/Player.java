@@ -229,9 +229,18 @@ public void sendMessage(@Nonnull final MessageEmbed embed, @Nonnull final Consum
      * if the user is not present in the bot
      */
     public void sendMessage(@Nonnull final Message message, @Nonnull final Consumer<Throwable> onFail) {
+        sendMessage(message, null, onFail);
+    }
+
+    /**
+     * Send a private message to the user behind this player. May supply the failure handler with a UserNotPresentException
+     * if the user is not present in the bot
+     */
+    public void sendMessage(@Nonnull final Message message, @Nullable final Consumer<Message> onSuccess,
+                            @Nonnull final Consumer<Throwable> onFail) {
         final User user = Launcher.getBotContext().getShardManager().getUserById(this.userId);
         if (user != null) {
-            RestActions.sendPrivateMessage(user, message, null, onFail);
+            RestActions.sendPrivateMessage(user, message, onSuccess, onFail);
         } else {
             onFail.accept(new UserNotPresentException(this.userId));
         }
@@ -18,9 +18,9 @@
 package space.npstr.wolfia.game.mafia;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -28,19 +28,22 @@
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.ChannelType;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.TextChannel;
 import net.dv8tion.jda.api.sharding.ShardManager;
+import space.npstr.wolfia.Launcher;
 import space.npstr.wolfia.commands.CommandContext;
 import space.npstr.wolfia.commands.MessageContext;
-import space.npstr.wolfia.commands.game.RolePmCommand;
 import space.npstr.wolfia.commands.ingame.CheckCommand;
 import space.npstr.wolfia.commands.ingame.HohohoCommand;
 import space.npstr.wolfia.commands.ingame.ItemsCommand;
@@ -51,10 +54,11 @@
 import space.npstr.wolfia.commands.ingame.VoteCommand;
 import space.npstr.wolfia.commands.ingame.VoteCountCommand;
 import space.npstr.wolfia.config.properties.WolfiaConfig;
+import space.npstr.wolfia.domain.game.ActionSnapshot;
+import space.npstr.wolfia.domain.game.GameSnapshot;
+import space.npstr.wolfia.domain.room.ManagedPrivateRoom;
 import space.npstr.wolfia.domain.stats.ActionStats;
 import space.npstr.wolfia.domain.stats.GameStats;
-import space.npstr.wolfia.domain.stats.PlayerStats;
-import space.npstr.wolfia.domain.stats.TeamStats;
 import space.npstr.wolfia.events.UpdatingReactionListener;
 import space.npstr.wolfia.game.Game;
 import space.npstr.wolfia.game.GameInfo;
@@ -69,6 +73,8 @@
 import space.npstr.wolfia.game.exceptions.DayEndedAlreadyException;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
 import space.npstr.wolfia.game.tools.NiceEmbedBuilder;
+import space.npstr.wolfia.game.tools.StartSequence;
+import space.npstr.wolfia.game.tools.VoteCountRenderer;
 import space.npstr.wolfia.game.tools.VotingBuilder;
 import space.npstr.wolfia.utils.PeriodicTimer;
 import space.npstr.wolfia.utils.UserFriendlyException;
@@ -92,6 +98,9 @@ public class Mafia extends Game {
     private int cycle = 0;
     private Phase phase = Phase.NIGHT;
     private long phaseStarted = -1;
+    //between the phases, when the next day is about to start
+    private boolean awaitingDay = false;
+    private long dayStartsAt = -1;
 
     private final Map<Player, Player> votes = new LinkedHashMap<>();//using linked to keep first votes at the top
     private final Map<Player, ActionStats> voteActions = new HashMap<>();
@@ -112,9 +121,13 @@ public class Mafia extends Game {
     private final VotingBuilder nightKillVotingBuilder = new VotingBuilder()
             .unvoteEmoji(Emojis.X)
             .header("Night ends in **%timeleft**.")
+            .countdownStep(15, TimeUnit.SECONDS)
             .notes(String.format("**Use `%s` to cast a vote on a player.**"
                     + "%nOnly your last vote will be counted.", WolfiaConfig.DEFAULT_PREFIX + NightkillCommand.TRIGGER));
 
+    @Nullable
+    private volatile VoteCountRenderer nightKillVoteCount;
+
     @Override
     public void setDayLength(final Duration dayLength) {
         if (this.running) {
@@ -146,16 +159,17 @@ public EmbedBuilder getStatus() {
         return neb;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
-    public synchronized void start(final long channelId, final GameInfo.GameMode mode, final Set<Long> innedPlayers) {
-        try {//wrap into our own exceptions
-            doArgumentChecksAndSet(channelId, mode, innedPlayers);
-        } catch (final IllegalArgumentException e) {
-            throw new UserFriendlyException(e.getMessage(), e);
-        }
-
-        doPermissionCheckAndPrepareChannel(true); //all werewolf games are moderated
+    public synchronized CompletableFuture<Void> start(final long channelId, final GameInfo.GameMode mode, final Set<Long> innedPlayers) {
+        final StartSequence sequence = new StartSequence(Games.MAFIA.name(), channelId, this.executor);
+        sequence.run("checks", () -> {
+            try {//wrap into our own exceptions
+                doArgumentChecksAndSet(channelId, mode, innedPlayers);
+            } catch (final IllegalArgumentException e) {
+                throw new UserFriendlyException(e.getMessage(), e);
+            }
+            doPermissionCheck(true); //all werewolf games are moderated
+        });
 
         this.cycle = 0;
         this.phase = Phase.NIGHT;
@@ -163,77 +177,94 @@ public synchronized void start(final long channelId, final GameInfo.GameMode mod
         // - rand the characters
         randCharacters(innedPlayers);
 
-        //get a hold of a private server...
-        this.wolfChat = allocatePrivateRoom();
-        this.wolfChat.beginUsage(getWolvesIds());
-
         final TextChannel gameChannel = fetchGameChannel();
-        //inform each player about his role
-        final String inviteLink = TextchatUtils.getOrCreateInviteLinkForChannel(gameChannel);
-        final String wolfchatInvite = this.wolfChat.getInvite();
-        final StringBuilder mafiaTeamNames = new StringBuilder("Your team is:\n");
-        final String guildChannelAndInvite = String.format("Guild/Server: **%s**%nMain channel: **#%s** %s%n", //invite that may be empty
-                gameChannel.getGuild().getName(), gameChannel.getName(), inviteLink);
-
-        for (final Player player : getWolves()) {
-            mafiaTeamNames.append(player.bothNamesFormatted()).append("\n");
-        }
-
-        for (final Player player : this.players) {
-            final StringBuilder rolePm = new StringBuilder()
-                    .append("Hi ").append(player.getName()).append("!\n")
-                    .append(player.alignment.rolePmBlockMaf).append("\n")
-                    .append(player.role.rolePmBlock).append("\n");
-            if (player.isBaddie()) {
-                rolePm.append(mafiaTeamNames);
-                rolePm.append("Wolfchat: ").append(wolfchatInvite).append("\n");
-                addToBaddieGuild(player);
-            }
-            rolePm.append(guildChannelAndInvite);
-
-            player.setRolePm(rolePm.toString());
-            player.sendMessage(rolePm.toString(),
-                    e -> RestActions.sendMessage(gameChannel,
-                            String.format("%s, **I cannot send you a private message**, please adjust your privacy settings " +
-                                            "and/or unblock me, then issue `%s` to receive your role PM.",
-                                    player.asMention(), WolfiaConfig.DEFAULT_PREFIX + RolePmCommand.TRIGGER))
-            );
-        }
-
-
-        final Guild g = gameChannel.getGuild();
-        //set up stats objects
-        this.gameStats = new GameStats(g.getIdLong(), g.getName(), this.channelId, gameChannel.getName(),
-                Games.MAFIA, this.mode, this.players.size());
-        final Map<Alignments, TeamStats> teams = new EnumMap<>(Alignments.class);
-        for (final Player player : this.players) {
-            final Alignments alignment = player.alignment;
-            final TeamStats team = teams.getOrDefault(alignment,
-                    new TeamStats(this.gameStats, alignment, alignment.textRepMaf, -1));
-            final PlayerStats ps = new PlayerStats(team, player.userId,
-                    player.getNick(), alignment, player.role);
-            this.playersStats.put(player.userId, ps);
-            team.addPlayer(ps);
-            teams.put(alignment, team);
-        }
-        for (final TeamStats team : teams.values()) {
-            team.setTeamSize(team.getPlayers().size());
-            this.gameStats.addTeam(team);
-        }
-
-        // - start the game
-        String info = Games.getInfo(this).textRep();
-        log.info("Game started in guild {} {}, channel #{} {}, {} {} {} players",
-                g.getName(), g.getIdLong(), gameChannel.getName(), gameChannel.getIdLong(),
-                info, mode.textRep, this.players.size());
-        this.running = true;
-        this.gameStats.addAction(simpleAction(this.selfUserId, Actions.GAMESTART, -1));
+        //preparing the channel, creating an invite for it and getting a hold of a private server don't depend on each other
+        final CompletableFuture<Void> channelPrepared = sequence.stage("prepareChannel", DISCORD_STAGE_TIMEOUT, () -> {
+            prepareModeratedChannel();
+            return null;
+        }, __ -> resetRolesAndPermissions(true));
+        final CompletableFuture<String> inviteLink = sequence.stage("channelInvite", DISCORD_STAGE_TIMEOUT,
+                () -> TextchatUtils.getOrCreateInviteLinkForChannel(gameChannel));
+        final CompletableFuture<ManagedPrivateRoom> reservation = reservePrivateRoom(PRIVATE_ROOM_MAX_WAIT);
+        sequence.onRollback(() -> reservation.cancel(false));
+        final CompletableFuture<ManagedPrivateRoom> privateRoom = sequence.track("privateRoom", PRIVATE_ROOM_STAGE_TIMEOUT, reservation.thenApplyAsync(room -> {
+            room.beginUsage(getWolvesIds());
+            return room;
+        }, Launcher.getBotContext().getExecutor()), ManagedPrivateRoom::endUsage);
+        final CompletableFuture<String> wolfchatInviteLink = privateRoom.thenCompose(room ->
+                sequence.stage("wolfchatInvite", DISCORD_STAGE_TIMEOUT, room::getInvite));
+        //finish the start once the stages are done instead of waiting for them, a private room may take minutes
+        return sequence.finish(CompletableFuture.allOf(channelPrepared, inviteLink, wolfchatInviteLink), () -> {
+            synchronized (this) {
+                finishStart(sequence, gameChannel, privateRoom.join(), wolfchatInviteLink.join(), inviteLink.join());
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void finishStart(final StartSequence sequence, final TextChannel gameChannel,
+                             final ManagedPrivateRoom privateRoom, final String wolfchatInvite,
+                             final String inviteLink) {
+        try {
+            this.wolfChat = privateRoom;
+
+            //inform each player about his role
+            final StringBuilder mafiaTeamNames = new StringBuilder("Your team is:\n");
+            final String guildChannelAndInvite = String.format("Guild/Server: **%s**%nMain channel: **#%s** %s%n", //invite that may be empty
+                    gameChannel.getGuild().getName(), gameChannel.getName(), inviteLink);
+
+            for (final Player player : getWolves()) {
+                mafiaTeamNames.append(player.bothNamesFormatted()).append("\n");
+            }
+
+            for (final Player player : this.players) {
+                final StringBuilder rolePm = new StringBuilder()
+                        .append("Hi ").append(player.getName()).append("!\n")
+                        .append(player.alignment.rolePmBlockMaf).append("\n")
+                        .append(player.role.rolePmBlock).append("\n");
+                if (player.isBaddie()) {
+                    rolePm.append(mafiaTeamNames);
+                    rolePm.append("Wolfchat: ").append(wolfchatInvite).append("\n");
+                }
+                rolePm.append(guildChannelAndInvite);
+
+                player.setRolePm(rolePm.toString());
+            }
+
+
+            final Guild g = gameChannel.getGuild();
+            //set up stats objects
+            setUpStats(new GameStats(g.getIdLong(), g.getName(), this.channelId, gameChannel.getName(),
+                    Games.MAFIA, this.mode, this.players.size()), Player::getNick);
+
+            // - start the game
+            String info = Games.getInfo(this).textRep();
+            log.info("Game started in guild {} {}, channel #{} {}, {} {} {} players",
+                    g.getName(), g.getIdLong(), gameChannel.getName(), gameChannel.getIdLong(),
+                    info, this.mode.textRep, this.players.size());
+            this.running = true;
+            recordAction(simpleAction(this.selfUserId, Actions.GAMESTART, -1));
+            this.awaitingDay = true;
+            this.dayStartsAt = System.currentTimeMillis() + ROLE_PM_TIMEOUT.toMillis() + TimeUnit.SECONDS.toMillis(20);
+            checkpoint();
+        } catch (final RuntimeException e) {
+            this.wolfChat = null; //ended by the rollback of the sequence
+            throw e;
+        }
         //mention the players in the thread
         RestActions.sendMessage(gameChannel, "Game has started!\n" + listLivingPlayers());
+        sequence.announced();
 
-        //start the time only after the message was actually sent
-        final Consumer whenDone = aVoid -> scheduleIfGameStillRuns(this::startDay, Duration.ofSeconds(20));
-        RestActions.sendMessage(gameChannel, "Time to read your role PMs! Day starts in 20 seconds.", whenDone, whenDone);
+        //start the time only after everyone got their role pm and the message was actually sent
+        final Consumer whenDone = aVoid -> scheduleDayStart(Duration.ofSeconds(20));
+        sequence.track("rolePms", ROLE_PM_TIMEOUT, sendRolePms(gameChannel)).whenComplete((__, t) -> {
+            if (t != null) {
+                log.warn("Role pms of game in channel {} did not go out in time", this.channelId, t);
+            }
+            if (this.running) {
+                RestActions.sendMessage(gameChannel, "Time to read your role PMs! Day starts in 20 seconds.", whenDone, whenDone);
+            }
+        });
     }
 
     @Override
@@ -344,7 +375,7 @@ public boolean issueCommand(@Nonnull final CommandContext context) {
 
             //wolves asked for one, give them a votecount of their nk votes
             if (this.phase == Phase.NIGHT && guild.isPresent() && guild.get().getIdLong() == this.wolfChat.getGuildId()) {
-                context.reply(this.nightKillVotingBuilder.getEmbed(new HashMap<>(this.nightkillVotes)).build());
+                context.reply(this.nightKillVotingBuilder.getEmbed(copyNightkillVotes()).build());
                 return true;
             }
 
@@ -370,7 +401,6 @@ public boolean issueCommand(@Nonnull final CommandContext context) {
 
     private boolean vote(@Nonnull final Player voter, @Nonnull final Player candidate, @Nonnull final MessageContext context) {
 
-        final TextChannel gameChannel = fetchGameChannel();
         if (this.phase != Phase.DAY) {
             context.reply(voter.asMention() + ", you can only vote during the day.");
             return false;
@@ -381,19 +411,21 @@ private boolean vote(@Nonnull final Player voter, @Nonnull final Player candidat
             return false;
         }
 
-        RestActions.sendMessage(gameChannel, String.format("%s votes %s for lynch.", voter.asMention(), candidate.asMention()));
+        withGameChannel(channel -> RestActions.sendMessage(channel, String.format("%s votes %s for lynch.",
+                voter.asMention(), candidate.asMention())));
 
-        synchronized (this.votes) {
+        synchronized (this.stateLock) {
             this.votes.remove(voter);
             this.votes.put(voter, candidate);
             this.voteActions.put(voter, simpleAction(voter.userId, Actions.VOTELYNCH, candidate.userId));
+            checkpoint();
 
             //check for majj
             final int livingPlayersCount = getLivingPlayers().size();
             final int majThreshold = (livingPlayersCount / 2);
             final long mostVotes = GameUtils.mostVotes(this.votes);
             if (mostVotes > majThreshold) {
-                RestActions.sendMessage(gameChannel, Emojis.ANGRY_BUBBLE + "Majority was reached!");
+                withGameChannel(channel -> RestActions.sendMessage(channel, Emojis.ANGRY_BUBBLE + "Majority was reached!"));
                 try {
                     endDay();
                 } catch (final DayEndedAlreadyException ignored) {
@@ -407,7 +439,6 @@ private boolean vote(@Nonnull final Player voter, @Nonnull final Player candidat
     private boolean unvote(@Nonnull final Player unvoter, @Nonnull final MessageContext context, final boolean... silent) {
 
         final boolean shutUp = silent.length > 0 && silent[0];
-        final TextChannel gameChannel = fetchGameChannel();
         if (this.phase != Phase.DAY) {
             if (!shutUp)
                 context.reply(unvoter.asMention() + ", you can only unvote during the day.");
@@ -415,7 +446,7 @@ private boolean unvote(@Nonnull final Player unvoter, @Nonnull final MessageCont
         }
 
         final Player unvoted;
-        synchronized (this.votes) {
+        synchronized (this.stateLock) {
             if (this.votes.get(unvoter) == null) {
                 if (!shutUp)
                     context.reply(unvoter.asMention() + ", you can't unvote if you aren't voting in the first place.");
@@ -424,10 +455,11 @@ private boolean unvote(@Nonnull final Player unvoter, @Nonnull final MessageCont
             unvoted = this.votes.remove(unvoter);
             this.voteActions.remove(unvoter);
         }
+        checkpoint();
 
         if (!shutUp) {
-            RestActions.sendMessage(gameChannel, String.format("%s unvoted %s.",
-                    unvoter.asMention(), unvoted.asMention()));
+            withGameChannel(channel -> RestActions.sendMessage(channel, String.format("%s unvoted %s.",
+                    unvoter.asMention(), unvoted.asMention())));
         }
         return true;
     }
@@ -443,7 +475,10 @@ private boolean check(@Nonnull final Player invoker, @Nonnull final Player targe
             return false;
         }
 
-        this.nightActions.put(invoker, simpleAction(invoker.userId, Actions.CHECK, target.userId));
+        synchronized (this.stateLock) {
+            this.nightActions.put(invoker, simpleAction(invoker.userId, Actions.CHECK, target.userId));
+        }
+        checkpoint();
         context.reply("You are checking " + target.bothNamesFormatted() + " tonight");
         return true;
     }
@@ -459,7 +494,10 @@ private boolean givePresent(@Nonnull final Player invoker, @Nonnull final Player
             return false;
         }
 
-        this.nightActions.put(invoker, simpleAction(invoker.userId, Actions.GIVE_PRESENT, target.userId));
+        synchronized (this.stateLock) {
+            this.nightActions.put(invoker, simpleAction(invoker.userId, Actions.GIVE_PRESENT, target.userId));
+        }
+        checkpoint();
         context.reply("You are climbing down " + target.bothNamesFormatted() + "'s chimney tonight and leaving them a " + Item.ItemType.PRESENT);
         return true;
     }
@@ -482,9 +520,9 @@ private boolean openPresent(@Nonnull final Player invoker, @Nonnull final Comman
             invoker.items.remove(hasPresent);
         }
 
-        final Item.ItemType openedPresent = GameUtils.rand(Arrays.asList(Item.ItemType.GUN, Item.ItemType.MAGNIFIER, Item.ItemType.BOMB, Item.ItemType.ANGEL));
+        final Item.ItemType openedPresent = GameUtils.rand(Arrays.asList(Item.ItemType.GUN, Item.ItemType.MAGNIFIER, Item.ItemType.BOMB, Item.ItemType.ANGEL), random());
         invoker.items.add(new Item(hasPresent.sourceId, openedPresent));
-        this.gameStats.addAction(simpleAction(invoker.userId, Actions.OPEN_PRESENT, invoker.userId).setAdditionalInfo(openedPresent.name()));
+        recordAction(simpleAction(invoker.userId, Actions.OPEN_PRESENT, invoker.userId).setAdditionalInfo(openedPresent.name()));
 
         context.reply("You received a " + openedPresent.emoji + "! This has the following effect:\n" + openedPresent.explanation);
 
@@ -494,9 +532,10 @@ private boolean openPresent(@Nonnull final Player invoker, @Nonnull final Comman
             final Optional<Item> angel = invoker.items.stream().filter(i -> i.itemType == Item.ItemType.ANGEL).findAny();
             if (angel.isPresent()) {
                 invoker.items.remove(angel.get());
+                checkpoint();
                 invoker.sendMessage(String.format("Your present contained a %s, but luckily one of your %ss saved you! Say `%s` to see what items you have left.",
                         Item.ItemType.BOMB, Item.ItemType.ANGEL, WolfiaConfig.DEFAULT_PREFIX + ItemsCommand.TRIGGER), RestActions.defaultOnFail());
-                RestActions.sendMessage(fetchGameChannel(), "An explosion is heard, but nobody dies.");
+                withGameChannel(channel -> RestActions.sendMessage(channel, "An explosion is heard, but nobody dies."));
                 return true;
             }
 
@@ -509,26 +548,28 @@ private boolean openPresent(@Nonnull final Player invoker, @Nonnull final Comman
                 //lets ignore this for now and just log it
                 log.error("Dead player got a bomb from present", e);
             }
-            this.gameStats.addAction(simpleAction(hasPresent.sourceId, Actions.DEATH, dying.userId));
+            recordAction(simpleAction(hasPresent.sourceId, Actions.DEATH, dying.userId));
 
             //remove votes of dead player and ppl voting the dead player
             clearVotesForPlayer(dying, context);
             clearNkVotesForPlayer(dying, context);
+            checkpoint();
 
-            //remove writing permissions
-            final TextChannel gameChannel = fetchGameChannel();
-            RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(dying.userId),
-                    Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
-
-            //send info
+            //remove writing permissions and send info
             final String message = String.format("%s %s opened a %s and found a lit %s inside, killing them immediately.%n%s",
                     Emojis.BOOM, dying.asMention(), Item.ItemType.PRESENT, Item.ItemType.BOMB, getReveal(dying));
-            RestActions.sendMessage(gameChannel, message);
+            withGameChannel(gameChannel -> {
+                RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(dying.userId),
+                        Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+                RestActions.sendMessage(gameChannel, message);
+            });
             if (this.phase == Phase.NIGHT) {
-                RestActions.sendMessage(fetchBaddieChannel(), message);
+                withBaddieChannel(channel -> RestActions.sendMessage(channel, message));
             }
             isGameOver();
+            return true;
         }
+        checkpoint();
         return true;
     }
 
@@ -545,7 +586,7 @@ private boolean shoot(@Nonnull final Player invoker, @Nonnull final Player targe
         //noinspection UnnecessaryLocalVariable
         final Player dying = target;
 
-        this.gameStats.addAction(simpleAction(invoker.userId, Actions.SHOOT, dying.userId));
+        recordAction(simpleAction(invoker.userId, Actions.SHOOT, dying.userId));
 
         //use up a gun if the invoker has one
         final Optional<Item> gun = invoker.items.stream().filter(i -> i.itemType == Item.ItemType.GUN).findAny();
@@ -559,9 +600,10 @@ private boolean shoot(@Nonnull final Player invoker, @Nonnull final Player targe
         final Optional<Item> angel = target.items.stream().filter(i -> i.itemType == Item.ItemType.ANGEL).findAny();
         if (angel.isPresent()) {
             target.items.remove(angel.get());
+            checkpoint();
             target.sendMessage(String.format("One of your %ss saved you! Say `%s` to see what items you have left.",
                     Item.ItemType.ANGEL, WolfiaConfig.DEFAULT_PREFIX + ItemsCommand.TRIGGER), RestActions.defaultOnFail());
-            RestActions.sendMessage(fetchGameChannel(), "A shot rings out, but nobody dies.");
+            withGameChannel(channel -> RestActions.sendMessage(channel, "A shot rings out, but nobody dies."));
             return true;
         }
 
@@ -571,24 +613,24 @@ private boolean shoot(@Nonnull final Player invoker, @Nonnull final Player targe
             //lets ignore this for now and just log it
             log.error("Dead player got a bomb from present", e);
         }
-        this.gameStats.addAction(simpleAction(invoker.userId, Actions.DEATH, dying.userId));
+        recordAction(simpleAction(invoker.userId, Actions.DEATH, dying.userId));
 
 
         //remove votes of dead player and ppl voting the dead player
         clearVotesForPlayer(dying, context);
         clearNkVotesForPlayer(dying, context);
+        checkpoint();
 
-        //remove writing permissions
-        final TextChannel gameChannel = fetchGameChannel();
-        RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(dying.userId),
-                Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
-
-        //send info
+        //remove writing permissions and send info
         final String message = String.format("%s has been shot! They die immediately.%n%s",
                 dying.asMention(), getReveal(dying));
-        RestActions.sendMessage(gameChannel, message);
+        withGameChannel(gameChannel -> {
+            RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(dying.userId),
+                    Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+            RestActions.sendMessage(gameChannel, message);
+        });
         if (this.phase == Phase.NIGHT) {
-            RestActions.sendMessage(fetchBaddieChannel(), message);
+            withBaddieChannel(channel -> RestActions.sendMessage(channel, message));
         }
         isGameOver();
         return true;
@@ -596,7 +638,11 @@ private boolean shoot(@Nonnull final Player invoker, @Nonnull final Player targe
 
     private void clearVotesForPlayer(@Nonnull final Player player, @Nonnull final MessageContext context) {
         final Set<Player> toUnvote = new HashSet<>();
-        for (final Map.Entry<Player, Player> vote : this.votes.entrySet()) {
+        final Map<Player, Player> votesCopy;
+        synchronized (this.stateLock) {
+            votesCopy = new LinkedHashMap<>(this.votes);
+        }
+        for (final Map.Entry<Player, Player> vote : votesCopy.entrySet()) {
             final Player voter = vote.getKey();
             final Player candidate = vote.getValue();
             if (voter.equals(player) || candidate.equals(player)) {
@@ -610,7 +656,7 @@ private void clearVotesForPlayer(@Nonnull final Player player, @Nonnull final Me
 
     private void clearNkVotesForPlayer(@Nonnull final Player player, @Nonnull final MessageContext context) {
         final Set<Player> toUnvoteNk = new HashSet<>();
-        for (final Map.Entry<Player, Player> vote : this.nightkillVotes.entrySet()) {
+        for (final Map.Entry<Player, Player> vote : copyNightkillVotes().entrySet()) {
             final Player voter = vote.getKey();
             final Player candidate = vote.getValue();
             if (voter.equals(player) || candidate.equals(player)) {
@@ -630,41 +676,135 @@ protected ActionStats simpleAction(final long actor, final Actions action, final
                 now, now, this.cycle, this.phase, actor, action, target, null);
     }
 
+    @Override
+    protected String teamName(final Alignments alignment) {
+        return alignment.textRepMaf;
+    }
+
+    @Override
+    protected GameSnapshot snapshot() {
+        final long deadline;
+        if (this.awaitingDay) {
+            deadline = this.dayStartsAt;
+        } else {
+            deadline = this.phaseStarted + (this.phase == Phase.DAY ? this.dayLengthMillis : this.nightLengthMillis);
+        }
+        //called under the state lock
+        final List<ActionSnapshot> pendingActions = new ArrayList<>();
+        this.votes.keySet().forEach(voter -> pendingActions.add(ActionSnapshot.of(this.voteActions.get(voter))));
+        this.nightkillVotes.keySet().forEach(voter -> pendingActions.add(ActionSnapshot.of(this.nightKillVoteActions.get(voter))));
+        this.nightActions.values().forEach(action -> pendingActions.add(ActionSnapshot.of(action)));
+
+        return snapshotBuilder()
+                .dayLengthMillis(this.dayLengthMillis)
+                .cycle(this.cycle)
+                .phase(this.phase)
+                .phaseStarted(this.phaseStarted)
+                .phaseDeadline(deadline)
+                .transitionPending(this.awaitingDay)
+                .gunBearer(-1)
+                .pendingActions(pendingActions)
+                .build();
+    }
+
+    @Override
+    protected void resumePhase(final GameSnapshot snapshot) {
+        this.cycle = snapshot.cycle();
+        this.phase = snapshot.phase();
+        this.phaseStarted = snapshot.phaseStarted();
+
+        for (final ActionSnapshot pending : snapshot.pendingActions()) {
+            try {
+                final Player actor = getPlayer(pending.actor());
+                final ActionStats action = pending.toActionStats(this.gameStats);
+                if (pending.actionType() == Actions.VOTELYNCH) {
+                    this.votes.put(actor, getPlayer(pending.target()));
+                    this.voteActions.put(actor, action);
+                } else if (pending.actionType() == Actions.VOTENIGHTKILL) {
+                    this.nightkillVotes.put(actor, getPlayer(pending.target()));
+                    this.nightKillVoteActions.put(actor, action);
+                } else {
+                    this.nightActions.put(actor, action);
+                }
+            } catch (final IllegalGameStateException e) {
+                log.warn("Dropping pending {} action of game in channel {}", pending.actionType(), this.channelId, e);
+            }
+        }
+
+        final long timeLeft = Math.max(0, snapshot.phaseDeadline() - System.currentTimeMillis());
+        if (snapshot.transitionPending()) {
+            withGameChannel(channel -> RestActions.sendMessage(channel, String.format("Day starts in %s.%n%s",
+                    TextchatUtils.formatMillis(timeLeft), String.join(", ", getLivingPlayerMentions()))));
+            scheduleDayStart(Duration.ofMillis(timeLeft));
+        } else if (this.phase == Phase.DAY) {
+            final List<Player> living = getLivingPlayers();
+            this.votingBuilder.endTime(this.phaseStarted + this.dayLengthMillis)
+                    .possibleVoters(living)
+                    .possibleCandidates(living);
+            withGameChannel(channel -> RestActions.sendMessage(channel, this.votingBuilder.getEmbed(new HashMap<>(this.votes)).build()));
+            armDayTimers();
+        } else {
+            postUpdatingNightMessage();
+            postNightkillVoting();
+        }
+    }
+
+    //start the next day after the delay
+    private void scheduleDayStart(final Duration delay) {
+        this.awaitingDay = true;
+        this.dayStartsAt = System.currentTimeMillis() + delay.toMillis();
+        checkpoint();
+        scheduleIfGameStillRuns(this::startDay, delay);
+    }
+
     private void startDay() {
         this.cycle++;
         this.phase = Phase.DAY;
         this.phaseStarted = System.currentTimeMillis();
-        this.gameStats.addAction(simpleAction(this.selfUserId, Actions.DAYSTART, -1));
+        this.awaitingDay = false;
+        recordAction(simpleAction(this.selfUserId, Actions.DAYSTART, -1));
 
-        this.votes.clear();
-        this.voteActions.clear();
+        synchronized (this.stateLock) {
+            this.votes.clear();
+            this.voteActions.clear();
+        }
         final List<Player> living = getLivingPlayers();
         this.votingBuilder.endTime(this.phaseStarted + this.dayLengthMillis)
                 .possibleVoters(living)
                 .possibleCandidates(living);
 
         //open channel
-        final TextChannel gameChannel = fetchGameChannel();
-        RestActions.sendMessage(gameChannel, String.format("Day %s started! You have %s minutes to discuss. You may vote a"
+        final String dayStarted = String.format("Day %s started! You have %s minutes to discuss. You may vote a"
                         + " player for lynch with `%s`. You can see the current votecount with `%s`."
                         + "\nIf a player is voted by more than half the living players (majority), they will be lynched immediately!",
                 this.cycle, this.dayLengthMillis / 60000, WolfiaConfig.DEFAULT_PREFIX + VoteCommand.TRIGGER,
-                WolfiaConfig.DEFAULT_PREFIX + VoteCountCommand.TRIGGER));
-        for (final Player player : living) {
-            RoleAndPermissionUtils.grant(gameChannel, gameChannel.getGuild().getMemberById(player.userId),
-                    Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
-        }
+                WolfiaConfig.DEFAULT_PREFIX + VoteCountCommand.TRIGGER);
+        withGameChannel(gameChannel -> {
+            RestActions.sendMessage(gameChannel, dayStarted);
+            for (final Player player : living) {
+                RoleAndPermissionUtils.grant(gameChannel, gameChannel.getGuild().getMemberById(player.userId),
+                        Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+            }
+        });
 
-        //set a timer that calls endDay()
+        armDayTimers();
+        checkpoint();
+    }
+
+    //set timers that end the day and remind players about it, based on the time left in the current day
+    private void armDayTimers() {
+        final long timeLeft = this.phaseStarted + this.dayLengthMillis - System.currentTimeMillis();
         this.phaseEndTimer = scheduleIfGameStillRuns(() -> {
             try {
                 this.endDay();
             } catch (final DayEndedAlreadyException ignored) {
                 // ignored
             }
-        }, Duration.ofMillis(this.dayLengthMillis));
-        this.phaseEndReminder = scheduleIfGameStillRuns(() -> RestActions.sendMessage(gameChannel, "One minute left until day end!"),
-                Duration.ofMillis(this.dayLengthMillis - 60000));
+        }, Duration.ofMillis(Math.max(0, timeLeft)));
+        if (timeLeft > 60000) {
+            this.phaseEndReminder = scheduleIfGameStillRuns(() -> withGameChannel(channel -> RestActions.sendMessage(channel, "One minute left until day end!")),
+                    Duration.ofMillis(timeLeft - 60000));
+        }
     }
 
     private void endDay() throws DayEndedAlreadyException {
@@ -678,31 +818,32 @@ private void endDay() throws DayEndedAlreadyException {
         if (this.phaseEndTimer != null) this.phaseEndTimer.cancel(false);
         if (this.phaseEndReminder != null) this.phaseEndReminder.cancel(false);
 
-        final TextChannel gameChannel = fetchGameChannel();
-
         final List<Player> livingPlayers = getLivingPlayers();
         //close channel
-        for (final Player livingPlayer : livingPlayers) {
-            RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(livingPlayer.userId),
-                    Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
-        }
+        withGameChannel(gameChannel -> {
+            for (final Player livingPlayer : livingPlayers) {
+                RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(livingPlayer.userId),
+                        Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+            }
+        });
 
-        this.gameStats.addAction(simpleAction(this.selfUserId, Actions.DAYEND, -1));
-        synchronized (this.votes) {
-            RestActions.sendMessage(gameChannel, this.votingBuilder.getFinalEmbed(this.votes, this.phase, this.cycle).build());
+        recordAction(simpleAction(this.selfUserId, Actions.DAYEND, -1));
+        synchronized (this.stateLock) {
+            final MessageEmbed finalVotes = this.votingBuilder.getFinalEmbed(this.votes, this.phase, this.cycle).build();
+            withGameChannel(gameChannel -> RestActions.sendMessage(gameChannel, finalVotes));
             final List<Player> lynchCandidates = GameUtils.mostVoted(this.votes, livingPlayers);
             boolean randedLynch = false;
             final Player lynchCandidate;
             if (lynchCandidates.size() > 1) {
                 randedLynch = true;
-                lynchCandidate = GameUtils.rand(lynchCandidates);
+                lynchCandidate = GameUtils.rand(lynchCandidates, random());
             } else {
                 lynchCandidate = lynchCandidates.get(0);
             }
 
             try {
                 lynchCandidate.kill();
-                this.gameStats.addAction(simpleAction(-3, Actions.LYNCH, lynchCandidate.userId));
+                recordAction(simpleAction(-3, Actions.LYNCH, lynchCandidate.userId));
             } catch (final IllegalGameStateException | NullPointerException e) {
                 //should not happen, but if it does, kill the game
                 this.destroy(e);
@@ -710,10 +851,11 @@ private void endDay() throws DayEndedAlreadyException {
             }
 
             final long votesAmount = this.votes.values().stream().filter(p -> p.userId == lynchCandidate.userId).count();
-            RestActions.sendMessage(gameChannel, String.format("%s has been lynched%s with %s votes on them!%nThey were **%s %s** %s",
+            final String lynched = String.format("%s has been lynched%s with %s votes on them!%nThey were **%s %s** %s",
                     lynchCandidate.asMention(), randedLynch ? " at random due to a tie" : "", votesAmount,
-                    lynchCandidate.alignment.textRepMaf, lynchCandidate.role.textRep, lynchCandidate.getCharakterEmoji()));
-            this.gameStats.addActions(this.voteActions.values());
+                    lynchCandidate.alignment.textRepMaf, lynchCandidate.role.textRep, lynchCandidate.getCharakterEmoji());
+            withGameChannel(gameChannel -> RestActions.sendMessage(gameChannel, lynched));
+            recordActions(this.voteActions.values());
         }
 
         if (!isGameOver()) {
@@ -723,13 +865,13 @@ private void endDay() throws DayEndedAlreadyException {
 
     private void postUpdatingNightMessage() {
         final String basic = "Night falls...\n";
-        RestActions.sendMessage(fetchGameChannel(), basic + nightTimeLeft(),
+        withGameChannel(channel -> RestActions.sendMessage(channel, basic + nightTimeLeft(),
                 m -> new PeriodicTimer(
                         TimeUnit.SECONDS.toMillis(5),
                         onUpdate -> RestActions.editMessage(m, basic + nightTimeLeft()),
                         this.phaseStarted + this.nightLengthMillis - System.currentTimeMillis(),
                         onDestruction -> RestActions.editMessage(m, basic + "Dawn breaks!")
-                ));
+                )));
     }
 
     private String nightTimeLeft() {
@@ -739,59 +881,17 @@ private String nightTimeLeft() {
     private void startNight() {
         this.phase = Phase.NIGHT;
         this.phaseStarted = System.currentTimeMillis();
-        this.gameStats.addAction(simpleAction(this.selfUserId, Actions.NIGHTSTART, -1));
+        recordAction(simpleAction(this.selfUserId, Actions.NIGHTSTART, -1));
 
-        this.nightActions.clear();
+        synchronized (this.stateLock) {
+            this.nightActions.clear();
+            this.nightkillVotes.clear();
+            this.nightKillVoteActions.clear();
+        }
 
         postUpdatingNightMessage();
 
-        //post a voting embed for the wolfs in wolfchat
-        final TextChannel wolfchatChannel = fetchBaddieChannel();
-
-        this.nightkillVotes.clear();
-        this.nightKillVoteActions.clear();
-
-        this.nightKillVotingBuilder.endTime(this.phaseStarted + this.nightLengthMillis)
-                .possibleVoters(getLivingWolves())
-                .possibleCandidates(getLivingVillage());
-
-
-        RestActions.sendMessage(wolfchatChannel, "Nightkill voting!\n" + String.join(", ", getLivingWolvesMentions()),
-                m -> RestActions.sendMessage(wolfchatChannel, this.nightKillVotingBuilder.getEmbed(this.nightkillVotes).build(), message -> {
-                    ShardManager shardManager = requireNonNull(message.getJDA().getShardManager());
-                    shardManager.addEventListener(new UpdatingReactionListener(message,
-                            this::isLivingWolf,
-                            __ -> {
-                            },//todo move away from using a reaction listener
-                            this.nightLengthMillis,
-                            //on destruction
-                            aVoid -> {
-                                if (!this.running) {//game ended meanwhile.
-                                    return;
-                                }
-                                message.clearReactions().queue(null, RestActions.defaultOnFail());
-                                synchronized (this.nightkillVotes) {
-                                    RestActions.editMessage(message, this.nightKillVotingBuilder.getFinalEmbed(this.nightkillVotes, this.phase, this.cycle).build());
-                                    final Player nightKillCandidate = GameUtils.rand(GameUtils.mostVoted(this.nightkillVotes, getLivingVillage()));
-
-                                    TextChannel textChannel = shardManager.getTextChannelById(this.channelId);
-                                    String invite = textChannel == null ? ""
-                                            : TextchatUtils.getOrCreateInviteLinkForChannel(textChannel);
-                                    RestActions.sendMessage(wolfchatChannel, String.format(
-                                            "%n@here, %s will be killed! Game about to start/continue, get back to the main chat.%n%s",
-                                            nightKillCandidate.bothNamesFormatted(), invite));
-                                    this.gameStats.addActions(this.nightKillVoteActions.values());
-
-                                    endNight(nightKillCandidate);
-                                }
-                            },
-                            //update every few seconds
-                            TimeUnit.SECONDS.toMillis(10),
-                            aVoid -> RestActions.editMessage(message, this.nightKillVotingBuilder.getEmbed(this.nightkillVotes).build())
-                    ));
-                })
-        );
-
+        postNightkillVoting();
 
         //notify other roles of their possible night actions
 
@@ -806,7 +906,9 @@ private void startNight() {
                 livingPlayersWithNumbers.addField("", out, false);
                 final Collection<Long> randCopTargets = getLivingPlayerIds();
                 randCopTargets.remove(p.userId);//dont randomly check themselves
-                this.nightActions.put(p, simpleAction(p.userId, Actions.CHECK, GameUtils.rand(randCopTargets)));//preset a random action
+                synchronized (this.stateLock) {
+                    this.nightActions.put(p, simpleAction(p.userId, Actions.CHECK, GameUtils.rand(randCopTargets, random())));//preset a random action
+                }
                 p.sendMessage(livingPlayersWithNumbers.build(), RestActions.defaultOnFail());
             } else if (p.role == Roles.SANTA) {
                 final EmbedBuilder livingPlayersWithNumbers = listLivingPlayersWithNumbers(p);
@@ -821,10 +923,65 @@ private void startNight() {
                 livingPlayersWithNumbers.addField("", out, false);
                 final Collection<Long> randSantaTargets = getLivingPlayerIds();
                 randSantaTargets.remove(p.userId);//dont randomly gift themselves
-                this.nightActions.put(p, simpleAction(p.userId, Actions.GIVE_PRESENT, GameUtils.rand(randSantaTargets)));//preset a random action
+                synchronized (this.stateLock) {
+                    this.nightActions.put(p, simpleAction(p.userId, Actions.GIVE_PRESENT, GameUtils.rand(randSantaTargets, random())));//preset a random action
+                }
                 p.sendMessage(livingPlayersWithNumbers.build(), RestActions.defaultOnFail());
             }
         }
+        checkpoint();
+    }
+
+    //post a voting embed for the wolfs in wolfchat, which ends the night once the time of the night runs out
+    private void postNightkillVoting() {
+        this.nightKillVotingBuilder.endTime(this.phaseStarted + this.nightLengthMillis)
+                .possibleVoters(getLivingWolves())
+                .possibleCandidates(getLivingVillage());
+
+        final long timeLeft = Math.max(0, this.phaseStarted + this.nightLengthMillis - System.currentTimeMillis());
+        final String nightkillVoting = "Nightkill voting!\n" + String.join(", ", getLivingWolvesMentions());
+        withBaddieChannel(wolfchatChannel -> RestActions.sendMessage(wolfchatChannel, nightkillVoting,
+                m -> RestActions.sendMessage(wolfchatChannel, this.nightKillVotingBuilder.getEmbed(copyNightkillVotes()).build(), message -> {
+                    ShardManager shardManager = requireNonNull(message.getJDA().getShardManager());
+                    final VoteCountRenderer voteCount = new VoteCountRenderer(this.nightKillVotingBuilder,
+                            this::copyNightkillVotes,
+                            embed -> RestActions.editMessage(message, embed),
+                            Launcher.getBotContext().getExecutor(),
+                            2, TimeUnit.SECONDS);
+                    this.nightKillVoteCount = voteCount;
+                    shardManager.addEventListener(new UpdatingReactionListener(message,
+                            this::isLivingWolf,
+                            __ -> {
+                            },//todo move away from using a reaction listener
+                            timeLeft,
+                            //on destruction
+                            aVoid -> {
+                                voteCount.close();
+                                if (!this.running) {//game ended meanwhile.
+                                    return;
+                                }
+                                message.clearReactions().queue(null, RestActions.defaultOnFail());
+                                synchronized (this.stateLock) {
+                                    RestActions.editMessage(message, this.nightKillVotingBuilder.getFinalEmbed(this.nightkillVotes, this.phase, this.cycle).build());
+                                    final Player nightKillCandidate = GameUtils.rand(GameUtils.mostVoted(this.nightkillVotes, getLivingVillage()), random());
+
+                                    TextChannel textChannel = shardManager.getTextChannelById(this.channelId);
+                                    String invite = textChannel == null ? ""
+                                            : TextchatUtils.getOrCreateInviteLinkForChannel(textChannel);
+                                    RestActions.sendMessage(wolfchatChannel, String.format(
+                                            "%n@here, %s will be killed! Game about to start/continue, get back to the main chat.%n%s",
+                                            nightKillCandidate.bothNamesFormatted(), invite));
+                                    recordActions(this.nightKillVoteActions.values());
+
+                                    endNight(nightKillCandidate);
+                                }
+                            },
+                            //check for updates every few seconds, the renderer only edits when something visible changed
+                            TimeUnit.SECONDS.toMillis(2),
+                            aVoid -> voteCount.requestRender()
+                    ));
+                })
+        ));
     }
 
     private boolean nkVote(final Player voter, final Player nightkillVote, @Nonnull final CommandContext context) {
@@ -846,14 +1003,29 @@ private boolean nkVote(final Player voter, final Player nightkillVote, @Nonnull
 
         context.reply(String.format("%s votes %s for nightkill.", voter.asMention(), nightkillVote.asMention()));
 
-        synchronized (this.nightkillVotes) {
+        synchronized (this.stateLock) {
             this.nightkillVotes.remove(voter);
             this.nightkillVotes.put(voter, nightkillVote);
             this.nightKillVoteActions.put(voter, simpleAction(voter.userId, Actions.VOTENIGHTKILL, nightkillVote.userId));
         }
+        checkpoint();
+        nightkillVotesChanged();
         return true;
     }
 
+    private Map<Player, Player> copyNightkillVotes() {
+        synchronized (this.stateLock) {
+            return new LinkedHashMap<>(this.nightkillVotes);
+        }
+    }
+
+    private void nightkillVotesChanged() {
+        final VoteCountRenderer voteCount = this.nightKillVoteCount;
+        if (voteCount != null) {
+            voteCount.markDirty();
+        }
+    }
+
     private boolean nkUnvote(final Player unvoter, @Nonnull final MessageContext context, final boolean... silent) {
         final boolean shutUp = silent.length > 0 && silent[0];
 
@@ -865,7 +1037,7 @@ private boolean nkUnvote(final Player unvoter, @Nonnull final MessageContext con
         }
 
         final Player unvoted;
-        synchronized (this.nightkillVotes) {
+        synchronized (this.stateLock) {
             if (this.nightkillVotes.get(unvoter) == null) {
                 if (!shutUp) {
                     context.replyWithMention("you can't unvote if you aren't voting in the first place.");
@@ -875,9 +1047,11 @@ private boolean nkUnvote(final Player unvoter, @Nonnull final MessageContext con
             unvoted = this.nightkillVotes.remove(unvoter);
             this.nightKillVoteActions.remove(unvoter);
         }
+        checkpoint();
+        nightkillVotesChanged();
 
         if (!shutUp) {
-            RestActions.sendMessage(fetchBaddieChannel(), String.format("%s unvoted %s.", unvoter.asMention(), unvoted.asMention()));
+            withBaddieChannel(channel -> RestActions.sendMessage(channel, String.format("%s unvoted %s.", unvoter.asMention(), unvoted.asMention())));
         }
         return true;
     }
@@ -885,9 +1059,13 @@ private boolean nkUnvote(final Player unvoter, @Nonnull final MessageContext con
     @SuppressWarnings("unchecked")
     private void endNight(@Nonnull final Player nightKillCandidate) {
 
-        this.gameStats.addAction(simpleAction(this.selfUserId, Actions.NIGHTEND, -1));
+        recordAction(simpleAction(this.selfUserId, Actions.NIGHTEND, -1));
 
-        for (final ActionStats nightAction : this.nightActions.values()) {
+        final List<ActionStats> nightActionsCopy;
+        synchronized (this.stateLock) {
+            nightActionsCopy = new ArrayList<>(this.nightActions.values());
+        }
+        for (final ActionStats nightAction : nightActionsCopy) {
             if (nightAction.getActionType() == Actions.CHECK) {
                 try {
                     final Player checker = getPlayer(nightAction.getActor());
@@ -896,7 +1074,7 @@ private void endNight(@Nonnull final Player nightKillCandidate) {
                             checker.asMention(), checked.bothNamesFormatted(), this.cycle,
                             checked.alignment.textRepMaf), RestActions.defaultOnFail());
                     nightAction.setTimeStampHappened(System.currentTimeMillis());
-                    this.gameStats.addAction(nightAction);
+                    recordAction(nightAction);
 
                     //use up a mag if this player has one
                     final Optional<Item> mag = checker.items.stream().filter(i -> i.itemType == Item.ItemType.MAGNIFIER).findAny();
@@ -915,7 +1093,7 @@ private void endNight(@Nonnull final Player nightKillCandidate) {
                             Item.ItemType.PRESENT.emoji, WolfiaConfig.DEFAULT_PREFIX + OpenPresentCommand.TRIGGER);
                     receiver.sendMessage(message, RestActions.defaultOnFail());
                     receiver.items.add(new Item(nightAction.getActor(), Item.ItemType.PRESENT));
-                    this.gameStats.addAction(nightAction);
+                    recordAction(nightAction);
                 } catch (final IllegalGameStateException e) {
                     log.error("Player {} getting a present not a player of the ongoing game in {}.", nightAction.getTarget(), this.channelId);
                 }
@@ -924,33 +1102,36 @@ private void endNight(@Nonnull final Player nightKillCandidate) {
             }
         }
 
-        final TextChannel gameChannel = fetchGameChannel();
         //use up an angel if the target has one
         final Optional<Item> angel = nightKillCandidate.items.stream().filter(i -> i.itemType == Item.ItemType.ANGEL).findAny();
         if (angel.isPresent()) {
             nightKillCandidate.items.remove(angel.get());
             nightKillCandidate.sendMessage(String.format("One of your %ss saved you! Say `%s` to see what items you have left.",
                     Item.ItemType.ANGEL, WolfiaConfig.DEFAULT_PREFIX + ItemsCommand.TRIGGER), RestActions.defaultOnFail());
-            RestActions.sendMessage(gameChannel, "Nobody died during the night.");
+            withGameChannel(gameChannel -> RestActions.sendMessage(gameChannel, "Nobody died during the night."));
         } else {
             try {
                 nightKillCandidate.kill();
-                this.gameStats.addAction(simpleAction(-2, Actions.DEATH, nightKillCandidate.userId));
+                recordAction(simpleAction(-2, Actions.DEATH, nightKillCandidate.userId));
             } catch (final IllegalGameStateException e) {
                 //should not happen, but if it does, kill the game
                 this.destroy(e);
                 return;
             }
-            RestActions.sendMessage(gameChannel, String.format("%s has died during the night!%n%s",
-                    nightKillCandidate.asMention(), getReveal(nightKillCandidate)));
+            final String died = String.format("%s has died during the night!%n%s",
+                    nightKillCandidate.asMention(), getReveal(nightKillCandidate));
+            withGameChannel(gameChannel -> RestActions.sendMessage(gameChannel, died));
         }
 
         if (!isGameOver()) {
+            this.awaitingDay = true;
+            this.dayStartsAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            checkpoint();
             //start the timer only after the message has actually been sent
-            final Consumer whenDone = aVoid -> scheduleIfGameStillRuns(this::startDay, Duration.ofSeconds(10));
-            RestActions.sendMessage(gameChannel, String.format("Day starts in 10 seconds.%n%s",
-                    String.join(", ", getLivingPlayerMentions())),
-                    whenDone, whenDone);
+            final Consumer whenDone = aVoid -> scheduleDayStart(Duration.ofSeconds(10));
+            final String dayStarts = String.format("Day starts in 10 seconds.%n%s",
+                    String.join(", ", getLivingPlayerMentions()));
+            withGameChannel(gameChannel -> RestActions.sendMessage(gameChannel, dayStarts, whenDone, whenDone));
         }
     }
 
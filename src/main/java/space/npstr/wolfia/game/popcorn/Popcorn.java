@@ -19,28 +19,28 @@
 
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.LongConsumer;
 import javax.annotation.Nonnull;
 import net.dv8tion.jda.api.EmbedBuilder;
 import net.dv8tion.jda.api.Permission;
 import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.TextChannel;
 import space.npstr.wolfia.Launcher;
 import space.npstr.wolfia.commands.CommandContext;
-import space.npstr.wolfia.commands.game.RolePmCommand;
 import space.npstr.wolfia.commands.ingame.ShootCommand;
 import space.npstr.wolfia.config.properties.WolfiaConfig;
+import space.npstr.wolfia.domain.game.GameSnapshot;
+import space.npstr.wolfia.domain.room.ManagedPrivateRoom;
 import space.npstr.wolfia.domain.stats.ActionStats;
 import space.npstr.wolfia.domain.stats.GameStats;
-import space.npstr.wolfia.domain.stats.PlayerStats;
-import space.npstr.wolfia.domain.stats.TeamStats;
 import space.npstr.wolfia.events.ReactionListener;
 import space.npstr.wolfia.game.Game;
 import space.npstr.wolfia.game.GameUtils;
@@ -52,6 +52,7 @@
 import space.npstr.wolfia.game.exceptions.DayEndedAlreadyException;
 import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
 import space.npstr.wolfia.game.tools.NiceEmbedBuilder;
+import space.npstr.wolfia.game.tools.StartSequence;
 import space.npstr.wolfia.utils.Operation;
 import space.npstr.wolfia.utils.UserFriendlyException;
 import space.npstr.wolfia.utils.discord.Emojis;
@@ -78,6 +79,12 @@ public class Popcorn extends Game {
     private long dayLengthMillis = TimeUnit.MINUTES.toMillis(10); //10 minutes default
     private long dayStarted = -1;
     private long gunBearer = -1;
+    //wolves are deciding who gets the gun
+    private boolean distributingGun = false;
+    private long distributionEnds = -1;
+    //the gun has been distributed and will be handed over at the set time
+    private long pendingGunBearer = -1;
+    private long gunHandedOverAt = -1;
 
     @Override
     public void setDayLength(final Duration dayLength) {
@@ -130,17 +137,26 @@ public void cleanUp() {
         if (this.mode != GameMode.WILD) { //nothing to do for the wild mode
             resetRolesAndPermissions(true);
         }
+        Launcher.getBotContext().getGameJournal().close(this.channelId);
     }
 
     @Override
-    public synchronized void start(final long channelId, final GameMode mode, final Set<Long> innedPlayers) {
-        try {//wrap into our own exceptions
-            doArgumentChecksAndSet(channelId, mode, innedPlayers);
-        } catch (final IllegalArgumentException e) {
-            throw new UserFriendlyException(e.getMessage(), e);
-        }
+    public void suspend() {
+        this.timers.forEach(Thread::interrupt);
+        super.suspend();
+    }
 
-        doPermissionCheckAndPrepareChannel(this.mode != GameMode.WILD);
+    @Override
+    public synchronized CompletableFuture<Void> start(final long channelId, final GameMode mode, final Set<Long> innedPlayers) {
+        final StartSequence sequence = new StartSequence(Games.POPCORN.name(), channelId, this.executor);
+        sequence.run("checks", () -> {
+            try {//wrap into our own exceptions
+                doArgumentChecksAndSet(channelId, mode, innedPlayers);
+            } catch (final IllegalArgumentException e) {
+                throw new UserFriendlyException(e.getMessage(), e);
+            }
+            doPermissionCheck(this.mode != GameMode.WILD);
+        });
 
 
         this.day = 0;
@@ -148,80 +164,94 @@ public synchronized void start(final long channelId, final GameMode mode, final
         // - rand the characters
         randCharacters(innedPlayers);
 
-        //get a hold of a private server...
+        final TextChannel gameChannel = fetchGameChannel();
+        //preparing the channel, creating an invite for it and getting a hold of a private server don't depend on each other
+        CompletableFuture<Void> channelPrepared = CompletableFuture.completedFuture(null);
+        CompletableFuture<ManagedPrivateRoom> privateRoom = CompletableFuture.completedFuture(null);
+        CompletableFuture<String> wolfchatInviteLink = CompletableFuture.completedFuture("");
         if (this.mode != GameMode.WILD) {
-            this.wolfChat = allocatePrivateRoom();
-            this.wolfChat.beginUsage(getWolvesIds());
+            channelPrepared = sequence.stage("prepareChannel", DISCORD_STAGE_TIMEOUT, () -> {
+                prepareModeratedChannel();
+                return null;
+            }, __ -> resetRolesAndPermissions(true));
+            final CompletableFuture<ManagedPrivateRoom> reservation = reservePrivateRoom(PRIVATE_ROOM_MAX_WAIT);
+            sequence.onRollback(() -> reservation.cancel(false));
+            privateRoom = sequence.track("privateRoom", PRIVATE_ROOM_STAGE_TIMEOUT, reservation.thenApplyAsync(room -> {
+                room.beginUsage(getWolvesIds());
+                return room;
+            }, Launcher.getBotContext().getExecutor()), ManagedPrivateRoom::endUsage);
+            wolfchatInviteLink = privateRoom.thenCompose(room ->
+                    sequence.stage("wolfchatInvite", DISCORD_STAGE_TIMEOUT, () -> "Wolfchat: " + room.getInvite() + "\n"));
         }
+        final CompletableFuture<String> inviteLink = sequence.stage("channelInvite", DISCORD_STAGE_TIMEOUT,
+                () -> TextchatUtils.getOrCreateInviteLinkForChannel(gameChannel));
+        final CompletableFuture<ManagedPrivateRoom> wolfchatRoom = privateRoom;
+        final CompletableFuture<String> wolfchatInvite = wolfchatInviteLink;
+        //finish the start once the stages are done instead of waiting for them, a private room may take minutes
+        return sequence.finish(CompletableFuture.allOf(channelPrepared, inviteLink, wolfchatInvite), () -> {
+            synchronized (this) {
+                finishStart(sequence, gameChannel, wolfchatRoom.join(), wolfchatInvite.join(), inviteLink.join());
+            }
+        });
+    }
 
-        final TextChannel gameChannel = fetchGameChannel();
-        //inform each player about his role
-        final String inviteLink = TextchatUtils.getOrCreateInviteLinkForChannel(gameChannel);
-        final String wolfchatInvite = this.wolfChat != null ? "Wolfchat: " + this.wolfChat.getInvite() + "\n" : "";
-        final StringBuilder wolfteamNames = new StringBuilder("Your team is:\n");
-        final String guildChannelAndInvite = String.format("Guild/Server: **%s**%nMain channel: **#%s** %s%n", //invite that may be empty
-                gameChannel.getGuild().getName(), gameChannel.getName(), inviteLink);
-
-        for (final Player player : this.getWolves()) {
-            wolfteamNames.append(player.bothNamesFormatted()).append("\n");
-        }
+    private void finishStart(final StartSequence sequence, final TextChannel gameChannel,
+                             final ManagedPrivateRoom privateRoom, final String wolfchatInvite,
+                             final String inviteLink) {
+        try {
+            this.wolfChat = privateRoom;
 
-        for (final Player player : this.players) {
-            final StringBuilder rolePm = new StringBuilder()
-                    .append("Hi ").append(player.getName()).append("!\n")
-                    .append(player.alignment.rolePmBlockWW).append("\n");
-            if (player.isGoodie()) {
-                rolePm.append("If you shoot a villager, you will die. If the wolves reach parity with the village, you lose.\n");
+            //inform each player about his role
+            final StringBuilder wolfteamNames = new StringBuilder("Your team is:\n");
+            final String guildChannelAndInvite = String.format("Guild/Server: **%s**%nMain channel: **#%s** %s%n", //invite that may be empty
+                    gameChannel.getGuild().getName(), gameChannel.getName(), inviteLink);
+
+            for (final Player player : this.getWolves()) {
+                wolfteamNames.append(player.bothNamesFormatted()).append("\n");
             }
-            if (player.isBaddie()) {
-                rolePm.append("If you get shot, you will die. If all wolves get shot, you lose\n");
-                rolePm.append(wolfteamNames);
-                rolePm.append(wolfchatInvite);
-                if (this.mode != GameMode.WILD) {
-                    addToBaddieGuild(player);
+
+            for (final Player player : this.players) {
+                final StringBuilder rolePm = new StringBuilder()
+                        .append("Hi ").append(player.getName()).append("!\n")
+                        .append(player.alignment.rolePmBlockWW).append("\n");
+                if (player.isGoodie()) {
+                    rolePm.append("If you shoot a villager, you will die. If the wolves reach parity with the village, you lose.\n");
+                }
+                if (player.isBaddie()) {
+                    rolePm.append("If you get shot, you will die. If all wolves get shot, you lose\n");
+                    rolePm.append(wolfteamNames);
+                    rolePm.append(wolfchatInvite);
                 }
+                rolePm.append(guildChannelAndInvite);
+
+                player.setRolePm(rolePm.toString());
             }
-            rolePm.append(guildChannelAndInvite);
-
-            player.setRolePm(rolePm.toString());
-            player.sendMessage(rolePm.toString(),
-                    e -> RestActions.sendMessage(gameChannel, String.format(
-                            "%s, **I cannot send you a private message**, please adjust your privacy settings " +
-                                    "and/or unblock me, then issue `%s` to receive your role PM.",
-                            player.asMention(), WolfiaConfig.DEFAULT_PREFIX + RolePmCommand.TRIGGER))
-            );
-        }
 
-        final Guild g = gameChannel.getGuild();
-        //set up stats objects
-        this.gameStats = new GameStats(g.getIdLong(), g.getName(), this.channelId, gameChannel.getName(),
-                Games.POPCORN, this.mode, this.players.size());
-        final Map<Alignments, TeamStats> teams = new EnumMap<>(Alignments.class);
-        for (final Player player : this.players) {
-            final Alignments alignment = player.alignment;
-            final TeamStats team = teams.getOrDefault(alignment,
-                    new TeamStats(this.gameStats, alignment, alignment.textRepWW, -1));
-            final PlayerStats ps = new PlayerStats(team, player.userId,
-                    player.getNick(), alignment, player.role);
-            this.playersStats.put(player.userId, ps);
-            team.addPlayer(ps);
-            teams.put(alignment, team);
-        }
-        for (final TeamStats team : teams.values()) {
-            team.setTeamSize(team.getPlayers().size());
-            this.gameStats.addTeam(team);
+            final Guild g = gameChannel.getGuild();
+            //set up stats objects
+            setUpStats(new GameStats(g.getIdLong(), g.getName(), this.channelId, gameChannel.getName(),
+                    Games.POPCORN, this.mode, this.players.size()), Player::getNick);
+
+            // - start the game
+            String info = Games.getInfo(this).textRep();
+            log.info("Game started in guild {} {}, channel #{} {}, {} {} {} players",
+                    g.getName(), g.getIdLong(), gameChannel.getName(), gameChannel.getIdLong(),
+                    info, this.mode.textRep, this.players.size());
+            this.running = true;
+            recordAction(simpleAction(this.selfUserId, Actions.GAMESTART, -1));
+        } catch (final RuntimeException e) {
+            this.wolfChat = null; //ended by the rollback of the sequence
+            throw e;
         }
-
-        // - start the game
-        String info = Games.getInfo(this).textRep();
-        log.info("Game started in guild {} {}, channel #{} {}, {} {} {} players",
-                g.getName(), g.getIdLong(), gameChannel.getName(), gameChannel.getIdLong(),
-                info, mode.textRep, this.players.size());
-        this.running = true;
-        this.gameStats.addAction(simpleAction(this.selfUserId, Actions.GAMESTART, -1));
+        sequence.track("rolePms", ROLE_PM_TIMEOUT, sendRolePms(gameChannel)).whenComplete((__, t) -> {
+            if (t != null) {
+                log.warn("Role pms of game in channel {} did not go out in time", this.channelId, t);
+            }
+        });
         //mention the players in the thread
         RestActions.sendMessage(gameChannel, String.format("Game has started!%n%s%n**%s** wolves are alive!",
                 listLivingPlayers(), getLivingWolves().size()));
+        sequence.announced();
         distributeGun();
     }
 
@@ -240,45 +270,59 @@ public boolean issueCommand(@Nonnull final CommandContext context)
     }
 
     private void distributeGun() {
-        final TextChannel gameChannel = fetchGameChannel();
         if (this.mode == GameMode.WILD) { //essentially a rand
-            RestActions.sendMessage(gameChannel, "Randing the " + Emojis.GUN);
-            giveGun(GameUtils.rand(getLivingVillage()).userId);
+            withGameChannel(channel -> RestActions.sendMessage(channel, "Randing the " + Emojis.GUN));
+            giveGun(GameUtils.rand(getLivingVillage(), random()).userId);
         } else { //lets wolves do it
-            for (final Player player : getLivingPlayers()) {
-                RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(player.userId),
-                        Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION).queue(null, RestActions.defaultOnFail());
-            }
+            final List<Player> living = getLivingPlayers();
+            withGameChannel(gameChannel -> {
+                for (final Player player : living) {
+                    RoleAndPermissionUtils.deny(gameChannel, gameChannel.getGuild().getMemberById(player.userId),
+                            Permission.MESSAGE_WRITE, Permission.MESSAGE_ADD_REACTION).queue(null, RestActions.defaultOnFail());
+                }
+            });
+            this.distributingGun = true;
+            this.distributionEnds = System.currentTimeMillis() + GunDistribution.TIME_TO_DISTRIBUTE_GUN_MILLIS;
+            checkpoint();
             new GunDistribution();
         }
     }
 
     private void giveGun(final long userId) {
         this.gunBearer = userId;
-        this.gameStats.addAction(simpleAction(this.selfUserId, Actions.GIVEGUN, userId));
-        RestActions.sendMessage(fetchGameChannel(), String.format("%s has received the %s !",
-                TextchatUtils.userAsMention(userId), Emojis.GUN));
+        this.distributingGun = false;
+        this.pendingGunBearer = -1;
+        recordAction(simpleAction(this.selfUserId, Actions.GIVEGUN, userId));
+        withGameChannel(channel -> RestActions.sendMessage(channel, String.format("%s has received the %s !",
+                TextchatUtils.userAsMention(userId), Emojis.GUN)));
         startDay();
     }
 
     private void startDay() {
         this.day++;
         this.dayStarted = System.currentTimeMillis();
-        this.gameStats.addAction(simpleAction(this.selfUserId, Actions.DAYSTART, -1));
-        final TextChannel channel = Launcher.getBotContext().getShardManager().getTextChannelById(this.channelId);
-        if (channel != null) { //todo handle properly
-            RestActions.sendMessage(channel, getStatus().build());
-            RestActions.sendMessage(channel, String.format("Day %s started! %s, you have %s minutes to shoot someone.",
-                    this.day, TextchatUtils.userAsMention(this.gunBearer), this.dayLengthMillis / 60000));
+        recordAction(simpleAction(this.selfUserId, Actions.DAYSTART, -1));
+        final MessageEmbed status = getStatus().build();
+        final String dayStarted = String.format("Day %s started! %s, you have %s minutes to shoot someone.",
+                this.day, TextchatUtils.userAsMention(this.gunBearer), this.dayLengthMillis / 60000);
+        final List<Player> living = getLivingPlayers();
+        withGameChannel(channel -> {
+            RestActions.sendMessage(channel, status);
+            RestActions.sendMessage(channel, dayStarted);
 
             if (this.mode != GameMode.WILD) {
-                for (final Player player : getLivingPlayers()) {
+                for (final Player player : living) {
                     RoleAndPermissionUtils.grant(channel, channel.getGuild().getMemberById(player.userId),
                             Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
                 }
             }
-        }
+        });
+
+        startDayTimer();
+        checkpoint();
+    }
 
+    private void startDayTimer() {
         final Thread t = new Thread(new PopcornTimer(this.day, this),
                 "timer-popcorngame-" + this.day + "-" + this.channelId);
         this.timers.add(t);
@@ -306,17 +350,16 @@ private void endDay(final DayEndReason reason, final long toBeKilled, final long
             this.destroy(e);
             return;
         }
-        this.gameStats.addAction(simpleAction(survivor, Actions.DEATH, toBeKilled));
-        final TextChannel gameChannel = fetchGameChannel();
-        final Guild g = gameChannel.getGuild();
+        recordAction(simpleAction(survivor, Actions.DEATH, toBeKilled));
 
-        this.gameStats.addAction(simpleAction(this.selfUserId, Actions.DAYEND, -1));
-        RestActions.sendMessage(gameChannel, String.format("Day %s has ended!", this.day));
+        recordAction(simpleAction(this.selfUserId, Actions.DAYEND, -1));
+        final List<String> messages = new ArrayList<>();
+        messages.add(String.format("Day %s has ended!", this.day));
 
         //an operation that shall be run if the game isn't over; doing this so we can ge the output from he below if construct sent
         final LongConsumer doIfGameIsntOver;
         if (reason == DayEndReason.TIMER) {
-            RestActions.sendMessage(gameChannel, String.format(
+            messages.add(String.format(
                     "%s took too long to decide who to shoot! They died and the %s will be redistributed.",
                     TextchatUtils.userAsMention(toBeKilled), Emojis.GUN));
             doIfGameIsntOver = ignored -> distributeGun();
@@ -325,22 +368,26 @@ private void endDay(final DayEndReason reason, final long toBeKilled, final long
                 log.error("You introduced a new day end reason but didn't handle it in the code.");
             }
             if (killed.isBaddie()) {
-                RestActions.sendMessage(gameChannel, String.format("%s was a dirty %s!",
+                messages.add(String.format("%s was a dirty %s!",
                         TextchatUtils.userAsMention(toBeKilled), Emojis.WOLF));
                 doIfGameIsntOver = ignored -> startDay();
             } else {
-                RestActions.sendMessage(gameChannel, String.format("%s is an innocent %s! %s dies.",
+                messages.add(String.format("%s is an innocent %s! %s dies.",
                         TextchatUtils.userAsMention(survivor), Emojis.COWBOY, TextchatUtils.userAsMention(toBeKilled)));
                 doIfGameIsntOver = this::giveGun;
             }
         }
 
+        withGameChannel(gameChannel -> messages.forEach(message -> RestActions.sendMessage(gameChannel, message)));
+
         //check win conditions
         if (isGameOver(true)) {
             return; //we're done here
         }
         if (this.mode != GameMode.WILD) {
-            RoleAndPermissionUtils.deny(gameChannel, g.getMemberById(toBeKilled), Permission.MESSAGE_WRITE).queue(null, RestActions.defaultOnFail());
+            withGameChannel(gameChannel -> RoleAndPermissionUtils.deny(gameChannel,
+                    gameChannel.getGuild().getMemberById(toBeKilled), Permission.MESSAGE_WRITE)
+                    .queue(null, RestActions.defaultOnFail()));
         }
         doIfGameIsntOver.accept(survivor);
     }
@@ -356,33 +403,32 @@ public void evalShoot(final String shooterId, final String targetId) throws Ille
     }
 
     private boolean shoot(final long shooterId, final long targetId) throws IllegalGameStateException {
-        final TextChannel gameChannel = fetchGameChannel();
         //check various conditions for the shot being legal
         if (targetId == this.selfUserId) {
-            RestActions.sendMessage(gameChannel, String.format("%s lol can't %s me.",
+            reply(String.format("%s lol can't %s me.",
                     TextchatUtils.userAsMention(shooterId), Emojis.GUN));
             return false;
         }
         if (shooterId == targetId) {
-            RestActions.sendMessage(gameChannel, String.format("%s please don't %s yourself, that would make a big mess.",
+            reply(String.format("%s please don't %s yourself, that would make a big mess.",
                     TextchatUtils.userAsMention(shooterId), Emojis.GUN));
             return false;
         } else if (this.players.stream().noneMatch(p -> p.userId == shooterId)) {
-            RestActions.sendMessage(gameChannel, String.format("%s shush, you're not playing in this game!",
+            reply(String.format("%s shush, you're not playing in this game!",
                     TextchatUtils.userAsMention(shooterId)));
             return false;
         } else if (!isLiving(shooterId)) {
-            RestActions.sendMessage(gameChannel, String.format("%s shush, you're dead!",
+            reply(String.format("%s shush, you're dead!",
                     TextchatUtils.userAsMention(shooterId)));
             return false;
         } else if (shooterId != this.gunBearer) {
-            RestActions.sendMessage(gameChannel, String.format("%s you do not have the %s!",
+            reply(String.format("%s you do not have the %s!",
                     TextchatUtils.userAsMention(shooterId), Emojis.GUN));
             return false;
         } else if (!isLiving(targetId)) {
-            RestActions.sendMessage(gameChannel, String.format("%s you have to %s a living player of this game!",
+            reply(String.format("%s you have to %s a living player of this game!",
                     TextchatUtils.userAsMention(shooterId), Emojis.GUN));
-            RestActions.sendMessage(gameChannel, listLivingPlayers());
+            reply(listLivingPlayers());
             return false;
         }
 
@@ -391,7 +437,7 @@ private boolean shoot(final long shooterId, final long targetId) throws IllegalG
         final Player target = getPlayer(targetId);
 
         try {
-            final Operation doIfLegal = () -> this.gameStats.addAction(simpleAction(shooterId, Actions.SHOOT, targetId));
+            final Operation doIfLegal = () -> recordAction(simpleAction(shooterId, Actions.SHOOT, targetId));
             if (target.isBaddie()) {
                 endDay(DayEndReason.SHAT, targetId, shooterId, doIfLegal);
             } else {
@@ -399,11 +445,15 @@ private boolean shoot(final long shooterId, final long targetId) throws IllegalG
             }
             return true;
         } catch (final DayEndedAlreadyException e) {
-            RestActions.sendMessage(gameChannel, "Too late! Time has run out.");
+            reply("Too late! Time has run out.");
             return false;
         }
     }
 
+    private void reply(final String message) {
+        withGameChannel(channel -> RestActions.sendMessage(channel, message));
+    }
+
     //simplifies the giant constructor of an action by providing it with game/mode specific defaults
     @Override
     protected ActionStats simpleAction(final long actor, final Actions action, final long target) {
@@ -413,6 +463,56 @@ protected ActionStats simpleAction(final long actor, final Actions action, final
     }
 
 
+    @Override
+    protected String teamName(final Alignments alignment) {
+        return alignment.textRepWW;
+    }
+
+    //the gun distribution by the wolves is journaled as the night phase
+    @Override
+    protected GameSnapshot snapshot() {
+        final boolean gunPending = this.pendingGunBearer > 0;
+        final long deadline;
+        if (gunPending) {
+            deadline = this.gunHandedOverAt;
+        } else if (this.distributingGun) {
+            deadline = this.distributionEnds;
+        } else {
+            deadline = this.dayStarted + this.dayLengthMillis;
+        }
+        return snapshotBuilder()
+                .dayLengthMillis(this.dayLengthMillis)
+                .cycle(this.day)
+                .phase(this.distributingGun || gunPending ? Phase.NIGHT : Phase.DAY)
+                .phaseStarted(this.dayStarted)
+                .phaseDeadline(deadline)
+                .transitionPending(gunPending)
+                .gunBearer(gunPending ? this.pendingGunBearer : this.gunBearer)
+                .build();
+    }
+
+    @Override
+    protected void resumePhase(final GameSnapshot snapshot) {
+        this.day = snapshot.cycle();
+        this.dayStarted = snapshot.phaseStarted();
+        final long timeLeft = Math.max(0, snapshot.phaseDeadline() - System.currentTimeMillis());
+
+        if (snapshot.transitionPending()) {
+            final long getsGun = snapshot.gunBearer();
+            this.distributingGun = true;
+            this.pendingGunBearer = getsGun;
+            this.gunHandedOverAt = snapshot.phaseDeadline();
+            scheduleIfGameStillRuns(() -> giveGun(getsGun), Duration.ofMillis(timeLeft));
+        } else if (snapshot.phase() == Phase.NIGHT) {
+            //votes of an interrupted gun distribution are not journaled, so it starts over
+            distributeGun();
+        } else {
+            this.gunBearer = snapshot.gunBearer();
+            withGameChannel(channel -> RestActions.sendMessage(channel, getStatus().build()));
+            startDayTimer();
+        }
+    }
+
     class PopcornTimer implements Runnable {
 
         protected final int day;
@@ -426,26 +526,27 @@ public PopcornTimer(final int day, final Popcorn game) {
         @Override
         public void run() {
             try {
+                //the day may have started before a restart, so go by its deadline instead of its length
+                final long dayEnds = this.game.dayStarted + this.game.dayLengthMillis;
                 //if the day is longer than one minute, remind the gunholder about the time running out with 1 minute left
                 final long oneMinute = TimeUnit.MINUTES.toMillis(1);
-                if (this.game.dayLengthMillis > oneMinute) {
-                    Thread.sleep(this.game.dayLengthMillis - oneMinute);
+                final long untilReminder = dayEnds - oneMinute - System.currentTimeMillis();
+                if (this.game.dayLengthMillis > oneMinute && untilReminder > 0) {
+                    Thread.sleep(untilReminder);
                     if (this.day != this.game.day) return;
 
-                    RestActions.sendMessage(fetchGameChannel(), String.format(
+                    withGameChannel(channel -> RestActions.sendMessage(channel, String.format(
                             "%s, **there is 1 minute left for you to shoot!**",
-                            TextchatUtils.userAsMention(Popcorn.this.gunBearer)));
-                    Thread.sleep(oneMinute);
-                } else {
-                    Thread.sleep(this.game.dayLengthMillis);
+                            TextchatUtils.userAsMention(Popcorn.this.gunBearer))));
                 }
+                Thread.sleep(Math.max(0, dayEnds - System.currentTimeMillis()));
                 if (this.day != this.game.day) return;
 
                 //run this in it own thread in an independent executor,
                 // because it may result in this PopcornTimer getting canceled in case it ends the game
                 Popcorn.this.executor.execute(() -> {
                             try {
-                                final Operation ifLegal = () -> Popcorn.this.gameStats.addAction(simpleAction(
+                                final Operation ifLegal = () -> Popcorn.this.recordAction(simpleAction(
                                         Popcorn.this.selfUserId, Actions.MODKILL, this.game.gunBearer));
                                 this.game.endDay(DayEndReason.TIMER, this.game.gunBearer, -1, ifLegal);
                             } catch (final DayEndedAlreadyException ignored) {
@@ -471,14 +572,14 @@ class GunDistribution {
         private final long startedMillis = System.currentTimeMillis();
 
         public GunDistribution() {
-            RestActions.sendMessage(fetchGameChannel(), String.format(
+            withGameChannel(channel -> RestActions.sendMessage(channel, String.format(
                     "Wolves are distributing the %s! Please stand by, this may take up to %s",
-                    Emojis.GUN, TextchatUtils.formatMillis(TIME_TO_DISTRIBUTE_GUN_MILLIS)));
+                    Emojis.GUN, TextchatUtils.formatMillis(TIME_TO_DISTRIBUTE_GUN_MILLIS))));
             this.done = false;
-            final TextChannel wolfchatChannel = Popcorn.this.fetchBaddieChannel();
             final Map<String, Player> options = GameUtils.mapToStrings(getLivingVillage(), Emojis.LETTERS);
+            final String gunDistribution = "Gun distribution!\n" + String.join(", ", getLivingWolvesMentions());
 
-            RestActions.sendMessage(wolfchatChannel, "Gun distribution!\n" + String.join(", ", getLivingWolvesMentions()),
+            withBaddieChannel(wolfchatChannel -> RestActions.sendMessage(wolfchatChannel, gunDistribution,
                     __ -> RestActions.sendMessage(wolfchatChannel,
                             prepareGunDistributionEmbed(options, new HashMap<>(this.votes)).build(),
                             m -> {
@@ -499,7 +600,7 @@ public GunDistribution() {
                                                 GunDistributionEndReason.TIMER)
                                 ));
                             })
-            );
+            ));
         }
 
         //synchronized because it modifies the votes map
@@ -525,9 +626,9 @@ private synchronized void endDistribution(final Map<Long, Long> votesCopy,
 
             //log votes
             votesCopy.forEach((voter, candidate) ->
-                    Popcorn.this.gameStats.addAction(simpleAction(voter, Actions.VOTEGUN, candidate)));
+                    Popcorn.this.recordAction(simpleAction(voter, Actions.VOTEGUN, candidate)));
 
-            final long getsGun = GameUtils.rand(GameUtils.mostVoted(votesCopy, getLivingVillageIds()));
+            final long getsGun = GameUtils.rand(GameUtils.mostVoted(votesCopy, getLivingVillageIds()), random());
             String out = "";
             if (reason == GunDistributionEndReason.TIMER) {
                 out = "Time ran out!";
@@ -540,11 +641,15 @@ private synchronized void endDistribution(final Map<Long, Long> votesCopy,
             } catch (final IllegalGameStateException ignored) {
                 // ignored
             }
-            RestActions.sendMessage(fetchBaddieChannel(), //provided invite link may be empty
-                    String.format("%s%n@here, %s gets the %s! Game about to start/continue, get back to the main chat.%n%s",
-                            out, playerName, Emojis.GUN,
-                            TextchatUtils.getOrCreateInviteLinkForChannel(fetchGameChannel())));
+            final String gunReceived = String.format("%s%n@here, %s gets the %s! Game about to start/continue, get back to the main chat.%n",
+                    out, playerName, Emojis.GUN);
+            withGameChannel(gameChannel -> withBaddieChannel(wolfchatChannel -> RestActions.sendMessage(wolfchatChannel,
+                    //provided invite link may be empty
+                    gunReceived + TextchatUtils.getOrCreateInviteLinkForChannel(gameChannel))));
             //give wolves 10 seconds to get back into the chat
+            Popcorn.this.pendingGunBearer = getsGun;
+            Popcorn.this.gunHandedOverAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            Popcorn.this.checkpoint();
             Popcorn.this.scheduleIfGameStillRuns(() -> giveGun(getsGun), Duration.ofSeconds(10));
         }
 
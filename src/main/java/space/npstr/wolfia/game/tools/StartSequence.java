@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.tools;
+
+import io.prometheus.client.Collector;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import space.npstr.wolfia.system.metrics.MetricsRegistry;
+import space.npstr.wolfia.utils.UserFriendlyException;
+
+/**
+ * Runs the start of a game as a sequence of timed stages.
+ * <p>
+ * Independent stages run concurrently on the executor of the game. Each asynchronous stage has a timeout and may
+ * come with a rollback, which is run in reverse order of the stages when the start fails. A rollback also catches
+ * up with stages that only complete after the start has already failed, for example a private room that was
+ * allocated late.
+ */
+public class StartSequence {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(StartSequence.class);
+
+    private final String game;
+    private final long channelId;
+    private final Executor executor;
+    private final long started = System.nanoTime();
+    private final Deque<Runnable> rollbacks = new ConcurrentLinkedDeque<>();
+
+    /**
+     * @param game      name of the game, used as a metrics label
+     * @param channelId channel in which the game is being started
+     * @param executor  runs the asynchronous stages
+     */
+    public StartSequence(final String game, final long channelId, final Executor executor) {
+        this.game = game;
+        this.channelId = channelId;
+        this.executor = executor;
+    }
+
+    /**
+     * Run a stage on the calling thread.
+     */
+    public void run(final String stage, final Runnable work) {
+        timed(stage, () -> {
+            work.run();
+            return null;
+        }).get();
+    }
+
+    /**
+     * Run a stage on the executor of the game.
+     *
+     * @param timeout  the returned future fails with a {@link TimeoutException} after this duration
+     * @param rollback undoes the result of the stage if the start fails
+     */
+    public <T> CompletableFuture<T> stage(final String stage, final Duration timeout, final Supplier<T> work,
+                                          final Consumer<T> rollback) {
+        final CompletableFuture<T> result = CompletableFuture.supplyAsync(timed(stage, work), this.executor);
+        onRollback(stage, result, rollback);
+        return result.copy().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Run a stage on the executor of the game that needs no rollback.
+     */
+    public <T> CompletableFuture<T> stage(final String stage, final Duration timeout, final Supplier<T> work) {
+        return stage(stage, timeout, work, __ -> {
+        });
+    }
+
+    /**
+     * Track a stage that is running asynchronously already, for example one made up of several rest actions.
+     *
+     * @param timeout  the returned future fails with a {@link TimeoutException} after this duration
+     * @param rollback undoes the result of the stage if the start fails
+     */
+    public <T> CompletableFuture<T> track(final String stage, final Duration timeout, final CompletableFuture<T> work,
+                                          final Consumer<T> rollback) {
+        final long stageStarted = System.nanoTime();
+        work.whenComplete((result, t) -> observe(stage, stageStarted));
+        onRollback(stage, work, rollback);
+        return work.copy().orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Track a stage that is running asynchronously already and needs no rollback.
+     */
+    public <T> CompletableFuture<T> track(final String stage, final Duration timeout, final CompletableFuture<T> work) {
+        return track(stage, timeout, work, __ -> {
+        });
+    }
+
+    /**
+     * Run something when the start fails, in reverse order of registration together with the rollbacks of the stages.
+     */
+    public void onRollback(final Runnable rollback) {
+        this.rollbacks.push(rollback);
+    }
+
+    /**
+     * Finish the start on the executor of the game once the stages completed, without waiting for them. If any of
+     * the stages or the finish itself failed, all stages are rolled back.
+     *
+     * @return completes when the start has been finished, or fails with a {@link UserFriendlyException} if a stage
+     * timed out, or with the original failure otherwise
+     */
+    public CompletableFuture<Void> finish(final CompletableFuture<?> stages, final Runnable finish) {
+        return stages.handleAsync((__, t) -> {
+            if (t != null) {
+                rollback();
+                throw failure(t);
+            }
+            try {
+                finish.run();
+            } catch (final RuntimeException e) {
+                rollback();
+                throw e;
+            }
+            return null;
+        }, this.executor);
+    }
+
+    /**
+     * Roll back all stages that were started so far, in reverse order.
+     */
+    public void rollback() {
+        Runnable rollback = this.rollbacks.poll();
+        while (rollback != null) {
+            rollback.run();
+            rollback = this.rollbacks.poll();
+        }
+    }
+
+    /**
+     * Call this once the game has been announced.
+     */
+    public void announced() {
+        this.rollbacks.clear();
+        MetricsRegistry.gameStartTime.labels(this.game)
+                .observe((System.nanoTime() - this.started) / Collector.NANOSECONDS_PER_SECOND);
+    }
+
+    private <T> void onRollback(final String stage, final CompletableFuture<T> result, final Consumer<T> rollback) {
+        onRollback(() -> result.thenAccept(value -> {
+            try {
+                rollback.accept(value);
+            } catch (final Exception e) {
+                log.warn("Failed to roll back stage {} of game start in channel {}", stage, this.channelId, e);
+            }
+        }));
+    }
+
+    private RuntimeException failure(final Throwable t) {
+        final Throwable cause = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+        if (cause instanceof TimeoutException) {
+            return new UserFriendlyException("Discord took too long to set up the game. Please try again in a bit.", cause);
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new CompletionException(cause);
+    }
+
+    private <T> Supplier<T> timed(final String stage, final Supplier<T> work) {
+        return () -> {
+            final long stageStarted = System.nanoTime();
+            try {
+                return work.get();
+            } finally {
+                observe(stage, stageStarted);
+            }
+        };
+    }
+
+    private void observe(final String stage, final long stageStarted) {
+        MetricsRegistry.gameStartStageTime.labels(this.game, stage)
+                .observe((System.nanoTime() - stageStarted) / Collector.NANOSECONDS_PER_SECOND);
+    }
+}
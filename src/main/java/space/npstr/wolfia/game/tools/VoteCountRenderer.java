@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.tools;
+
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import space.npstr.wolfia.game.Player;
+import space.npstr.wolfia.system.metrics.MetricsRegistry;
+
+/**
+ * Keeps an updating vote count message up to date without spending edits on it that nobody would notice.
+ * <p>
+ * The vote state is versioned via {@link #markDirty()}. A render only edits the message when the version changed or
+ * the displayed countdown of the {@link VotingBuilder} crossed a step since the last edit. Renders requested within
+ * the minimum edit interval of the previous edit are coalesced into a single delayed edit.
+ */
+public class VoteCountRenderer {
+
+    private static final org.slf4j.Logger log = org.slf4j.LoggerFactory.getLogger(VoteCountRenderer.class);
+
+    private final VotingBuilder votingBuilder;
+    private final Supplier<Map<Player, Player>> votes;
+    private final Consumer<MessageEmbed> edit;
+    private final ScheduledExecutorService executor;
+    private final long minEditIntervalMillis;
+
+    private final AtomicLong version = new AtomicLong(0);
+
+    //guarded by this
+    private long renderedVersion = -1;
+    private long renderedTimeLeft = -1;
+    private long lastEdit = 0;
+    @Nullable
+    private ScheduledFuture<?> pendingRender;
+    private boolean closed = false;
+    private long edits = 0;
+    private long skipped = 0;
+
+    /**
+     * @param votingBuilder   builds the embed
+     * @param votes           supplies a consistent copy of the current votes
+     * @param edit            edits the message with the rendered embed
+     * @param executor        executes delayed renders
+     * @param minEditInterval minimum interval between two edits of the message
+     */
+    public VoteCountRenderer(final VotingBuilder votingBuilder, final Supplier<Map<Player, Player>> votes,
+                             final Consumer<MessageEmbed> edit, final ScheduledExecutorService executor,
+                             final long minEditInterval, final TimeUnit timeUnit) {
+        this.votingBuilder = votingBuilder;
+        this.votes = votes;
+        this.edit = edit;
+        this.executor = executor;
+        this.minEditIntervalMillis = timeUnit.toMillis(minEditInterval);
+    }
+
+    /**
+     * Call this after the votes changed. Requests a render.
+     */
+    public void markDirty() {
+        this.version.incrementAndGet();
+        requestRender();
+    }
+
+    /**
+     * Edits the message if anything visible changed, or schedules an edit for when the minimum edit interval has
+     * passed. Cheap to call often.
+     */
+    public synchronized void requestRender() {
+        if (this.closed) {
+            return;
+        }
+        if (this.pendingRender != null) {
+            //will be picked up by the pending render
+            skip("coalesced");
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+        final long wait = this.lastEdit + this.minEditIntervalMillis - now;
+        if (wait > 0) {
+            this.pendingRender = this.executor.schedule(this::renderPending, wait, TimeUnit.MILLISECONDS);
+            return;
+        }
+        render(now);
+    }
+
+    /**
+     * Stops all further edits, for example before the final vote count is written into the message.
+     */
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        if (this.pendingRender != null) {
+            this.pendingRender.cancel(false);
+            this.pendingRender = null;
+        }
+        log.debug("Vote count message done after {} edits, {} skipped", this.edits, this.skipped);
+    }
+
+    public synchronized long getEdits() {
+        return this.edits;
+    }
+
+    public synchronized long getSkipped() {
+        return this.skipped;
+    }
+
+    private synchronized void renderPending() {
+        this.pendingRender = null;
+        if (this.closed) {
+            return;
+        }
+        render(System.currentTimeMillis());
+    }
+
+    private void render(final long now) {
+        final long currentVersion = this.version.get();
+        final long timeLeft = this.votingBuilder.displayedTimeLeft(now);
+        if (currentVersion == this.renderedVersion && timeLeft == this.renderedTimeLeft) {
+            skip("unchanged");
+            return;
+        }
+
+        this.edit.accept(this.votingBuilder.getEmbed(this.votes.get(), now).build());
+        this.renderedVersion = currentVersion;
+        this.renderedTimeLeft = timeLeft;
+        this.lastEdit = now;
+        this.edits++;
+        MetricsRegistry.voteCountEdits.labels("edited").inc();
+    }
+
+    private void skip(final String reason) {
+        this.skipped++;
+        MetricsRegistry.voteCountEdits.labels(reason).inc();
+    }
+}
@@ -24,6 +24,7 @@
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import space.npstr.wolfia.game.Player;
 import space.npstr.wolfia.game.definitions.Phase;
@@ -38,6 +39,7 @@ public class VotingBuilder {
 
     private String header = "You have **%timeleft** left to vote.";
     private long endTime;
+    private long countdownStepMillis = TimeUnit.SECONDS.toMillis(1);
     private String unvoteEmoji = Emojis.X;
     private List<Player> possibleVoters = Collections.emptyList();
     private List<Player> possibleCandidates = Collections.emptyList();
@@ -50,6 +52,12 @@ public VotingBuilder endTime(final long endTime) {
         return this;
     }
 
+    // the time left is rounded up to a multiple of the step, so the rendered embed only changes when a step is crossed
+    public VotingBuilder countdownStep(final long countdownStep, final TimeUnit timeUnit) {
+        this.countdownStepMillis = Math.max(1, timeUnit.toMillis(countdownStep));
+        return this;
+    }
+
     // any a '%timeleft' strings inside of this will be replaced with a formatted duration till endTime is reached
     public VotingBuilder header(final String header) {
         this.header = header;
@@ -78,9 +86,13 @@ public VotingBuilder possibleCandidates(final List<Player> possibleCandidates) {
     }
 
     public NiceEmbedBuilder getEmbed(final Map<Player, Player> votes) {
+        return getEmbed(votes, System.currentTimeMillis());
+    }
+
+    NiceEmbedBuilder getEmbed(final Map<Player, Player> votes, final long now) {
 
         NiceEmbedBuilder neb = NiceEmbedBuilder.defaultBuilder();
-        addHeader(neb, this.endTime - System.currentTimeMillis());
+        addHeader(neb, displayedTimeLeft(now));
 
         final List<VoteEntry> processedVotes = processVotes(votes);
         neb.addField(renderVotes("", processedVotes, true, true));
@@ -88,6 +100,15 @@ public NiceEmbedBuilder getEmbed(final Map<Player, Player> votes) {
         return addNotes(neb);
     }
 
+    /**
+     * @return the time left as it would be shown in an embed rendered at the given point in time
+     */
+    public long displayedTimeLeft(final long now) {
+        final long timeLeft = Math.max(0, this.endTime - now);
+        final long steps = (timeLeft + this.countdownStepMillis - 1) / this.countdownStepMillis;
+        return steps * this.countdownStepMillis;
+    }
+
     public NiceEmbedBuilder getFinalEmbed(final Map<Player, Player> votes, final Phase phase, final int cycle) {
         final NiceEmbedBuilder neb = NiceEmbedBuilder.defaultBuilder();
 
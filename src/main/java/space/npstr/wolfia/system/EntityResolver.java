@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.system;
+
+import io.prometheus.client.Collector;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongFunction;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.events.channel.text.TextChannelCreateEvent;
+import net.dv8tion.jda.api.events.guild.GuildAvailableEvent;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import space.npstr.wolfia.system.metrics.MetricsRegistry;
+
+/**
+ * Looks up guilds and text channels that we know exist, but that may be missing from the cache for a while, for
+ * example when their shard is (re)connecting. Instead of polling the cache, the returned futures are completed by
+ * the events that put the entity into the cache, or fail with a {@link TimeoutException}.
+ * <p>
+ * The futures may be completed on a JDA event thread, so anything chained onto them should not block.
+ */
+@Component
+public class EntityResolver {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityResolver.class);
+
+    private final ShardManager shardManager;
+
+    private final Map<Long, Set<CompletableFuture<Guild>>> pendingGuilds = new ConcurrentHashMap<>();
+    private final Map<Long, Set<CompletableFuture<TextChannel>>> pendingTextChannels = new ConcurrentHashMap<>();
+
+    public EntityResolver(ShardManager shardManager) {
+        this.shardManager = shardManager;
+    }
+
+    /**
+     * @return a future that completes with the guild as soon as it is in the cache
+     */
+    public CompletableFuture<Guild> resolveGuild(long guildId, Duration timeout) {
+        return resolve("guild", guildId, timeout, this.pendingGuilds, this.shardManager::getGuildById);
+    }
+
+    /**
+     * @return a future that completes with the text channel as soon as it is in the cache
+     */
+    public CompletableFuture<TextChannel> resolveTextChannel(long channelId, Duration timeout) {
+        return resolve("text_channel", channelId, timeout, this.pendingTextChannels, this.shardManager::getTextChannelById);
+    }
+
+    @EventListener
+    public void onGuildReady(GuildReadyEvent event) {
+        guildAppeared(event.getGuild());
+    }
+
+    @EventListener
+    public void onGuildAvailable(GuildAvailableEvent event) {
+        guildAppeared(event.getGuild());
+    }
+
+    @EventListener
+    public void onTextChannelCreate(TextChannelCreateEvent event) {
+        complete(this.pendingTextChannels, event.getChannel().getIdLong(), event.getChannel());
+    }
+
+    private void guildAppeared(Guild guild) {
+        complete(this.pendingGuilds, guild.getIdLong(), guild);
+
+        //the text channels of a guild enter the cache together with it
+        for (long channelId : this.pendingTextChannels.keySet()) {
+            TextChannel textChannel = guild.getTextChannelById(channelId);
+            if (textChannel != null) {
+                complete(this.pendingTextChannels, channelId, textChannel);
+            }
+        }
+    }
+
+    private <T> CompletableFuture<T> resolve(String entity, long id, Duration timeout,
+                                             Map<Long, Set<CompletableFuture<T>>> pending, LongFunction<T> lookup) {
+
+        T cached = lookup.apply(id);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        log.info("Waiting for {} {} to show up in the cache", entity, id);
+        long started = System.nanoTime();
+        CompletableFuture<T> future = new CompletableFuture<>();
+        pending.compute(id, (key, waiting) -> {
+            Set<CompletableFuture<T>> futures = waiting != null ? waiting : ConcurrentHashMap.newKeySet();
+            futures.add(future);
+            return futures;
+        });
+        future.whenComplete((resolved, t) -> {
+            pending.computeIfPresent(id, (key, waiting) -> {
+                waiting.remove(future);
+                return waiting.isEmpty() ? null : waiting;
+            });
+            MetricsRegistry.entityResolveTime.labels(entity, t == null ? "resolved" : "timed_out")
+                    .observe((System.nanoTime() - started) / Collector.NANOSECONDS_PER_SECOND);
+            if (t != null) {
+                log.warn("The {} {} did not show up in the cache within {}", entity, id, timeout);
+            }
+        });
+
+        //the entity may have entered the cache between the first look up and registering the future
+        T raced = lookup.apply(id);
+        if (raced != null) {
+            future.complete(raced);
+        }
+        return future.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private static <T> void complete(Map<Long, Set<CompletableFuture<T>>> pending, long id, T entity) {
+        Set<CompletableFuture<T>> waiting = pending.remove(id);
+        if (waiting != null) {
+            waiting.forEach(future -> future.complete(entity));
+        }
+    }
+}
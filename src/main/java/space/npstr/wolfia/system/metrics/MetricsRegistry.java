@@ -20,6 +20,8 @@
 import ch.qos.logback.classic.LoggerContext;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
 import io.prometheus.client.Summary;
 import io.prometheus.client.hotspot.DefaultExports;
 import io.prometheus.client.logback.InstrumentedAppender;
@@ -61,6 +63,35 @@ public CollectorRegistry getRegistry() {
             .labelNames("name") //identifier of the query, for example "activeUsers"
             .register();
 
+    public static final Histogram databaseQueueWaitTime = Histogram.build()
+            .name("database_queue_wait_seconds")
+            .help("Time database operations wait in the queue of the async database pool")
+            .labelNames("workload", "operation") //interactive or batch; repository and method, for example "stats.getUserStats"
+            .register();
+
+    public static final Histogram databaseExecutionTime = Histogram.build()
+            .name("database_execution_seconds")
+            .help("Time database operations take once a thread of the async database pool picked them up,"
+                    + " including waiting for a connection")
+            .labelNames("workload", "operation") //interactive or batch; repository and method, for example "stats.getUserStats"
+            .register();
+
+    /**
+     * Compare the running operations with hikaricp_max_connections of the connection pool of the same workload: running
+     * operations above it are waiting for a connection.
+     */
+    public static final Gauge databaseOperations = Gauge.build()
+            .name("database_operations")
+            .help("Database operations in flight")
+            .labelNames("workload", "state") //interactive or batch; queued or running
+            .register();
+
+    public static final Counter databaseRejections = Counter.build()
+            .name("database_rejections_total")
+            .help("Database operations rejected because the queue of the async database pool was full")
+            .labelNames("workload", "operation")
+            .register();
+
     public static final Counter gamesPlayed = Counter.build()
             .name("games_played_total")
             .help("Games Played")
@@ -92,4 +123,67 @@ public CollectorRegistry getRegistry() {
             .help("Total time it takes from discord creation timestamp of the trigger message till"
                     + " discord creation timestamp of the answer message")
             .register();
+
+    public static final Summary gameStartTime = Summary.build()
+            .name("game_start_seconds")
+            .help("Time it takes from starting a game until it is announced in the game channel")
+            .labelNames("game") //name of the game
+            .register();
+
+    public static final Gauge privateRooms = Gauge.build()
+            .name("private_rooms")
+            .help("Private rooms by state")
+            .labelNames("state") //FREE, IN_USE, RECYCLING or BROKEN
+            .register();
+
+    public static final Gauge privateRoomWaiters = Gauge.build()
+            .name("private_room_waiters")
+            .help("Game starts waiting in line for a private room")
+            .register();
+
+    public static final Summary privateRoomWaitTime = Summary.build()
+            .name("private_room_wait_seconds")
+            .help("Time game starts wait in line for a private room")
+            .labelNames("outcome") //allocated or gave_up
+            .register();
+
+    public static final Summary entityResolveTime = Summary.build()
+            .name("entity_resolve_seconds")
+            .help("Time spent waiting for guilds and channels that were not in the cache yet")
+            .labelNames("entity", "outcome") //guild or text_channel; resolved or timed_out
+            .register();
+
+    public static final Counter gameResultOutbox = Counter.build()
+            .name("game_result_outbox_total")
+            .help("Game results going through the outbox")
+            .labelNames("outcome") //queued, recorded, failed_drain, bypassed or dead_lettered
+            .register();
+
+    public static final Summary gameStarterTime = Summary.build()
+            .name("game_starter_seconds")
+            .help("Time it takes from a start command until the game has been started or the start was refused")
+            .labelNames("outcome") //started, refused or failed
+            .register();
+
+    public static final Summary gameStarterLockWaitTime = Summary.build()
+            .name("game_starter_lock_wait_seconds")
+            .help("Time a start command waits for another start in the same channel (or in one sharing its lock stripe)")
+            .register();
+
+    public static final Counter gameStarterLockContended = Counter.build()
+            .name("game_starter_lock_contended_total")
+            .help("Start commands that had to wait for another start holding their lock stripe")
+            .register();
+
+    public static final Summary gameStartStageTime = Summary.build()
+            .name("game_start_stage_seconds")
+            .help("Time the individual stages of starting a game take")
+            .labelNames("game", "stage") //name of the game, name of the stage
+            .register();
+
+    public static final Counter voteCountEdits = Counter.build()
+            .name("vote_count_edits_total")
+            .help("Edits of updating vote count messages")
+            .labelNames("outcome") //edited, unchanged or coalesced
+            .register();
 }
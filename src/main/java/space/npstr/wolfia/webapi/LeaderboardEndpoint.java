@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.webapi;
+
+import java.util.Optional;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import space.npstr.wolfia.domain.stats.Leaderboard;
+import space.npstr.wolfia.domain.stats.LeaderboardCache;
+import space.npstr.wolfia.domain.stats.LeaderboardPage;
+
+/**
+ * Leaderboards are public, just like the stats commands.
+ */
+@RestController
+@RequestMapping("/public/leaderboard")
+public class LeaderboardEndpoint {
+
+    private final LeaderboardCache leaderboardCache;
+
+    public LeaderboardEndpoint(LeaderboardCache leaderboardCache) {
+        this.leaderboardCache = leaderboardCache;
+    }
+
+    @GetMapping("/{leaderboard}")
+    public ResponseEntity<LeaderboardPage> getLeaderboard(
+            @PathVariable String leaderboard,
+            @RequestParam(required = false, name = "guild_id") Optional<Long> guildId,
+            @RequestParam(required = false, name = "page") Optional<Integer> page
+    ) {
+        Leaderboard parsed = Leaderboard.parse(leaderboard)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        int pageNumber = page.orElse(1);
+        if (pageNumber < 1 || pageNumber > LeaderboardCache.MAX_PAGE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Page must be between 1 and " + LeaderboardCache.MAX_PAGE);
+        }
+
+        return ResponseEntity.ok(this.leaderboardCache.getPage(parsed, guildId.orElse(null), pageNumber));
+    }
+}
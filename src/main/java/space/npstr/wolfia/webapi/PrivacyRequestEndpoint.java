@@ -17,20 +17,25 @@
 
 package space.npstr.wolfia.webapi;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
 import javax.annotation.Nullable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import space.npstr.wolfia.domain.privacy.PrivacyRequestService;
-import space.npstr.wolfia.domain.privacy.PrivacyResponse;
 import space.npstr.wolfia.domain.privacy.PrivacyService;
+import space.npstr.wolfia.domain.privacy.PrivacySession;
 
 @RestController
 @RequestMapping("/api/privacy")
@@ -46,13 +51,51 @@ public PrivacyRequestEndpoint(PrivacyRequestService privacyRequestService, Priva
         this.objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
     }
 
+    /**
+     * The games of a user are written out while they are read from the database, so a user with lots of games does
+     * not need lots of memory. An export that failed on our side does not count against the rate limit of the user.
+     */
     @GetMapping("/request")
-    public ResponseEntity<String> request(@Nullable WebUser user) throws JsonProcessingException {
+    public ResponseEntity<StreamingResponseBody> request(@Nullable WebUser user) {
         if (user == null) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED);
         }
-        PrivacyResponse response = privacyRequestService.request(user.id());
-        return ResponseEntity.ok(this.objectMapper.writeValueAsString(response));
+        long userId = user.id();
+        if (!this.privacyRequestService.tryRequest(userId)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        List<PrivacySession> sessions;
+        try {
+            sessions = this.privacyRequestService.getSessions(userId);
+        } catch (RuntimeException e) {
+            //the user did not get their export, don't make them wait for the next one
+            this.privacyRequestService.releaseRequest(userId);
+            throw e;
+        }
+
+        //a failed read of the games releases the request in the service, a client going away does not
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator json = this.objectMapper.getFactory().createGenerator(outputStream)) {
+                json.useDefaultPrettyPrinter();
+                json.writeStartObject();
+                json.writeFieldName("sessions");
+                this.objectMapper.writeValue(json, sessions);
+                json.writeArrayFieldStart("games");
+                this.privacyRequestService.forEachGame(userId, game -> {
+                    try {
+                        this.objectMapper.writeValue(json, game);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     @DeleteMapping("/delete")
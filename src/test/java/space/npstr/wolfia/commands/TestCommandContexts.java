@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.commands;
+
+import javax.annotation.Nonnull;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+/**
+ * Builds command contexts without going through the parser, for driving games from tests and simulations.
+ */
+public class TestCommandContexts {
+
+    private TestCommandContexts() {}
+
+    public static CommandContext create(@Nonnull MessageReceivedEvent event, @Nonnull BaseCommand command,
+                                        @Nonnull String rawArgs) {
+        String trimmed = rawArgs.trim();
+        String[] args = trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+");
+        return new CommandContext(event, command.getTrigger(), args, trimmed, command);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import space.npstr.prometheus_extensions.ThreadPoolCollector;
+import space.npstr.wolfia.config.properties.DatabaseConfig;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class AsyncDbWrapperTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AsyncDbWrapper wrapper;
+
+    @AfterEach
+    void tearDown() {
+        this.release.countDown();
+        if (this.wrapper != null) {
+            this.wrapper.shutdownNow();
+        }
+    }
+
+    @Test
+    void givenFullQueue_whenAbort_operationFailsFast() throws InterruptedException {
+        this.wrapper = wrapper(DatabaseConfig.RejectionPolicy.ABORT);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletionStage<Integer> blocking = this.wrapper.jooq("test.blocking", dsl -> {
+            running.countDown();
+            awaitRelease();
+            return 1;
+        });
+        running.await();
+        CompletionStage<Integer> queued = this.wrapper.jooq("test.queued", dsl -> 2);
+
+        CompletionStage<Integer> rejected = this.wrapper.jooq("test.rejected", dsl -> 3);
+
+        assertThatThrownBy(() -> rejected.toCompletableFuture().join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(DatabaseBusyException.class)
+                .hasMessageContaining("test.rejected");
+        this.release.countDown();
+        assertThat(blocking.toCompletableFuture().join()).isEqualTo(1);
+        assertThat(queued.toCompletableFuture().join()).isEqualTo(2);
+    }
+
+    @Test
+    void givenFullQueue_whenCallerRuns_operationRunsOnTheCallingThread() throws InterruptedException {
+        this.wrapper = wrapper(DatabaseConfig.RejectionPolicy.CALLER_RUNS);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletionStage<Integer> blocking = this.wrapper.jooq("test.blocking", dsl -> {
+            running.countDown();
+            awaitRelease();
+            return 1;
+        });
+        running.await();
+        CompletionStage<Integer> queued = this.wrapper.jooq("test.queued", dsl -> 2);
+
+        Thread caller = Thread.currentThread();
+        CompletionStage<Boolean> ranOnCaller = this.wrapper.jooq("test.overflow",
+                dsl -> Thread.currentThread() == caller);
+
+        assertThat(ranOnCaller.toCompletableFuture().join()).isTrue();
+        this.release.countDown();
+        assertThat(blocking.toCompletableFuture().join()).isEqualTo(1);
+        assertThat(queued.toCompletableFuture().join()).isEqualTo(2);
+    }
+
+    @Test
+    void givenBusyBatchWorkload_interactiveOperationsStillRun() throws InterruptedException {
+        this.wrapper = wrapper(DatabaseConfig.RejectionPolicy.ABORT);
+        CountDownLatch running = new CountDownLatch(1);
+        CompletionStage<Integer> blocking = this.wrapper.jooq(Workload.BATCH, "test.blocking", dsl -> {
+            running.countDown();
+            awaitRelease();
+            return 1;
+        });
+        running.await();
+        CompletionStage<Integer> queued = this.wrapper.jooq(Workload.BATCH, "test.queued", dsl -> 2);
+        CompletionStage<Integer> rejected = this.wrapper.jooq(Workload.BATCH, "test.rejected", dsl -> 3);
+
+        assertThat(this.wrapper.jooq("test.interactive", dsl -> 4).toCompletableFuture().join()).isEqualTo(4);
+        assertThatThrownBy(() -> rejected.toCompletableFuture().join())
+                .hasCauseInstanceOf(DatabaseBusyException.class);
+        this.release.countDown();
+        assertThat(blocking.toCompletableFuture().join()).isEqualTo(1);
+        assertThat(queued.toCompletableFuture().join()).isEqualTo(2);
+    }
+
+    //one thread and room for one more operation in the queue of each workload
+    private AsyncDbWrapper wrapper(DatabaseConfig.RejectionPolicy rejectionPolicy) {
+        DatabaseConfig config = new DatabaseConfig();
+        config.setAsyncPoolSize(1);
+        config.setAsyncQueueSize(1);
+        config.setAsyncRejectionPolicy(rejectionPolicy);
+        config.setBatchAsyncPoolSize(1);
+        config.setBatchAsyncQueueSize(1);
+        return new AsyncDbWrapper(mock(Database.class), config, new ThreadPoolCollector());
+    }
+
+    private void awaitRelease() {
+        try {
+            this.release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -42,7 +42,7 @@ class BanServiceTest extends ApplicationTest {
 
     @BeforeEach
     void setup() {
-        this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        this.wrapper.jooq("test.deleteDiscordUsers", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .deleteFrom(DISCORD_USER)
                 .execute()
         )).toCompletableFuture().join();
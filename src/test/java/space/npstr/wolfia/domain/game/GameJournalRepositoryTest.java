@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.domain.game;
+
+import java.util.List;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import space.npstr.wolfia.ApplicationTest;
+import space.npstr.wolfia.db.Database;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+import static space.npstr.wolfia.db.gen.Tables.GAME_JOURNAL;
+
+class GameJournalRepositoryTest extends ApplicationTest {
+
+    @Autowired
+    private GameJournalRepository repository;
+
+    @Autowired
+    private Database database;
+
+    @BeforeEach
+    @AfterEach
+    void cleanDbTable() {
+        this.database.getJooq().transactionResult(config -> DSL.using(config)
+                .deleteFrom(GAME_JOURNAL)
+                .execute()
+        );
+    }
+
+    @Test
+    void givenNoEntries_whenFindAll_returnEmpty() {
+        List<JournalEntry> entries = this.repository.findAll().toCompletableFuture().join();
+
+        assertThat(entries).isEmpty();
+    }
+
+    @Test
+    void whenWrite_findAllInOrder() {
+        long channelId = uniqueLong();
+        List<JournalEntry> written = List.of(
+                new JournalEntry(channelId, JournalEntry.Type.STATE, "foo"),
+                new JournalEntry(channelId, JournalEntry.Type.ACTION, "bar"),
+                new JournalEntry(channelId, JournalEntry.Type.ACTION, "baz")
+        );
+
+        this.repository.write(written).toCompletableFuture().join();
+
+        List<JournalEntry> entries = this.repository.findAll().toCompletableFuture().join();
+        assertThat(entries).extracting(JournalEntry::getType)
+                .containsExactly(JournalEntry.Type.STATE, JournalEntry.Type.ACTION, JournalEntry.Type.ACTION);
+        assertThat(entries).extracting(JournalEntry::getPayload)
+                .containsExactly("foo", "bar", "baz");
+        assertThat(entries).allSatisfy(entry -> assertThat(entry.getChannelId()).isEqualTo(channelId));
+    }
+
+    @Test
+    void whenClose_deleteEntriesOfThatGameOnly() {
+        long closedChannelId = uniqueLong();
+        long runningChannelId = uniqueLong();
+        this.repository.write(List.of(
+                new JournalEntry(closedChannelId, JournalEntry.Type.STATE, "foo"),
+                new JournalEntry(runningChannelId, JournalEntry.Type.STATE, "bar")
+        )).toCompletableFuture().join();
+
+        this.repository.write(List.of(
+                new JournalEntry(closedChannelId, JournalEntry.Type.CLOSE, "")
+        )).toCompletableFuture().join();
+
+        List<JournalEntry> entries = this.repository.findAll().toCompletableFuture().join();
+        assertThat(entries).singleElement()
+                .satisfies(entry -> assertThat(entry.getChannelId()).isEqualTo(runningChannelId));
+    }
+
+    @Test
+    void whenWriteState_replacePreviousStateOfThatGameOnly() {
+        long channelId = uniqueLong();
+        long otherChannelId = uniqueLong();
+        this.repository.write(List.of(
+                new JournalEntry(channelId, JournalEntry.Type.STATE, "first"),
+                new JournalEntry(channelId, JournalEntry.Type.ACTION, "action"),
+                new JournalEntry(otherChannelId, JournalEntry.Type.STATE, "other")
+        )).toCompletableFuture().join();
+
+        this.repository.write(List.of(
+                new JournalEntry(channelId, JournalEntry.Type.STATE, "second")
+        )).toCompletableFuture().join();
+
+        List<JournalEntry> entries = this.repository.findAll().toCompletableFuture().join();
+        assertThat(entries).extracting(JournalEntry::getPayload)
+                .containsExactlyInAnyOrder("action", "second", "other");
+    }
+
+    @Test
+    void compactKeepsLastStateAndDropsEverythingBeforeClose() {
+        long closedChannelId = uniqueLong();
+        long runningChannelId = uniqueLong();
+        JournalEntry lastState = new JournalEntry(runningChannelId, JournalEntry.Type.STATE, "second");
+        JournalEntry action = new JournalEntry(runningChannelId, JournalEntry.Type.ACTION, "action");
+        JournalEntry close = new JournalEntry(closedChannelId, JournalEntry.Type.CLOSE, "");
+
+        List<JournalEntry> compacted = GameJournal.compact(List.of(
+                new JournalEntry(closedChannelId, JournalEntry.Type.STATE, "foo"),
+                new JournalEntry(runningChannelId, JournalEntry.Type.STATE, "first"),
+                action,
+                new JournalEntry(closedChannelId, JournalEntry.Type.ACTION, "bar"),
+                lastState,
+                close
+        ));
+
+        assertThat(compacted).containsExactly(action, lastState, close);
+    }
+}
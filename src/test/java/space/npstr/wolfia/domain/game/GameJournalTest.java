@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.game;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GameJournalTest {
+
+    private final GameJournalRepository repository = mock(GameJournalRepository.class);
+    private final GameJournal journal = new GameJournal(this.repository, mock(ExceptionLoggingExecutor.class));
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void givenFailedWrite_whenFlushAgain_retryTheEntriesInOrder() {
+        when(this.repository.write(any()))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("database is down")))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        this.journal.close(1);
+        this.journal.close(2);
+        assertThat(this.journal.flush()).isFalse();
+
+        this.journal.close(3);
+        assertThat(this.journal.flush()).isTrue();
+
+        ArgumentCaptor<List<JournalEntry>> written = ArgumentCaptor.forClass(List.class);
+        verify(this.repository, times(2)).write(written.capture());
+        assertThat(written.getAllValues().get(1))
+                .extracting(JournalEntry::getChannelId)
+                .containsExactly(1L, 2L, 3L);
+        assertThat(this.journal.flush()).isTrue();
+        verify(this.repository, times(2)).write(any());
+    }
+}
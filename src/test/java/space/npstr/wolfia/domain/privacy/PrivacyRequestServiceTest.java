@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.privacy;
+
+import io.prometheus.client.cache.caffeine.CacheMetricsCollector;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import space.npstr.wolfia.domain.stats.StatsRepository;
+import space.npstr.wolfia.system.SessionService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PrivacyRequestServiceTest {
+
+    private final StatsRepository statsRepository = mock(StatsRepository.class);
+    private final PrivacyRequestService service = new PrivacyRequestService(this.statsRepository,
+            mock(SessionService.class), new CacheMetricsCollector());
+
+    @Test
+    void givenMoreGamesThanFitTheBuffer_whenForEachGame_consumerGetsAllOfThemInOrder() {
+        readGamesInTheBackground(250, new AtomicReference<>());
+
+        List<PrivacyGame> games = new ArrayList<>();
+        this.service.forEachGame(1, games::add);
+
+        assertThat(games).hasSize(250);
+        assertThat(games).extracting(PrivacyGame::getGameId).isSorted();
+    }
+
+    @Test
+    void givenFailingConsumer_whenForEachGame_readIsAbortedRightAwayAndRequestIsKept() {
+        AtomicReference<CompletableFuture<Integer>> read = new AtomicReference<>();
+        readGamesInTheBackground(250, read);
+        assertThat(this.service.tryRequest(1)).isTrue();
+
+        assertThatThrownBy(() -> this.service.forEachGame(1, game -> {
+            throw new IllegalStateException("client went away");
+        })).hasMessage("client went away");
+
+        assertThat(read.get()).failsWithin(Duration.ofSeconds(1));
+        assertThat(this.service.tryRequest(1)).isFalse();
+    }
+
+    @Test
+    void givenFailingRead_whenForEachGame_requestIsReleased() {
+        when(this.statsRepository.streamPrivacyGamesOfUser(anyLong(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("database went away")));
+        assertThat(this.service.tryRequest(1)).isTrue();
+
+        assertThatThrownBy(() -> this.service.forEachGame(1, game -> {
+        })).hasCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(this.service.tryRequest(1)).isTrue();
+    }
+
+    @Test
+    void givenReleasedRequest_whenTryRequest_requestIsAllowedAgain() {
+        assertThat(this.service.tryRequest(1)).isTrue();
+        assertThat(this.service.tryRequest(1)).isFalse();
+
+        this.service.releaseRequest(1);
+
+        assertThat(this.service.tryRequest(1)).isTrue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readGamesInTheBackground(int count, AtomicReference<CompletableFuture<Integer>> read) {
+        when(this.statsRepository.streamPrivacyGamesOfUser(anyLong(), any())).thenAnswer(invocation -> {
+            Consumer<PrivacyGame> consumer = invocation.getArgument(1);
+            read.set(CompletableFuture.supplyAsync(() -> {
+                for (int i = 1; i <= count; i++) {
+                    consumer.accept(game(i));
+                }
+                return count;
+            }));
+            return read.get();
+        });
+    }
+
+    private PrivacyGame game(long gameId) {
+        return ImmutablePrivacyGame.builder()
+                .gameId(gameId)
+                .startTime(Instant.now())
+                .endTime(Instant.now())
+                .alignment("VILLAGE")
+                .isWinner(true)
+                .nickname("Player McPlayerface")
+                .totalPosts(1)
+                .totalPostLength(1)
+                .build();
+    }
+}
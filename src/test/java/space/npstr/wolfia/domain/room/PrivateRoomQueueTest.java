@@ -19,19 +19,16 @@
 
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.Test;
-import org.junit.jupiter.api.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import space.npstr.wolfia.ApplicationTest;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Durations.ONE_HUNDRED_MILLISECONDS;
-import static org.awaitility.Durations.TWO_HUNDRED_MILLISECONDS;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -80,120 +77,137 @@ void givenPrivateRoomExists_pollReturnsRoom() {
     }
 
     @Test
-    void givenNoPrivateRoomsExist_takeBlocks() {
-        AtomicBoolean started = new AtomicBoolean(false);
-        AtomicReference<ManagedPrivateRoom> taken = new AtomicReference<>();
-        AtomicBoolean done = new AtomicBoolean(false);
-        Thread thread = new Thread(() -> {
-            try {
-                started.set(true);
-                taken.set(this.privateRoomQueue.take());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } finally {
-                done.set(true);
-            }
-        });
-
-        thread.start();
-        sleep(TWO_HUNDRED_MILLISECONDS);
-
-        assertThat(started).isTrue();
-        assertThat(thread.isAlive()).isTrue();
-        assertThat(taken.get()).isNull();
-        assertThat(done.get()).isFalse();
-
-        thread.interrupt();
-        sleep(ONE_HUNDRED_MILLISECONDS);
+    void givenPreparedPrivateRoomExists_pollPrefersIt() {
+        var queue = new PrivateRoomQueue(mock(PrivateRoomService.class));
+        ManagedPrivateRoom unprepared = mock(ManagedPrivateRoom.class);
+        ManagedPrivateRoom prepared = mock(ManagedPrivateRoom.class);
+        when(prepared.isReady()).thenReturn(true);
+        queue.putBack(unprepared);
+        queue.putBack(prepared);
+
+        assertThat(queue.poll()).hasValue(prepared);
+        assertThat(queue.poll()).hasValue(unprepared);
+    }
+
+    @Test
+    void givenPrivateRoomExists_claimReturnsItByGuildId() {
+        var queue = new PrivateRoomQueue(mock(PrivateRoomService.class));
+        PrivateRoom privateRoom = new PrivateRoom(uniqueLong(), 1);
+        queue.add(privateRoom);
 
-        assertThat(thread.isAlive()).isFalse();
-        assertThat(taken.get()).isNull();
-        assertThat(done.get()).isTrue();
+        assertThat(queue.claim(uniqueLong())).isEmpty();
+        assertThat(queue.claim(privateRoom.getGuildId())).hasValueSatisfying(isRoom(privateRoom));
+        assertThat(queue.claim(privateRoom.getGuildId())).isEmpty();
+        assertThat(queue.poll()).isEmpty();
     }
 
+    @Test
+    void givenRoomHeldForResume_itIsNotReservedButClaimable() {
+        var queue = new PrivateRoomQueue(mock(PrivateRoomService.class));
+        PrivateRoom privateRoom = new PrivateRoom(uniqueLong(), 1);
+        queue.add(privateRoom);
+
+        queue.holdForResume(List.of(privateRoom.getGuildId()));
+
+        assertThat(queue.reserve().getRoom()).isNotDone();
+        assertThat(queue.claim(privateRoom.getGuildId())).hasValueSatisfying(isRoom(privateRoom));
+    }
 
     @Test
-    //avoid tests getting stuck in the blocking call
-    @Timeout(5)
-    void givenPrivateRoomExists_takeReturnsRoom() throws InterruptedException {
+    void givenRoomHeldForResume_whenReleased_itIsAvailableAgain() {
+        var queue = new PrivateRoomQueue(mock(PrivateRoomService.class));
         PrivateRoom privateRoom = new PrivateRoom(uniqueLong(), 1);
-        this.privateRoomQueue.add(privateRoom);
+        queue.add(privateRoom);
+        queue.holdForResume(List.of(privateRoom.getGuildId()));
 
-        ManagedPrivateRoom take = this.privateRoomQueue.take();
+        queue.releaseHeld(privateRoom.getGuildId());
 
-        assertThat(take)
-                .isNotNull()
-                .satisfies(isRoom(privateRoom));
+        assertThat(queue.poll()).hasValueSatisfying(isRoom(privateRoom));
     }
 
     @Test
-    void givenBlockingOnTake_whenRoomIsAdded_takeReturnsRoom() {
-        AtomicBoolean started = new AtomicBoolean(false);
-        AtomicReference<ManagedPrivateRoom> taken = new AtomicReference<>();
-        AtomicBoolean done = new AtomicBoolean(false);
-        Thread thread = new Thread(() -> {
-            try {
-                started.set(true);
-                taken.set(this.privateRoomQueue.take());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } finally {
-                done.set(true);
-            }
-        });
-
-        thread.start();
-        sleep(TWO_HUNDRED_MILLISECONDS);
-
-        assertThat(started).isTrue();
-        assertThat(thread.isAlive()).isTrue();
-        assertThat(taken.get()).isNull();
-        assertThat(done.get()).isFalse();
+    void whenRoomIsResumed_itIsInUse() {
+        var queue = new PrivateRoomQueue(mock(PrivateRoomService.class));
+        ManagedPrivateRoom room = queue.add(new PrivateRoom(uniqueLong(), 1));
+        assertThat(room.getState()).isEqualTo(ManagedPrivateRoom.State.FREE);
+
+        room.resumeUsage(uniqueLong(), List.of(uniqueLong()));
 
+        assertThat(room.getState()).isEqualTo(ManagedPrivateRoom.State.IN_USE);
+        assertThatThrownBy(() -> room.resumeUsage(uniqueLong(), List.of()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void givenPrivateRoomExists_reservationIsCompletedRightAway() {
+        var queue = new PrivateRoomQueue(mock(PrivateRoomService.class));
         PrivateRoom privateRoom = new PrivateRoom(uniqueLong(), 1);
-        this.privateRoomQueue.add(privateRoom);
-        sleep(ONE_HUNDRED_MILLISECONDS);
+        queue.add(privateRoom);
 
-        assertThat(thread.isAlive()).isFalse();
-        assertThat(taken.get()).satisfies(isRoom(privateRoom));
-        assertThat(done.get()).isTrue();
+        PrivateRoomQueue.Reservation reservation = queue.reserve();
+
+        assertThat(reservation.getPosition()).isZero();
+        assertThat(reservation.getRoom()).isCompleted();
+        assertThat(reservation.getRoom().join()).satisfies(isRoom(privateRoom));
     }
 
+    @Test
+    void givenNoPrivateRoomsExist_reservationsWaitInLine() {
+        var queue = new PrivateRoomQueue(mock(PrivateRoomService.class));
+
+        PrivateRoomQueue.Reservation first = queue.reserve();
+        PrivateRoomQueue.Reservation second = queue.reserve();
+        PrivateRoomQueue.Reservation third = queue.reserve();
+
+        assertThat(first.getPosition()).isEqualTo(1);
+        assertThat(second.getPosition()).isEqualTo(2);
+        assertThat(third.getPosition()).isEqualTo(3);
+        assertThat(first.getRoom()).isNotDone();
+
+        second.getRoom().cancel(false);
+        PrivateRoom privateRoom1 = new PrivateRoom(uniqueLong(), 1);
+        queue.add(privateRoom1);
+        assertThat(first.getRoom().join()).satisfies(isRoom(privateRoom1));
+        assertThat(third.getRoom()).isNotDone();
+
+        PrivateRoom privateRoom2 = new PrivateRoom(uniqueLong(), 2);
+        queue.add(privateRoom2);
+        assertThat(third.getRoom().join()).satisfies(isRoom(privateRoom2));
+        assertThat(queue.poll()).isEmpty();
+    }
 
     @Test
-    void givenBlockingOnTake_whenRoomIsPutBack_takeReturnsRoom() {
-        PrivateRoom privateRoom = new PrivateRoom(uniqueLong(), 1);
-        this.privateRoomQueue.add(privateRoom);
-        ManagedPrivateRoom busy = this.privateRoomQueue.poll().orElseThrow();
-
-        AtomicBoolean started = new AtomicBoolean(false);
-        AtomicReference<ManagedPrivateRoom> taken = new AtomicReference<>();
-        AtomicBoolean done = new AtomicBoolean(false);
-        Thread thread = new Thread(() -> {
-            try {
-                started.set(true);
-                taken.set(this.privateRoomQueue.take());
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            } finally {
-                done.set(true);
-            }
-        });
-
-        thread.start();
-        sleep(TWO_HUNDRED_MILLISECONDS);
-
-        assertThat(started).isTrue();
-        assertThat(thread.isAlive()).isTrue();
-        assertThat(taken.get()).isNull();
-        assertThat(done.get()).isFalse();
-
-        this.privateRoomQueue.putBack(busy);
+    void givenNoPrivateRoomsExist_reservationWaitsUntilCancelled() {
+        var queue = new PrivateRoomQueue(mock(PrivateRoomService.class));
+
+        PrivateRoomQueue.Reservation reservation = queue.reserve();
         sleep(ONE_HUNDRED_MILLISECONDS);
 
-        assertThat(thread.isAlive()).isFalse();
-        assertThat(taken.get()).satisfies(isRoom(privateRoom));
-        assertThat(done.get()).isTrue();
+        assertThat(reservation.getRoom()).isNotDone();
+
+        reservation.getRoom().cancel(false);
+        PrivateRoom privateRoom = new PrivateRoom(uniqueLong(), 1);
+        queue.add(privateRoom);
+
+        assertThat(queue.poll()).hasValueSatisfying(isRoom(privateRoom));
+    }
+
+    @Test
+    void givenWaitingReservation_whenRoomIsPutBack_reservationGetsRoom() {
+        var queue = new PrivateRoomQueue(mock(PrivateRoomService.class));
+        PrivateRoom privateRoom = new PrivateRoom(uniqueLong(), 1);
+        queue.add(privateRoom);
+        ManagedPrivateRoom busy = queue.poll().orElseThrow();
+
+        PrivateRoomQueue.Reservation reservation = queue.reserve();
+        assertThat(reservation.getPosition()).isEqualTo(1);
+        assertThat(reservation.getRoom()).isNotDone();
+
+        queue.putBack(busy);
+
+        assertThat(reservation.getRoom()).isCompleted();
+        assertThat(reservation.getRoom().join()).satisfies(isRoom(privateRoom));
+        assertThat(queue.poll()).isEmpty();
     }
 
     private Consumer<ManagedPrivateRoom> isRoom(PrivateRoom pr) {
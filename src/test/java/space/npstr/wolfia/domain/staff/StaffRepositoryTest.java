@@ -68,7 +68,7 @@ void givenExistingRecord_whenGetStaffMember_returnExistingRecord() {
 
     @Test
     void givenNoRecords_whenFetchAllStaffMembers_shouldBeEmpty() {
-        wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        wrapper.jooq("test.deleteStaffMembers", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .deleteFrom(STAFF_MEMBER)
                 .execute()
         )).toCompletableFuture().join();
@@ -82,7 +82,7 @@ void givenNoRecords_whenFetchAllStaffMembers_shouldBeEmpty() {
 
     @Test
     void givenSomeRecords_whenFetchAllStaffMembers_shoulContainRecords() {
-        wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        wrapper.jooq("test.deleteStaffMembers", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .deleteFrom(STAFF_MEMBER)
                 .execute()
         )).toCompletableFuture().join();
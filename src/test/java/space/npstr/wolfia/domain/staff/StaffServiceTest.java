@@ -64,7 +64,7 @@ class StaffServiceTest extends ApplicationTest {
 
     @BeforeEach
     void setup() {
-        this.wrapper.jooq(dsl -> dsl.transactionResult(config -> DSL.using(config)
+        this.wrapper.jooq("test.deleteStaffMembers", dsl -> dsl.transactionResult(config -> DSL.using(config)
                 .deleteFrom(STAFF_MEMBER)
                 .execute()
         )).toCompletableFuture().join();
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import space.npstr.wolfia.game.GameInfo;
+import space.npstr.wolfia.game.definitions.Actions;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+
+class ActionStatsStreamTest {
+
+    private final StatsRepository repository = mock(StatsRepository.class);
+    private final ActionStatsStream stream = new ActionStatsStream(this.repository, mock(ExceptionLoggingExecutor.class));
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void givenBatchInFlight_whenTake_dontWaitForTheDatabaseAndDontQueueTakenActionsAgain() {
+        CompletableFuture<Integer> write = new CompletableFuture<>();
+        when(this.repository.insertPendingActions(any()))
+                .thenReturn(write)
+                .thenReturn(CompletableFuture.completedFuture(1));
+        GameStats ended = gameStats();
+        GameStats running = gameStats();
+        ActionStats endedAction = action(ended);
+        ActionStats runningAction = action(running);
+        this.stream.append(endedAction);
+        this.stream.append(runningAction);
+
+        CompletableFuture<Boolean> flushed = CompletableFuture.supplyAsync(this.stream::flush);
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                verify(this.repository).insertPendingActions(any())
+        );
+
+        assertThat(this.stream.take(ended)).containsExactly(endedAction);
+
+        write.completeExceptionally(new RuntimeException("database is down"));
+        assertThat(flushed.join()).isFalse();
+        assertThat(this.stream.flush()).isTrue();
+
+        ArgumentCaptor<List<ActionStats>> written = ArgumentCaptor.forClass(List.class);
+        verify(this.repository, times(2)).insertPendingActions(written.capture());
+        assertThat(written.getAllValues().get(1)).containsExactly(runningAction);
+    }
+
+    private GameStats gameStats() {
+        return new GameStats(uniqueLong(), "Foo", uniqueLong(), "Bar", Games.MAFIA, GameInfo.GameMode.LITE, 1);
+    }
+
+    private ActionStats action(GameStats gameStats) {
+        return new ActionStats(gameStats, 1, System.currentTimeMillis(), System.currentTimeMillis(),
+                1, Phase.NIGHT, uniqueLong(), Actions.VOTENIGHTKILL, uniqueLong(), null);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import space.npstr.wolfia.ApplicationTest;
+import space.npstr.wolfia.game.GameInfo;
+import space.npstr.wolfia.game.definitions.Actions;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.definitions.Roles;
+import space.npstr.wolfia.system.redis.Redis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+
+class GameResultOutboxTest extends ApplicationTest {
+
+    @Autowired
+    private GameResultOutbox outbox;
+
+    @Autowired
+    private StatsRepository statsRepository;
+
+    @Autowired
+    private Redis redis;
+
+    @Test
+    void whenSubmit_gameIsRecordedAndRemovedFromTheOutbox() {
+        GameStats gameStats = new GameStats(uniqueLong(), "Foo", uniqueLong(), "Bar", Games.POPCORN, GameInfo.GameMode.WILD, 1);
+        gameStats.setEndTime(System.currentTimeMillis());
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", 1);
+        village.setWinner(true);
+        village.addPlayer(new PlayerStats(village, uniqueLong(), "Player McPlayerface", Alignments.VILLAGE, Roles.COP));
+        gameStats.setTeams(List.of(village));
+        ActionStats action = new ActionStats(gameStats, 1, System.currentTimeMillis(), System.currentTimeMillis(),
+                1, Phase.DAY, uniqueLong(), Actions.GAMESTART, -1, null);
+        gameStats.addAction(action);
+        statsService.recordAction(action);
+
+        GameStats recorded = this.outbox.submit(gameStats)
+                .orTimeout(30, TimeUnit.SECONDS)
+                .join();
+
+        long gameId = recorded.getGameId().orElseThrow();
+        GameStats fetched = this.statsRepository.findGameStats(gameId).toCompletableFuture().join().orElseThrow();
+        assertThat(fetched.getChannelId()).isEqualTo(gameStats.getChannelId());
+        assertThat(fetched.getStartingTeams()).flatExtracting(TeamStats::getPlayers).hasSize(1);
+        assertThat(fetched.getActions()).hasSize(1);
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() ->
+                assertThat(this.redis.getConnection().sync().xlen(GameResultOutbox.STREAM_KEY)).isZero()
+        );
+    }
+
+    @Test
+    void givenResultTheDatabaseRejects_whenDrainedRepeatedly_resultIsDeadLettered() {
+        GameStats gameStats = new GameStats(uniqueLong(), "Foo", uniqueLong(), "Bar", Games.POPCORN, GameInfo.GameMode.WILD, 1);
+        gameStats.setEndTime(System.currentTimeMillis());
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", 1);
+        village.setWinner(true);
+        //postgres does not take text containing null characters
+        village.addPlayer(new PlayerStats(village, uniqueLong(), "Player\0McPlayerface", Alignments.VILLAGE, Roles.COP));
+        gameStats.setTeams(List.of(village));
+        long deadLettersBefore = this.redis.getConnection().sync().xlen(GameResultOutbox.DEAD_LETTER_KEY);
+
+        CompletableFuture<GameStats> recorded = this.outbox.submit(gameStats);
+
+        await().atMost(Duration.ofSeconds(60)).untilAsserted(() -> {
+            this.outbox.drain();
+            assertThat(recorded).isCompletedExceptionally();
+        });
+        assertThat(this.redis.getConnection().sync().xlen(GameResultOutbox.DEAD_LETTER_KEY))
+                .isEqualTo(deadLettersBefore + 1);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import io.prometheus.client.cache.caffeine.CacheMetricsCollector;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.listener.SingleQueryCountHolder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import space.npstr.wolfia.ApplicationTest;
+import space.npstr.wolfia.game.GameInfo;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Roles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+
+class ReplayCacheTest extends ApplicationTest {
+
+    @Autowired
+    private ReplayCache replayCache;
+
+    @Autowired
+    private StatsRepository statsRepository;
+
+    @Autowired
+    private SingleQueryCountHolder queryCountHolder;
+
+    @Test
+    void givenCachedReplay_whenGetAgain_doNotQueryTheDatabase() {
+        long userId = uniqueLong();
+        long gameId = insertGame(userId);
+        assertThat(this.replayCache.getGameStats(gameId)).isPresent();
+
+        long before = totalQueries();
+        assertThat(this.replayCache.getGameStats(gameId)).isPresent();
+
+        assertThat(totalQueries()).isEqualTo(before);
+    }
+
+    @Test
+    void givenUnknownGame_whenGet_isEmpty() {
+        assertThat(this.replayCache.getGameStats(uniqueLong())).isEmpty();
+    }
+
+    @Test
+    void whenAnonymizePlayer_cachedReplayIsInvalidated() {
+        long userId = uniqueLong();
+        long gameId = insertGame(userId);
+        assertThat(nicknames(gameId)).containsExactly("Player McPlayerface");
+
+        statsService.anonymize(userId);
+
+        assertThat(nicknames(gameId)).containsNull();
+    }
+
+    @Test
+    void givenLoadRacingAnInvalidation_whenLoadCompletes_replayIsNotCached() {
+        StatsRepository repository = mock(StatsRepository.class);
+        CompletableFuture<Optional<GameStats>> racingLoad = new CompletableFuture<>();
+        GameStats gameStats = gameStats(uniqueLong());
+        when(repository.findGameStats(anyLong()))
+                .thenReturn(racingLoad)
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(gameStats)));
+        ReplayCache cache = new ReplayCache(repository, mock(StatsRender.class), new CacheMetricsCollector());
+
+        cache.warm(1);
+        cache.invalidateUser(uniqueLong());
+        racingLoad.complete(Optional.of(gameStats));
+        cache.getGameStats(1);
+
+        verify(repository, times(2)).findGameStats(1);
+    }
+
+    private List<String> nicknames(long gameId) {
+        return this.replayCache.getGameStats(gameId).orElseThrow()
+                .getStartingTeams().stream()
+                .flatMap(team -> team.getPlayers().stream())
+                .map(PlayerStats::getNickname)
+                .collect(Collectors.toList());
+    }
+
+    private long insertGame(long userId) {
+        return this.statsRepository.insertGameStats(gameStats(userId)).toCompletableFuture().join().getGameId().orElseThrow();
+    }
+
+    private GameStats gameStats(long userId) {
+        GameStats gameStats = new GameStats(uniqueLong(), "Foo", uniqueLong(), "Bar", Games.POPCORN, GameInfo.GameMode.WILD, 1);
+        gameStats.setEndTime(System.currentTimeMillis());
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", 1);
+        village.setWinner(true);
+        village.addPlayer(new PlayerStats(village, userId, "Player McPlayerface", Alignments.VILLAGE, Roles.COP));
+        gameStats.setTeams(List.of(village));
+        return gameStats;
+    }
+
+    private long totalQueries() {
+        QueryCount queryCount = this.queryCountHolder.getQueryCountMap().get("postgres");
+        return queryCount == null ? 0 : queryCount.getTotal();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import space.npstr.wolfia.game.GameInfo;
+import space.npstr.wolfia.game.definitions.Actions;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.definitions.Roles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Times encoding and decoding of replays of a large game with the {@link ReplayCodec}, and reports the size of the
+ * encoded replay.
+ * <p>
+ * This is not part of the regular test run, start it with {@code ./gradlew benchmark}
+ */
+@Tag("benchmark")
+class ReplayCodecBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplayCodecBenchmarkTest.class);
+
+    private static final int PLAYERS = 30;
+    private static final int ACTIONS = 2000;
+    private static final int WARMUP_RUNS = 20_000;
+    private static final int MEASURED_RUNS = 20_000;
+
+    @Test
+    void codec() {
+        GameStats gameStats = largeGame(new Random(42));
+        List<ActionStats> actions = new ArrayList<>(gameStats.getActions());
+
+        byte[] replay = null;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            replay = ReplayCodec.encode(gameStats, actions);
+            ReplayCodec.decode(emptyCopy(gameStats), replay);
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            replay = ReplayCodec.encode(gameStats, actions);
+        }
+        long encodeNanos = (System.nanoTime() - started) / MEASURED_RUNS;
+
+        started = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            ReplayCodec.decode(emptyCopy(gameStats), replay);
+        }
+        long decodeNanos = (System.nanoTime() - started) / MEASURED_RUNS;
+
+        log.info("Replay of {} players and {} actions: {} bytes, {} bytes per action, encode {}µs, decode {}µs",
+                PLAYERS, ACTIONS, replay.length, replay.length / ACTIONS,
+                TimeUnit.NANOSECONDS.toMicros(encodeNanos), TimeUnit.NANOSECONDS.toMicros(decodeNanos));
+        GameStats decoded = emptyCopy(gameStats);
+        assertThat(ReplayCodec.decode(decoded, replay)).isTrue();
+        assertThat(decoded.getActions()).hasSize(ACTIONS);
+    }
+
+    private GameStats emptyCopy(GameStats gameStats) {
+        return new GameStats(gameStats.getGuildId(), gameStats.getGuildName(), gameStats.getChannelId(),
+                gameStats.getChannelName(), gameStats.getGameType(), gameStats.getGameMode(), gameStats.getPlayerSize(),
+                gameStats.getStartTime());
+    }
+
+    private GameStats largeGame(Random random) {
+        long time = System.currentTimeMillis();
+        GameStats gameStats = new GameStats(random.nextLong(), "Foo", random.nextLong(), "Bar", Games.MAFIA,
+                GameInfo.GameMode.LITE, PLAYERS, time);
+        long ids = 1_000_000;
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", PLAYERS);
+        village.setTeamId(ids++);
+        village.setWinner(true);
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < PLAYERS; i++) {
+            long userId = 100_000_000_000_000_000L + random.nextInt(Integer.MAX_VALUE);
+            userIds.add(userId);
+            PlayerStats player = new PlayerStats(village, userId, "Player " + i, Alignments.VILLAGE, Roles.VANILLA);
+            player.setPlayerId(ids++);
+            player.restorePosts(random.nextInt(500), random.nextInt(50_000));
+            village.addPlayer(player);
+        }
+        gameStats.setTeams(List.of(village));
+
+        Actions[] types = {Actions.VOTELYNCH, Actions.VOTENIGHTKILL, Actions.CHECK, Actions.SHOOT};
+        for (int i = 1; i <= ACTIONS; i++) {
+            time += random.nextInt(30_000);
+            ActionStats action = new ActionStats(gameStats, i, time + random.nextInt(100), time, i / 50,
+                    i % 2 == 0 ? Phase.DAY : Phase.NIGHT, userIds.get(random.nextInt(PLAYERS)),
+                    types[random.nextInt(types.length)], userIds.get(random.nextInt(PLAYERS)), null);
+            action.setActionId(ids++);
+            gameStats.addAction(action);
+        }
+        return gameStats;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import space.npstr.wolfia.game.GameInfo;
+import space.npstr.wolfia.game.definitions.Actions;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.definitions.Roles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplayCodecTest {
+
+    @Test
+    void encodeDecode_restoresTeamsPlayersAndActions() {
+        GameStats gameStats = game();
+        List<ActionStats> actions = new ArrayList<>(gameStats.getActions());
+
+        byte[] replay = ReplayCodec.encode(gameStats, actions);
+        GameStats decoded = emptyCopy(gameStats);
+        boolean restored = ReplayCodec.decode(decoded, replay);
+
+        assertThat(restored).isTrue();
+        assertThat(decoded.getStartingTeams()).hasSize(2);
+        for (TeamStats team : gameStats.getStartingTeams()) {
+            TeamStats decodedTeam = decoded.getStartingTeams().stream()
+                    .filter(t -> t.getTeamId().equals(team.getTeamId()))
+                    .findAny().orElseThrow();
+            assertThat(decodedTeam.getAlignment()).isEqualTo(team.getAlignment());
+            assertThat(decodedTeam.getName()).isEqualTo(team.getName());
+            assertThat(decodedTeam.isWinner()).isEqualTo(team.isWinner());
+            assertThat(decodedTeam.getTeamSize()).isEqualTo(team.getTeamSize());
+            assertThat(decodedTeam.getPlayers()).hasSameSizeAs(team.getPlayers());
+            for (PlayerStats player : team.getPlayers()) {
+                PlayerStats decodedPlayer = decodedTeam.getPlayers().stream()
+                        .filter(p -> p.getPlayerId().equals(player.getPlayerId()))
+                        .findAny().orElseThrow();
+                assertThat(decodedPlayer.getUserId()).isEqualTo(player.getUserId());
+                assertThat(decodedPlayer.getNickname()).isEqualTo(player.getNickname());
+                assertThat(decodedPlayer.getRole()).isEqualTo(player.getRole());
+                assertThat(decodedPlayer.getAlignment()).isEqualTo(player.getAlignment());
+                assertThat(decodedPlayer.getTotalPosts()).isEqualTo(player.getTotalPosts());
+                assertThat(decodedPlayer.getTotalPostLength()).isEqualTo(player.getTotalPostLength());
+            }
+        }
+        assertThat(decoded.getActions()).hasSameSizeAs(actions);
+        for (ActionStats action : actions) {
+            ActionStats decodedAction = decoded.getActions().stream()
+                    .filter(a -> a.getActionId().equals(action.getActionId()))
+                    .findAny().orElseThrow();
+            assertThat(decodedAction.getActionType()).isEqualTo(action.getActionType());
+            assertThat(decodedAction.getActor()).isEqualTo(action.getActor());
+            assertThat(decodedAction.getCycle()).isEqualTo(action.getCycle());
+            assertThat(decodedAction.getOrder()).isEqualTo(action.getOrder());
+            assertThat(decodedAction.getTarget()).isEqualTo(action.getTarget());
+            assertThat(decodedAction.getTimeStampHappened()).isEqualTo(action.getTimeStampHappened());
+            assertThat(decodedAction.getTimeStampSubmitted()).isEqualTo(action.getTimeStampSubmitted());
+            assertThat(decodedAction.getPhase()).isEqualTo(action.getPhase());
+            assertThat(decodedAction.getAdditionalInfo()).isEqualTo(action.getAdditionalInfo());
+        }
+    }
+
+    @Test
+    void givenOtherVersion_decode_restoresNothing() {
+        GameStats gameStats = game();
+        byte[] replay = ReplayCodec.encode(gameStats, new ArrayList<>(gameStats.getActions()));
+        replay[0] = (byte) (ReplayCodec.VERSION + 1);
+
+        GameStats decoded = emptyCopy(gameStats);
+        boolean restored = ReplayCodec.decode(decoded, replay);
+
+        assertThat(restored).isFalse();
+        assertThat(decoded.getStartingTeams()).isEmpty();
+        assertThat(decoded.getActions()).isEmpty();
+    }
+
+    private GameStats emptyCopy(GameStats gameStats) {
+        return new GameStats(gameStats.getGuildId(), gameStats.getGuildName(), gameStats.getChannelId(),
+                gameStats.getChannelName(), gameStats.getGameType(), gameStats.getGameMode(), gameStats.getPlayerSize(),
+                gameStats.getStartTime());
+    }
+
+    private GameStats game() {
+        long start = 1_600_000_000_000L;
+        GameStats gameStats = new GameStats(1L, "Foo", 2L, "Bar", Games.MAFIA, GameInfo.GameMode.LITE, 3, start);
+        TeamStats wolves = new TeamStats(gameStats, Alignments.WOLF, "Wolves", 1);
+        wolves.setTeamId(10);
+        PlayerStats wolf = new PlayerStats(wolves, 268_435_456_000_000_001L, null, Alignments.WOLF, Roles.SANTA);
+        wolf.setPlayerId(11);
+        wolf.restorePosts(42, 4200);
+        wolves.addPlayer(wolf);
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", 2);
+        village.setTeamId(12);
+        village.setWinner(true);
+        PlayerStats cop = new PlayerStats(village, 3L, "Cöp 🐺", Alignments.VILLAGE, Roles.COP);
+        cop.setPlayerId(13);
+        village.addPlayer(cop);
+        PlayerStats vanilla = new PlayerStats(village, 4L, "", Alignments.VILLAGE, Roles.VANILLA);
+        vanilla.setPlayerId(14);
+        village.addPlayer(vanilla);
+        gameStats.setTeams(List.of(wolves, village));
+
+        addAction(gameStats, 100, 1, start, start, Phase.DAY, Actions.GAMESTART, -1, null);
+        addAction(gameStats, 105, 2, start + 60_000, start + 59_000, Phase.DAY, Actions.VOTELYNCH, 3L, null);
+        //ids do not have to be in the same order as the actions
+        addAction(gameStats, 101, 3, start + 61_000, start + 61_500, Phase.NIGHT, Actions.CHECK,
+                268_435_456_000_000_001L, "wolf");
+        addAction(gameStats, 120, 4, start + 200_000, start + 200_000, Phase.NIGHT, Actions.GAMEEND, -1, "");
+        return gameStats;
+    }
+
+    private void addAction(GameStats gameStats, long actionId, int order, long submitted, long happened, Phase phase,
+                           Actions type, long target, String additionalInfo) {
+        ActionStats action = new ActionStats(gameStats, order, submitted, happened, 1, phase, 3L, type, target,
+                additionalInfo);
+        action.setActionId(actionId);
+        gameStats.addAction(action);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import space.npstr.wolfia.ApplicationTest;
+import space.npstr.wolfia.db.AsyncDbWrapper;
+import space.npstr.wolfia.db.Workload;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+
+/**
+ * Times the stats queries against a stats table seeded with a few million games, and a heavy user who played thousands of
+ * them. Since the bot and guild stats are read from the summary tables, their timings should not depend on the amount
+ * of seeded games.
+ * <p>
+ * This is not part of the regular test run, start it with {@code ./gradlew benchmark}. The amount of seeded games can
+ * be passed as a project property, for example {@code ./gradlew benchmark -Pbenchmark.games=5000000}, and so can the
+ * amount of games of the heavy user, with {@code -Pbenchmark.heavyUserGames}
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class StatsQueryBenchmarkTest extends ApplicationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsQueryBenchmarkTest.class);
+
+    private static final int GAMES = Integer.getInteger("benchmark.games", 2_000_000);
+    private static final int GUILDS = 1000;
+    private static final int HEAVY_USER_GAMES = Integer.getInteger("benchmark.heavyUserGames", 5000);
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 10;
+
+    @Autowired
+    private AsyncDbWrapper wrapper;
+
+    @Autowired
+    private StatsProvider statsProvider;
+
+    private final long firstGuildId = uniqueLong();
+    private final long heavyUserId = uniqueLong();
+    private final long firstVictimId = uniqueLong() - 10_000_000;
+
+    @BeforeAll
+    void seed() {
+        long started = System.nanoTime();
+        this.wrapper.jooq(Workload.BATCH, "test.seed", dsl -> {
+            dsl.execute("INSERT INTO stats_game (channel_id, channel_name, end_time, game_mode, game_type, guild_id, "
+                    + "guild_name, start_time, player_size) "
+                    + "SELECT i, 'benchmark', i, 'LITE', 'MAFIA', ? + i % ?, 'benchmark', i, 3 + i % 20 "
+                    + "FROM generate_series(1, ?) i", this.firstGuildId, GUILDS, GAMES);
+            //two teams per game, and the wolves win two out of five games
+            dsl.execute("INSERT INTO stats_team (alignment, is_winner, name, game_id, team_size) "
+                    + "SELECT 'WOLF', game_id % 5 < 2, 'Wolves', game_id, 1 FROM stats_game WHERE guild_name = 'benchmark' "
+                    + "UNION ALL "
+                    + "SELECT 'VILLAGE', game_id % 5 >= 2, 'Village', game_id, player_size - 1 FROM stats_game "
+                    + "WHERE guild_name = 'benchmark'");
+            //the same as the backfill of the summary tables in the migrations
+            dsl.execute("INSERT INTO stats_guild_win_summary (guild_id, player_size, game_count, player_size_sum, "
+                    + "goodie_wins, baddie_wins) "
+                    + "SELECT g.guild_id, g.player_size, count(*), sum(g.player_size), "
+                    + "count(*) FILTER (WHERE t.alignment = 'VILLAGE'), count(*) FILTER (WHERE t.alignment = 'WOLF') "
+                    + "FROM stats_game g JOIN stats_team t ON t.game_id = g.game_id AND t.is_winner "
+                    + "WHERE g.guild_name = 'benchmark' GROUP BY g.guild_id, g.player_size");
+            dsl.execute("INSERT INTO stats_win_summary (player_size, game_count, player_size_sum, goodie_wins, baddie_wins) "
+                    + "SELECT player_size, sum(game_count), sum(player_size_sum), sum(goodie_wins), sum(baddie_wins) "
+                    + "FROM stats_guild_win_summary WHERE guild_id >= ? AND guild_id < ? GROUP BY player_size "
+                    + "ON CONFLICT (player_size) DO UPDATE SET "
+                    + "game_count = stats_win_summary.game_count + excluded.game_count, "
+                    + "player_size_sum = stats_win_summary.player_size_sum + excluded.player_size_sum, "
+                    + "goodie_wins = stats_win_summary.goodie_wins + excluded.goodie_wins, "
+                    + "baddie_wins = stats_win_summary.baddie_wins + excluded.baddie_wins",
+                    this.firstGuildId, this.firstGuildId + GUILDS);
+            //a heavy user who played the first games, on alternating sides, and shot someone from the other team in each
+            String ofHeavyUser = "FROM stats_team t JOIN stats_game g ON g.game_id = t.game_id "
+                    + "WHERE g.guild_name = 'benchmark' AND g.channel_id <= ? ";
+            dsl.execute("INSERT INTO stats_player (nickname, role, total_postlength, total_posts, user_id, team_id, alignment) "
+                    + "SELECT 'Heavy', 'VANILLA', 1000, 10, ?, t.team_id, t.alignment " + ofHeavyUser
+                    + "AND (t.alignment = 'WOLF') = (g.game_id % 3 = 0)", this.heavyUserId, HEAVY_USER_GAMES);
+            dsl.execute("INSERT INTO stats_player (nickname, role, total_postlength, total_posts, user_id, team_id, alignment) "
+                    + "SELECT 'Victim', 'VANILLA', 100, 1, ? + g.game_id, t.team_id, t.alignment " + ofHeavyUser
+                    + "AND (t.alignment = 'WOLF') != (g.game_id % 3 = 0)", this.firstVictimId, HEAVY_USER_GAMES);
+            dsl.execute("INSERT INTO stats_action (action_type, actor, cycle, sequence, target, happened, submitted, "
+                    + "game_id, phase) "
+                    + "SELECT 'SHOOT', ?, 1, 1, ? + g.game_id, g.start_time, g.start_time, g.game_id, 'DAY' "
+                    + "FROM stats_game g WHERE g.guild_name = 'benchmark' AND g.channel_id <= ?",
+                    this.heavyUserId, this.firstVictimId, HEAVY_USER_GAMES);
+            return dsl.execute("ANALYZE stats_game, stats_team, stats_player, stats_action, stats_guild_win_summary, "
+                    + "stats_win_summary");
+        }).toCompletableFuture().join();
+        log.info("Seeded {} games in {}ms", GAMES, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    @Test
+    void botStats() {
+        BotStats botStats = measure("bot stats", this.statsProvider::getBotStats);
+
+        assertThat(botStats.totalWinStats().totalGames()).isGreaterThanOrEqualTo(GAMES);
+    }
+
+    @Test
+    void guildStats() {
+        GuildStats guildStats = measure("guild stats", () -> this.statsProvider.getGuildStats(this.firstGuildId + 1));
+
+        assertThat(guildStats.totalWinStats().totalGames()).isPositive();
+    }
+
+    @Test
+    void heavyUserStats() {
+        UserStats userStats = measure("user stats of a user with " + HEAVY_USER_GAMES + " games",
+                () -> this.statsProvider.getUserStats(this.heavyUserId));
+
+        assertThat(userStats.totalGames()).isEqualTo(Math.min(HEAVY_USER_GAMES, GAMES));
+        assertThat(userStats.totalShots()).isEqualTo(Math.min(HEAVY_USER_GAMES, GAMES));
+    }
+
+    private <T> T measure(String name, Supplier<T> query) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            query.get();
+        }
+        long[] millis = new long[MEASURED_RUNS];
+        T result = null;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long started = System.nanoTime();
+            result = query.get();
+            millis[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        }
+        Arrays.sort(millis);
+        log.info("{} over {} games: median {}ms, min {}ms, max {}ms",
+                name, GAMES, millis[MEASURED_RUNS / 2], millis[0], millis[MEASURED_RUNS - 1]);
+        return result;
+    }
+}
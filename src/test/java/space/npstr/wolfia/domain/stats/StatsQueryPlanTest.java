@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.domain.stats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.jooq.DSLContext;
+import org.jooq.ExecuteContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultExecuteListener;
+import org.jooq.impl.DefaultExecuteListenerProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import space.npstr.wolfia.ApplicationTest;
+import space.npstr.wolfia.db.AsyncDbWrapper;
+import space.npstr.wolfia.db.Database;
+import space.npstr.wolfia.db.Workload;
+import space.npstr.wolfia.game.GameInfo;
+import space.npstr.wolfia.game.definitions.Actions;
+import space.npstr.wolfia.game.definitions.Alignments;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.definitions.Phase;
+import space.npstr.wolfia.game.definitions.Roles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+
+/**
+ * Runs EXPLAIN on every statement the {@link StatsRepository} sends, with sequential scans disabled in the planner.
+ * Postgres falls back to a sequential scan anyways when no index fits, so a sequential scan in a plan means a query
+ * is missing its index and will get slower with every recorded game.
+ */
+class StatsQueryPlanTest extends ApplicationTest {
+
+    @Autowired
+    private Database database;
+
+    private final List<String> statements = new CopyOnWriteArrayList<>();
+    private StatsRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        DSLContext recording = this.database.getJooq().configuration()
+                .derive(new DefaultExecuteListenerProvider(new DefaultExecuteListener() {
+                    @Override
+                    public void renderEnd(ExecuteContext ctx) {
+                        if (ctx.query() != null) {
+                            statements.add(DSL.using(SQLDialect.POSTGRES).renderInlined(ctx.query()));
+                        }
+                    }
+                }))
+                .dsl();
+        AsyncDbWrapper wrapper = mock(AsyncDbWrapper.class);
+        when(wrapper.jooq(anyString(), any())).thenAnswer(invocation -> {
+            Function<DSLContext, ?> operation = invocation.getArgument(1);
+            return CompletableFuture.completedFuture(operation.apply(recording));
+        });
+        when(wrapper.jooq(any(Workload.class), anyString(), any())).thenAnswer(invocation -> {
+            Function<DSLContext, ?> operation = invocation.getArgument(2);
+            return CompletableFuture.completedFuture(operation.apply(recording));
+        });
+        this.repository = new StatsRepository(wrapper);
+    }
+
+    @Test
+    void statsQueries_doNotScanTablesSequentially() {
+        long guildId = uniqueLong();
+        long userId = uniqueLong();
+        GameStats gameStats = new GameStats(guildId, "Foo", uniqueLong(), "Bar", Games.MAFIA, GameInfo.GameMode.LITE, 2);
+        gameStats.setEndTime(System.currentTimeMillis());
+        TeamStats wolves = new TeamStats(gameStats, Alignments.WOLF, "Wolves", 1);
+        wolves.addPlayer(new PlayerStats(wolves, userId, "Wolfie", Alignments.WOLF, Roles.VANILLA));
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", 1);
+        village.setWinner(true);
+        village.addPlayer(new PlayerStats(village, uniqueLong(), "Villager", Alignments.VILLAGE, Roles.COP));
+        gameStats.setTeams(List.of(wolves, village));
+        ActionStats shot = new ActionStats(gameStats, 1, System.currentTimeMillis(), System.currentTimeMillis(),
+                1, Phase.DAY, userId, Actions.SHOOT, uniqueLong(), null);
+        gameStats.addAction(shot);
+
+        this.repository.insertPendingActions(List.of(shot)).toCompletableFuture().join();
+        long gameId = this.repository.insertGameStats(gameStats, UUID.randomUUID().toString())
+                .toCompletableFuture().join().getGameId().orElseThrow();
+        this.repository.getAggregatedWinStats(null).toCompletableFuture().join();
+        this.repository.getAggregatedWinStats(guildId).toCompletableFuture().join();
+        this.repository.getUserStats(userId).toCompletableFuture().join();
+        for (Leaderboard leaderboard : Leaderboard.values()) {
+            this.repository.getLeaderboard(leaderboard, null, 0, 10).toCompletableFuture().join();
+            this.repository.getLeaderboard(leaderboard, guildId, 0, 10).toCompletableFuture().join();
+        }
+        this.repository.findGameStats(gameId).toCompletableFuture().join();
+        this.repository.streamPrivacyGamesOfUser(userId, game -> {}).toCompletableFuture().join();
+        this.repository.nullAllPlayerNicknamesofUser(userId).toCompletableFuture().join();
+        this.repository.findGameStats(gameId).toCompletableFuture().join();
+        this.repository.backfillReplays(1).toCompletableFuture().join();
+
+        assertThat(this.statements).isNotEmpty();
+        List<String> sequentialScans = new ArrayList<>();
+        for (String statements : this.statements) {
+            //some round trips carry several statements, none of the test data contains a semicolon
+            for (String statement : statements.split(";")) {
+                if (statement.isBlank()) {
+                    continue;
+                }
+                String plan = explain(statement);
+                if (plan.contains("Seq Scan")) {
+                    sequentialScans.add(statement + "\n" + plan);
+                }
+            }
+        }
+        assertThat(sequentialScans).isEmpty();
+    }
+
+    private String explain(String statement) {
+        return this.database.getJooq().transactionResult(config -> {
+            DSLContext context = DSL.using(config);
+            context.execute("SET LOCAL enable_seqscan = off");
+            return context.fetch("EXPLAIN " + statement).stream()
+                    .map(record -> record.get(0, String.class))
+                    .collect(Collectors.joining("\n"));
+        });
+    }
+}
@@ -17,9 +17,15 @@
 
 package space.npstr.wolfia.domain.stats;
 
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.listener.SingleQueryCountHolder;
+import org.jooq.impl.DSL;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import space.npstr.wolfia.ApplicationTest;
+import space.npstr.wolfia.db.Database;
+import space.npstr.wolfia.domain.privacy.PrivacyAction;
+import space.npstr.wolfia.domain.privacy.PrivacyGame;
 import space.npstr.wolfia.game.GameInfo;
 import space.npstr.wolfia.game.definitions.Actions;
 import space.npstr.wolfia.game.definitions.Alignments;
@@ -27,17 +33,31 @@
 import space.npstr.wolfia.game.definitions.Phase;
 import space.npstr.wolfia.game.definitions.Roles;
 
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 import java.util.function.Consumer;
+import javax.annotation.Nullable;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static space.npstr.wolfia.TestUtil.uniqueLong;
+import static space.npstr.wolfia.db.gen.Tables.STATS_ACTION;
+import static space.npstr.wolfia.db.gen.Tables.STATS_ACTION_PENDING;
+import static space.npstr.wolfia.db.gen.Tables.STATS_GAME;
 
 class StatsRepositoryTest extends ApplicationTest {
 
     @Autowired
     private StatsRepository repository;
 
+    @Autowired
+    private SingleQueryCountHolder queryCountHolder;
+
+    @Autowired
+    private Database database;
+
     @Test
     void insertGameStats_fetchGameStats_shouldBeEqualAndHaveGeneratedIds() {
 
@@ -119,6 +139,482 @@ void insertGameStats_fetchGameStats_shouldBeEqualAndHaveGeneratedIds() {
         assertThat(actions).filteredOnAssertions(isAction(shot, gameId)).hasSize(1);
     }
 
+    @Test
+    void givenPendingActions_whenInsertGameStats_moveThemToTheGame() {
+        GameStats gameStats = new GameStats(uniqueLong(), "Foo", uniqueLong(), "Bar",
+                Games.MAFIA, GameInfo.GameMode.LITE, 1);
+        gameStats.setEndTime(System.currentTimeMillis());
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", 1);
+        village.setWinner(true);
+        PlayerStats villager = new PlayerStats(village, uniqueLong(), "Villagy McVillageface", Alignments.VILLAGE, Roles.VANILLA);
+        village.setPlayers(Set.of(villager));
+        gameStats.setTeams(Set.of(village));
+
+        ActionStats start = new ActionStats(gameStats, 1, System.currentTimeMillis() - 5000, System.currentTimeMillis() - 5000,
+                0, Phase.NIGHT, -1, Actions.GAMESTART, -1, null);
+        ActionStats end = new ActionStats(gameStats, 2, System.currentTimeMillis() - 4000, System.currentTimeMillis() - 4000,
+                0, Phase.NIGHT, -1, Actions.GAMEEND, -1, "foo");
+
+        this.repository.insertPendingActions(List.of(start)).toCompletableFuture().join();
+        //writing an action again, for example after a game was resumed, is skipped
+        int inserted = this.repository.insertPendingActions(List.of(start, end)).toCompletableFuture().join();
+        assertThat(inserted).isEqualTo(1);
+        assertThat(countPendingActions(gameStats)).isEqualTo(2);
+
+        long gameId = this.repository.insertGameStats(gameStats)
+                .toCompletableFuture().join().getGameId().orElseThrow();
+        assertThat(countPendingActions(gameStats)).isZero();
+
+        GameStats fetched = this.repository.findGameStats(gameId).toCompletableFuture().join().orElseThrow();
+        assertThat(fetched.getActions()).hasSize(2);
+        assertThat(fetched.getActions()).filteredOnAssertions(isAction(start, gameId)).hasSize(1);
+        assertThat(fetched.getActions()).filteredOnAssertions(isAction(end, gameId)).hasSize(1);
+
+        //another game in the same channel does not pick them up again
+        GameStats nextGame = new GameStats(gameStats.getGuildId(), "Foo", gameStats.getChannelId(), "Bar",
+                Games.MAFIA, GameInfo.GameMode.LITE, 1, gameStats.getStartTime() + 1);
+        nextGame.setEndTime(System.currentTimeMillis());
+        long nextGameId = this.repository.insertGameStats(nextGame)
+                .toCompletableFuture().join().getGameId().orElseThrow();
+        assertThat(this.repository.findGameStats(nextGameId).toCompletableFuture().join().orElseThrow().getActions())
+                .isEmpty();
+    }
+
+    @Test
+    void givenPendingActions_whenDeletePendingActions_deleteOnlyThoseOfTheGame() {
+        GameStats destroyed = gameStats(1, 0);
+        GameStats running = gameStats(1, 0);
+        this.repository.insertPendingActions(pendingActions(destroyed, 3)).toCompletableFuture().join();
+        this.repository.insertPendingActions(pendingActions(running, 2)).toCompletableFuture().join();
+
+        int deleted = this.repository.deletePendingActions(destroyed.getChannelId(), destroyed.getStartTime())
+                .toCompletableFuture().join();
+
+        assertThat(deleted).isEqualTo(3);
+        assertThat(countPendingActions(destroyed)).isZero();
+        assertThat(countPendingActions(running)).isEqualTo(2);
+    }
+
+    @Test
+    void givenStalePendingActions_whenDeletePendingActionsSubmittedBefore_deleteOnlyStaleOnes() {
+        GameStats crashed = gameStats(1, 0);
+        GameStats running = gameStats(1, 0);
+        long longAgo = System.currentTimeMillis() - 100_000;
+        this.repository.insertPendingActions(List.of(new ActionStats(crashed, 1, longAgo, longAgo,
+                1, Phase.NIGHT, uniqueLong(), Actions.VOTENIGHTKILL, uniqueLong(), null))).toCompletableFuture().join();
+        this.repository.insertPendingActions(pendingActions(running, 1)).toCompletableFuture().join();
+
+        this.repository.deletePendingActionsSubmittedBefore(System.currentTimeMillis() - 50_000)
+                .toCompletableFuture().join();
+
+        assertThat(countPendingActions(crashed)).isZero();
+        assertThat(countPendingActions(running)).isEqualTo(1);
+    }
+
+    @Test
+    void insertGameStats_roundTripsDontGrowWithTheSizeOfTheGame() {
+        GameStats small = gameStats(1, 1);
+        GameStats large = gameStats(10, 50);
+        this.repository.insertPendingActions(pendingActions(small, 1)).toCompletableFuture().join();
+        this.repository.insertPendingActions(pendingActions(large, 50)).toCompletableFuture().join();
+
+        long before = totalQueries();
+        this.repository.insertGameStats(small).toCompletableFuture().join();
+        long smallQueries = totalQueries() - before;
+
+        before = totalQueries();
+        long gameId = this.repository.insertGameStats(large).toCompletableFuture().join().getGameId().orElseThrow();
+        long largeQueries = totalQueries() - before;
+
+        assertThat(largeQueries).isEqualTo(smallQueries);
+        GameStats fetched = this.repository.findGameStats(gameId).toCompletableFuture().join().orElseThrow();
+        assertThat(fetched.getStartingTeams()).hasSize(2);
+        assertThat(fetched.getStartingTeams()).flatExtracting(TeamStats::getPlayers).hasSize(10);
+        assertThat(fetched.getActions()).hasSize(100);
+    }
+
+    @Test
+    void givenRecordedResultKey_whenInsertGameStatsAgain_returnTheRecordedGame() {
+        String resultKey = UUID.randomUUID().toString();
+        long gameId = this.repository.insertGameStats(gameStats(3, 2), resultKey)
+                .toCompletableFuture().join().getGameId().orElseThrow();
+
+        GameStats again = this.repository.insertGameStats(gameStats(3, 2), resultKey)
+                .toCompletableFuture().join();
+
+        assertThat(again.getGameId()).hasValue(gameId);
+        assertThat(this.repository.findGameStats(gameId).toCompletableFuture().join().orElseThrow().getActions())
+                .hasSize(2);
+    }
+
+    @Test
+    void findGameStats_loadsTheWholeGameInOneRoundTrip() {
+        GameStats gameStats = gameStats(10, 50);
+        long gameId = this.repository.insertGameStats(gameStats).toCompletableFuture().join().getGameId().orElseThrow();
+
+        long before = totalQueries();
+        GameStats fetched = this.repository.findGameStats(gameId).toCompletableFuture().join().orElseThrow();
+
+        assertThat(totalQueries() - before).isEqualTo(1);
+        assertThat(fetched.getStartingTeams()).hasSize(2);
+        assertThat(fetched.getStartingTeams()).flatExtracting(TeamStats::getPlayers).hasSize(10);
+        assertThat(fetched.getStartingTeams()).allSatisfy(team -> assertThat(team.getPlayers())
+                .allSatisfy(player -> assertThat(player.getTeam()).isSameAs(team)));
+        assertThat(fetched.getActions()).hasSize(50);
+    }
+
+    @Test
+    void givenNoReplay_findGameStats_loadsTheWholeGameInOneRoundTrip() {
+        GameStats gameStats = gameStats(10, 50);
+        long userId = gameStats.getStartingTeams().stream()
+                .flatMap(team -> team.getPlayers().stream())
+                .findAny().orElseThrow()
+                .getUserId();
+        long gameId = this.repository.insertGameStats(gameStats).toCompletableFuture().join().getGameId().orElseThrow();
+        this.repository.nullAllPlayerNicknamesofUser(userId).toCompletableFuture().join();
+
+        long before = totalQueries();
+        GameStats fetched = this.repository.findGameStats(gameId).toCompletableFuture().join().orElseThrow();
+
+        assertThat(totalQueries() - before).isEqualTo(1);
+        assertThat(fetched.getStartingTeams()).hasSize(2);
+        assertThat(fetched.getStartingTeams()).flatExtracting(TeamStats::getPlayers).hasSize(10);
+        assertThat(fetched.getStartingTeams()).flatExtracting(TeamStats::getPlayers)
+                .filteredOn(player -> player.getUserId() == userId)
+                .allSatisfy(player -> assertThat(player.getNickname()).isNull());
+        assertThat(fetched.getActions()).hasSize(50);
+    }
+
+    @Test
+    void whenNullNicknames_replayIsDroppedUntilBackfilled() {
+        GameStats gameStats = gameStats(3, 5);
+        long userId = gameStats.getStartingTeams().stream()
+                .flatMap(team -> team.getPlayers().stream())
+                .findAny().orElseThrow()
+                .getUserId();
+        long gameId = this.repository.insertGameStats(gameStats).toCompletableFuture().join().getGameId().orElseThrow();
+
+        this.repository.nullAllPlayerNicknamesofUser(userId).toCompletableFuture().join();
+
+        assertThat(nicknameOf(userId, gameId)).isNull();
+        //other tests may have left games without a replay too
+        while (this.repository.backfillReplays(100).toCompletableFuture().join() == 100) {
+            //keep going
+        }
+        long before = totalQueries();
+        assertThat(nicknameOf(userId, gameId)).isNull();
+        assertThat(totalQueries() - before).isEqualTo(1);
+    }
+
+    @Nullable
+    private String nicknameOf(long userId, long gameId) {
+        GameStats fetched = this.repository.findGameStats(gameId).toCompletableFuture().join().orElseThrow();
+        assertThat(fetched.getActions()).hasSize(5);
+        return fetched.getStartingTeams().stream()
+                .flatMap(team -> team.getPlayers().stream())
+                .filter(player -> player.getUserId() == userId)
+                .findAny().orElseThrow()
+                .getNickname();
+    }
+
+    @Test
+    void getUserStats_countsGamesWinsShotsAndPosts() {
+        long userId = uniqueLong();
+        insertGameOfUser(userId, Alignments.VILLAGE, true, 10, 100, Alignments.WOLF);
+        insertGameOfUser(userId, Alignments.WOLF, false, 5, 20, Alignments.VILLAGE);
+        insertGameOfUser(userId, Alignments.WOLF, true, 0, 0, null);
+
+        UserStats userStats = this.repository.getUserStats(userId).toCompletableFuture().join();
+
+        assertThat(userStats).isEqualTo(ImmutableUserStats.builder()
+                .userId(userId)
+                .totalGames(3)
+                .gamesWon(2)
+                .gamesAsBaddie(2)
+                .gamesWonAsBaddie(1)
+                .gamesAsGoodie(1)
+                .gamesWonAsGoodie(1)
+                .totalShots(2)
+                .wolvesShot(1)
+                .totalPosts(15)
+                .totalPostLength(120)
+                .build());
+    }
+
+    @Test
+    void givenNoGames_getUserStats_isAllZeroes() {
+        long userId = uniqueLong();
+
+        UserStats userStats = this.repository.getUserStats(userId).toCompletableFuture().join();
+
+        assertThat(userStats.totalGames()).isZero();
+        assertThat(userStats.totalShots()).isZero();
+        assertThat(userStats.totalPosts()).isZero();
+        assertThat(userStats.totalPostLength()).isZero();
+    }
+
+    @Test
+    void getLeaderboard_ranksTheUsersOfAGuild() {
+        long guildId = uniqueLong();
+        long winner = uniqueLong();
+        long wolf = uniqueLong();
+        long shooter = uniqueLong();
+        for (int i = 0; i < 3; i++) {
+            insertGameOfUser(guildId, winner, Alignments.VILLAGE, true, 0, 0, null);
+        }
+        for (int i = 0; i < 6; i++) {
+            insertGameOfUser(guildId, wolf, Alignments.WOLF, i > 0, 0, 0, null);
+        }
+        insertGameOfUser(uniqueLong(), wolf, Alignments.WOLF, true, 0, 0, null);
+        for (int i = 0; i < Leaderboard.MINIMUM_SAMPLE; i++) {
+            insertGameOfUser(guildId, shooter, Alignments.VILLAGE, false, 0, 0, i > 0 ? Alignments.WOLF : Alignments.VILLAGE);
+        }
+
+        List<LeaderboardEntry> wins = this.repository.getLeaderboard(Leaderboard.WINS, guildId, 0, 2)
+                .toCompletableFuture().join();
+        List<LeaderboardEntry> baddieWinRate = this.repository.getLeaderboard(Leaderboard.BADDIE_WIN_RATE, guildId, 0, 10)
+                .toCompletableFuture().join();
+        List<LeaderboardEntry> shotAccuracy = this.repository.getLeaderboard(Leaderboard.SHOT_ACCURACY, guildId, 0, 10)
+                .toCompletableFuture().join();
+
+        assertThat(wins).extracting(LeaderboardEntry::userId).containsExactly(wolf, winner);
+        assertThat(wins).extracting(LeaderboardEntry::rank).containsExactly(1L, 2L);
+        assertThat(wins.get(0).gamesWon()).isEqualTo(5);
+        //the other players have played too few games as wolf or fired too few shots to be ranked
+        assertThat(baddieWinRate).containsExactly(ImmutableLeaderboardEntry.builder()
+                .rank(1).userId(wolf).totalGames(6).gamesWon(5).gamesAsBaddie(6).gamesWonAsBaddie(5)
+                .totalShots(0).wolvesShot(0).build());
+        assertThat(shotAccuracy).extracting(LeaderboardEntry::userId).containsExactly(shooter);
+        assertThat(shotAccuracy.get(0).totalShots()).isEqualTo(Leaderboard.MINIMUM_SAMPLE);
+        assertThat(shotAccuracy.get(0).wolvesShot()).isEqualTo(Leaderboard.MINIMUM_SAMPLE - 1);
+    }
+
+    @Test
+    void getLeaderboard_pagesByOffset() {
+        long guildId = uniqueLong();
+        insertGameOfUser(guildId, uniqueLong(), Alignments.VILLAGE, true, 0, 0, null);
+
+        List<LeaderboardEntry> firstPage = this.repository.getLeaderboard(Leaderboard.WINS, guildId, 0, 1)
+                .toCompletableFuture().join();
+        List<LeaderboardEntry> secondPage = this.repository.getLeaderboard(Leaderboard.WINS, guildId, 1, 1)
+                .toCompletableFuture().join();
+        List<LeaderboardEntry> thirdPage = this.repository.getLeaderboard(Leaderboard.WINS, guildId, 2, 1)
+                .toCompletableFuture().join();
+
+        //the user and the villager of their team have won
+        assertThat(firstPage).extracting(LeaderboardEntry::rank).containsExactly(1L);
+        assertThat(secondPage).extracting(LeaderboardEntry::rank).containsExactly(2L);
+        assertThat(thirdPage).isEmpty();
+    }
+
+    private void insertGameOfUser(long userId, Alignments alignment, boolean won, int posts, int postLength,
+                                  @Nullable Alignments shotAlignment) {
+
+        insertGameOfUser(uniqueLong(), userId, alignment, won, posts, postLength, shotAlignment);
+    }
+
+    //the user shoots another player of the given alignment in that game, unless it is null
+    private void insertGameOfUser(long guildId, long userId, Alignments alignment, boolean won, int posts,
+                                  int postLength, @Nullable Alignments shotAlignment) {
+
+        GameStats gameStats = new GameStats(guildId, "Foo", uniqueLong(), "Bar",
+                Games.POPCORN, GameInfo.GameMode.WILD, 3);
+        gameStats.setEndTime(System.currentTimeMillis());
+        TeamStats own = new TeamStats(gameStats, alignment, alignment.name(), 2);
+        own.setWinner(won);
+        PlayerStats player = new PlayerStats(own, userId, "Shooty", alignment, Roles.VANILLA);
+        player.restorePosts(posts, postLength);
+        own.addPlayer(player);
+        Alignments otherAlignment = alignment == Alignments.WOLF ? Alignments.VILLAGE : Alignments.WOLF;
+        TeamStats other = new TeamStats(gameStats, otherAlignment, otherAlignment.name(), 1);
+        other.setWinner(!won);
+        long wolfId = uniqueLong();
+        long villagerId = uniqueLong();
+        TeamStats wolves = alignment == Alignments.WOLF ? own : other;
+        TeamStats village = alignment == Alignments.WOLF ? other : own;
+        wolves.addPlayer(new PlayerStats(wolves, wolfId, "Wolfie", Alignments.WOLF, Roles.VANILLA));
+        village.addPlayer(new PlayerStats(village, villagerId, "Villagy", Alignments.VILLAGE, Roles.VANILLA));
+        gameStats.setTeams(List.of(own, other));
+        if (shotAlignment != null) {
+            long target = shotAlignment == Alignments.WOLF ? wolfId : villagerId;
+            gameStats.addAction(new ActionStats(gameStats, 1, System.currentTimeMillis(), System.currentTimeMillis(),
+                    1, Phase.DAY, userId, Actions.SHOOT, target, null));
+        }
+        this.repository.insertGameStats(gameStats).toCompletableFuture().join();
+    }
+
+    @Test
+    void streamPrivacyGamesOfUser_mergesTheActionsOfTheUserIntoTheirGames() {
+        long userId = uniqueLong();
+        insertGameOfUser(userId, Alignments.VILLAGE, true, 1, 10, Alignments.WOLF);
+        insertGameOfUser(userId, Alignments.WOLF, false, 2, 20, null);
+        insertGameOfUser(userId, Alignments.VILLAGE, false, 3, 30, Alignments.VILLAGE);
+        List<PrivacyGame> games = new ArrayList<>();
+
+        int count = this.repository.streamPrivacyGamesOfUser(userId, games::add).toCompletableFuture().join();
+
+        assertThat(count).isEqualTo(3);
+        assertThat(games).extracting(PrivacyGame::getGameId).isSorted();
+        assertThat(games).extracting(PrivacyGame::getTotalPosts).containsExactly(1, 2, 3);
+        assertThat(games).extracting(game -> game.getActions().size()).containsExactly(1, 0, 1);
+        assertThat(games.get(0).getActions()).extracting(PrivacyAction::getType).containsExactly(Actions.SHOOT);
+    }
+
+    @Test
+    void givenNoGames_streamPrivacyGamesOfUser_handsNothingToTheConsumer() {
+        List<PrivacyGame> games = new ArrayList<>();
+
+        int count = this.repository.streamPrivacyGamesOfUser(uniqueLong(), games::add).toCompletableFuture().join();
+
+        assertThat(count).isZero();
+        assertThat(games).isEmpty();
+    }
+
+    @Test
+    void getAggregatedWinStats_countsWinsByPlayerSizeAndInTotal() {
+        long guildId = uniqueLong();
+        insertFinishedGame(guildId, 5, Alignments.VILLAGE);
+        insertFinishedGame(guildId, 5, Alignments.WOLF);
+        insertFinishedGame(guildId, 5, Alignments.VILLAGE);
+        insertFinishedGame(guildId, 8, Alignments.WOLF);
+        insertFinishedGame(uniqueLong(), 8, Alignments.VILLAGE);
+
+        AggregatedWinStats stats = this.repository.getAggregatedWinStats(guildId).toCompletableFuture().join();
+
+        assertThat((BigDecimal) stats.averagePlayerSize()).isEqualByComparingTo("5.75");
+        assertThat(stats.totalWinStats()).isEqualTo(ImmutableWinStats.builder()
+                .playerSize(-1).totalGames(4).goodieWins(2).baddieWins(2).build());
+        assertThat(stats.winStatsByPlayerSize()).containsExactly(
+                ImmutableWinStats.builder().playerSize(5).totalGames(3).goodieWins(2).baddieWins(1).build(),
+                ImmutableWinStats.builder().playerSize(8).totalGames(1).goodieWins(0).baddieWins(1).build()
+        );
+    }
+
+    @Test
+    void givenNoGames_getAggregatedWinStats_isEmpty() {
+        AggregatedWinStats stats = this.repository.getAggregatedWinStats(uniqueLong()).toCompletableFuture().join();
+
+        assertThat((BigDecimal) stats.averagePlayerSize()).isEqualByComparingTo(BigDecimal.ZERO);
+        assertThat(stats.totalWinStats().totalGames()).isZero();
+        assertThat(stats.winStatsByPlayerSize()).isEmpty();
+    }
+
+    @Test
+    void whenInsertGameStats_winStatsOfAllGuildsAreUpdated() {
+        int playerSize = 1000 + (int) (uniqueLong() % 1000); // a player size that no other test records
+        AggregatedWinStats before = this.repository.getAggregatedWinStats(null).toCompletableFuture().join();
+
+        insertFinishedGame(uniqueLong(), playerSize, Alignments.VILLAGE);
+        insertFinishedGame(uniqueLong(), playerSize, Alignments.WOLF);
+
+        AggregatedWinStats after = this.repository.getAggregatedWinStats(null).toCompletableFuture().join();
+        assertThat(after.totalWinStats().goodieWins()).isEqualTo(before.totalWinStats().goodieWins() + 1);
+        assertThat(after.totalWinStats().baddieWins()).isEqualTo(before.totalWinStats().baddieWins() + 1);
+        assertThat(after.winStatsByPlayerSize()).contains(ImmutableWinStats.builder()
+                .playerSize(playerSize).totalGames(2).goodieWins(1).baddieWins(1).build());
+    }
+
+    @Test
+    void createActionPartitions_createsTheCurrentAndUpcomingPartitionsOnce() {
+        long partitionSize = StatsActionPartitions.PARTITION_SIZE;
+        long currentRange = this.repository.createActionPartitions(partitionSize, 2).toCompletableFuture().join();
+        List<Long> partitions = this.repository.findUnarchivedActionPartitions().toCompletableFuture().join();
+
+        assertThat(this.repository.createActionPartitions(partitionSize, 2).toCompletableFuture().join())
+                .isEqualTo(currentRange);
+        assertThat(partitions).contains(currentRange, currentRange + 1, currentRange + 2);
+        assertThat(this.repository.findUnarchivedActionPartitions().toCompletableFuture().join())
+                .isEqualTo(partitions);
+    }
+
+    @Test
+    void givenActionsInTheDefaultPartition_whenCreateActionPartitions_moveThemIntoTheirPartition() {
+        long partitionSize = StatsActionPartitions.PARTITION_SIZE;
+        long currentRange = this.repository.createActionPartitions(partitionSize, 2).toCompletableFuture().join();
+        long range = currentRange + 10;
+        long gameId = range * partitionSize + 1;
+        this.database.getJooq().transactionResult(config -> {
+            DSL.using(config).insertInto(STATS_GAME)
+                    .columns(STATS_GAME.GAME_ID, STATS_GAME.CHANNEL_ID, STATS_GAME.CHANNEL_NAME, STATS_GAME.END_TIME,
+                            STATS_GAME.GAME_MODE, STATS_GAME.GAME_TYPE, STATS_GAME.GUILD_ID, STATS_GAME.GUILD_NAME,
+                            STATS_GAME.START_TIME, STATS_GAME.PLAYER_SIZE)
+                    .values(gameId, uniqueLong(), "Bar", System.currentTimeMillis(), GameInfo.GameMode.LITE.name(),
+                            Games.MAFIA.name(), uniqueLong(), "Foo", System.currentTimeMillis(), 1)
+                    .execute();
+            return DSL.using(config).insertInto(STATS_ACTION)
+                    .columns(STATS_ACTION.ACTION_TYPE, STATS_ACTION.ACTOR, STATS_ACTION.CYCLE, STATS_ACTION.SEQUENCE,
+                            STATS_ACTION.TARGET, STATS_ACTION.HAPPENED, STATS_ACTION.SUBMITTED, STATS_ACTION.GAME_ID,
+                            STATS_ACTION.PHASE)
+                    .values(Actions.GAMESTART.name(), -1L, 0, 1, -1L, System.currentTimeMillis(),
+                            System.currentTimeMillis(), gameId, Phase.NIGHT.name())
+                    .execute();
+        });
+        assertThat(this.repository.findUnarchivedActionPartitions().toCompletableFuture().join()).doesNotContain(range);
+
+        this.repository.createActionPartitions(partitionSize, 10).toCompletableFuture().join();
+
+        assertThat(this.repository.findUnarchivedActionPartitions().toCompletableFuture().join()).contains(range);
+        int inPartition = this.database.getJooq().transactionResult(config -> DSL.using(config)
+                .fetchCount(DSL.table(DSL.name("stats_action_" + range))));
+        assertThat(inPartition).isEqualTo(1);
+        assertThat(this.repository.findGameStats(gameId).toCompletableFuture().join().orElseThrow().getActions())
+                .hasSize(1);
+    }
+
+    private void insertFinishedGame(long guildId, int playerSize, Alignments winner) {
+        GameStats gameStats = new GameStats(guildId, "Foo", uniqueLong(), "Bar",
+                Games.MAFIA, GameInfo.GameMode.LITE, playerSize);
+        gameStats.setEndTime(System.currentTimeMillis());
+        TeamStats wolves = new TeamStats(gameStats, Alignments.WOLF, "Wolves", 1);
+        wolves.setWinner(winner == Alignments.WOLF);
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", playerSize - 1);
+        village.setWinner(winner == Alignments.VILLAGE);
+        gameStats.setTeams(List.of(wolves, village));
+        this.repository.insertGameStats(gameStats).toCompletableFuture().join();
+    }
+
+    private GameStats gameStats(int playerSize, int actionCount) {
+        GameStats gameStats = new GameStats(uniqueLong(), "Foo", uniqueLong(), "Bar",
+                Games.MAFIA, GameInfo.GameMode.LITE, playerSize);
+        gameStats.setEndTime(System.currentTimeMillis());
+        TeamStats wolves = new TeamStats(gameStats, Alignments.WOLF, "Wolves", 1);
+        wolves.addPlayer(new PlayerStats(wolves, uniqueLong(), "Wolfie", Alignments.WOLF, Roles.VANILLA));
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", playerSize - 1);
+        village.setWinner(true);
+        for (int i = 1; i < playerSize; i++) {
+            village.addPlayer(new PlayerStats(village, uniqueLong(), "Villager " + i, Alignments.VILLAGE, Roles.VANILLA));
+        }
+        gameStats.setTeams(List.of(wolves, village));
+        for (int i = 1; i <= actionCount; i++) {
+            gameStats.addAction(new ActionStats(gameStats, i, System.currentTimeMillis(), System.currentTimeMillis(),
+                    1, Phase.DAY, uniqueLong(), Actions.VOTELYNCH, uniqueLong(), null));
+        }
+        return gameStats;
+    }
+
+    //actions that were streamed in, ordered after the ones that are still in memory
+    private List<ActionStats> pendingActions(GameStats gameStats, int count) {
+        List<ActionStats> actions = new ArrayList<>();
+        int offset = gameStats.getActions().size();
+        for (int i = 1; i <= count; i++) {
+            actions.add(new ActionStats(gameStats, offset + i, System.currentTimeMillis(), System.currentTimeMillis(),
+                    1, Phase.NIGHT, uniqueLong(), Actions.VOTENIGHTKILL, uniqueLong(), null));
+        }
+        return actions;
+    }
+
+    //reads on a connection of its own, so only committed rows are seen
+    private int countPendingActions(GameStats gameStats) {
+        return this.database.getJooq().transactionResult(config -> DSL.using(config)
+                .fetchCount(STATS_ACTION_PENDING, STATS_ACTION_PENDING.CHANNEL_ID.eq(gameStats.getChannelId())
+                        .and(STATS_ACTION_PENDING.GAME_START.eq(gameStats.getStartTime()))));
+    }
+
+    private long totalQueries() {
+        QueryCount queryCount = this.queryCountHolder.getQueryCountMap().get("postgres");
+        return queryCount == null ? 0 : queryCount.getTotal();
+    }
+
     private Consumer<TeamStats> isTeam(TeamStats teamStats, long gameId) {
         return actual -> {
             assertThat(actual.getTeamId()).isPresent();
@@ -18,6 +18,9 @@
 package space.npstr.wolfia.domain.stats;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import space.npstr.wolfia.ApplicationTest;
@@ -42,7 +45,7 @@ void whenAnonymize_playerNameIsAnonymized() {
         PlayerStats playerStats = new PlayerStats(village, uniqueLong(), "Player McPlayerface", Alignments.VILLAGE, Roles.COP);
         village.addPlayer(playerStats);
         gameStats.setTeams(List.of(village));
-        gameStats = statsService.recordGameStats(gameStats);
+        gameStats = record(gameStats);
 
         PlayerStats player = gameStats.getStartingTeams().stream().findAny().orElseThrow()
                 .getPlayers().stream().findAny().orElseThrow();
@@ -57,4 +60,67 @@ void whenAnonymize_playerNameIsAnonymized() {
         assertThat(player.getNickname()).isNull();
     }
 
+    @Test
+    void whenAnonymize_playerIsTakenOffTheLeaderboards() {
+        long guildId = uniqueLong();
+        GameStats gameStats = record(villageWin(guildId));
+        long userId = gameStats.getStartingTeams().stream().findAny().orElseThrow()
+                .getPlayers().stream().findAny().orElseThrow()
+                .getUserId();
+        assertThat(leaderboard(guildId)).containsExactly(userId);
+
+        statsService.anonymize(userId);
+
+        assertThat(leaderboard(guildId)).isEmpty();
+        assertThat(leaderboard(null)).doesNotContain(userId);
+    }
+
+    @Test
+    void givenCachedGuildStats_onlyGamesRecordedInThatGuildRefreshThem() {
+        long guildId = uniqueLong();
+        assertThat(statsService.getGuildStats(guildId).totalWinStats().totalGames()).isZero();
+
+        record(villageWin(guildId));
+        assertThat(statsService.getGuildStats(guildId).totalWinStats().totalGames()).isEqualTo(1);
+
+        //not recorded through the service, so nobody tells the cache about it
+        statsRepository.insertGameStats(villageWin(guildId)).toCompletableFuture().join();
+        record(villageWin(uniqueLong()));
+        assertThat(statsService.getGuildStats(guildId).totalWinStats().totalGames()).isEqualTo(1);
+
+        record(villageWin(guildId));
+        assertThat(statsService.getGuildStats(guildId).totalWinStats().totalGames()).isEqualTo(3);
+    }
+
+    @Test
+    void givenCachedBotStats_whenGameRecorded_botStatsAreRefreshed() {
+        long before = statsService.getBotStats().totalWinStats().totalGames();
+
+        record(villageWin(uniqueLong()));
+
+        assertThat(statsService.getBotStats().totalWinStats().totalGames()).isGreaterThan(before);
+    }
+
+    private List<Long> leaderboard(@Nullable Long guildId) {
+        return statsRepository.getLeaderboard(Leaderboard.WINS, guildId, 0, 100)
+                .toCompletableFuture().join().stream()
+                .map(LeaderboardEntry::userId)
+                .collect(Collectors.toList());
+    }
+
+    private GameStats record(GameStats gameStats) {
+        return statsService.submitGameStats(gameStats)
+                .orTimeout(30, TimeUnit.SECONDS)
+                .join();
+    }
+
+    private GameStats villageWin(long guildId) {
+        GameStats gameStats = new GameStats(guildId, "Foo", uniqueLong(), "Bar", Games.POPCORN, GameInfo.GameMode.WILD, 1);
+        TeamStats village = new TeamStats(gameStats, Alignments.VILLAGE, "Village", 1);
+        village.setWinner(true);
+        village.addPlayer(new PlayerStats(village, uniqueLong(), "Player McPlayerface", Alignments.VILLAGE, Roles.COP));
+        gameStats.setTeams(List.of(village));
+        return gameStats;
+    }
+
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.tools;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import space.npstr.wolfia.utils.UserFriendlyException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+
+class StartSequenceTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final List<String> rolledBack = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void stagesRunConcurrently() {
+        StartSequence sequence = new StartSequence("test", uniqueLong(), this.executor);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        CompletableFuture<String> first = sequence.stage("first", TIMEOUT, () -> awaitOther(bothStarted, "first"));
+        CompletableFuture<String> second = sequence.stage("second", TIMEOUT, () -> awaitOther(bothStarted, "second"));
+        sequence.finish(CompletableFuture.allOf(first, second), () -> {
+        }).join();
+
+        assertThat(first.join()).isEqualTo("first");
+        assertThat(second.join()).isEqualTo("second");
+    }
+
+    @Test
+    void whenStageFails_rollBackCompletedStagesInReverseOrder() {
+        StartSequence sequence = new StartSequence("test", uniqueLong(), this.executor);
+
+        CompletableFuture<String> first = sequence.stage("first", TIMEOUT, () -> "first", this.rolledBack::add);
+        CompletableFuture<String> second = sequence.stage("second", TIMEOUT, () -> "second", this.rolledBack::add);
+        CompletableFuture<String> failing = sequence.stage("failing", TIMEOUT, () -> {
+            throw new UserFriendlyException("nope");
+        }, this.rolledBack::add);
+
+        assertThatThrownBy(() -> sequence.finish(CompletableFuture.allOf(first, second, failing), () -> {
+        }).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UserFriendlyException.class)
+                .hasMessageContaining("nope");
+        assertThat(this.rolledBack).containsExactly("second", "first");
+    }
+
+    @Test
+    void whenFinishFails_rollBack() {
+        StartSequence sequence = new StartSequence("test", uniqueLong(), this.executor);
+
+        CompletableFuture<String> first = sequence.stage("first", TIMEOUT, () -> "first", this.rolledBack::add);
+        CompletableFuture<Void> finished = sequence.finish(first, () -> {
+            throw new IllegalStateException("nope");
+        });
+
+        assertThatThrownBy(finished::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(this.rolledBack).containsExactly("first");
+    }
+
+    @Test
+    void finishDoesNotWaitForStages() {
+        StartSequence sequence = new StartSequence("test", uniqueLong(), this.executor);
+        CompletableFuture<String> reservation = new CompletableFuture<>();
+        List<String> finished = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> tracked = sequence.track("reservation", TIMEOUT, reservation);
+        CompletableFuture<Void> done = sequence.finish(tracked, () -> finished.add(tracked.join()));
+
+        assertThat(done).isNotDone();
+        reservation.complete("room");
+        done.join();
+        assertThat(finished).containsExactly("room");
+    }
+
+    @Test
+    void whenStageTimesOut_failUserFriendlyAndRollBackLateResult() {
+        StartSequence sequence = new StartSequence("test", uniqueLong(), this.executor);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> slow = sequence.stage("slow", Duration.ofMillis(100), () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "slow";
+        }, this.rolledBack::add);
+
+        assertThatThrownBy(() -> sequence.finish(slow, () -> {
+        }).join())
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(UserFriendlyException.class);
+        assertThat(this.rolledBack).isEmpty();
+
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).untilAsserted(() ->
+                assertThat(this.rolledBack).containsExactly("slow"));
+    }
+
+    @Test
+    void whenAnnounced_noRollback() {
+        StartSequence sequence = new StartSequence("test", uniqueLong(), this.executor);
+
+        sequence.finish(sequence.stage("first", TIMEOUT, () -> "first", this.rolledBack::add), sequence::announced)
+                .join();
+        sequence.rollback();
+
+        assertThat(this.rolledBack).isEmpty();
+    }
+
+    private String awaitOther(CountDownLatch bothStarted, String result) {
+        bothStarted.countDown();
+        try {
+            assertThat(bothStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return result;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.game.tools;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import net.dv8tion.jda.api.entities.MessageEmbed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class VoteCountRendererTest {
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final List<MessageEmbed> edits = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    void whenNothingChanged_skipEdit() {
+        VoteCountRenderer renderer = renderer(votingBuilder(TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(1)), 0);
+
+        renderer.requestRender();
+        renderer.requestRender();
+        renderer.requestRender();
+
+        assertThat(this.edits).hasSize(1);
+        assertThat(renderer.getSkipped()).isEqualTo(2);
+    }
+
+    @Test
+    void whenVotesChanged_edit() {
+        VoteCountRenderer renderer = renderer(votingBuilder(TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(1)), 0);
+
+        renderer.requestRender();
+        renderer.markDirty();
+
+        assertThat(this.edits).hasSize(2);
+        assertThat(renderer.getSkipped()).isZero();
+    }
+
+    @Test
+    void whenCountdownCrossesStep_edit() {
+        VoteCountRenderer renderer = renderer(votingBuilder(TimeUnit.SECONDS.toMillis(2), TimeUnit.SECONDS.toMillis(1)), 0);
+
+        renderer.requestRender();
+        await().atMost(3, TimeUnit.SECONDS).untilAsserted(() -> {
+            renderer.requestRender();
+            assertThat(this.edits).hasSizeGreaterThan(1);
+        });
+    }
+
+    @Test
+    void whenChangedWithinMinInterval_coalesceEdits() {
+        VoteCountRenderer renderer = renderer(votingBuilder(TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(1)), 500);
+
+        renderer.requestRender();
+        renderer.markDirty();
+        renderer.markDirty();
+        renderer.markDirty();
+
+        assertThat(this.edits).hasSize(1);
+        await().atMost(2, TimeUnit.SECONDS).until(() -> this.edits.size() == 2);
+        assertThat(renderer.getSkipped()).isEqualTo(2);
+    }
+
+    @Test
+    void whenClosed_dropPendingEdit() throws InterruptedException {
+        VoteCountRenderer renderer = renderer(votingBuilder(TimeUnit.HOURS.toMillis(1), TimeUnit.DAYS.toMillis(1)), 200);
+
+        renderer.requestRender();
+        renderer.markDirty();
+        renderer.close();
+        renderer.markDirty();
+
+        Thread.sleep(500);
+        assertThat(this.edits).hasSize(1);
+    }
+
+    private VotingBuilder votingBuilder(long timeLeftMillis, long countdownStepMillis) {
+        return new VotingBuilder()
+                .endTime(System.currentTimeMillis() + timeLeftMillis)
+                .countdownStep(countdownStepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private VoteCountRenderer renderer(VotingBuilder votingBuilder, long minEditIntervalMillis) {
+        return new VoteCountRenderer(votingBuilder, Collections::emptyMap, this.edits::add, this.executor,
+                minEditIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+}
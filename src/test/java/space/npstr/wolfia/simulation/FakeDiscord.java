@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.simulation;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import net.dv8tion.jda.api.JDA;
+import net.dv8tion.jda.api.entities.ChannelType;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.Member;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.entities.SelfUser;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.entities.User;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import net.dv8tion.jda.api.requests.RestAction;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * A Discord that lives in memory. Every rest action succeeds instantly, every permission is granted, and entities that
+ * are not explicitly set up are stand-ins that return empty values. Guilds, channels, members and users that the
+ * simulated games look up by id are consistent, so that games can tell players and channels apart.
+ * <p>
+ * All fakes are stub only mocks, so they don't record their invocations and can be used by thousands of games at once.
+ */
+public class FakeDiscord {
+
+    private final long selfUserId;
+    private final ShardManager shardManager;
+    private final JDA jda;
+
+    private final Map<Long, Guild> guilds = new ConcurrentHashMap<>();
+    private final Map<Long, TextChannel> textChannels = new ConcurrentHashMap<>();
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+    private final Map<String, MessageReceivedEvent> events = new ConcurrentHashMap<>();
+    private final Map<Type, Object> standIns = new ConcurrentHashMap<>();
+
+    // message sink
+    private final LongAdder sentMessages = new LongAdder();
+    private final LongAdder editedMessages = new LongAdder();
+    private final LongAdder restActions = new LongAdder();
+
+    public FakeDiscord(long selfUserId) {
+        this.selfUserId = selfUserId;
+        this.jda = fake(JDA.class);
+        this.shardManager = fake(ShardManager.class);
+
+        SelfUser selfUser = fake(SelfUser.class);
+        doReturn(selfUserId).when(selfUser).getIdLong();
+        doReturn(selfUser).when(this.jda).getSelfUser();
+        doReturn(JDA.Status.CONNECTED).when(this.jda).getStatus();
+        doReturn(List.of(this.jda)).when(this.shardManager).getShards();
+        doReturn(this.shardManager).when(this.jda).getShardManager();
+
+        doAnswer(invocation -> guild(invocation.getArgument(0)))
+                .when(this.shardManager).getGuildById(anyLong());
+        doAnswer(invocation -> textChannel(invocation.getArgument(0)))
+                .when(this.shardManager).getTextChannelById(anyLong());
+        doAnswer(invocation -> user(invocation.getArgument(0)))
+                .when(this.shardManager).getUserById(anyLong());
+    }
+
+    public ShardManager getShardManager() {
+        return this.shardManager;
+    }
+
+    public JDA getJda() {
+        return this.jda;
+    }
+
+    public long getSelfUserId() {
+        return this.selfUserId;
+    }
+
+    public long getSentMessages() {
+        return this.sentMessages.sum();
+    }
+
+    public long getEditedMessages() {
+        return this.editedMessages.sum();
+    }
+
+    public long getRestActions() {
+        return this.restActions.sum();
+    }
+
+    public Guild guild(long guildId) {
+        return this.guilds.computeIfAbsent(guildId, id -> {
+            Guild guild = fake(Guild.class);
+            doReturn(id).when(guild).getIdLong();
+            doReturn(Long.toString(id)).when(guild).getId();
+            doReturn("Simulated Guild " + id).when(guild).getName();
+            doReturn(this.jda).when(guild).getJDA();
+            doAnswer(invocation -> member(guild, invocation.getArgument(0)))
+                    .when(guild).getMemberById(anyLong());
+            return guild;
+        });
+    }
+
+    /**
+     * @return the text channel with that id. Channels that have not been created through
+     * {@link #textChannel(long, long)} are placed in a guild with the same id.
+     */
+    public TextChannel textChannel(long channelId) {
+        return textChannel(channelId, channelId);
+    }
+
+    public TextChannel textChannel(long channelId, long guildId) {
+        return this.textChannels.computeIfAbsent(channelId, id -> {
+            TextChannel channel = fake(TextChannel.class);
+            doReturn(id).when(channel).getIdLong();
+            doReturn(Long.toString(id)).when(channel).getId();
+            doReturn("simulated-" + id).when(channel).getName();
+            doReturn(ChannelType.TEXT).when(channel).getType();
+            doReturn(guild(guildId)).when(channel).getGuild();
+            doReturn(this.jda).when(channel).getJDA();
+            return channel;
+        });
+    }
+
+    public User user(long userId) {
+        return this.users.computeIfAbsent(userId, id -> {
+            User user = fake(User.class);
+            doReturn(id).when(user).getIdLong();
+            doReturn(Long.toString(id)).when(user).getId();
+            doReturn("Player " + id).when(user).getName();
+            doReturn("<@" + id + ">").when(user).getAsMention();
+            doReturn(false).when(user).isBot();
+            doReturn(this.jda).when(user).getJDA();
+            return user;
+        });
+    }
+
+    public Member member(Guild guild, long userId) {
+        return this.members.computeIfAbsent(guild.getIdLong() + ":" + userId, key -> {
+            Member member = fake(Member.class);
+            User user = user(userId);
+            doReturn(userId).when(member).getIdLong();
+            doReturn(user).when(member).getUser();
+            doReturn(guild).when(member).getGuild();
+            doReturn(user.getName()).when(member).getEffectiveName();
+            doReturn(user.getAsMention()).when(member).getAsMention();
+            doReturn(false).when(member).isOwner();
+            doReturn(this.jda).when(member).getJDA();
+            return member;
+        });
+    }
+
+    /**
+     * @return an event of a message that the user posted in the channel, to build command contexts from
+     */
+    public MessageReceivedEvent messageReceived(TextChannel channel, long userId) {
+        return this.events.computeIfAbsent(channel.getIdLong() + ":" + userId, key -> {
+            MessageReceivedEvent event = fake(MessageReceivedEvent.class);
+            Message message = fake(Message.class);
+            User author = user(userId);
+            Member member = member(channel.getGuild(), userId);
+            doReturn(channel).when(message).getChannel();
+            doReturn(channel).when(message).getTextChannel();
+            doReturn(author).when(message).getAuthor();
+            doReturn(List.of()).when(message).getMentionedUsers();
+            doReturn(channel).when(event).getChannel();
+            doReturn(channel).when(event).getTextChannel();
+            doReturn(author).when(event).getAuthor();
+            doReturn(member).when(event).getMember();
+            doReturn(message).when(event).getMessage();
+            doReturn(channel.getGuild()).when(event).getGuild();
+            doReturn(true).when(event).isFromGuild();
+            doReturn(this.jda).when(event).getJDA();
+            return event;
+        });
+    }
+
+    private <T> T fake(Class<T> clazz) {
+        return fake(clazz, null);
+    }
+
+    private <T> T fake(Class<T> clazz, @Nullable Type restActionResult) {
+        return mock(clazz, withSettings()
+                .stubOnly()
+                .defaultAnswer(new InstantAnswer(restActionResult)));
+    }
+
+    // reuse stand-ins, they hold no state
+    private Object standIn(Type type, Class<?> clazz) {
+        return this.standIns.computeIfAbsent(type, t -> fake(clazz, restActionResult(t, Map.of())));
+    }
+
+    /**
+     * Every rest action succeeds right away; anything else returns a value that lets the code under test carry on.
+     */
+    private class InstantAnswer implements Answer<Object> {
+
+        @Nullable
+        private final Type restActionResult;
+
+        private InstantAnswer(@Nullable Type restActionResult) {
+            this.restActionResult = restActionResult;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Object answer(InvocationOnMock invocation) {
+            Method method = invocation.getMethod();
+            Object mock = invocation.getMock();
+            String name = method.getName();
+
+            if (mock instanceof RestAction) {
+                switch (name) {
+                    case "queue":
+                        FakeDiscord.this.restActions.increment();
+                        Object[] arguments = invocation.getArguments();
+                        if (arguments.length > 0 && arguments[0] != null) {
+                            ((Consumer<Object>) arguments[0]).accept(value(this.restActionResult));
+                        }
+                        return null;
+                    case "complete":
+                        FakeDiscord.this.restActions.increment();
+                        return value(this.restActionResult);
+                    case "submit":
+                        FakeDiscord.this.restActions.increment();
+                        return CompletableFuture.completedFuture(value(this.restActionResult));
+                    default:
+                        //builder style methods like reason(), setName() return the action itself
+                        if (method.getReturnType().isInstance(mock)) {
+                            return mock;
+                        }
+                }
+            }
+
+            if (name.equals("sendMessage")) {
+                FakeDiscord.this.sentMessages.increment();
+            } else if (name.startsWith("editMessage")) {
+                FakeDiscord.this.editedMessages.increment();
+            }
+            return value(method.getGenericReturnType());
+        }
+    }
+
+    @Nullable
+    private Object value(@Nullable Type type) {
+        if (type == null) {
+            return null;
+        }
+        Class<?> clazz;
+        if (type instanceof Class) {
+            clazz = (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            clazz = (Class<?>) ((ParameterizedType) type).getRawType();
+        } else {
+            return null; //type variables and wildcards
+        }
+
+        if (clazz == void.class || clazz == Void.class) return null;
+        if (clazz == boolean.class || clazz == Boolean.class) return true;
+        if (clazz == long.class || clazz == Long.class) return 0L;
+        if (clazz == int.class || clazz == Integer.class) return 0;
+        if (clazz == double.class || clazz == Double.class) return 0.0;
+        if (clazz == float.class || clazz == Float.class) return 0.0f;
+        if (clazz == short.class || clazz == Short.class) return (short) 0;
+        if (clazz == byte.class || clazz == Byte.class) return (byte) 0;
+        if (clazz == char.class || clazz == Character.class) return '\0';
+        if (clazz == String.class || clazz == CharSequence.class) return "";
+        if (clazz == List.class || clazz == Collection.class) return List.of();
+        if (clazz == Set.class) return Set.of();
+        if (clazz == Map.class) return Map.of();
+        if (clazz == Optional.class) return Optional.empty();
+        if (clazz == Stream.class) return Stream.empty();
+        if (clazz == ShardManager.class) return this.shardManager;
+        if (clazz == JDA.class) return this.jda;
+        if (clazz.isPrimitive() || clazz.isArray() || clazz.isEnum()
+                || clazz.getName().startsWith("java.") || Modifier.isFinal(clazz.getModifiers())) {
+            return null;
+        }
+        return standIn(type, clazz);
+    }
+
+    /**
+     * @return the type of the result of a rest action type, for example Message for a MessageAction, or null if it
+     * can't be resolved
+     */
+    @Nullable
+    private static Type restActionResult(Type type, Map<TypeVariable<?>, Type> bindings) {
+        if (type instanceof TypeVariable) {
+            return bindings.get(type);
+        }
+        Class<?> clazz;
+        Map<TypeVariable<?>, Type> clazzBindings = new HashMap<>();
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            clazz = (Class<?>) parameterized.getRawType();
+            Type[] arguments = parameterized.getActualTypeArguments();
+            TypeVariable<?>[] parameters = clazz.getTypeParameters();
+            for (int i = 0; i < parameters.length; i++) {
+                Type argument = arguments[i] instanceof TypeVariable ? bindings.get(arguments[i]) : arguments[i];
+                if (argument != null) {
+                    clazzBindings.put(parameters[i], argument);
+                }
+            }
+        } else if (type instanceof Class) {
+            clazz = (Class<?>) type;
+        } else {
+            return null;
+        }
+
+        if (!RestAction.class.isAssignableFrom(clazz)) {
+            return null;
+        }
+        if (clazz == RestAction.class) {
+            return clazzBindings.get(RestAction.class.getTypeParameters()[0]);
+        }
+        for (Type superType : clazz.getGenericInterfaces()) {
+            Type result = restActionResult(superType, clazzBindings);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.simulation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import net.dv8tion.jda.api.entities.TextChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import space.npstr.wolfia.BotContext;
+import space.npstr.wolfia.Launcher;
+import space.npstr.wolfia.config.properties.WolfiaConfig;
+import space.npstr.wolfia.domain.UserCache;
+import space.npstr.wolfia.domain.game.GameJournal;
+import space.npstr.wolfia.domain.game.GameJournalRepository;
+import space.npstr.wolfia.domain.game.GameRegistry;
+import space.npstr.wolfia.domain.oauth2.OAuth2Service;
+import space.npstr.wolfia.domain.room.PrivateRoom;
+import space.npstr.wolfia.domain.room.PrivateRoomQueue;
+import space.npstr.wolfia.domain.room.PrivateRoomService;
+import space.npstr.wolfia.domain.settings.ChannelSettingsService;
+import space.npstr.wolfia.domain.stats.ActionStats;
+import space.npstr.wolfia.domain.stats.GameStats;
+import space.npstr.wolfia.domain.stats.StatsService;
+import space.npstr.wolfia.game.Game;
+import space.npstr.wolfia.game.GameInfo.GameMode;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.mafia.Mafia;
+import space.npstr.wolfia.game.popcorn.Popcorn;
+import space.npstr.wolfia.game.tools.ExceptionLoggingExecutor;
+import space.npstr.wolfia.system.EntityResolver;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+
+/**
+ * Plays seeded Mafia and Popcorn games against a {@link FakeDiscord} and reports how the bot copes with them. No
+ * database, Discord or network access is needed.
+ * <p>
+ * This is not part of the regular test run, start it with {@code ./gradlew simulate}. Options are passed as project
+ * properties, for example {@code ./gradlew simulate -Psimulation.games=2000 -Psimulation.seed=7}
+ * <p>
+ * Games run on the wall clock with their regular timers, all of them at the same time, so a run takes about as long as
+ * the longest game.
+ */
+@Tag("simulation")
+class GameSimulationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(GameSimulationTest.class);
+
+    private static final int GAMES = Integer.getInteger("simulation.games", 500);
+    private static final long SEED = Long.getLong("simulation.seed", 42L);
+    private static final Duration DAY_LENGTH = Duration.ofSeconds(Long.getLong("simulation.dayLengthSeconds", 60L));
+    private static final Duration TIMEOUT = Duration.ofMinutes(Long.getLong("simulation.timeoutMinutes", 30L));
+    private static final Duration TICK = Duration.ofSeconds(2);
+
+    private final Object previousBotContext = ReflectionTestUtils.getField(Launcher.class, "botContext");
+    private final ExceptionLoggingExecutor executor = new ExceptionLoggingExecutor(100, "simulation-executor");
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+        ReflectionTestUtils.setField(Launcher.class, "botContext", this.previousBotContext);
+    }
+
+    @Test
+    void simulate() throws Exception {
+        FakeDiscord discord = new FakeDiscord(uniqueLong());
+        GameRegistry gameRegistry = new GameRegistry();
+        SimulationReport report = new SimulationReport();
+        installBotContext(discord, gameRegistry, report);
+        SimulatedCommands commands = new SimulatedCommands();
+
+        log.info("Simulating {} games with seed {}", GAMES, SEED);
+        report.begin();
+        List<SimulatedGame> games = new ArrayList<>();
+        for (int i = 0; i < GAMES; i++) {
+            Random random = new Random(SEED + i);
+            SimulatedGame game = startGame(i, random, discord, commands, gameRegistry, report);
+            if (game != null) {
+                games.add(game);
+            }
+        }
+        report.allStarted(games.size());
+
+        ScheduledExecutorService driver = Executors.newSingleThreadScheduledExecutor();
+        driver.scheduleAtFixedRate(() -> games.forEach(game -> {
+            try {
+                game.tick();
+            } catch (Exception e) {
+                log.warn("Simulated player failed to act in game {}", game.getGame().getChannelId(), e);
+            }
+        }), TICK.toMillis(), TICK.toMillis(), TimeUnit.MILLISECONDS);
+
+        try {
+            await().atMost(TIMEOUT)
+                    .pollInterval(Duration.ofSeconds(1))
+                    .until(() -> gameRegistry.getRunningGamesCount() == 0);
+        } finally {
+            driver.shutdownNow();
+            report.finish();
+            log.info(report.format(discord));
+        }
+
+        assertThat(report.getFailedStarts()).isZero();
+        assertThat(report.getEndedGames()).isEqualTo(games.size());
+    }
+
+    private SimulatedGame startGame(int index, Random random, FakeDiscord discord, SimulatedCommands commands,
+                                    GameRegistry gameRegistry, SimulationReport report) {
+        final Games gameType;
+        final GameMode mode;
+        final int playerCount;
+        switch (index % 4) {
+            case 0:
+                gameType = Games.MAFIA;
+                mode = GameMode.LITE;
+                playerCount = 9 + random.nextInt(6);
+                break;
+            case 1:
+                gameType = Games.MAFIA;
+                mode = GameMode.XMAS;
+                playerCount = 7 + random.nextInt(8);
+                break;
+            case 2:
+                gameType = Games.POPCORN;
+                mode = GameMode.WILD;
+                playerCount = 3 + random.nextInt(10);
+                break;
+            default:
+                gameType = Games.POPCORN;
+                mode = GameMode.CLASSIC;
+                playerCount = 3 + random.nextInt(10);
+                break;
+        }
+
+        TextChannel channel = discord.textChannel(uniqueLong(), uniqueLong());
+        List<Long> userIds = new ArrayList<>();
+        //the order of the players going into the role assignment depends on their ids, so they come from the seed too
+        for (int i = 0; i < playerCount; i++) {
+            userIds.add(random.nextLong() & Long.MAX_VALUE);
+        }
+
+        Game game = gameType == Games.MAFIA ? new Mafia() : new Popcorn();
+        game.setDayLength(DAY_LENGTH);
+        //a random of its own, so that the draws of the game don't depend on how they interleave with the players
+        game.setRandom(new Random(random.nextLong()));
+        long started = System.nanoTime();
+        try {
+            CompletableFuture<Void> starting = game.start(channel.getIdLong(), mode, new HashSet<>(userIds));
+            gameRegistry.set(game);
+            starting.join();
+            report.gameStarted(System.nanoTime() - started);
+            SimulatedGame simulatedGame = new SimulatedGame(game, gameType, channel, random, commands, discord, report);
+            simulatedGame.seated(userIds);
+            return simulatedGame;
+        } catch (Exception e) {
+            log.error("Failed to start simulated {} {} game with {} players", gameType.textRep, mode.textRep,
+                    playerCount, e);
+            report.gameFailedToStart();
+            gameRegistry.remove(game);
+            game.cleanUp();
+            return null;
+        }
+    }
+
+    // games access their dependencies statically through the bot context
+    private void installBotContext(FakeDiscord discord, GameRegistry gameRegistry, SimulationReport report) {
+        BotContext botContext = mock(BotContext.class);
+        when(botContext.getShardManager()).thenReturn(discord.getShardManager());
+        when(botContext.getEntityResolver()).thenReturn(new EntityResolver(discord.getShardManager()));
+        when(botContext.getExecutor()).thenReturn(this.executor);
+        when(botContext.getGameRegistry()).thenReturn(gameRegistry);
+        when(botContext.getUserCache()).thenReturn(new UserCache());
+        when(botContext.getWolfiaConfig()).thenReturn(mock(WolfiaConfig.class));
+        when(botContext.getChannelSettingsService()).thenReturn(mock(ChannelSettingsService.class));
+        when(botContext.getoAuth2Service()).thenReturn(mock(OAuth2Service.class));
+
+        //enough private rooms that no game has to wait for one
+        PrivateRoomQueue privateRoomQueue = new PrivateRoomQueue(mock(PrivateRoomService.class));
+        for (int i = 1; i <= GAMES; i++) {
+            privateRoomQueue.add(new PrivateRoom(uniqueLong(), i));
+        }
+        when(botContext.getPrivateRoomQueue()).thenReturn(privateRoomQueue);
+
+        //the journal serializes game states like in production, it just doesn't store them anywhere
+        GameJournalRepository journalRepository = mock(GameJournalRepository.class);
+        when(journalRepository.write(any())).thenReturn(CompletableFuture.completedFuture(null));
+        when(botContext.getGameJournal()).thenReturn(new GameJournal(journalRepository, this.executor));
+
+        //keep the actions in memory instead of streaming them into the database
+        StatsService statsService = mock(StatsService.class);
+        doAnswer(invocation -> {
+            ActionStats action = invocation.getArgument(0);
+            action.getGame().addAction(action);
+            return null;
+        }).when(statsService).recordAction(any());
+        AtomicLong gameIds = new AtomicLong();
+        when(statsService.submitGameStats(any())).thenAnswer(invocation -> {
+            GameStats gameStats = invocation.getArgument(0);
+            gameStats.setGameId(gameIds.incrementAndGet());
+            report.gameEnded(gameStats);
+            return CompletableFuture.completedFuture(gameStats);
+        });
+        when(botContext.getStatsService()).thenReturn(statsService);
+
+        ReflectionTestUtils.setField(Launcher.class, "botContext", botContext);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.simulation;
+
+import space.npstr.wolfia.commands.BaseCommand;
+import space.npstr.wolfia.commands.ingame.NightkillCommand;
+import space.npstr.wolfia.commands.ingame.ShootCommand;
+import space.npstr.wolfia.commands.ingame.VoteCommand;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The games only look at the type of a command, so stand-ins of the in-game commands are enough.
+ */
+class SimulatedCommands {
+
+    private final VoteCommand vote = command(VoteCommand.class, VoteCommand.TRIGGER);
+    private final NightkillCommand nightkill = command(NightkillCommand.class, NightkillCommand.TRIGGER);
+    private final ShootCommand shoot = command(ShootCommand.class, ShootCommand.TRIGGER);
+
+    VoteCommand vote() {
+        return this.vote;
+    }
+
+    NightkillCommand nightkill() {
+        return this.nightkill;
+    }
+
+    ShootCommand shoot() {
+        return this.shoot;
+    }
+
+    private static <T extends BaseCommand> T command(Class<T> clazz, String trigger) {
+        T command = mock(clazz);
+        when(command.getTrigger()).thenReturn(trigger);
+        return command;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import net.dv8tion.jda.api.entities.TextChannel;
+import space.npstr.wolfia.commands.BaseCommand;
+import space.npstr.wolfia.commands.TestCommandContexts;
+import space.npstr.wolfia.game.Game;
+import space.npstr.wolfia.game.Player;
+import space.npstr.wolfia.game.definitions.Games;
+import space.npstr.wolfia.game.exceptions.IllegalGameStateException;
+
+/**
+ * Plays one game like its players would: by issuing commands into the game channel. All decisions are drawn from a
+ * seeded random, and the game rands its characters and tie breaks from a seeded random of its own.
+ */
+class SimulatedGame {
+
+    private final Game game;
+    private final Games gameType;
+    private final TextChannel channel;
+    private final Random random;
+    private final SimulatedCommands commands;
+    private final FakeDiscord discord;
+    private final SimulationReport report;
+    private final List<Player> players = new ArrayList<>();
+
+    //mafia: the player that the village agreed to lynch
+    @Nullable
+    private Player lynchTarget;
+    //popcorn: the player that was last seen shooting successfully
+    @Nullable
+    private Player gunBearer;
+
+    SimulatedGame(Game game, Games gameType, TextChannel channel, Random random, SimulatedCommands commands,
+                  FakeDiscord discord, SimulationReport report) {
+        this.game = game;
+        this.gameType = gameType;
+        this.channel = channel;
+        this.random = random;
+        this.commands = commands;
+        this.discord = discord;
+        this.report = report;
+    }
+
+    /**
+     * Call this once the game has been started, to look up the characters that were randed for the players.
+     */
+    void seated(List<Long> userIds) throws IllegalGameStateException {
+        for (long userId : userIds) {
+            this.players.add(this.game.getPlayer(this.discord.user(userId)));
+        }
+    }
+
+    Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * Let one player act.
+     */
+    void tick() {
+        List<Player> living = this.players.stream()
+                .filter(Player::isAlive)
+                .collect(Collectors.toList());
+        if (living.size() < 2) {
+            return;
+        }
+        if (this.gameType == Games.MAFIA) {
+            tickMafia(living);
+        } else {
+            tickPopcorn(living);
+        }
+    }
+
+    // everyone votes the same player, so days end by majority. when voting fails it's probably night, so let the
+    // wolves vote for a nightkill instead
+    private void tickMafia(List<Player> living) {
+        if (this.lynchTarget == null || this.lynchTarget.isDead()) {
+            this.lynchTarget = pick(living);
+        }
+        Player voter = pick(living);
+        if (issue(this.commands.vote(), voter, this.lynchTarget)) {
+            return;
+        }
+
+        List<Player> wolves = living.stream().filter(Player::isBaddie).collect(Collectors.toList());
+        List<Player> village = living.stream().filter(Player::isGoodie).collect(Collectors.toList());
+        if (!wolves.isEmpty() && !village.isEmpty()) {
+            issue(this.commands.nightkill(), pick(wolves), pick(village));
+        }
+    }
+
+    // players don't know who holds the gun until they see it being used, so they try until someone succeeds
+    private void tickPopcorn(List<Player> living) {
+        Player shooter = this.gunBearer != null && this.gunBearer.isAlive() ? this.gunBearer : pick(living);
+        List<Player> targets = new ArrayList<>(living);
+        targets.remove(shooter);
+        Player target = pick(targets);
+        if (issue(this.commands.shoot(), shooter, target)) {
+            //shooting a villager hands the gun to them
+            this.gunBearer = target.isBaddie() ? shooter : target;
+        } else {
+            this.gunBearer = null;
+        }
+    }
+
+    private boolean issue(BaseCommand command, Player actor, Player target) {
+        long started = System.nanoTime();
+        boolean accepted;
+        try {
+            accepted = this.game.issueCommand(TestCommandContexts.create(
+                    this.discord.messageReceived(this.channel, actor.userId), command, Integer.toString(target.number)));
+        } catch (IllegalGameStateException e) {
+            accepted = false;
+        }
+        this.report.command(command.getTrigger(), System.nanoTime() - started, accepted);
+        return accepted;
+    }
+
+    private Player pick(List<Player> players) {
+        return players.get(this.random.nextInt(players.size()));
+    }
+}
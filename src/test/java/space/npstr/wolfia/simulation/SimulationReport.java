@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.simulation;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import space.npstr.wolfia.domain.stats.ActionStats;
+import space.npstr.wolfia.domain.stats.GameStats;
+
+/**
+ * Collects the numbers of a simulation run: throughput, phase durations, command latencies, allocations and heap.
+ * <p>
+ * The Discord entities of the simulation are Mockito mocks, so the heap and allocation figures include the overhead of
+ * those mocks and their stubbed answers. They are useful to compare runs with each other, not as absolute numbers of
+ * what a game costs in production.
+ */
+public class SimulationReport {
+
+    private final Map<String, Queue<Long>> phaseMillis = new ConcurrentHashMap<>();
+    private final Map<String, Queue<Long>> commandNanos = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> rejectedCommands = new ConcurrentHashMap<>();
+    private final Queue<Long> startNanos = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger endedGames = new AtomicInteger();
+    private final AtomicInteger failedStarts = new AtomicInteger();
+
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    private final AllocationSampler allocations = new AllocationSampler();
+    private long baselineHeap;
+    private long startedHeap;
+    private int startedGames;
+    private long startedMillis;
+    private long finishedMillis;
+
+    public void begin() {
+        this.baselineHeap = usedHeapAfterGc();
+        this.allocations.start();
+        this.startedMillis = System.currentTimeMillis();
+    }
+
+    public void allStarted(int startedGames) {
+        this.startedGames = startedGames;
+        this.startedHeap = usedHeapAfterGc();
+    }
+
+    public void finish() {
+        this.finishedMillis = System.currentTimeMillis();
+        this.allocations.stop();
+    }
+
+    public void gameStarted(long nanos) {
+        this.startNanos.add(nanos);
+    }
+
+    public void gameFailedToStart() {
+        this.failedStarts.incrementAndGet();
+    }
+
+    public void command(String trigger, long nanos, boolean accepted) {
+        this.commandNanos.computeIfAbsent(trigger, __ -> new ConcurrentLinkedQueue<>()).add(nanos);
+        if (!accepted) {
+            this.rejectedCommands.computeIfAbsent(trigger, __ -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Record the phases of a game from the actions in its final stats.
+     */
+    public void gameEnded(GameStats gameStats) {
+        this.endedGames.incrementAndGet();
+        List<ActionStats> actions = new ArrayList<>(gameStats.getActions());
+        actions.sort(Comparator.comparingInt(ActionStats::getOrder));
+        String game = gameStats.getGameType().textRep + " " + gameStats.getGameMode().textRep;
+        long phaseStarted = -1;
+        for (ActionStats action : actions) {
+            switch (action.getActionType()) {
+                case DAYSTART:
+                case NIGHTSTART:
+                    phaseStarted = action.getTimeStampHappened();
+                    break;
+                case DAYEND:
+                case NIGHTEND:
+                    if (phaseStarted > 0) {
+                        this.phaseMillis.computeIfAbsent(game + " " + action.getPhase().textRep,
+                                __ -> new ConcurrentLinkedQueue<>())
+                                .add(action.getTimeStampHappened() - phaseStarted);
+                    }
+                    phaseStarted = -1;
+                    break;
+                default:
+                    break;
+            }
+        }
+        this.phaseMillis.computeIfAbsent(game + " Game", __ -> new ConcurrentLinkedQueue<>())
+                .add(gameStats.getEndTime() - gameStats.getStartTime());
+    }
+
+    public int getEndedGames() {
+        return this.endedGames.get();
+    }
+
+    public int getFailedStarts() {
+        return this.failedStarts.get();
+    }
+
+    public String format(FakeDiscord discord) {
+        double seconds = Math.max(1, this.finishedMillis - this.startedMillis) / 1000.0;
+        long allocatedBytes = this.allocations.getAllocatedBytes();
+        StringBuilder out = new StringBuilder("\n===== Game simulation =====\n");
+        out.append(String.format("Games started: %d, failed to start: %d, ended: %d in %.1fs%n",
+                this.startedGames, getFailedStarts(), getEndedGames(), seconds));
+        out.append(String.format("Throughput: %.2f games/s%n", getEndedGames() / seconds));
+        out.append("Heap and allocations include the overhead of the mocked Discord entities\n");
+        out.append(String.format("Heap per running game: %s%n",
+                this.startedGames == 0 ? "n/a" : bytes((this.startedHeap - this.baselineHeap) / this.startedGames)));
+        out.append(String.format("Allocation rate: %s/s, %s per game%n", bytes((long) (allocatedBytes / seconds)),
+                this.startedGames == 0 ? "n/a" : bytes(allocatedBytes / this.startedGames)));
+        out.append(String.format("Discord: %d messages sent, %d edited, %d rest actions%n",
+                discord.getSentMessages(), discord.getEditedMessages(), discord.getRestActions()));
+        out.append(String.format("Game start: %s%n", percentiles(this.startNanos, 1_000_000, "ms")));
+        out.append("Phase durations:\n");
+        this.phaseMillis.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> out.append(String.format("  %-20s %s%n", e.getKey(), percentiles(e.getValue(), 1000, "s"))));
+        out.append("Command latencies:\n");
+        this.commandNanos.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> out.append(String.format("  %-20s %s, %d rejected%n", e.getKey(),
+                        percentiles(e.getValue(), 1_000_000, "ms"),
+                        this.rejectedCommands.getOrDefault(e.getKey(), new AtomicInteger()).get())));
+        return out.toString();
+    }
+
+    private long usedHeapAfterGc() {
+        System.gc();
+        return this.memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static String percentiles(Queue<Long> values, double divisor, String unit) {
+        List<Long> sorted = new ArrayList<>(values);
+        if (sorted.isEmpty()) {
+            return "n/a";
+        }
+        sorted.sort(Comparator.naturalOrder());
+        return String.format("n=%d p50=%.2f%s p99=%.2f%s max=%.2f%s", sorted.size(),
+                percentile(sorted, 0.50) / divisor, unit,
+                percentile(sorted, 0.99) / divisor, unit,
+                sorted.get(sorted.size() - 1) / divisor, unit);
+    }
+
+    private static long percentile(List<Long> sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes < 1024) return bytes + "B";
+        if (bytes < 1024 * 1024) return String.format("%.1fKiB", bytes / 1024.0);
+        return String.format("%.1fMiB", bytes / (1024.0 * 1024.0));
+    }
+
+    /**
+     * Sums up the bytes allocated by all threads. Threads are sampled periodically, so that the allocations of threads
+     * that die during the run, like the executors of ended games, are counted up to their last sample.
+     */
+    private static class AllocationSampler {
+
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final Map<Long, Long> baseline = new HashMap<>();
+        private final Map<Long, Long> lastSeen = new ConcurrentHashMap<>();
+        private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "simulation-allocation-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private void start() {
+            if (!isSupported()) {
+                return;
+            }
+            this.baseline.putAll(sample());
+            this.sampler.scheduleAtFixedRate(() -> this.lastSeen.putAll(sample()), 0, 100, TimeUnit.MILLISECONDS);
+        }
+
+        private void stop() {
+            this.sampler.shutdownNow();
+            if (isSupported()) {
+                this.lastSeen.putAll(sample());
+            }
+        }
+
+        private long getAllocatedBytes() {
+            long total = 0;
+            for (Map.Entry<Long, Long> entry : this.lastSeen.entrySet()) {
+                total += entry.getValue() - this.baseline.getOrDefault(entry.getKey(), 0L);
+            }
+            return total;
+        }
+
+        private boolean isSupported() {
+            return this.threads instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) this.threads).isThreadAllocatedMemorySupported();
+        }
+
+        private Map<Long, Long> sample() {
+            com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) this.threads;
+            long[] ids = threadBean.getAllThreadIds();
+            long[] allocated = threadBean.getThreadAllocatedBytes(ids);
+            Map<Long, Long> sample = new HashMap<>();
+            for (int i = 0; i < ids.length; i++) {
+                if (allocated[i] >= 0) {
+                    sample.put(ids[i], allocated[i]);
+                }
+            }
+            return sample;
+        }
+    }
+}
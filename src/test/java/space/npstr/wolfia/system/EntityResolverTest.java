@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package space.npstr.wolfia.system;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.TextChannel;
+import net.dv8tion.jda.api.events.channel.text.TextChannelCreateEvent;
+import net.dv8tion.jda.api.events.guild.GuildAvailableEvent;
+import net.dv8tion.jda.api.events.guild.GuildReadyEvent;
+import net.dv8tion.jda.api.sharding.ShardManager;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+
+class EntityResolverTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final ShardManager shardManager = mock(ShardManager.class);
+    private final EntityResolver entityResolver = new EntityResolver(this.shardManager);
+
+    @Test
+    void givenCachedGuild_completeRightAway() {
+        long guildId = uniqueLong();
+        Guild guild = mock(Guild.class);
+        when(this.shardManager.getGuildById(eq(guildId))).thenReturn(guild);
+
+        CompletableFuture<Guild> resolved = this.entityResolver.resolveGuild(guildId, TIMEOUT);
+
+        assertThat(resolved).isCompletedWithValue(guild);
+    }
+
+    @Test
+    void givenGuildMissing_completeWhenItBecomesReady() {
+        long guildId = uniqueLong();
+        Guild guild = guild(guildId);
+
+        CompletableFuture<Guild> resolved = this.entityResolver.resolveGuild(guildId, TIMEOUT);
+        assertThat(resolved).isNotDone();
+
+        GuildReadyEvent event = mock(GuildReadyEvent.class);
+        when(event.getGuild()).thenReturn(guild);
+        this.entityResolver.onGuildReady(event);
+
+        assertThat(resolved).isCompletedWithValue(guild);
+    }
+
+    @Test
+    void givenChannelMissing_completeWhenItsGuildBecomesAvailable() {
+        long channelId = uniqueLong();
+        TextChannel textChannel = mock(TextChannel.class);
+        Guild guild = guild(uniqueLong());
+        when(guild.getTextChannelById(eq(channelId))).thenReturn(textChannel);
+
+        CompletableFuture<TextChannel> resolved = this.entityResolver.resolveTextChannel(channelId, TIMEOUT);
+        CompletableFuture<TextChannel> other = this.entityResolver.resolveTextChannel(uniqueLong(), TIMEOUT);
+
+        GuildAvailableEvent event = mock(GuildAvailableEvent.class);
+        when(event.getGuild()).thenReturn(guild);
+        this.entityResolver.onGuildAvailable(event);
+
+        assertThat(resolved).isCompletedWithValue(textChannel);
+        assertThat(other).isNotDone();
+    }
+
+    @Test
+    void givenChannelMissing_completeAllWaitersWhenItIsCreated() {
+        long channelId = uniqueLong();
+        TextChannel textChannel = mock(TextChannel.class);
+        when(textChannel.getIdLong()).thenReturn(channelId);
+
+        CompletableFuture<TextChannel> first = this.entityResolver.resolveTextChannel(channelId, TIMEOUT);
+        CompletableFuture<TextChannel> second = this.entityResolver.resolveTextChannel(channelId, TIMEOUT);
+
+        TextChannelCreateEvent event = mock(TextChannelCreateEvent.class);
+        when(event.getChannel()).thenReturn(textChannel);
+        this.entityResolver.onTextChannelCreate(event);
+
+        assertThat(first).isCompletedWithValue(textChannel);
+        assertThat(second).isCompletedWithValue(textChannel);
+    }
+
+    @Test
+    void givenGuildNeverShowsUp_failWithTimeout() {
+        CompletableFuture<Guild> resolved = this.entityResolver.resolveGuild(uniqueLong(), Duration.ofMillis(50));
+
+        assertThatThrownBy(resolved::join)
+                .isInstanceOf(CompletionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    private static Guild guild(long guildId) {
+        Guild guild = mock(Guild.class);
+        when(guild.getIdLong()).thenReturn(guildId);
+        return guild;
+    }
+}
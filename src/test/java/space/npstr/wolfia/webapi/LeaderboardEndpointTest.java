@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016-2020 the original author or authors
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package space.npstr.wolfia.webapi;
+
+import org.junit.jupiter.api.Test;
+import space.npstr.wolfia.ApplicationTest;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static space.npstr.wolfia.TestUtil.uniqueLong;
+
+class LeaderboardEndpointTest extends ApplicationTest {
+
+    @Test
+    void whenGet_returnsFirstPage() throws Exception {
+        mockMvc.perform(get("/public/leaderboard/wolves"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.leaderboard").value("BADDIE_WIN_RATE"))
+                .andExpect(jsonPath("$.page").value(1))
+                .andExpect(jsonPath("$.entries").isArray());
+    }
+
+    @Test
+    void whenGetWithGuildIdAndPage_returnsThatPageOfTheGuild() throws Exception {
+        long guildId = uniqueLong();
+        mockMvc.perform(get("/public/leaderboard/wins?guild_id={guildId}&page=2", guildId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.guildId").value(guildId))
+                .andExpect(jsonPath("$.page").value(2))
+                .andExpect(jsonPath("$.entries").isEmpty())
+                .andExpect(jsonPath("$.hasNextPage").value(false));
+    }
+
+    @Test
+    void whenGetUnknownLeaderboard_notFound() throws Exception {
+        mockMvc.perform(get("/public/leaderboard/foo"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void whenGetPageOutOfRange_badRequest() throws Exception {
+        mockMvc.perform(get("/public/leaderboard/wins?page=0"))
+                .andExpect(status().isBadRequest());
+    }
+}